@@ -0,0 +1,65 @@
+package de.jklein.fabric.benchmark;
+
+import com.google.protobuf.ByteString;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.hyperledger.fabric.protos.msp.SerializedIdentity;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Erzeugt selbstsignierte Zertifikate mit dem Attribut-Extension-Format der Fabric CA, damit ClientIdentity
+// die Rolle genauso ausliest wie im Netzwerk.
+public final class BenchmarkIdentities {
+
+    public static final String MSP_ID = "PharmaLinkMSP";
+
+    private static final String FABRIC_CERT_ATTR_OID = "1.2.3.4.5.6.7.8.1";
+    private static final long VALIDITY_DAYS = 365;
+    private static final AtomicLong SERIAL = new AtomicLong(1);
+
+    private BenchmarkIdentities() {
+    }
+
+    public static byte[] serializedIdentity(final String commonName, final String role) {
+        try {
+            final KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            final KeyPair keyPair = generator.generateKeyPair();
+
+            final X500Name subject = new X500Name("CN=" + commonName + ",O=" + MSP_ID);
+            final Date notBefore = new Date();
+            final Date notAfter = new Date(notBefore.getTime() + TimeUnit.DAYS.toMillis(VALIDITY_DAYS));
+            final X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(subject,
+                    BigInteger.valueOf(SERIAL.getAndIncrement()), notBefore, notAfter, subject, keyPair.getPublic());
+            final String attributes = "{\"attrs\":{\"role\":\"" + role + "\"}}";
+            builder.addExtension(new ASN1ObjectIdentifier(FABRIC_CERT_ATTR_OID), false, attributes.getBytes(StandardCharsets.UTF_8));
+
+            final StringWriter pem = new StringWriter();
+            try (JcaPEMWriter writer = new JcaPEMWriter(pem)) {
+                writer.writeObject(builder.build(new JcaContentSignerBuilder("SHA256withECDSA").build(keyPair.getPrivate())));
+            }
+            return SerializedIdentity.newBuilder()
+                    .setMspid(MSP_ID)
+                    .setIdBytes(ByteString.copyFromUtf8(pem.toString()))
+                    .build()
+                    .toByteArray();
+        } catch (GeneralSecurityException | OperatorCreationException | IOException e) {
+            throw new IllegalStateException("Benchmark-Identität konnte nicht erzeugt werden", e);
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package de.jklein.fabric.benchmark;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.hyperledger.fabric.protos.msp.SerializedIdentity;
+import org.hyperledger.fabric.protos.peer.ChaincodeEvent;
+import org.hyperledger.fabric.protos.peer.QueryResponseMetadata;
+import org.hyperledger.fabric.protos.peer.SignedProposal;
+import org.hyperledger.fabric.shim.Chaincode;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+// Ledger im Speicher für Benchmarks: Lesezugriffe sehen wie bei Fabric nur den festgeschriebenen Stand,
+// Schreibzugriffe landen im Write-Set der laufenden Transaktion und werden erst mit commit() übernommen.
+public final class InMemoryChaincodeStub implements ChaincodeStub {
+
+    private static final String MAX_UNICODE_RUNE = "\udbff\udfff";
+    private static final long GENESIS_EPOCH_SECOND = 1_750_000_000L;
+
+    private final NavigableMap<String, byte[]> committedState = new TreeMap<>();
+    private final Set<String> readSet = new HashSet<>();
+    // Ein Eintrag mit Wert null steht für ein Löschen des Schlüssels.
+    private final Map<String, byte[]> writeSet = new TreeMap<>();
+    private final String channelId;
+
+    private long txSequence;
+    private String txId;
+    private byte[] creator;
+    private String mspId;
+    private ChaincodeEvent event;
+
+    public InMemoryChaincodeStub(final String channelId) {
+        this.channelId = channelId;
+    }
+
+    public void beginTransaction(final byte[] newCreator) {
+        txSequence++;
+        txId = String.format("tx-%016x", txSequence);
+        creator = newCreator;
+        try {
+            mspId = SerializedIdentity.parseFrom(newCreator).getMspid();
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalArgumentException("Ungültige Identität für die Transaktion", e);
+        }
+        readSet.clear();
+        writeSet.clear();
+        event = null;
+    }
+
+    public void commit() {
+        for (final Map.Entry<String, byte[]> entry : writeSet.entrySet()) {
+            if (entry.getValue() == null) {
+                committedState.remove(entry.getKey());
+            } else {
+                committedState.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    public int readSetSize() {
+        return readSet.size();
+    }
+
+    public int writeSetSize() {
+        return writeSet.size();
+    }
+
+    public long writeSetBytes() {
+        long bytes = 0;
+        for (final Map.Entry<String, byte[]> entry : writeSet.entrySet()) {
+            bytes += entry.getKey().length() + (entry.getValue() == null ? 0 : entry.getValue().length);
+        }
+        return bytes;
+    }
+
+    public int stateSize() {
+        return committedState.size();
+    }
+
+    @Override
+    public List<byte[]> getArgs() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<String> getStringArgs() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getFunction() {
+        return null;
+    }
+
+    @Override
+    public List<String> getParameters() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getTxId() {
+        return txId;
+    }
+
+    @Override
+    public String getChannelId() {
+        return channelId;
+    }
+
+    @Override
+    public Chaincode.Response invokeChaincode(final String chaincodeName, final List<byte[]> args, final String channel) {
+        throw unsupported("invokeChaincode");
+    }
+
+    @Override
+    public byte[] getState(final String key) {
+        readSet.add(key);
+        final byte[] value = committedState.get(key);
+        return value == null ? new byte[0] : value;
+    }
+
+    @Override
+    public byte[] getStateValidationParameter(final String key) {
+        throw unsupported("getStateValidationParameter");
+    }
+
+    @Override
+    public void putState(final String key, final byte[] value) {
+        Objects.requireNonNull(key, "key");
+        if (value == null || value.length == 0) {
+            writeSet.put(key, null);
+        } else {
+            writeSet.put(key, value.clone());
+        }
+    }
+
+    @Override
+    public void setStateValidationParameter(final String key, final byte[] value) {
+        throw unsupported("setStateValidationParameter");
+    }
+
+    @Override
+    public void delState(final String key) {
+        writeSet.put(key, null);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByRange(final String startKey, final String endKey) {
+        CompositeKey.validateSimpleKeys(startKey, endKey);
+        return scan(startKey, endKey, Integer.MAX_VALUE, "");
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByRangeWithPagination(final String startKey, final String endKey,
+                                                                                      final int pageSize, final String bookmark) {
+        CompositeKey.validateSimpleKeys(startKey, endKey);
+        return scan(startKey, endKey, pageSize, bookmark);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String compositeKey) {
+        final String prefix = compositeKey == null || compositeKey.isEmpty() ? CompositeKey.NAMESPACE : compositeKey;
+        return scan(prefix, prefix + MAX_UNICODE_RUNE, Integer.MAX_VALUE, "");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String objectType, final String... attributes) {
+        return getStateByPartialCompositeKey(createCompositeKey(objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final CompositeKey compositeKey) {
+        return getStateByPartialCompositeKey(compositeKey.toString());
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByPartialCompositeKeyWithPagination(final CompositeKey compositeKey,
+                                                                                                    final int pageSize, final String bookmark) {
+        final String prefix = compositeKey.toString();
+        return scan(prefix, prefix + MAX_UNICODE_RUNE, pageSize, bookmark);
+    }
+
+    @Override
+    public CompositeKey createCompositeKey(final String objectType, final String... attributes) {
+        return new CompositeKey(objectType, attributes);
+    }
+
+    @Override
+    public CompositeKey splitCompositeKey(final String compositeKey) {
+        return CompositeKey.parseCompositeKey(compositeKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getQueryResult(final String query) {
+        return select(query, Integer.MAX_VALUE, "");
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getQueryResultWithPagination(final String query, final int pageSize, final String bookmark) {
+        return select(query, pageSize, bookmark);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyModification> getHistoryForKey(final String key) {
+        throw unsupported("getHistoryForKey");
+    }
+
+    @Override
+    public byte[] getPrivateData(final String collection, final String key) {
+        throw unsupported("getPrivateData");
+    }
+
+    @Override
+    public byte[] getPrivateDataHash(final String collection, final String key) {
+        throw unsupported("getPrivateDataHash");
+    }
+
+    @Override
+    public byte[] getPrivateDataValidationParameter(final String collection, final String key) {
+        throw unsupported("getPrivateDataValidationParameter");
+    }
+
+    @Override
+    public void putPrivateData(final String collection, final String key, final byte[] value) {
+        throw unsupported("putPrivateData");
+    }
+
+    @Override
+    public void setPrivateDataValidationParameter(final String collection, final String key, final byte[] value) {
+        throw unsupported("setPrivateDataValidationParameter");
+    }
+
+    @Override
+    public void delPrivateData(final String collection, final String key) {
+        throw unsupported("delPrivateData");
+    }
+
+    @Override
+    public void purgePrivateData(final String collection, final String key) {
+        throw unsupported("purgePrivateData");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByRange(final String collection, final String startKey, final String endKey) {
+        throw unsupported("getPrivateDataByRange");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection, final String compositeKey) {
+        throw unsupported("getPrivateDataByPartialCompositeKey");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection, final CompositeKey compositeKey) {
+        throw unsupported("getPrivateDataByPartialCompositeKey");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection, final String objectType,
+                                                                              final String... attributes) {
+        throw unsupported("getPrivateDataByPartialCompositeKey");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataQueryResult(final String collection, final String query) {
+        throw unsupported("getPrivateDataQueryResult");
+    }
+
+    @Override
+    public void setEvent(final String name, final byte[] payload) {
+        event = ChaincodeEvent.newBuilder()
+                .setEventName(name)
+                .setTxId(txId)
+                .setPayload(ByteString.copyFrom(payload))
+                .build();
+    }
+
+    @Override
+    public ChaincodeEvent getEvent() {
+        return event;
+    }
+
+    @Override
+    public SignedProposal getSignedProposal() {
+        throw unsupported("getSignedProposal");
+    }
+
+    @Override
+    public Instant getTxTimestamp() {
+        return Instant.ofEpochSecond(GENESIS_EPOCH_SECOND + txSequence);
+    }
+
+    @Override
+    public byte[] getCreator() {
+        return creator;
+    }
+
+    @Override
+    public Map<String, byte[]> getTransient() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public byte[] getBinding() {
+        throw unsupported("getBinding");
+    }
+
+    @Override
+    public String getMspId() {
+        return mspId;
+    }
+
+    // Wie bei Fabric ist das Lesezeichen der Schlüssel, mit dem die nächste Seite beginnt; "" markiert das Ende.
+    private PagedResults scan(final String startKey, final String endKey, final int pageSize, final String bookmark) {
+        final String from = bookmark == null || bookmark.isEmpty() ? startKey : bookmark;
+        final NavigableMap<String, byte[]> range;
+        if (endKey == null || endKey.isEmpty()) {
+            range = committedState.tailMap(from, true);
+        } else {
+            range = committedState.subMap(from, true, endKey, false);
+        }
+        final List<KeyValue> page = new ArrayList<>();
+        String nextBookmark = "";
+        for (final Map.Entry<String, byte[]> entry : range.entrySet()) {
+            if (page.size() == pageSize) {
+                nextBookmark = entry.getKey();
+                break;
+            }
+            readSet.add(entry.getKey());
+            page.add(new LedgerKeyValue(entry.getKey(), entry.getValue()));
+        }
+        return new PagedResults(page, nextBookmark);
+    }
+
+    // Unterstützt einfache CouchDB-Selektoren mit Gleichheitsvergleichen und $regex auf Felder der obersten Ebene.
+    private PagedResults select(final String query, final int pageSize, final String bookmark) {
+        final JSONObject selector = new JSONObject(query).getJSONObject("selector");
+        final String from = bookmark == null || bookmark.isEmpty() ? "" : bookmark;
+        final List<KeyValue> page = new ArrayList<>();
+        String nextBookmark = "";
+        for (final Map.Entry<String, byte[]> entry : committedState.tailMap(from, true).entrySet()) {
+            if (entry.getKey().startsWith(CompositeKey.NAMESPACE) || !matches(selector, entry.getValue())) {
+                continue;
+            }
+            if (page.size() == pageSize) {
+                nextBookmark = entry.getKey();
+                break;
+            }
+            page.add(new LedgerKeyValue(entry.getKey(), entry.getValue()));
+        }
+        return new PagedResults(page, nextBookmark);
+    }
+
+    private static boolean matches(final JSONObject selector, final byte[] value) {
+        final JSONObject document;
+        try {
+            document = new JSONObject(new String(value, StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            return false;
+        }
+        for (final String field : selector.keySet()) {
+            final Object expected = selector.get(field);
+            final Object actual = document.opt(field);
+            if (actual == null) {
+                return false;
+            }
+            if (expected instanceof JSONObject && ((JSONObject) expected).has("$regex")) {
+                if (!Pattern.compile(((JSONObject) expected).getString("$regex")).matcher(actual.toString()).find()) {
+                    return false;
+                }
+            } else if (!Objects.equals(expected.toString(), actual.toString())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static UnsupportedOperationException unsupported(final String operation) {
+        return new UnsupportedOperationException(operation + " wird vom In-Memory-Stub nicht unterstützt.");
+    }
+
+    private static final class LedgerKeyValue implements KeyValue {
+        private final String key;
+        private final byte[] value;
+
+        LedgerKeyValue(final String key, final byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value;
+        }
+
+        @Override
+        public String getStringValue() {
+            return new String(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class PagedResults implements QueryResultsIterator<KeyValue>, QueryResultsIteratorWithMetadata<KeyValue> {
+        private final List<KeyValue> results;
+        private final QueryResponseMetadata metadata;
+
+        PagedResults(final List<KeyValue> results, final String bookmark) {
+            this.results = results;
+            this.metadata = QueryResponseMetadata.newBuilder()
+                    .setFetchedRecordsCount(results.size())
+                    .setBookmark(bookmark)
+                    .build();
+        }
+
+        @Override
+        public QueryResponseMetadata getMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public Iterator<KeyValue> iterator() {
+            return results.iterator();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
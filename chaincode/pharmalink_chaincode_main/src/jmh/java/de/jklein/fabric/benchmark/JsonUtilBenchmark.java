@@ -0,0 +1,71 @@
+package de.jklein.fabric.benchmark;
+
+import com.owlike.genson.Genson;
+import de.jklein.fabric.models.Charge;
+import de.jklein.fabric.utils.JsonUtil;
+import de.jklein.fabric.utils.UnitIdUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Vergleicht Genson (String-Umweg wie vor den Codecs) mit den byte[]-Codecs aus JsonUtil für einen
+// Chargen-Datensatz, dessen Eigentum in Blöcke zu zehn Einheiten zersplittert ist.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JsonUtilBenchmark {
+
+    private static final int SEGMENT_LENGTH = 10;
+    private static final String MED_ID = "MED-" + "0".repeat(64);
+    private static final String CHARGE_BEZEICHNUNG = "CH-JSON";
+    private static final Genson GENSON = new Genson();
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    private int unitCount;
+
+    private Charge charge;
+    private byte[] chargeJson;
+
+    @Setup(Level.Trial)
+    public final void setUp() {
+        charge = new Charge(UnitIdUtil.chargeKey(MED_ID, CHARGE_BEZEICHNUNG), MED_ID, CHARGE_BEZEICHNUNG, "hersteller-benchmark");
+        charge.addRange(1, unitCount, LedgerFixture.IPFS_LINK, "hersteller-benchmark");
+        for (int start = 1; start <= unitCount; start += 2 * SEGMENT_LENGTH) {
+            charge.reassign(start, Math.min(start + SEGMENT_LENGTH - 1, unitCount), "grosshaendler-benchmark");
+        }
+        chargeJson = JsonUtil.toJsonBytes(charge);
+    }
+
+    // Genson: Serialisierung in einen String und anschließendes UTF-8-Encoding.
+    @Benchmark
+    public final byte[] gensonSerializeCharge() {
+        return GENSON.serialize(charge).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Genson: UTF-8-Decoding in einen String und anschließende Deserialisierung.
+    @Benchmark
+    public final Charge gensonDeserializeCharge() {
+        return GENSON.deserialize(new String(chargeJson, StandardCharsets.UTF_8), Charge.class);
+    }
+
+    // Codec: schreibt die Felder direkt in einen byte[]-Puffer.
+    @Benchmark
+    public final byte[] codecSerializeCharge() {
+        return JsonUtil.toJsonBytes(charge);
+    }
+
+    // Codec: liest die Felder direkt aus den Zustandsbytes.
+    @Benchmark
+    public final Charge codecDeserializeCharge() {
+        return JsonUtil.fromJsonBytes(chargeJson, Charge.class);
+    }
+}
@@ -0,0 +1,49 @@
+package de.jklein.fabric.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Zusatzzähler je Iteration: geteilt durch "transactions" ergeben sie die Read-/Write-Set-Größe pro Aufruf.
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class LedgerCounters {
+
+    private long transactions;
+    private long readKeys;
+    private long writtenKeys;
+    private long writtenBytes;
+
+    @Setup(Level.Iteration)
+    public final void reset() {
+        transactions = 0;
+        readKeys = 0;
+        writtenKeys = 0;
+        writtenBytes = 0;
+    }
+
+    public final void record(final InMemoryChaincodeStub stub) {
+        transactions++;
+        readKeys += stub.readSetSize();
+        writtenKeys += stub.writeSetSize();
+        writtenBytes += stub.writeSetBytes();
+    }
+
+    public final long transactions() {
+        return transactions;
+    }
+
+    public final long readKeys() {
+        return readKeys;
+    }
+
+    public final long writtenKeys() {
+        return writtenKeys;
+    }
+
+    public final long writtenBytes() {
+        return writtenBytes;
+    }
+}
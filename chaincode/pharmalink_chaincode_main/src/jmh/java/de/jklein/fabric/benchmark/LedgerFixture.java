@@ -0,0 +1,68 @@
+package de.jklein.fabric.benchmark;
+
+import de.jklein.fabric.PharmaSupplyChainContract;
+import de.jklein.fabric.models.Actor;
+import de.jklein.fabric.models.Medikament;
+import de.jklein.fabric.utils.JsonUtil;
+import org.hyperledger.fabric.contract.Context;
+
+import java.util.function.Function;
+
+// Vorbereiteter Ledger mit registrierter Behörde, Hersteller und Großhändler; jede Transaktion läuft
+// über einen frischen Kontext und wird nur bei Erfolg festgeschrieben.
+public final class LedgerFixture {
+
+    public static final String IPFS_LINK = "QmBenchmark";
+
+    private final PharmaSupplyChainContract contract = new PharmaSupplyChainContract();
+    private final InMemoryChaincodeStub stub = new InMemoryChaincodeStub("pharmalink-benchmark");
+    private final byte[] behoerde = BenchmarkIdentities.serializedIdentity("behoerde-benchmark", "behoerde");
+    private final byte[] hersteller = BenchmarkIdentities.serializedIdentity("hersteller-benchmark", "hersteller");
+    private final byte[] grosshaendler = BenchmarkIdentities.serializedIdentity("grosshaendler-benchmark", "grosshaendler");
+    private final String herstellerId;
+    private final String grosshaendlerId;
+
+    public LedgerFixture() {
+        submit(behoerde, contract::initCall);
+        this.herstellerId = JsonUtil.fromJson(submit(hersteller, contract::initCall), Actor.class).getActorId();
+        this.grosshaendlerId = JsonUtil.fromJson(submit(grosshaendler, contract::initCall), Actor.class).getActorId();
+    }
+
+    public <T> T submit(final byte[] creator, final Function<Context, T> transaction) {
+        stub.beginTransaction(creator);
+        final T result = transaction.apply(contract.createContext(stub));
+        stub.commit();
+        return result;
+    }
+
+    public String createApprovedMedikament(final String bezeichnung) {
+        final String medikamentJson = submit(hersteller, ctx -> contract.createMedikament(ctx, bezeichnung, "hash-" + bezeichnung, IPFS_LINK));
+        final String medId = JsonUtil.fromJson(medikamentJson, Medikament.class).getMedId();
+        submit(behoerde, ctx -> contract.approveMedikament(ctx, medId, "freigegeben"));
+        return medId;
+    }
+
+    public PharmaSupplyChainContract contract() {
+        return contract;
+    }
+
+    public InMemoryChaincodeStub stub() {
+        return stub;
+    }
+
+    public byte[] hersteller() {
+        return hersteller;
+    }
+
+    public byte[] grosshaendler() {
+        return grosshaendler;
+    }
+
+    public String herstellerId() {
+        return herstellerId;
+    }
+
+    public String grosshaendlerId() {
+        return grosshaendlerId;
+    }
+}
@@ -0,0 +1,112 @@
+package de.jklein.fabric.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Misst die Vertragsfunktionen end-to-end gegen den In-Memory-Ledger, inklusive Identitätsauflösung und JSON.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PharmaContractBenchmark {
+
+    private static final int UNITS_PER_CHARGE = 1000;
+    private static final String TRANSFER_CHARGE = "CH-TRANSFER";
+    private static final String FRAGMENTED_CHARGE = "CH-FRAGMENTED";
+    private static final int MAX_FRAGMENTS = 64;
+    private static final String TRANSFER_TIMESTAMP = "2025-07-12T12:00:00Z";
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    private int unitCount;
+
+    private LedgerFixture fixture;
+    private String medId;
+    private int chargeSequence;
+    private boolean heldByGrosshaendler;
+    private int splitStart;
+    private int splitEnd;
+    private boolean splitHeldByGrosshaendler;
+
+    @Setup(Level.Trial)
+    public final void setUp() {
+        fixture = new LedgerFixture();
+        medId = fixture.createApprovedMedikament("Benchmark " + unitCount);
+        fixture.submit(fixture.hersteller(), ctx -> fixture.contract().createUnits(ctx, medId, TRANSFER_CHARGE, unitCount, LedgerFixture.IPFS_LINK));
+        for (int created = 0; created < unitCount; created += UNITS_PER_CHARGE) {
+            final String chargeBezeichnung = "CH-COUNT-" + created;
+            final int size = Math.min(UNITS_PER_CHARGE, unitCount - created);
+            fixture.submit(fixture.hersteller(), ctx -> fixture.contract().createUnits(ctx, medId, chargeBezeichnung, size, LedgerFixture.IPFS_LINK));
+        }
+        fragmentCharge();
+    }
+
+    // Gibt die erste Einheit jedes Blocks an den Großhändler ab, sodass die Charge aus bis zu 2 * MAX_FRAGMENTS Segmenten besteht.
+    // Der Teilbereich für transferSplitRange liegt im mittleren Block und zerlegt dessen Segment beim Hinweg in drei Teile.
+    private void fragmentCharge() {
+        fixture.submit(fixture.hersteller(), ctx -> fixture.contract().createUnits(ctx, medId, FRAGMENTED_CHARGE, unitCount, LedgerFixture.IPFS_LINK));
+        final int fragments = Math.max(1, Math.min(MAX_FRAGMENTS, unitCount / 4));
+        final int blockSize = unitCount / fragments;
+        final StringBuilder ranges = new StringBuilder();
+        for (int block = 0; block < fragments; block++) {
+            final int head = block * blockSize + 1;
+            ranges.append(block == 0 ? "" : ",")
+                    .append("{\"medId\":\"").append(medId).append("\",\"chargeBezeichnung\":\"").append(FRAGMENTED_CHARGE)
+                    .append("\",\"start\":").append(head).append(",\"end\":").append(head).append('}');
+        }
+        final String instructionsJson = "[{\"toActorId\":\"" + fixture.grosshaendlerId() + "\",\"unitIds\":[],\"ranges\":[" + ranges + "]}]";
+        fixture.submit(fixture.hersteller(), ctx -> fixture.contract().transferUnits(ctx, instructionsJson, TRANSFER_TIMESTAMP));
+        final int middleBlockStart = (fragments / 2) * blockSize + 1;
+        splitStart = Math.min(middleBlockStart + 2, unitCount);
+        splitEnd = Math.max(splitStart, middleBlockStart + blockSize - 2);
+    }
+
+    // Legt pro Aufruf eine neue Charge mit unitCount Einheiten an.
+    @Benchmark
+    public final String createUnits(final LedgerCounters counters) {
+        final String chargeBezeichnung = "CH-BENCH-" + chargeSequence++;
+        final String result = fixture.submit(fixture.hersteller(),
+                ctx -> fixture.contract().createUnits(ctx, medId, chargeBezeichnung, unitCount, LedgerFixture.IPFS_LINK));
+        counters.record(fixture.stub());
+        return result;
+    }
+
+    // Überträgt die komplette Charge abwechselnd vom Hersteller zum Großhändler und zurück.
+    @Benchmark
+    public final String transferUnitRange(final LedgerCounters counters) {
+        final byte[] sender = heldByGrosshaendler ? fixture.grosshaendler() : fixture.hersteller();
+        final String receiverId = heldByGrosshaendler ? fixture.herstellerId() : fixture.grosshaendlerId();
+        final String result = fixture.submit(sender,
+                ctx -> fixture.contract().transferUnitRange(ctx, medId, TRANSFER_CHARGE, 1, unitCount, receiverId, TRANSFER_TIMESTAMP));
+        heldByGrosshaendler = !heldByGrosshaendler;
+        counters.record(fixture.stub());
+        return result;
+    }
+
+    // Überträgt einen Teilbereich aus der Mitte eines Segments einer fragmentierten Charge und zurück: Segment teilen bzw. wieder zusammenführen.
+    @Benchmark
+    public final String transferSplitRange(final LedgerCounters counters) {
+        final byte[] sender = splitHeldByGrosshaendler ? fixture.grosshaendler() : fixture.hersteller();
+        final String receiverId = splitHeldByGrosshaendler ? fixture.herstellerId() : fixture.grosshaendlerId();
+        final String result = fixture.submit(sender,
+                ctx -> fixture.contract().transferUnitRange(ctx, medId, FRAGMENTED_CHARGE, splitStart, splitEnd, receiverId, TRANSFER_TIMESTAMP));
+        splitHeldByGrosshaendler = !splitHeldByGrosshaendler;
+        counters.record(fixture.stub());
+        return result;
+    }
+
+    // Summiert die Einheiten aller Chargen des Medikaments über die Delta-Zähler.
+    @Benchmark
+    public final String queryChargeCountsByMedId(final LedgerCounters counters) {
+        final String result = fixture.submit(fixture.hersteller(), ctx -> fixture.contract().queryChargeCountsByMedId(ctx, medId));
+        counters.record(fixture.stub());
+        return result;
+    }
+}
@@ -0,0 +1,75 @@
+package de.jklein.fabric;
+
+import de.jklein.fabric.models.Actor;
+import de.jklein.fabric.utils.MeteredStub;
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Transaktionsbezogener Kontext: merkt sich den aufrufenden Akteur und jeden gelesenen Zustandsschlüssel.
+// Fabric liefert innerhalb einer Transaktion stets den festgeschriebenen Stand (keine eigenen Schreibvorgänge),
+// daher verändert das Zwischenspeichern der Lesevorgänge die Semantik nicht.
+public final class PharmaContext extends Context {
+
+    private static final int MAX_CACHED_CERTIFICATES = 1000;
+    // Über Aufrufe hinweg gültig: die Akteur-ID hängt nur von MSP, Zertifikats-ID und Rollenattribut ab.
+    private static final Map<String, String> ACTOR_ID_BY_CERTIFICATE = new ConcurrentHashMap<>();
+
+    private final Map<String, byte[]> stateCache = new HashMap<>();
+    private final long startNanos = System.nanoTime();
+    private Actor callingActor;
+
+    // Der Stub wird gekapselt, damit Lese- und Schreibzugriffe pro Transaktion gezählt werden können.
+    public PharmaContext(final ChaincodeStub stub) {
+        super(new MeteredStub(stub));
+    }
+
+    public MeteredStub getMeteredStub() {
+        return (MeteredStub) getStub();
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public byte[] getCachedState(final String key) {
+        if (stateCache.containsKey(key)) {
+            return stateCache.get(key);
+        }
+        final byte[] value = getStub().getState(key);
+        stateCache.put(key, value);
+        return value;
+    }
+
+    // Schreibt einen Zustand und macht ihn für weitere Lesevorgänge dieser Transaktion sichtbar; nur für Datensätze,
+    // die im selben Aufruf noch aufgelöst werden müssen (z.B. der Eigentümer eines gerade gepackten Containers).
+    public void putCachedState(final String key, final byte[] value) {
+        getStub().putState(key, value);
+        stateCache.put(key, value);
+    }
+
+    public Actor getCallingActor() {
+        return callingActor;
+    }
+
+    public void setCallingActor(final Actor newCallingActor) {
+        this.callingActor = newCallingActor;
+    }
+
+    public static String actorIdForCertificate(final String certificateKey, final Supplier<String> actorIdSupplier) {
+        final String cachedActorId = ACTOR_ID_BY_CERTIFICATE.get(certificateKey);
+        if (cachedActorId != null) {
+            return cachedActorId;
+        }
+        if (ACTOR_ID_BY_CERTIFICATE.size() >= MAX_CACHED_CERTIFICATES) {
+            ACTOR_ID_BY_CERTIFICATE.clear();
+        }
+        final String actorId = actorIdSupplier.get();
+        ACTOR_ID_BY_CERTIFICATE.put(certificateKey, actorId);
+        return actorId;
+    }
+}
@@ -1,9 +1,24 @@
 package de.jklein.fabric;
 
+import de.jklein.fabric.events.PharmaEvent;
 import de.jklein.fabric.models.Actor;
+import de.jklein.fabric.models.Charge;
+import de.jklein.fabric.models.Container;
 import de.jklein.fabric.models.Medikament;
+import de.jklein.fabric.models.TemperatureBatch;
+import de.jklein.fabric.models.TransferInstruction;
 import de.jklein.fabric.models.Unit;
+import de.jklein.fabric.models.UnitBatchEvent;
+import de.jklein.fabric.models.UnitDispatchEvent;
+import de.jklein.fabric.utils.CompositeIndex;
+import de.jklein.fabric.utils.DeltaCounter;
 import de.jklein.fabric.utils.JsonUtil;
+import de.jklein.fabric.utils.MerkleTree;
+import de.jklein.fabric.utils.NameIndex;
+import de.jklein.fabric.utils.TemperatureLedger;
+import de.jklein.fabric.utils.TransactionMetrics;
+import de.jklein.fabric.utils.UnitHistory;
+import de.jklein.fabric.utils.UnitIdUtil;
 import org.hyperledger.fabric.contract.Context;
 import org.hyperledger.fabric.contract.ContractInterface;
 import org.hyperledger.fabric.contract.annotation.Contract;
@@ -12,15 +27,23 @@ import org.hyperledger.fabric.contract.annotation.Info;
 import org.hyperledger.fabric.contract.annotation.Transaction;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
 import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
 
 @Contract(
         name = "PharmaSupplyChainContract",
@@ -44,29 +67,72 @@ public final class PharmaSupplyChainContract implements ContractInterface {
         UNIT_ALREADY_EXISTS,
         MEDIKAMENT_NOT_APPROVED,
         INVALID_UNIT_OWNER,
-        MEDIKAMENT_HAS_UNITS
+        MEDIKAMENT_HAS_UNITS,
+        CONTAINER_NOT_FOUND,
+        CONTAINER_ALREADY_EXISTS,
+        TEMPERATURE_BATCH_NOT_FOUND,
+        TEMPERATURE_BATCH_ALREADY_EXISTS,
+        UNIT_CONSUMED
     }
 
-    private static final String UNIT_COUNTER_PREFIX = "unitCounter_";
+    // Früherer Zähler je Medikament; wird nicht mehr geschrieben und nur beim Löschen eines Medikaments aufgeräumt.
+    private static final String LEGACY_UNIT_COUNTER_PREFIX = "unitCounter_";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int CHARGE_PAGE_SIZE = 50;
+    private static final String CONTAINER_PREFIX = "CONTAINER-";
+    private static final String ACTOR_ENTITY = "actor";
+    private static final String MEDIKAMENT_ENTITY = "medikament";
+    private static final String[] ALLOWED_ROLES = {"hersteller", "grosshaendler", "apotheke", "behoerde"};
+    private static final String UNIT_ENTITY = "unit";
+    private static final String CONTAINER_ENTITY = "container";
+    private static final String TEMPERATURE_BATCH_PREFIX = "TEMPBATCH-";
+    // Die Subjektliste ist das einzige mit dem Upload wachsende Argument; 1000 IDs bleiben unter 100 KB je Transaktion.
+    private static final int MAX_BATCH_SUBJECTS = 1000;
 
     private void emitEvent(final Context ctx, final String eventName, final Object payloadObject) {
         try {
             String payloadJson = JsonUtil.toJson(payloadObject);
             ctx.getStub().setEvent(eventName, payloadJson.getBytes(StandardCharsets.UTF_8));
-            System.out.println("Ereignis ausgelöst: " + eventName + " mit Inhalt: " + payloadJson);
+            TransactionMetrics.logPayload("Ereignis ausgelöst: " + eventName + " mit Inhalt: ", payloadJson);
         } catch (Exception e) {
             System.err.println("Fehler beim Auslösen von Ereignis " + eventName + ": " + e.getMessage());
         }
     }
 
-
-
     private boolean actorExists(final Context ctx, final String actorId) {
-        byte[] actorState = ctx.getStub().getState(actorId);
+        byte[] actorState = readState(ctx, actorId);
         return actorState != null && actorState.length > 0;
     }
 
+    @Override
+    public Context createContext(final ChaincodeStub stub) {
+        return new PharmaContext(stub);
+    }
+
+    // Wird nur nach erfolgreicher Ausführung aufgerufen; abgelehnte Transaktionen erscheinen nicht in den Kennzahlen.
+    @Override
+    public void afterTransaction(final Context ctx, final Object result) {
+        final PharmaContext pharmaCtx = pharmaContext(ctx);
+        TransactionMetrics.record(ctx.getStub().getFunction(), ctx.getStub().getTxId(),
+                System.nanoTime() - pharmaCtx.getStartNanos(), pharmaCtx.getMeteredStub(), result);
+    }
+
+    private PharmaContext pharmaContext(final Context ctx) {
+        if (ctx instanceof PharmaContext) {
+            return (PharmaContext) ctx;
+        }
+        throw new ChaincodeException("Unerwarteter Transaktionskontext: " + ctx.getClass().getName(), PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+    }
+
+    private byte[] readState(final Context ctx, final String key) {
+        return pharmaContext(ctx).getCachedState(key);
+    }
+
     private Actor getCallingActorFromContext(final Context ctx) {
+        final PharmaContext pharmaCtx = pharmaContext(ctx);
+        if (pharmaCtx.getCallingActor() != null) {
+            return pharmaCtx.getCallingActor();
+        }
         final String mspId = ctx.getClientIdentity().getMSPID();
         final String clientId = ctx.getClientIdentity().getId();
 
@@ -74,22 +140,24 @@ public final class PharmaSupplyChainContract implements ContractInterface {
         if (certRoleRaw == null || certRoleRaw.isEmpty()) {
             throw new ChaincodeException("Client-Zertifikat enthält kein 'role'-Attribut.", PharmaSupplyChainErrors.MISSING_CERT_ATTRIBUTE.toString());
         }
-        String actualRoleFromCert = "";
+        final String actualRoleFromCert;
         if (certRoleRaw.contains(":")) {
             actualRoleFromCert = certRoleRaw.substring(0, certRoleRaw.indexOf(':'));
         } else {
             actualRoleFromCert = certRoleRaw;
         }
 
-        final String combinedIdForHash = mspId + "-" + clientId;
-        final String actorSha = generateSha256(combinedIdForHash);
-        final String callingActorId = actualRoleFromCert.toLowerCase() + "-" + actorSha;
+        // Der SHA-256 über MSP und Zertifikats-ID wird nur beim ersten Aufruf eines Zertifikats berechnet.
+        final String callingActorId = PharmaContext.actorIdForCertificate(mspId + "-" + clientId + "-" + certRoleRaw,
+                () -> actualRoleFromCert.toLowerCase() + "-" + generateSha256(mspId + "-" + clientId));
 
-        byte[] actorStateBytes = ctx.getStub().getState(callingActorId);
+        byte[] actorStateBytes = readState(ctx, callingActorId);
         if (actorStateBytes == null || actorStateBytes.length == 0) {
             throw new ChaincodeException(String.format("Aufrufender Akteur '%s' nicht im Ledger gefunden. Bitte registrieren Sie sich zuerst mit 'initCall'.", callingActorId), PharmaSupplyChainErrors.ACTOR_NOT_FOUND.toString());
         }
-        return JsonUtil.fromJson(new String(actorStateBytes, StandardCharsets.UTF_8), Actor.class);
+        final Actor callingActor = JsonUtil.fromJsonBytes(actorStateBytes, Actor.class);
+        pharmaCtx.setCallingActor(callingActor);
+        return callingActor;
     }
 
     private void verifyCallingActorRole(final Context ctx, final String requiredRole) {
@@ -112,15 +180,21 @@ public final class PharmaSupplyChainContract implements ContractInterface {
         verifyCallingActorRole(ctx, "behoerde");
 
         Actor actor = new Actor(actorId, bezeichnung, role, email, ipfsLink);
-        ctx.getStub().putState(actorId, JsonUtil.toJson(actor).getBytes(StandardCharsets.UTF_8));
-        emitEvent(ctx, "ActorCreated", actor);
+        actor.nextVersion();
+        ctx.getStub().putState(actorId, JsonUtil.toJsonBytes(actor));
+        NameIndex.update(ctx.getStub(), NameIndex.ACTOR, actorId, null, bezeichnung);
+        emitEvent(ctx, "ActorCreated", new PharmaEvent(ACTOR_ENTITY, actorId, PharmaEvent.CREATED, actor.getVersion())
+                .change("bezeichnung", bezeichnung)
+                .change("role", role)
+                .change("email", email)
+                .change("ipfsLink", ipfsLink));
         return JsonUtil.toJson(actor);
     }
 
     // Bsp.: {"function":"queryActor","Args":["apotheke-123"]}
     @Transaction()
     public String queryActor(final Context ctx, final String actorId) {
-        byte[] actorState = ctx.getStub().getState(actorId);
+        byte[] actorState = readState(ctx, actorId);
 
         if (actorState == null || actorState.length == 0) {
             throw new ChaincodeException(String.format("Akteur %s nicht gefunden", actorId), PharmaSupplyChainErrors.ACTOR_NOT_FOUND.toString());
@@ -132,43 +206,48 @@ public final class PharmaSupplyChainContract implements ContractInterface {
     // Bsp.: {"function":"updateActor","Args":["apotheke-123","Sonnen-Apotheke Neu","new@sonnen-apotheke.de","QmNew..."]}
     @Transaction()
     public String updateActor(final Context ctx, final String actorId, final String newBezeichnung, final String newEmail, final String newIpfsLink) {
-        byte[] actorStateBytes = ctx.getStub().getState(actorId);
+        byte[] actorStateBytes = readState(ctx, actorId);
 
         if (actorStateBytes == null || actorStateBytes.length == 0) {
             throw new ChaincodeException(String.format("Akteur %s nicht gefunden", actorId), PharmaSupplyChainErrors.ACTOR_NOT_FOUND.toString());
         }
 
-        Actor existingActor = JsonUtil.fromJson(new String(actorStateBytes, StandardCharsets.UTF_8), Actor.class);
+        Actor existingActor = JsonUtil.fromJsonBytes(actorStateBytes, Actor.class);
 
         Actor callingActor = getCallingActorFromContext(ctx);
         if (!Objects.equals(callingActor.getActorId(), actorId) && !callingActor.getRole().equalsIgnoreCase("behoerde")) {
             throw new ChaincodeException("Nicht autorisiert, diesen Akteur zu aktualisieren.", PharmaSupplyChainErrors.UNAUTHORIZED_ACCESS.toString());
         }
 
+        NameIndex.update(ctx.getStub(), NameIndex.ACTOR, actorId, existingActor.getBezeichnung(), newBezeichnung);
+        final PharmaEvent updatedEvent = new PharmaEvent(ACTOR_ENTITY, actorId, PharmaEvent.UPDATED, existingActor.nextVersion())
+                .changeIfDifferent("bezeichnung", existingActor.getBezeichnung(), newBezeichnung)
+                .changeIfDifferent("email", existingActor.getEmail(), newEmail)
+                .changeIfDifferent("ipfsLink", existingActor.getIpfsLink(), newIpfsLink);
         existingActor.setBezeichnung(newBezeichnung);
         existingActor.setEmail(newEmail);
         existingActor.setIpfsLink(newIpfsLink);
 
         final String updatedActorJson = JsonUtil.toJson(existingActor);
         ctx.getStub().putState(actorId, updatedActorJson.getBytes(StandardCharsets.UTF_8));
-        emitEvent(ctx, "ActorUpdated", existingActor);
+        emitEvent(ctx, "ActorUpdated", updatedEvent);
         return updatedActorJson;
     }
 
     // Bsp.: {"function":"deleteActor","Args":["apotheke-123"]}
     @Transaction()
     public void deleteActor(final Context ctx, final String actorId) {
-        if (!actorExists(ctx, actorId)) {
+        final byte[] actorStateBytes = readState(ctx, actorId);
+        if (actorStateBytes == null || actorStateBytes.length == 0) {
             throw new ChaincodeException(String.format("Akteur %s nicht gefunden", actorId), PharmaSupplyChainErrors.ACTOR_NOT_FOUND.toString());
         }
 
         verifyCallingActorRole(ctx, "behoerde");
 
+        final Actor existingActor = JsonUtil.fromJsonBytes(actorStateBytes, Actor.class);
         ctx.getStub().delState(actorId);
-        Map<String, String> deletePayload = new TreeMap<>();
-        deletePayload.put("actorId", actorId);
-        deletePayload.put("docType", "actor");
-        emitEvent(ctx, "ActorDeleted", deletePayload);
+        NameIndex.update(ctx.getStub(), NameIndex.ACTOR, actorId, existingActor.getBezeichnung(), null);
+        emitEvent(ctx, "ActorDeleted", new PharmaEvent(ACTOR_ENTITY, actorId, PharmaEvent.DELETED, existingActor.nextVersion()));
     }
 
     // Bsp.: {"function":"queryAllActors","Args":[]}
@@ -179,13 +258,29 @@ public final class PharmaSupplyChainContract implements ContractInterface {
         final QueryResultsIterator<org.hyperledger.fabric.shim.ledger.KeyValue> resultsIterator = ctx.getStub().getQueryResult(queryString);
 
         for (final org.hyperledger.fabric.shim.ledger.KeyValue kv : resultsIterator) {
-            final Actor actor = JsonUtil.fromJson(kv.getStringValue(), Actor.class);
+            final Actor actor = JsonUtil.fromJsonBytes(kv.getValue(), Actor.class);
             actorList.add(actor);
         }
 
         return JsonUtil.toJson(actorList);
     }
 
+    // Bsp.: {"function":"queryAllActorsPaginated","Args":["100",""]}
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String queryAllActorsPaginated(final Context ctx, final int pageSize, final String bookmark) {
+        requireValidPageSize(pageSize);
+        final List<Actor> actorList = new ArrayList<>();
+        final QueryResultsIteratorWithMetadata<org.hyperledger.fabric.shim.ledger.KeyValue> resultsIterator =
+                ctx.getStub().getQueryResultWithPagination("{\"selector\":{\"docType\":\"actor\"}}", pageSize, bookmark);
+
+        for (final org.hyperledger.fabric.shim.ledger.KeyValue kv : resultsIterator) {
+            actorList.add(JsonUtil.fromJsonBytes(kv.getValue(), Actor.class));
+        }
+
+        final String nextBookmark = actorList.size() < pageSize ? "" : resultsIterator.getMetadata().getBookmark();
+        return toPageJson(actorList, nextBookmark);
+    }
+
     // Bsp.: {"function":"initCall","Args":[]}
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public String initCall(final Context ctx) {
@@ -209,8 +304,7 @@ public final class PharmaSupplyChainContract implements ContractInterface {
         }
 
         boolean isValidRoleAffiliation = false;
-        final String[] allowedRoles = {"hersteller", "grosshaendler", "apotheke", "behoerde"};
-        for (final String allowedRole : allowedRoles) {
+        for (final String allowedRole : ALLOWED_ROLES) {
             if (allowedRole.equalsIgnoreCase(actualRoleFromCert)) {
                 isValidRoleAffiliation = true;
                 break;
@@ -218,7 +312,7 @@ public final class PharmaSupplyChainContract implements ContractInterface {
         }
 
         if (!isValidRoleAffiliation) {
-            final String errorMessage = String.format("Die aus dem Zertifikat gelesene Rolle '%s' ist keine gültige Lieferketten-Affiliation. Erlaubte Rollen sind: %s", actualRoleFromCert, String.join(", ", allowedRoles));
+            final String errorMessage = String.format("Die aus dem Zertifikat gelesene Rolle '%s' ist keine gültige Lieferketten-Affiliation. Erlaubte Rollen sind: %s", actualRoleFromCert, String.join(", ", ALLOWED_ROLES));
             throw new ChaincodeException(errorMessage, PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
         }
 
@@ -229,16 +323,17 @@ public final class PharmaSupplyChainContract implements ContractInterface {
         final String actorState = stub.getStringState(actorId);
 
         if (!actorState.isEmpty()) {
-            System.out.println("Akteur mit ID " + actorId + " ist bereits registriert. Rückgabe der Informationen.");
             return actorState;
         }
 
         final Actor newActor = new Actor(actorId, actualRoleFromCert.toLowerCase());
+        newActor.nextVersion();
         final String newActorJson = JsonUtil.toJson(newActor);
         stub.putStringState(actorId, newActorJson);
-        emitEvent(ctx, "ActorInitialized", newActor);
+        emitEvent(ctx, "ActorInitialized", new PharmaEvent(ACTOR_ENTITY, actorId, PharmaEvent.CREATED, newActor.getVersion())
+                .change("role", newActor.getRole()));
 
-        System.out.println("Neuer Akteur mit leeren Stammdaten registriert: " + newActorJson);
+        TransactionMetrics.logPayload("Neuer Akteur mit leeren Stammdaten registriert: ", newActorJson);
         return newActorJson;
     }
 
@@ -266,7 +361,7 @@ public final class PharmaSupplyChainContract implements ContractInterface {
         final QueryResultsIterator<org.hyperledger.fabric.shim.ledger.KeyValue> resultsIterator = stub.getQueryResult(queryString);
 
         for (final org.hyperledger.fabric.shim.ledger.KeyValue kv : resultsIterator) {
-            final Actor actor = JsonUtil.fromJson(kv.getStringValue(), Actor.class);
+            final Actor actor = JsonUtil.fromJsonBytes(kv.getValue(), Actor.class);
             actorList.add(actor);
         }
 
@@ -288,7 +383,7 @@ public final class PharmaSupplyChainContract implements ContractInterface {
         final QueryResultsIterator<org.hyperledger.fabric.shim.ledger.KeyValue> resultsIterator = stub.getQueryResult(queryString);
 
         for (final org.hyperledger.fabric.shim.ledger.KeyValue kv : resultsIterator) {
-            final Actor actor = JsonUtil.fromJson(kv.getStringValue(), Actor.class);
+            final Actor actor = JsonUtil.fromJsonBytes(kv.getValue(), Actor.class);
             actorList.add(actor);
         }
 
@@ -300,14 +395,14 @@ public final class PharmaSupplyChainContract implements ContractInterface {
     public String updateActorIpfsLink(final Context ctx, final String actorId, final String newIpfsLink) {
         final ChaincodeStub stub = ctx.getStub();
 
-        byte[] actorStateBytes = stub.getState(actorId);
+        byte[] actorStateBytes = readState(ctx, actorId);
         if (actorStateBytes == null || actorStateBytes.length == 0) {
             final String errorMessage = String.format("Akteur mit ID %s nicht gefunden", actorId);
             System.err.println(errorMessage);
             throw new ChaincodeException(errorMessage, PharmaSupplyChainErrors.ACTOR_NOT_FOUND.toString());
         }
 
-        final Actor existingActor = JsonUtil.fromJson(new String(actorStateBytes, StandardCharsets.UTF_8), Actor.class);
+        final Actor existingActor = JsonUtil.fromJsonBytes(actorStateBytes, Actor.class);
 
         Actor callingActor = getCallingActorFromContext(ctx);
         if (!Objects.equals(actorId, callingActor.getActorId())) {
@@ -316,12 +411,14 @@ public final class PharmaSupplyChainContract implements ContractInterface {
             throw new ChaincodeException(errorMessage, PharmaSupplyChainErrors.UNAUTHORIZED_ACCESS.toString());
         }
 
+        final PharmaEvent updatedEvent = new PharmaEvent(ACTOR_ENTITY, actorId, PharmaEvent.UPDATED, existingActor.nextVersion())
+                .changeIfDifferent("ipfsLink", existingActor.getIpfsLink(), newIpfsLink);
         existingActor.setIpfsLink(newIpfsLink);
 
         final String updatedActorJson = JsonUtil.toJson(existingActor);
         stub.putStringState(actorId, updatedActorJson);
-        emitEvent(ctx, "ActorIpfsLinkUpdated", existingActor);
-        System.out.println("Akteur IPFS Link aktualisiert: " + updatedActorJson);
+        emitEvent(ctx, "ActorIpfsLinkUpdated", updatedEvent);
+        TransactionMetrics.logPayload("Akteur IPFS Link aktualisiert: ", updatedActorJson);
         return updatedActorJson;
     }
 
@@ -341,20 +438,28 @@ public final class PharmaSupplyChainContract implements ContractInterface {
         final String medSha = generateSha256(combinedMedIdHashInput);
         final String medId = "MED-" + medSha;
 
-        byte[] medikamentStateBytes = stub.getState(medId);
+        byte[] medikamentStateBytes = readState(ctx, medId);
         if (medikamentStateBytes != null && medikamentStateBytes.length > 0) {
             throw new ChaincodeException(String.format("Medikament mit ID '%s' existiert bereits.", medId), PharmaSupplyChainErrors.MEDIKAMENT_ALREADY_EXISTS.toString());
         }
 
         final Medikament newMedikament = new Medikament(medId, herstellerId, bezeichnung, ipfsLink);
         newMedikament.setInfoblattHash(infoblattHash);
+        newMedikament.nextVersion();
 
         final String newMedikamentJson = JsonUtil.toJson(newMedikament);
         stub.putStringState(medId, newMedikamentJson);
 
-        stub.putStringState(UNIT_COUNTER_PREFIX + medId, "0");
-        emitEvent(ctx, "MedikamentCreated", newMedikament);
-        System.out.println("Neues Medikament angelegt: " + newMedikamentJson);
+        CompositeIndex.put(stub, CompositeIndex.HERSTELLER_MED, herstellerId, medId);
+        NameIndex.update(stub, NameIndex.MEDIKAMENT, medId, null, bezeichnung);
+        emitEvent(ctx, "MedikamentCreated", new PharmaEvent(MEDIKAMENT_ENTITY, medId, PharmaEvent.CREATED, newMedikament.getVersion())
+                .change("bezeichnung", bezeichnung)
+                .change("herstellerId", herstellerId)
+                .change("infoblattHash", infoblattHash)
+                .change("ipfsLink", ipfsLink)
+                .change("status", newMedikament.getStatus())
+                .change("tags", newMedikament.getTags()));
+        TransactionMetrics.logPayload("Neues Medikament angelegt: ", newMedikamentJson);
         return newMedikamentJson;
     }
 
@@ -369,23 +474,26 @@ public final class PharmaSupplyChainContract implements ContractInterface {
         }
         final String approverActorId = callingActor.getActorId();
 
-        byte[] medikamentStateBytes = stub.getState(medId);
+        byte[] medikamentStateBytes = readState(ctx, medId);
         if (medikamentStateBytes == null || medikamentStateBytes.length == 0) {
             throw new ChaincodeException(String.format("Medikament mit ID '%s' nicht gefunden.", medId), PharmaSupplyChainErrors.MEDIKAMENT_NOT_FOUND.toString());
         }
-        final Medikament existingMedikament = JsonUtil.fromJson(new String(medikamentStateBytes, StandardCharsets.UTF_8), Medikament.class);
+        final Medikament existingMedikament = JsonUtil.fromJsonBytes(medikamentStateBytes, Medikament.class);
 
         final String lowerCaseNewStatus = newStatus.toLowerCase();
         if (!("freigegeben".equals(lowerCaseNewStatus) || "abgelehnt".equals(lowerCaseNewStatus))) {
             throw new ChaincodeException("Ungültiger Status: Der Status muss 'freigegeben' oder 'abgelehnt' sein.", PharmaSupplyChainErrors.INVALID_MEDIKAMENT_STATUS_CHANGE.toString());
         }
 
+        final PharmaEvent updatedEvent = new PharmaEvent(MEDIKAMENT_ENTITY, medId, PharmaEvent.UPDATED, existingMedikament.nextVersion())
+                .changeIfDifferent("status", existingMedikament.getStatus(), lowerCaseNewStatus)
+                .changeIfDifferent("approvedById", existingMedikament.getApprovedById(), approverActorId);
         existingMedikament.setStatus(lowerCaseNewStatus);
         existingMedikament.setApprovedById(approverActorId);
         final String updatedMedikamentJson = JsonUtil.toJson(existingMedikament);
         stub.putStringState(medId, updatedMedikamentJson);
-        emitEvent(ctx, "MedikamentStatusUpdated", existingMedikament);
-        System.out.println("Medikamentstatus aktualisiert: " + updatedMedikamentJson);
+        emitEvent(ctx, "MedikamentStatusUpdated", updatedEvent);
+        TransactionMetrics.logPayload("Medikamentstatus aktualisiert: ", updatedMedikamentJson);
         return updatedMedikamentJson;
     }
 
@@ -396,30 +504,35 @@ public final class PharmaSupplyChainContract implements ContractInterface {
         Actor callingActor = getCallingActorFromContext(ctx);
         final String invokerActorId = callingActor.getActorId();
 
-        byte[] medikamentStateBytes = stub.getState(medId);
+        byte[] medikamentStateBytes = readState(ctx, medId);
         if (medikamentStateBytes == null || medikamentStateBytes.length == 0) {
             throw new ChaincodeException(String.format("Medikament mit ID '%s' nicht gefunden.", medId), PharmaSupplyChainErrors.MEDIKAMENT_NOT_FOUND.toString());
         }
-        final Medikament existingMedikament = JsonUtil.fromJson(new String(medikamentStateBytes, StandardCharsets.UTF_8), Medikament.class);
+        final Medikament existingMedikament = JsonUtil.fromJsonBytes(medikamentStateBytes, Medikament.class);
 
         if (!existingMedikament.getHerstellerId().equals(invokerActorId)) {
             throw new ChaincodeException("Nicht autorisiert: Nur der anlegende Hersteller darf dieses Medikament bearbeiten.", PharmaSupplyChainErrors.UNAUTHORIZED_ACCESS.toString());
         }
 
+        final PharmaEvent updatedEvent = new PharmaEvent(MEDIKAMENT_ENTITY, medId, PharmaEvent.UPDATED, existingMedikament.nextVersion());
         if (newBezeichnung != null && !newBezeichnung.isEmpty()) {
+            NameIndex.update(stub, NameIndex.MEDIKAMENT, medId, existingMedikament.getBezeichnung(), newBezeichnung);
+            updatedEvent.changeIfDifferent("bezeichnung", existingMedikament.getBezeichnung(), newBezeichnung);
             existingMedikament.setBezeichnung(newBezeichnung);
         }
         if (newInfoblattHash != null && !newInfoblattHash.isEmpty()) {
+            updatedEvent.changeIfDifferent("infoblattHash", existingMedikament.getInfoblattHash(), newInfoblattHash);
             existingMedikament.setInfoblattHash(newInfoblattHash);
         }
         if (newIpfsLink != null && !newIpfsLink.isEmpty()) {
+            updatedEvent.changeIfDifferent("ipfsLink", existingMedikament.getIpfsLink(), newIpfsLink);
             existingMedikament.setIpfsLink(newIpfsLink);
         }
 
         final String updatedMedikamentJson = JsonUtil.toJson(existingMedikament);
         stub.putStringState(medId, updatedMedikamentJson);
-        emitEvent(ctx, "MedikamentUpdated", existingMedikament);
-        System.out.println("Medikament aktualisiert: " + updatedMedikamentJson);
+        emitEvent(ctx, "MedikamentUpdated", updatedEvent);
+        TransactionMetrics.logPayload("Medikament aktualisiert: ", updatedMedikamentJson);
         return updatedMedikamentJson;
     }
 
@@ -431,29 +544,33 @@ public final class PharmaSupplyChainContract implements ContractInterface {
         final String invokerActorId = callingActor.getActorId();
         final String actualRoleFromCert = callingActor.getRole();
 
-        byte[] medikamentStateBytes = stub.getState(medId);
+        byte[] medikamentStateBytes = readState(ctx, medId);
         if (medikamentStateBytes == null || medikamentStateBytes.length == 0) {
             throw new ChaincodeException(String.format("Medikament mit ID '%s' nicht gefunden.", medId), PharmaSupplyChainErrors.MEDIKAMENT_NOT_FOUND.toString());
         }
-        final Medikament existingMedikament = JsonUtil.fromJson(new String(medikamentStateBytes, StandardCharsets.UTF_8), Medikament.class);
+        final Medikament existingMedikament = JsonUtil.fromJsonBytes(medikamentStateBytes, Medikament.class);
 
         final Map<String, String> currentTags = existingMedikament.getTags();
+        final String tagKey;
         if ("hersteller".equalsIgnoreCase(actualRoleFromCert)) {
             if (!existingMedikament.getHerstellerId().equals(invokerActorId)) {
                 throw new ChaincodeException("Nicht autorisiert: Nur der anlegende Hersteller darf Tags für dieses Medikament setzen.", PharmaSupplyChainErrors.UNAUTHORIZED_ACCESS.toString());
             }
-            currentTags.put("hersteller", tagValue);
+            tagKey = "hersteller";
         } else if ("behoerde".equalsIgnoreCase(actualRoleFromCert)) {
-            currentTags.put("behoerde", tagValue);
+            tagKey = "behoerde";
         } else {
             throw new ChaincodeException("Nicht autorisiert: Nur Hersteller oder Behörden dürfen Tags setzen.", PharmaSupplyChainErrors.UNAUTHORIZED_ACCESS.toString());
         }
 
+        currentTags.put(tagKey, tagValue);
         existingMedikament.setTags(currentTags);
+        final int version = existingMedikament.nextVersion();
         final String updatedMedikamentJson = JsonUtil.toJson(existingMedikament);
         stub.putStringState(medId, updatedMedikamentJson);
-        emitEvent(ctx, "MedikamentTagAdded", existingMedikament);
-        System.out.println("Medikament-Tag aktualisiert: " + updatedMedikamentJson);
+        emitEvent(ctx, "MedikamentTagAdded", new PharmaEvent(MEDIKAMENT_ENTITY, medId, PharmaEvent.UPDATED, version)
+                .change("tags." + tagKey, tagValue));
+        TransactionMetrics.logPayload("Medikament-Tag aktualisiert: ", updatedMedikamentJson);
         return updatedMedikamentJson;
     }
 
@@ -461,7 +578,7 @@ public final class PharmaSupplyChainContract implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public String queryMedikamentById(final Context ctx, final String medId) {
         final ChaincodeStub stub = ctx.getStub();
-        byte[] medikamentStateBytes = stub.getState(medId);
+        byte[] medikamentStateBytes = readState(ctx, medId);
 
         if (medikamentStateBytes == null || medikamentStateBytes.length == 0) {
             final String errorMessage = String.format("Medikament mit ID '%s' nicht gefunden.", medId);
@@ -477,12 +594,11 @@ public final class PharmaSupplyChainContract implements ContractInterface {
         final ChaincodeStub stub = ctx.getStub();
         final List<Medikament> medikamentList = new ArrayList<>();
 
-        final String queryString = String.format("{\"selector\":{\"herstellerId\":\"%s\", \"docType\":\"medikament\"}}", herstellerId);
-        final QueryResultsIterator<org.hyperledger.fabric.shim.ledger.KeyValue> resultsIterator = stub.getQueryResult(queryString);
-
-        for (final org.hyperledger.fabric.shim.ledger.KeyValue kv : resultsIterator) {
-            final Medikament medikament = JsonUtil.fromJson(kv.getStringValue(), Medikament.class);
-            medikamentList.add(medikament);
+        for (final String medId : CompositeIndex.lookup(stub, CompositeIndex.HERSTELLER_MED, herstellerId)) {
+            final byte[] medikamentStateBytes = readState(ctx, medId);
+            if (medikamentStateBytes != null && medikamentStateBytes.length > 0) {
+                medikamentList.add(JsonUtil.fromJsonBytes(medikamentStateBytes, Medikament.class));
+            }
         }
 
         return JsonUtil.toJson(medikamentList);
@@ -491,13 +607,13 @@ public final class PharmaSupplyChainContract implements ContractInterface {
     // Bsp.: {"function":"deleteMedikament","Args":["MED-abc..."]}
     @Transaction()
     public void deleteMedikament(final Context ctx, final String medId) {
-        byte[] medikamentStateBytes = ctx.getStub().getState(medId);
+        byte[] medikamentStateBytes = readState(ctx, medId);
 
         if (medikamentStateBytes == null || medikamentStateBytes.length == 0) {
             throw new ChaincodeException(String.format("Medikament %s nicht gefunden", medId), PharmaSupplyChainErrors.MEDIKAMENT_NOT_FOUND.toString());
         }
 
-        Medikament existingMedikament = JsonUtil.fromJson(new String(medikamentStateBytes, StandardCharsets.UTF_8), Medikament.class);
+        Medikament existingMedikament = JsonUtil.fromJsonBytes(medikamentStateBytes, Medikament.class);
         Actor callingActor = getCallingActorFromContext(ctx);
 
         if (!(callingActor.getRole().equalsIgnoreCase("behoerde")
@@ -507,11 +623,10 @@ public final class PharmaSupplyChainContract implements ContractInterface {
         }
 
         ctx.getStub().delState(medId);
-        ctx.getStub().delState(UNIT_COUNTER_PREFIX + medId);
-        Map<String, String> deletePayload = new TreeMap<>();
-        deletePayload.put("medId", medId);
-        deletePayload.put("docType", "medikament");
-        emitEvent(ctx, "MedikamentDeleted", deletePayload);
+        ctx.getStub().delState(LEGACY_UNIT_COUNTER_PREFIX + medId);
+        CompositeIndex.delete(ctx.getStub(), CompositeIndex.HERSTELLER_MED, existingMedikament.getHerstellerId(), medId);
+        NameIndex.update(ctx.getStub(), NameIndex.MEDIKAMENT, medId, existingMedikament.getBezeichnung(), null);
+        emitEvent(ctx, "MedikamentDeleted", new PharmaEvent(MEDIKAMENT_ENTITY, medId, PharmaEvent.DELETED, existingMedikament.nextVersion()));
     }
 
     // Bsp.: {"function":"createUnits","Args":["MED-abc...","CH-2025-07","100","QmUnits..."]}
@@ -519,12 +634,16 @@ public final class PharmaSupplyChainContract implements ContractInterface {
     public String createUnits(final Context ctx, final String medId, final String chargeBezeichnung,
                               final int anzahl, final String ipfsLink) {
 
-        byte[] medikamentStateBytes = ctx.getStub().getState(medId);
+        if (anzahl <= 0) {
+            throw new ChaincodeException("Die Anzahl der Einheiten muss größer als 0 sein.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+
+        byte[] medikamentStateBytes = readState(ctx, medId);
         if (medikamentStateBytes == null || medikamentStateBytes.length == 0) {
             throw new ChaincodeException(String.format("Medikament %s nicht gefunden", medId), PharmaSupplyChainErrors.MEDIKAMENT_NOT_FOUND.toString());
         }
 
-        Medikament existingMedikament = JsonUtil.fromJson(new String(medikamentStateBytes, StandardCharsets.UTF_8), Medikament.class);
+        Medikament existingMedikament = JsonUtil.fromJsonBytes(medikamentStateBytes, Medikament.class);
 
         Actor callingActor = getCallingActorFromContext(ctx);
 
@@ -536,68 +655,102 @@ public final class PharmaSupplyChainContract implements ContractInterface {
             throw new ChaincodeException(String.format("Medikament %s ist nicht freigegeben und kann daher nicht in Einheiten unterteilt werden.", medId), PharmaSupplyChainErrors.MEDIKAMENT_NOT_APPROVED.toString());
         }
 
-        byte[] counterBytes = ctx.getStub().getState(UNIT_COUNTER_PREFIX + medId);
-        int currentUnitCounter = 0;
-        if (counterBytes != null && counterBytes.length > 0) {
-            currentUnitCounter = Integer.parseInt(new String(counterBytes, StandardCharsets.UTF_8));
-        }
-
-        List<Unit> createdUnits = new ArrayList<>();
-
-        for (int i = 0; i < anzahl; i++) {
-            currentUnitCounter++;
-            String unitId = medId + "-" + chargeBezeichnung + "-" + String.format("%04d", currentUnitCounter);
-
-            if (unitExists(ctx, unitId)) {
-                throw new ChaincodeException(String.format("Einheit %s existiert bereits. Inkonsistenter Zählerstand.", unitId), PharmaSupplyChainErrors.UNIT_ALREADY_EXISTS.toString());
-            }
-
-            Unit newUnit = new Unit(unitId, medId, chargeBezeichnung, ipfsLink, callingActor.getActorId());
-            ctx.getStub().putState(unitId, JsonUtil.toJson(newUnit).getBytes(StandardCharsets.UTF_8));
-            createdUnits.add(newUnit);
-            emitEvent(ctx, "UnitCreated", newUnit);
-        }
-
-        ctx.getStub().putState(UNIT_COUNTER_PREFIX + medId, String.valueOf(currentUnitCounter).getBytes(StandardCharsets.UTF_8));
-
-        return JsonUtil.toJson(createdUnits);
+        // Der Zähler ergibt sich aus dem Chargen-Datensatz selbst: Parallele createUnits-Aufrufe für verschiedene Chargen
+        // desselben Medikaments berühren keinen gemeinsamen Schlüssel mehr und kollidieren nicht per MVCC.
+        Charge charge = getCharge(ctx, medId, chargeBezeichnung);
+        final Map<String, Integer> previousOwnerCounts = charge == null ? null : effectiveOwnerCounts(ctx, charge);
+        if (charge == null) {
+            charge = new Charge(UnitIdUtil.chargeKey(medId, chargeBezeichnung), medId, chargeBezeichnung, callingActor.getActorId());
+        }
+        final int currentUnitCounter = charge.highestCounter();
+        if (anzahl > Integer.MAX_VALUE - currentUnitCounter) {
+            throw new ChaincodeException(String.format("Die Charge %s kann keine %d weiteren Einheiten aufnehmen.", chargeBezeichnung, anzahl),
+                    PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+
+        final int startCounter = currentUnitCounter + 1;
+        final int endCounter = currentUnitCounter + anzahl;
+
+        charge.addRange(startCounter, endCounter, ipfsLink, callingActor.getActorId());
+        final DeltaCounter aggregates = new DeltaCounter(ctx.getStub());
+        putCharge(ctx, charge, previousOwnerCounts, aggregates);
+        aggregates.flush();
+
+        final UnitBatchEvent createdEvent = new UnitBatchEvent();
+        createdEvent.addRange(medId, chargeBezeichnung, startCounter, endCounter);
+        createdEvent.setOwnerActorId(callingActor.getActorId());
+        createdEvent.setIpfsLink(ipfsLink);
+        emitEvent(ctx, "UnitsCreated", createdEvent);
+
+        final Map<String, Object> result = new TreeMap<>();
+        result.put("chargeId", charge.getChargeId());
+        result.put("medId", medId);
+        result.put("chargeBezeichnung", chargeBezeichnung);
+        result.put("startCounter", startCounter);
+        result.put("endCounter", endCounter);
+        result.put("anzahl", anzahl);
+        result.put("ownerActorId", callingActor.getActorId());
+        result.put("ipfsLink", ipfsLink);
+        return JsonUtil.toJson(result);
     }
 
     // Bsp.: {"function":"addTemperatureReading","Args":["UNIT-xyz...","5.5","2025-07-12T10:00:00Z"]}
     @Transaction()
     public String addTemperatureReading(final Context ctx, final String unitId, final String temperature, final String timestamp) {
-        byte[] unitStateBytes = ctx.getStub().getState(unitId);
-
-        if (unitStateBytes == null || unitStateBytes.length == 0) {
-            throw new ChaincodeException(String.format("Einheit %s nicht gefunden", unitId), PharmaSupplyChainErrors.UNIT_NOT_FOUND.toString());
-        }
-
-        Unit existingUnit = JsonUtil.fromJson(new String(unitStateBytes, StandardCharsets.UTF_8), Unit.class);
+        final UnitIdUtil.ParsedUnitId parsedId = parseUnitId(unitId);
+        final Charge charge = requireChargeOfUnit(ctx, parsedId, unitId);
 
         Actor callingActor = getCallingActorFromContext(ctx);
-        if (!Objects.equals(callingActor.getActorId(), existingUnit.getCurrentOwnerActorId())) {
+        if (!Objects.equals(callingActor.getActorId(), resolveOwner(ctx, charge.ownerOf(parsedId.getCounter())))) {
             throw new ChaincodeException("Nur der aktuelle Eigentümer der Einheit darf Temperaturdaten hinzufügen.", PharmaSupplyChainErrors.UNAUTHORIZED_ACCESS.toString());
         }
 
-        existingUnit.addTemperatureReading(timestamp, temperature);
+        requireValidReading(temperature, timestamp);
+        TemperatureLedger.putReading(ctx.getStub(), parsedId.getUnitId(), timestamp, temperature);
+
+        final Map<String, String> readingPayload = new TreeMap<>();
+        readingPayload.put("unitId", parsedId.getUnitId());
+        readingPayload.put("timestamp", timestamp);
+        readingPayload.put("temperature", temperature);
+        emitEvent(ctx, "UnitTemperatureAdded", new PharmaEvent(UNIT_ENTITY, parsedId.getUnitId(), PharmaEvent.APPENDED)
+                .change("timestamp", timestamp)
+                .change("temperature", temperature));
+        return JsonUtil.toJson(readingPayload);
+    }
 
-        ctx.getStub().putState(unitId, JsonUtil.toJson(existingUnit).getBytes(StandardCharsets.UTF_8));
-        emitEvent(ctx, "UnitTemperatureAdded", existingUnit);
-        return JsonUtil.toJson(existingUnit);
+    // Bsp.: {"function":"queryTemperatureReadings","Args":["UNIT-xyz...","2025-07-01T00:00:00Z",""]}
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String queryTemperatureReadings(final Context ctx, final String unitId, final String fromTimestamp, final String toTimestamp) {
+        final UnitIdUtil.ParsedUnitId parsedId = parseUnitId(unitId);
+        final Charge charge = requireChargeOfUnit(ctx, parsedId, unitId);
+        return JsonUtil.toJson(effectiveReadings(ctx, charge, parsedId, fromTimestamp, toTimestamp));
+    }
+
+    // Bsp.: {"function":"updateTemperatureSummary","Args":["UNIT-xyz..."]}
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String updateTemperatureSummary(final Context ctx, final String unitId) {
+        final UnitIdUtil.ParsedUnitId parsedId = parseUnitId(unitId);
+        requireChargeOfUnit(ctx, parsedId, unitId);
+        getCallingActorFromContext(ctx);
+        return JsonUtil.toJson(TemperatureLedger.rollSummary(ctx.getStub(), parsedId.getUnitId()));
+    }
+
+    // Bsp.: {"function":"queryTemperatureSummary","Args":["UNIT-xyz..."]}
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String queryTemperatureSummary(final Context ctx, final String unitId) {
+        // Die Zusammenfassung liegt unter der kanonischen Einheiten-ID, wie in updateTemperatureSummary geschrieben.
+        return JsonUtil.toJson(TemperatureLedger.getSummary(ctx.getStub(), parseUnitId(unitId).getUnitId()));
     }
 
     // Bsp.: {"function":"transferUnit","Args":["UNIT-xyz...","apotheke-123","2025-07-12T11:00:00Z"]}
     @Transaction()
     public String transferUnit(final Context ctx, final String unitId, final String newOwnerActorId, final String transferTimestamp) {
-        byte[] unitStateBytes = ctx.getStub().getState(unitId);
-        if (unitStateBytes == null || unitStateBytes.length == 0) {
-            throw new ChaincodeException(String.format("Einheit %s nicht gefunden", unitId), PharmaSupplyChainErrors.UNIT_NOT_FOUND.toString());
-        }
-
-        Unit existingUnit = JsonUtil.fromJson(new String(unitStateBytes, StandardCharsets.UTF_8), Unit.class);
+        final UnitIdUtil.ParsedUnitId parsedId = parseUnitId(unitId);
+        final Charge charge = requireChargeOfUnit(ctx, parsedId, unitId);
+        final int counter = parsedId.getCounter();
 
         Actor callingActor = getCallingActorFromContext(ctx);
-        if (!Objects.equals(callingActor.getActorId(), existingUnit.getCurrentOwnerActorId())) {
+        if (!Objects.equals(callingActor.getActorId(), charge.ownerOf(counter))) {
             throw new ChaincodeException("Nur der aktuelle Eigentümer der Einheit darf den Besitz übertragen.", PharmaSupplyChainErrors.UNAUTHORIZED_ACCESS.toString());
         }
 
@@ -605,37 +758,48 @@ public final class PharmaSupplyChainContract implements ContractInterface {
             throw new ChaincodeException(String.format("Neuer Eigentümer Akteur %s nicht gefunden.", newOwnerActorId), PharmaSupplyChainErrors.ACTOR_NOT_FOUND.toString());
         }
 
-        String previousOwnerId = existingUnit.getCurrentOwnerActorId();
-        existingUnit.addTransferEntry(previousOwnerId, newOwnerActorId, transferTimestamp);
+        String previousOwnerId = charge.ownerOf(counter);
+        final Map<String, Integer> previousOwnerCounts = effectiveOwnerCounts(ctx, charge);
+        UnitHistory.appendTransfer(ctx.getStub(), charge, new Charge.RangeTransfer(counter, counter, previousOwnerId, newOwnerActorId, transferTimestamp));
+        charge.reassign(counter, counter, newOwnerActorId);
+        final DeltaCounter aggregates = new DeltaCounter(ctx.getStub());
+        putCharge(ctx, charge, previousOwnerCounts, aggregates);
+        aggregates.flush();
 
-        existingUnit.setCurrentOwnerActorId(newOwnerActorId);
-        ctx.getStub().putState(unitId, JsonUtil.toJson(existingUnit).getBytes(StandardCharsets.UTF_8));
-        emitEvent(ctx, "UnitTransferred", existingUnit);
-        return JsonUtil.toJson(existingUnit);
+        emitEvent(ctx, "UnitsTransferred", transferEvent(charge, counter, counter, previousOwnerId, newOwnerActorId, transferTimestamp));
+        return JsonUtil.toJson(buildUnitView(ctx, charge, counter, getUnitOverlay(ctx, parsedId.getUnitId())));
     }
 
     // Bsp.: {"function":"queryUnitById","Args":["UNIT-xyz..."]}
     @Transaction()
     public String queryUnitById(final Context ctx, final String unitId) {
-        byte[] unitStateBytes = ctx.getStub().getState(unitId);
-
-        if (unitStateBytes == null || unitStateBytes.length == 0) {
-            throw new ChaincodeException(String.format("Einheit %s nicht gefunden", unitId), PharmaSupplyChainErrors.UNIT_NOT_FOUND.toString());
+        final UnitIdUtil.ParsedUnitId parsedId = parseUnitId(unitId);
+        final Charge charge = requireChargeOfKnownUnit(ctx, parsedId, unitId);
+        final Unit unit = buildUnitView(ctx, charge, parsedId.getCounter(), getUnitOverlay(ctx, parsedId.getUnitId()));
+        for (final Unit.TemperatureReading reading : effectiveReadings(ctx, charge, parsedId, null, null)) {
+            unit.addTemperatureReading(reading.getTimestamp(), reading.getTemperature());
         }
+        return JsonUtil.toJson(unit);
+    }
 
-        return new String(unitStateBytes, StandardCharsets.UTF_8);
+    // Bsp.: {"function":"queryUnitProvenance","Args":["UNIT-xyz..."]}
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String queryUnitProvenance(final Context ctx, final String unitId) {
+        final UnitIdUtil.ParsedUnitId parsedId = parseUnitId(unitId);
+        final Charge charge = requireChargeOfKnownUnit(ctx, parsedId, unitId);
+        final List<Unit.TransferEntry> provenance = new ArrayList<>();
+        for (final Charge.RangeTransfer transfer : UnitHistory.transfersOf(ctx.getStub(), charge.getChargeId(), parsedId.getCounter())) {
+            provenance.add(new Unit.TransferEntry(transfer.getFromActorId(), transfer.getToActorId(), transfer.getTimestamp()));
+        }
+        return JsonUtil.toJson(provenance);
     }
 
     // Bsp.: {"function":"queryUnitsByMedId","Args":["MED-abc..."]}
     @Transaction()
     public String queryUnitsByMedId(final Context ctx, final String medId) {
         List<Unit> unitList = new ArrayList<>();
-        String queryString = String.format("{\"selector\":{\"docType\":\"unit\",\"medId\":\"%s\"}}", medId);
-        final QueryResultsIterator<org.hyperledger.fabric.shim.ledger.KeyValue> resultsIterator = ctx.getStub().getQueryResult(queryString);
-
-        for (final org.hyperledger.fabric.shim.ledger.KeyValue kv : resultsIterator) {
-            final Unit unit = JsonUtil.fromJson(kv.getStringValue(), Unit.class);
-            unitList.add(unit);
+        for (final Charge charge : getChargesByIndex(ctx, CompositeIndex.MED_CHARGE, medId)) {
+            expandUnits(ctx, charge, null, unitList);
         }
         return JsonUtil.toJson(unitList);
     }
@@ -644,19 +808,382 @@ public final class PharmaSupplyChainContract implements ContractInterface {
     @Transaction()
     public String queryUnitsByOwner(final Context ctx, final String ownerActorId) {
         List<Unit> unitList = new ArrayList<>();
-        String queryString = String.format("{\"selector\":{\"docType\":\"unit\",\"currentOwnerActorId\":\"%s\"}}", ownerActorId);
-        final QueryResultsIterator<org.hyperledger.fabric.shim.ledger.KeyValue> resultsIterator = ctx.getStub().getQueryResult(queryString);
+        for (final Charge charge : getChargesByIndex(ctx, CompositeIndex.OWNER_CHARGE, ownerActorId)) {
+            expandUnits(ctx, charge, ownerActorId, unitList);
+        }
+        return JsonUtil.toJson(unitList);
+    }
+
+    // Bsp.: {"function":"queryUnitsByMedIdPaginated","Args":["MED-abc...","500",""]}
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String queryUnitsByMedIdPaginated(final Context ctx, final String medId, final int pageSize, final String bookmark) {
+        requireValidPageSize(pageSize);
+        return queryUnitPage(ctx, CompositeIndex.MED_CHARGE, medId, null, pageSize, bookmark);
+    }
+
+    // Bsp.: {"function":"queryUnitsByOwnerPaginated","Args":["hersteller-xyz...","500",""]}
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String queryUnitsByOwnerPaginated(final Context ctx, final String ownerActorId, final int pageSize, final String bookmark) {
+        requireValidPageSize(pageSize);
+        return queryUnitPage(ctx, CompositeIndex.OWNER_CHARGE, ownerActorId, ownerActorId, pageSize, bookmark);
+    }
+
+    private void requireValidPageSize(final int pageSize) {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new ChaincodeException(String.format("Seitengröße muss zwischen 1 und %d liegen.", MAX_PAGE_SIZE),
+                    PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+    }
+
+    private String toPageJson(final List<?> records, final String nextBookmark) {
+        final Map<String, Object> page = new TreeMap<>();
+        page.put("records", records);
+        page.put("bookmark", nextBookmark == null ? "" : nextBookmark);
+        page.put("fetchedCount", records.size());
+        return JsonUtil.toJson(page);
+    }
 
+    // Blättert chargenweise über einen Index; das Lesezeichen ist die ID der ersten Einheit, die nicht mehr in die Seite passte.
+    private String queryUnitPage(final Context ctx, final String indexName, final String indexValue, final String ownerActorId,
+                                 final int pageSize, final String bookmark) {
+        final ChaincodeStub stub = ctx.getStub();
+        final UnitIdUtil.ParsedUnitId cursor = bookmark == null || bookmark.isEmpty() ? null : parseUnitId(bookmark);
+        final CompositeKey partialKey = stub.createCompositeKey(indexName, indexValue);
+        // Bei Bereichsabfragen ist das Fabric-Lesezeichen der Startschlüssel, daher kann direkt bei der Charge des Cursors begonnen werden.
+        String indexBookmark = cursor == null ? "" : stub.createCompositeKey(indexName, indexValue, cursor.getChargeKey()).toString();
+        final List<Unit> unitList = new ArrayList<>();
+
+        while (true) {
+            final QueryResultsIteratorWithMetadata<org.hyperledger.fabric.shim.ledger.KeyValue> indexIterator =
+                    stub.getStateByPartialCompositeKeyWithPagination(partialKey, CHARGE_PAGE_SIZE, indexBookmark);
+            int fetchedCharges = 0;
+            for (final org.hyperledger.fabric.shim.ledger.KeyValue kv : indexIterator) {
+                fetchedCharges++;
+                final List<String> attributes = stub.splitCompositeKey(kv.getKey()).getAttributes();
+                final Charge charge = getChargeByKey(ctx, attributes.get(attributes.size() - 1));
+                if (charge == null) {
+                    continue;
+                }
+                final int firstCounter = cursor != null && charge.getChargeId().equals(cursor.getChargeKey()) ? cursor.getCounter() : 0;
+                final String nextBookmark = appendUnitPage(ctx, charge, ownerActorId, firstCounter, pageSize, unitList);
+                if (nextBookmark != null) {
+                    return toPageJson(unitList, nextBookmark);
+                }
+            }
+            indexBookmark = indexIterator.getMetadata().getBookmark();
+            if (fetchedCharges < CHARGE_PAGE_SIZE || indexBookmark == null || indexBookmark.isEmpty()) {
+                return toPageJson(unitList, "");
+            }
+        }
+    }
+
+    // Liefert die ID der ersten Einheit, die nicht mehr in die Seite passt, oder null, wenn die Charge vollständig übernommen wurde.
+    private String appendUnitPage(final Context ctx, final Charge charge, final String ownerActorId, final int firstCounter,
+                                  final int pageSize, final List<Unit> target) {
+        final Map<Integer, Unit> overlays = getUnitOverlays(ctx, charge, Math.max(firstCounter, 1), Integer.MAX_VALUE);
+        for (final Charge.OwnerSegment segment : charge.getOwnerSegments()) {
+            if (ownerActorId != null && !Objects.equals(ownerActorId, resolveOwner(ctx, segment.getOwnerActorId()))) {
+                continue;
+            }
+            for (int counter = Math.max(segment.getStart(), firstCounter); counter <= segment.getEnd(); counter++) {
+                if (target.size() == pageSize) {
+                    return UnitIdUtil.unitId(charge.getMedId(), charge.getChargeBezeichnung(), counter);
+                }
+                target.add(buildUnitView(ctx, charge, counter, overlays.get(counter)));
+            }
+        }
+        return null;
+    }
+
+    private UnitBatchEvent transferEvent(final Charge charge, final int startCounter, final int endCounter,
+                                         final String fromActorId, final String toActorId, final String transferTimestamp) {
+        final UnitBatchEvent event = new UnitBatchEvent();
+        event.addRange(charge.getMedId(), charge.getChargeBezeichnung(), startCounter, endCounter);
+        event.setFromActorId(fromActorId);
+        event.setToActorId(toActorId);
+        event.setTimestamp(transferTimestamp);
+        return event;
+    }
+
+    private Charge getCharge(final Context ctx, final String medId, final String chargeBezeichnung) {
+        return getChargeByKey(ctx, UnitIdUtil.chargeKey(medId, chargeBezeichnung));
+    }
+
+    private Charge getChargeByKey(final Context ctx, final String chargeId) {
+        final byte[] chargeBytes = readState(ctx, chargeId);
+        if (chargeBytes == null || chargeBytes.length == 0) {
+            return null;
+        }
+        return JsonUtil.fromJsonBytes(chargeBytes, Charge.class);
+    }
+
+    // Schreibt den Chargen-Datensatz und gleicht die Indizes owner~charge/med~charge sowie die Aggregatzähler mit dem vorherigen Stand ab.
+    private void putCharge(final Context ctx, final Charge charge, final Map<String, Integer> previousOwnerCounts, final DeltaCounter aggregates) {
+        final ChaincodeStub stub = ctx.getStub();
+        stub.putState(charge.getChargeId(), JsonUtil.toJsonBytes(charge));
+
+        if (previousOwnerCounts == null) {
+            CompositeIndex.put(stub, CompositeIndex.MED_CHARGE, charge.getMedId(), charge.getChargeId());
+        }
+        updateOwnerAggregates(ctx, charge, previousOwnerCounts, aggregates);
+    }
+
+    // Index owner~charge und Zähler count~owner führen den effektiven Eigentümer, eingepackte Einheiten also beim Eigentümer des Wurzel-Containers.
+    private void updateOwnerAggregates(final Context ctx, final Charge charge, final Map<String, Integer> previousOwnerCounts, final DeltaCounter aggregates) {
+        final ChaincodeStub stub = ctx.getStub();
+        final Map<String, Integer> previousCounts = previousOwnerCounts == null ? new TreeMap<>() : previousOwnerCounts;
+        final Map<String, Integer> currentCounts = effectiveOwnerCounts(ctx, charge);
+        int chargeDelta = 0;
+        for (final Map.Entry<String, Integer> entry : currentCounts.entrySet()) {
+            if (!previousCounts.containsKey(entry.getKey())) {
+                CompositeIndex.put(stub, CompositeIndex.OWNER_CHARGE, entry.getKey(), charge.getChargeId());
+            }
+            final int delta = entry.getValue() - previousCounts.getOrDefault(entry.getKey(), 0);
+            aggregates.add(delta, DeltaCounter.OWNER_UNITS, entry.getKey());
+            chargeDelta += delta;
+        }
+        for (final Map.Entry<String, Integer> entry : previousCounts.entrySet()) {
+            if (!currentCounts.containsKey(entry.getKey())) {
+                CompositeIndex.delete(stub, CompositeIndex.OWNER_CHARGE, entry.getKey(), charge.getChargeId());
+                aggregates.add(-entry.getValue(), DeltaCounter.OWNER_UNITS, entry.getKey());
+                chargeDelta -= entry.getValue();
+            }
+        }
+        aggregates.add(chargeDelta, DeltaCounter.MED_CHARGE_UNITS, charge.getMedId(), charge.getChargeBezeichnung());
+    }
+
+    private Map<String, Integer> effectiveOwnerCounts(final Context ctx, final Charge charge) {
+        final Map<String, Integer> counts = new TreeMap<>();
+        for (final Map.Entry<String, Integer> entry : charge.unitCountsByOwner().entrySet()) {
+            counts.merge(resolveOwner(ctx, entry.getKey()), entry.getValue(), Integer::sum);
+        }
+        return counts;
+    }
+
+    private List<Charge> getChargesByIndex(final Context ctx, final String indexName, final String indexValue) {
+        final List<Charge> charges = new ArrayList<>();
+        for (final String chargeId : CompositeIndex.lookup(ctx.getStub(), indexName, indexValue)) {
+            final Charge charge = getChargeByKey(ctx, chargeId);
+            if (charge != null) {
+                charges.add(charge);
+            }
+        }
+        return charges;
+    }
+
+    private UnitIdUtil.ParsedUnitId parseUnitId(final String unitId) {
+        final UnitIdUtil.ParsedUnitId parsedId = UnitIdUtil.parse(unitId);
+        if (parsedId == null) {
+            throw new ChaincodeException(String.format("Ungültige Einheiten-ID %s", unitId), PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        return parsedId;
+    }
+
+    private Charge requireChargeOfUnit(final Context ctx, final UnitIdUtil.ParsedUnitId parsedId, final String unitId) {
+        final Charge charge = requireChargeOfKnownUnit(ctx, parsedId, unitId);
+        if (charge.ownerOf(parsedId.getCounter()) == null) {
+            throw new ChaincodeException(String.format("Einheit %s wurde bereits abgegeben.", unitId), PharmaSupplyChainErrors.UNIT_CONSUMED.toString());
+        }
+        return charge;
+    }
+
+    // Wie requireChargeOfUnit, lässt aber bereits abgegebene Einheiten zu (nur für Abfragen).
+    private Charge requireChargeOfKnownUnit(final Context ctx, final UnitIdUtil.ParsedUnitId parsedId, final String unitId) {
+        final Charge charge = getCharge(ctx, parsedId.getMedId(), parsedId.getChargeBezeichnung());
+        if (charge == null || (charge.ownerOf(parsedId.getCounter()) == null
+                && UnitHistory.consumedSegmentOf(ctx.getStub(), charge.getChargeId(), parsedId.getCounter()) == null)) {
+            throw new ChaincodeException(String.format("Einheit %s nicht gefunden", unitId), PharmaSupplyChainErrors.UNIT_NOT_FOUND.toString());
+        }
+        return charge;
+    }
+
+    private static boolean isContainerId(final String holderId) {
+        return holderId != null && holderId.startsWith(CONTAINER_PREFIX);
+    }
+
+    private Container getContainer(final Context ctx, final String containerId) {
+        final byte[] containerBytes = isContainerId(containerId) ? readState(ctx, containerId) : null;
+        if (containerBytes == null || containerBytes.length == 0) {
+            throw new ChaincodeException(String.format("Container %s nicht gefunden.", containerId), PharmaSupplyChainErrors.CONTAINER_NOT_FOUND.toString());
+        }
+        return JsonUtil.fromJsonBytes(containerBytes, Container.class);
+    }
+
+    // Folgt der Container-Kette bis zum Wurzel-Container, dessen Eigentümer der effektive Eigentümer ist.
+    // Die Kette ist azyklisch, da nur bestehende Wurzel-Container in einen neuen Container eingepackt werden.
+    private String resolveOwner(final Context ctx, final String holderId) {
+        String current = holderId;
+        while (isContainerId(current)) {
+            final Container container = getContainer(ctx, current);
+            current = container.hasParent() ? container.getParentContainerId() : container.getOwnerActorId();
+        }
+        return current;
+    }
+
+    private Container requirePackedContainer(final Context ctx, final String containerId) {
+        final Container container = getContainer(ctx, containerId);
+        if (container.wasUnpacked()) {
+            throw new ChaincodeException(String.format("Container %s wurde bereits ausgepackt.", containerId), PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        return container;
+    }
+
+    private static void requireValidReading(final String temperature, final String timestamp) {
+        if (timestamp == null || timestamp.isEmpty()) {
+            throw new ChaincodeException("Zeitstempel darf nicht leer sein.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        try {
+            Double.parseDouble(String.valueOf(temperature));
+        } catch (NumberFormatException e) {
+            throw new ChaincodeException(String.format("Ungültiger Temperaturwert '%s'.", temperature), PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+    }
+
+    // Temperaturverlauf einer Einheit: eigene Messwerte plus die Messwerte aller Container, in denen sie transportiert wurde,
+    // jeweils beschränkt auf den Zeitraum zwischen Ein- und Auspacken.
+    private List<Unit.TemperatureReading> effectiveReadings(final Context ctx, final Charge charge, final UnitIdUtil.ParsedUnitId parsedId,
+                                                           final String from, final String to) {
+        final List<Unit.TemperatureReading> readings = new ArrayList<>(TemperatureLedger.readings(ctx.getStub(), parsedId.getUnitId(), from, to));
+        for (final String containerId : CompositeIndex.lookup(ctx.getStub(), CompositeIndex.CHARGE_CONTAINER, charge.getChargeId())) {
+            final Container container = getContainer(ctx, containerId);
+            if (containsUnit(container, charge, parsedId.getCounter())) {
+                collectContainerReadings(ctx, container, laterOf(from, container.getPackedAt()), earlierOf(to, container.getUnpackedAt()), readings);
+            }
+        }
+        readings.sort(Comparator.comparing(Unit.TemperatureReading::getTimestamp));
+        return readings;
+    }
+
+    // Ein eingepackter Container war so lange im umschließenden Container, wie dieser selbst verpackt war.
+    private void collectContainerReadings(final Context ctx, final Container container, final String from, final String to,
+                                          final List<Unit.TemperatureReading> target) {
+        if (from != null && !from.isEmpty() && to != null && !to.isEmpty() && from.compareTo(to) > 0) {
+            return;
+        }
+        target.addAll(TemperatureLedger.readings(ctx.getStub(), container.getContainerId(), from, to));
+        for (final String parentId : CompositeIndex.lookup(ctx.getStub(), CompositeIndex.CONTAINER_PARENT, container.getContainerId())) {
+            final Container parent = getContainer(ctx, parentId);
+            collectContainerReadings(ctx, parent, laterOf(from, parent.getPackedAt()), earlierOf(to, parent.getUnpackedAt()), target);
+        }
+    }
+
+    private static boolean containsUnit(final Container container, final Charge charge, final int counter) {
+        for (final UnitBatchEvent.ChargeRange range : container.getUnitRanges()) {
+            if (range.getStart() <= counter && counter <= range.getEnd()
+                    && Objects.equals(range.getMedId(), charge.getMedId())
+                    && Objects.equals(range.getChargeBezeichnung(), charge.getChargeBezeichnung())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Zeitfenstergrenzen: null oder leer bedeutet offen.
+    private static String laterOf(final String first, final String second) {
+        if (first == null || first.isEmpty()) {
+            return second;
+        }
+        if (second == null || second.isEmpty()) {
+            return first;
+        }
+        return first.compareTo(second) >= 0 ? first : second;
+    }
+
+    private static String earlierOf(final String first, final String second) {
+        if (first == null || first.isEmpty()) {
+            return second;
+        }
+        if (second == null || second.isEmpty()) {
+            return first;
+        }
+        return first.compareTo(second) <= 0 ? first : second;
+    }
+
+    private Charge chargeForRange(final Context ctx, final Map<String, Charge> charges, final Map<String, Map<String, Integer>> previousOwnerCounts,
+                                  final UnitBatchEvent.ChargeRange range) {
+        final String chargeKey = UnitIdUtil.chargeKey(range.getMedId(), range.getChargeBezeichnung());
+        Charge charge = charges.get(chargeKey);
+        if (charge == null) {
+            charge = getChargeByKey(ctx, chargeKey);
+            if (charge != null) {
+                charges.put(chargeKey, charge);
+                previousOwnerCounts.put(chargeKey, effectiveOwnerCounts(ctx, charge));
+            }
+        }
+        return charge;
+    }
+
+    private void putCharges(final Context ctx, final Map<String, Charge> charges, final Map<String, Map<String, Integer>> previousOwnerCounts) {
+        final DeltaCounter aggregates = new DeltaCounter(ctx.getStub());
+        for (final Charge charge : charges.values()) {
+            putCharge(ctx, charge, previousOwnerCounts.get(charge.getChargeId()), aggregates);
+        }
+        aggregates.flush();
+    }
+
+    // Einheiten-spezifische Zusatzdaten (z.B. Temperaturmesswerte) liegen nur für betroffene Einheiten unter der Unit-ID.
+    private Unit getUnitOverlay(final Context ctx, final String unitId) {
+        final byte[] unitStateBytes = readState(ctx, unitId);
+        if (unitStateBytes == null || unitStateBytes.length == 0) {
+            return null;
+        }
+        return JsonUtil.fromJsonBytes(unitStateBytes, Unit.class);
+    }
+
+    private Map<Integer, Unit> getUnitOverlays(final Context ctx, final Charge charge) {
+        return getUnitOverlays(ctx, charge, 1, Integer.MAX_VALUE);
+    }
+
+    // Ein sequentieller Scan über die Unit-IDs startCounter..endCounter; dank fester Zählerbreite ohne Streuverluste.
+    private Map<Integer, Unit> getUnitOverlays(final Context ctx, final Charge charge, final int startCounter, final int endCounter) {
+        final Map<Integer, Unit> overlays = new TreeMap<>();
+        final QueryResultsIterator<org.hyperledger.fabric.shim.ledger.KeyValue> resultsIterator = ctx.getStub().getStateByRange(
+                UnitIdUtil.unitId(charge.getMedId(), charge.getChargeBezeichnung(), startCounter),
+                UnitIdUtil.unitIdRangeEnd(charge.getMedId(), charge.getChargeBezeichnung(), endCounter));
         for (final org.hyperledger.fabric.shim.ledger.KeyValue kv : resultsIterator) {
-            final Unit unit = JsonUtil.fromJson(kv.getStringValue(), Unit.class);
-            unitList.add(unit);
+            final UnitIdUtil.ParsedUnitId parsedId = UnitIdUtil.parse(kv.getKey());
+            if (parsedId != null && Objects.equals(parsedId.getChargeBezeichnung(), charge.getChargeBezeichnung())) {
+                overlays.put(parsedId.getCounter(), JsonUtil.fromJsonBytes(kv.getValue(), Unit.class));
+            }
         }
-        return JsonUtil.toJson(unitList);
+        return overlays;
+    }
+
+    private Unit buildUnitView(final Context ctx, final Charge charge, final int counter, final Unit overlay) {
+        final Charge.UnitRange range = charge.rangeOf(counter);
+        final Charge.ConsumedSegment consumed = charge.ownerOf(counter) != null ? null
+                : UnitHistory.consumedSegmentOf(ctx.getStub(), charge.getChargeId(), counter);
+        final String holderId = consumed != null ? consumed.getOwnerActorId() : charge.ownerOf(counter);
+        final Unit unit = new Unit(UnitIdUtil.unitId(charge.getMedId(), charge.getChargeBezeichnung(), counter),
+                charge.getMedId(), charge.getChargeBezeichnung(), range != null ? range.getIpfsLink() : "", resolveOwner(ctx, holderId));
+        if (isContainerId(holderId)) {
+            unit.setContainerId(holderId);
+        }
+        unit.setTransferCount(consumed != null ? consumed.getHops() : charge.hopsOf(counter));
+        if (overlay != null) {
+            for (final Unit.TemperatureReading reading : overlay.getTemperatureReadings()) {
+                unit.addTemperatureReading(reading.getTimestamp(), reading.getTemperature());
+            }
+            unit.setIsConsumed(overlay.getIsConsumed());
+            unit.setConsumedRefId(overlay.getConsumedRefId());
+        }
+        if (consumed != null) {
+            unit.setIsConsumed(true);
+            unit.setConsumedRefId(consumed.getConsumedRefId());
+        }
+        return unit;
     }
 
-    private boolean unitExists(final Context ctx, final String unitId) {
-        byte[] unitState = ctx.getStub().getState(unitId);
-        return unitState != null && unitState.length > 0;
+    private void expandUnits(final Context ctx, final Charge charge, final String ownerActorId, final List<Unit> target) {
+        final Map<Integer, Unit> overlays = getUnitOverlays(ctx, charge);
+        for (final Charge.OwnerSegment segment : charge.getOwnerSegments()) {
+            if (ownerActorId != null && !Objects.equals(ownerActorId, resolveOwner(ctx, segment.getOwnerActorId()))) {
+                continue;
+            }
+            for (int counter = segment.getStart(); counter <= segment.getEnd(); counter++) {
+                target.add(buildUnitView(ctx, charge, counter, overlays.get(counter)));
+            }
+        }
     }
 
     private String generateSha256(final String input) {
@@ -680,39 +1207,63 @@ public final class PharmaSupplyChainContract implements ContractInterface {
     // Bsp.: {"function":"queryMedikamenteByBezeichnung","Args":["Aspirin"]}
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public String queryMedikamenteByBezeichnung(final Context ctx, final String bezeichnungQuery) {
-        final ChaincodeStub stub = ctx.getStub();
-        final List<Medikament> medikamentList = new ArrayList<>();
-
-        final String queryString = String.format(
-                "{\"selector\":{\"docType\":\"medikament\",\"bezeichnung\":{\"$regex\":\"(?i)%s\"}}}", bezeichnungQuery);
-
-        final QueryResultsIterator<org.hyperledger.fabric.shim.ledger.KeyValue> resultsIterator = stub.getQueryResult(queryString);
-
-        for (final org.hyperledger.fabric.shim.ledger.KeyValue kv : resultsIterator) {
-            final Medikament medikament = JsonUtil.fromJson(kv.getStringValue(), Medikament.class);
-            medikamentList.add(medikament);
-        }
-
-        return JsonUtil.toJson(medikamentList);
+        return JsonUtil.toJson(searchByName(ctx, NameIndex.MEDIKAMENT, bezeichnungQuery, Medikament.class, Medikament::getBezeichnung));
     }
 
     // Bsp.: {"function":"queryActorsByBezeichnung","Args":["Sonnen-Apotheke"]}
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public String queryActorsByBezeichnung(final Context ctx, final String bezeichnungQuery) {
-        final ChaincodeStub stub = ctx.getStub();
-        final List<Actor> actorList = new ArrayList<>();
-
-        final String queryString = String.format(
-                "{\"selector\":{\"docType\":\"actor\",\"bezeichnung\":{\"$regex\":\"(?i)%s\"}}}", bezeichnungQuery);
+        return JsonUtil.toJson(searchByName(ctx, NameIndex.ACTOR, bezeichnungQuery, Actor.class, Actor::getBezeichnung));
+    }
 
-        final QueryResultsIterator<org.hyperledger.fabric.shim.ledger.KeyValue> resultsIterator = stub.getQueryResult(queryString);
+    private <T> List<T> searchByName(final Context ctx, final String indexName, final String bezeichnungQuery, final Class<T> type,
+                                     final Function<T, String> nameOf) {
+        final List<T> matches = new ArrayList<>();
+        for (final String id : NameIndex.search(ctx.getStub(), indexName, bezeichnungQuery)) {
+            final byte[] stateBytes = readState(ctx, id);
+            if (stateBytes == null || stateBytes.length == 0) {
+                continue;
+            }
+            final T document = JsonUtil.fromJsonBytes(stateBytes, type);
+            if (NameIndex.matches(nameOf.apply(document), bezeichnungQuery)) {
+                matches.add(document);
+            }
+        }
+        return matches;
+    }
 
-        for (final org.hyperledger.fabric.shim.ledger.KeyValue kv : resultsIterator) {
-            final Actor actor = JsonUtil.fromJson(kv.getStringValue(), Actor.class);
-            actorList.add(actor);
+    // Einmalige Migration für Akteure und Medikamente, die vor dem Namensindex angelegt wurden. Gelesen werden nur die
+    // Schlüsselbereiche der jeweiligen Dokumente; so oft mit dem zurückgegebenen Lesezeichen aufrufen, bis es leer ist.
+    // Bsp.: {"function":"rebuildNameIndex","Args":["medikament","","500"]}
+    @Transaction()
+    public String rebuildNameIndex(final Context ctx, final String entityType, final String bookmark, final int maxKeys) {
+        verifyCallingActorRole(ctx, "behoerde");
+        requireValidPageSize(maxKeys);
+        final String start = bookmark == null ? "" : bookmark;
+        if (MEDIKAMENT_ENTITY.equals(entityType)) {
+            // Unter MED-<sha> liegen auch die Einheiten-Overlays; sie lassen sich als Unit-ID zerlegen und werden übersprungen.
+            return NameIndex.rebuild(ctx.getStub(), NameIndex.MEDIKAMENT, maxKey(start, "MED-"), "MED.", maxKeys,
+                    kv -> UnitIdUtil.parse(kv.getKey()) != null ? null : JsonUtil.fromJsonBytes(kv.getValue(), Medikament.class).getBezeichnung());
+        }
+        if (!ACTOR_ENTITY.equals(entityType)) {
+            throw new ChaincodeException(String.format("Unbekannter Dokumenttyp '%s'.", entityType), PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        // Akteur-IDs beginnen mit ihrer Rolle; die Bereiche werden in Schlüsselreihenfolge nacheinander abgearbeitet.
+        for (final String role : new TreeSet<>(Arrays.asList(ALLOWED_ROLES))) {
+            if (start.compareTo(role + ".") >= 0) {
+                continue;
+            }
+            final String next = NameIndex.rebuild(ctx.getStub(), NameIndex.ACTOR, maxKey(start, role + "-"), role + ".", maxKeys,
+                    kv -> JsonUtil.fromJsonBytes(kv.getValue(), Actor.class).getBezeichnung());
+            if (!next.isEmpty()) {
+                return next;
+            }
         }
+        return "";
+    }
 
-        return JsonUtil.toJson(actorList);
+    private static String maxKey(final String first, final String second) {
+        return first.compareTo(second) >= 0 ? first : second;
     }
 
     // Bsp.: {"function":"transferUnitRange","Args":["MED-abc...","CH-2025-07","1","50","grosshaendler-456","2025-07-12T12:00:00Z"]}
@@ -732,35 +1283,160 @@ public final class PharmaSupplyChainContract implements ContractInterface {
             throw new ChaincodeException(String.format("Neuer Eigentümer Akteur %s nicht gefunden.", newOwnerActorId), PharmaSupplyChainErrors.ACTOR_NOT_FOUND.toString());
         }
 
-        List<Unit> unitsToTransfer = new ArrayList<>();
+        final Charge charge = getCharge(ctx, medId, chargeBezeichnung);
+        final int mismatch = charge == null ? startCounter : charge.firstCounterNotOwnedBy(startCounter, endCounter, previousOwnerId);
+        if (mismatch != -1) {
+            final String unitId = UnitIdUtil.unitId(medId, chargeBezeichnung, mismatch);
+            if (charge == null || charge.ownerOf(mismatch) == null) {
+                throw new ChaincodeException(String.format("Einheit %s im Bereich nicht gefunden. Transaktion abgebrochen.", unitId), PharmaSupplyChainErrors.UNIT_NOT_FOUND.toString());
+            }
+            throw new ChaincodeException(String.format("Sie sind nicht der Besitzer der Einheit %s. Transaktion abgebrochen.", unitId), PharmaSupplyChainErrors.INVALID_UNIT_OWNER.toString());
+        }
+
+        final Map<String, Integer> previousOwnerCounts = effectiveOwnerCounts(ctx, charge);
+        UnitHistory.appendTransfer(ctx.getStub(), charge, new Charge.RangeTransfer(startCounter, endCounter, previousOwnerId, newOwnerActorId, transferTimestamp));
+        charge.reassign(startCounter, endCounter, newOwnerActorId);
+        final DeltaCounter aggregates = new DeltaCounter(ctx.getStub());
+        putCharge(ctx, charge, previousOwnerCounts, aggregates);
+        aggregates.flush();
+        final UnitBatchEvent summary = transferEvent(charge, startCounter, endCounter, previousOwnerId, newOwnerActorId, transferTimestamp);
+        emitEvent(ctx, "UnitsTransferred", summary);
+        return JsonUtil.toJson(summary);
+    }
 
-        for (int i = startCounter; i <= endCounter; i++) {
-            String unitId = medId + "-" + chargeBezeichnung + "-" + String.format("%04d", i);
+    // Bsp.: {"function":"transferUnits","Args":["[{\"toActorId\":\"apotheke-123\",\"unitIds\":[\"UNIT-xyz...\"],\"ranges\":[{\"medId\":\"MED-abc...\",\"chargeBezeichnung\":\"CH-2025-07\",\"start\":1,\"end\":20}]}]","2025-07-12T12:00:00Z"]}
+    @Transaction()
+    public String transferUnits(final Context ctx, final String instructionsJson, final String transferTimestamp) {
+        final TransferInstruction[] instructions = instructionsJson == null || instructionsJson.isEmpty()
+                ? new TransferInstruction[0] : JsonUtil.fromJson(instructionsJson, TransferInstruction[].class);
+        if (instructions.length == 0) {
+            throw new ChaincodeException("Keine Transferanweisungen angegeben.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        final String callerId = getCallingActorFromContext(ctx).getActorId();
+
+        // Jeder Empfänger wird genau einmal geprüft, auch wenn er in mehreren Anweisungen vorkommt.
+        final Map<String, UnitBatchEvent> transfersByRecipient = new TreeMap<>();
+        for (final TransferInstruction instruction : instructions) {
+            final String recipientId = instruction.getToActorId();
+            if (recipientId == null || recipientId.isEmpty() || recipientId.equals(callerId)) {
+                throw new ChaincodeException(String.format("Ungültiger Empfänger %s.", recipientId), PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+            }
+            if (!transfersByRecipient.containsKey(recipientId)) {
+                if (!actorExists(ctx, recipientId)) {
+                    throw new ChaincodeException(String.format("Neuer Eigentümer Akteur %s nicht gefunden.", recipientId), PharmaSupplyChainErrors.ACTOR_NOT_FOUND.toString());
+                }
+                final UnitBatchEvent transfer = new UnitBatchEvent();
+                transfer.setFromActorId(callerId);
+                transfer.setToActorId(recipientId);
+                transfer.setTimestamp(transferTimestamp);
+                transfersByRecipient.put(recipientId, transfer);
+            }
+        }
 
-            byte[] unitStateBytes = ctx.getStub().getState(unitId);
-            if (unitStateBytes == null || unitStateBytes.length == 0) {
-                throw new ChaincodeException(String.format("Einheit %s im Bereich nicht gefunden. Transaktion abgebrochen.", unitId), PharmaSupplyChainErrors.UNIT_NOT_FOUND.toString());
+        // Eine Charge wird einmal gelesen und einmal geschrieben, egal wie viele Anweisungen sie betreffen.
+        final Map<String, Charge> charges = new TreeMap<>();
+        final Map<String, Map<String, Integer>> previousOwnerCounts = new TreeMap<>();
+        for (final TransferInstruction instruction : instructions) {
+            final UnitBatchEvent transfer = transfersByRecipient.get(instruction.getToActorId());
+            final List<UnitBatchEvent.ChargeRange> ranges = mergeUnitRanges(instruction.getRanges(), instruction.getUnitIds());
+            if (ranges.isEmpty()) {
+                throw new ChaincodeException(String.format("Die Anweisung für %s enthält keine Einheiten.", instruction.getToActorId()),
+                        PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+            }
+            for (final UnitBatchEvent.ChargeRange range : ranges) {
+                final Charge charge = chargeForRange(ctx, charges, previousOwnerCounts, range);
+                requireOwnedRange(ctx, charge, range, callerId);
+                UnitHistory.appendTransfer(ctx.getStub(), charge, new Charge.RangeTransfer(range.getStart(), range.getEnd(), callerId, transfer.getToActorId(), transferTimestamp));
+                charge.reassign(range.getStart(), range.getEnd(), transfer.getToActorId());
+                transfer.addRange(range.getMedId(), range.getChargeBezeichnung(), range.getStart(), range.getEnd());
             }
+        }
+        putCharges(ctx, charges, previousOwnerCounts);
 
-            Unit unit = JsonUtil.fromJson(new String(unitStateBytes, StandardCharsets.UTF_8), Unit.class);
+        final UnitDispatchEvent dispatch = new UnitDispatchEvent();
+        dispatch.setFromActorId(callerId);
+        dispatch.setTimestamp(transferTimestamp);
+        for (final UnitBatchEvent transfer : transfersByRecipient.values()) {
+            dispatch.addTransfer(transfer);
+        }
+        emitEvent(ctx, "UnitsDispatched", dispatch);
+        return JsonUtil.toJson(dispatch);
+    }
 
-            if (!Objects.equals(previousOwnerId, unit.getCurrentOwnerActorId())) {
-                throw new ChaincodeException(String.format("Sie sind nicht der Besitzer der Einheit %s. Transaktion abgebrochen.", unitId), PharmaSupplyChainErrors.INVALID_UNIT_OWNER.toString());
+    // Fasst Unit-IDs und Bereiche zu sortierten, zusammenhängenden Bereichen je Charge zusammen,
+    // damit pro Bereich nur ein Datensatz bzw. Segment entsteht.
+    private List<UnitBatchEvent.ChargeRange> mergeUnitRanges(final List<UnitBatchEvent.ChargeRange> explicitRanges, final List<String> unitIds) {
+        final List<UnitBatchEvent.ChargeRange> ranges = new ArrayList<>();
+        for (final UnitBatchEvent.ChargeRange range : explicitRanges) {
+            if (range.getMedId() == null || range.getChargeBezeichnung() == null || range.getStart() <= 0 || range.getEnd() < range.getStart()) {
+                throw new ChaincodeException("Ungültiger Zählerbereich.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
             }
-            unitsToTransfer.add(unit);
+            ranges.add(range);
         }
+        for (final String unitId : unitIds) {
+            final UnitIdUtil.ParsedUnitId parsedId = parseUnitId(unitId);
+            ranges.add(new UnitBatchEvent.ChargeRange(parsedId.getMedId(), parsedId.getChargeBezeichnung(), parsedId.getCounter(), parsedId.getCounter()));
+        }
+        ranges.sort(Comparator.comparing(UnitBatchEvent.ChargeRange::getMedId)
+                .thenComparing(UnitBatchEvent.ChargeRange::getChargeBezeichnung)
+                .thenComparingInt(UnitBatchEvent.ChargeRange::getStart));
+        final UnitBatchEvent merged = new UnitBatchEvent();
+        for (final UnitBatchEvent.ChargeRange range : ranges) {
+            merged.addRange(range.getMedId(), range.getChargeBezeichnung(), range.getStart(), range.getEnd());
+        }
+        return merged.getRanges();
+    }
 
-        for (Unit unit : unitsToTransfer) {
-            unit.addTransferEntry(previousOwnerId, newOwnerActorId, transferTimestamp);
-            unit.setCurrentOwnerActorId(newOwnerActorId);
-            ctx.getStub().putState(unit.getUnitId(), JsonUtil.toJson(unit).getBytes(StandardCharsets.UTF_8));
-            emitEvent(ctx, "UnitTransferred", unit);
+    private void requireOwnedRange(final Context ctx, final Charge charge, final UnitBatchEvent.ChargeRange range, final String ownerActorId) {
+        final int mismatch = charge == null ? range.getStart() : charge.firstCounterNotOwnedBy(range.getStart(), range.getEnd(), ownerActorId);
+        if (mismatch != -1) {
+            final String unitId = UnitIdUtil.unitId(range.getMedId(), range.getChargeBezeichnung(), mismatch);
+            if (charge != null && UnitHistory.consumedSegmentOf(ctx.getStub(), charge.getChargeId(), mismatch) != null) {
+                throw new ChaincodeException(String.format("Einheit %s wurde bereits abgegeben. Transaktion abgebrochen.", unitId), PharmaSupplyChainErrors.UNIT_CONSUMED.toString());
+            }
+            if (charge == null || charge.ownerOf(mismatch) == null) {
+                throw new ChaincodeException(String.format("Einheit %s nicht gefunden. Transaktion abgebrochen.", unitId), PharmaSupplyChainErrors.UNIT_NOT_FOUND.toString());
+            }
+            throw new ChaincodeException(String.format("Sie sind nicht der Besitzer der Einheit %s. Transaktion abgebrochen.", unitId), PharmaSupplyChainErrors.INVALID_UNIT_OWNER.toString());
         }
+    }
 
-        String successMessage = String.format("%d Einheiten (Bereich %d-%d) erfolgreich an %s übertragen.",
-                (endCounter - startCounter + 1), startCounter, endCounter, newOwnerActorId);
-        System.out.println(successMessage);
-        return successMessage;
+    // Bsp.: {"function":"consumeUnits","Args":["[\"UNIT-001\",\"UNIT-002\"]","REZEPT-2025-0001","2025-07-14T09:30:00Z"]}
+    @Transaction()
+    public String consumeUnits(final Context ctx, final String unitIdsJson, final String consumedRefId, final String consumeTimestamp) {
+        final String[] unitIds = unitIdsJson == null || unitIdsJson.isEmpty() ? new String[0] : JsonUtil.fromJson(unitIdsJson, String[].class);
+        if (unitIds.length == 0) {
+            throw new ChaincodeException("Keine Einheiten zur Abgabe angegeben.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        if (consumedRefId == null || consumedRefId.isEmpty()) {
+            throw new ChaincodeException("Die Abgabe-Referenz darf nicht leer sein.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        final String callerId = getCallingActorFromContext(ctx).getActorId();
+
+        // Die Abgabe wird nur als Segment im Chargen-Datensatz vermerkt; je Charge ein Schreibzugriff, unabhängig von der Stückzahl.
+        final Map<String, Charge> charges = new TreeMap<>();
+        final Map<String, Map<String, Integer>> previousOwnerCounts = new TreeMap<>();
+        final UnitBatchEvent consumedEvent = new UnitBatchEvent();
+        consumedEvent.setOwnerActorId(callerId);
+        consumedEvent.setConsumedRefId(consumedRefId);
+        consumedEvent.setTimestamp(consumeTimestamp);
+        final DeltaCounter aggregates = new DeltaCounter(ctx.getStub());
+        for (final UnitBatchEvent.ChargeRange range : mergeUnitRanges(Collections.emptyList(), Arrays.asList(unitIds))) {
+            final Charge charge = chargeForRange(ctx, charges, previousOwnerCounts, range);
+            requireOwnedRange(ctx, charge, range, callerId);
+            for (final Charge.ConsumedSegment segment : charge.consume(range.getStart(), range.getEnd(), consumedRefId)) {
+                UnitHistory.putConsumed(ctx.getStub(), charge.getChargeId(), segment);
+            }
+            consumedEvent.addRange(range.getMedId(), range.getChargeBezeichnung(), range.getStart(), range.getEnd());
+            aggregates.add(range.getEnd() - range.getStart() + 1, DeltaCounter.MED_CHARGE_CONSUMED, range.getMedId(), range.getChargeBezeichnung());
+        }
+        for (final Charge charge : charges.values()) {
+            putCharge(ctx, charge, previousOwnerCounts.get(charge.getChargeId()), aggregates);
+        }
+        aggregates.flush();
+
+        emitEvent(ctx, "UnitsConsumed", consumedEvent);
+        return JsonUtil.toJson(consumedEvent);
     }
 
     // Bsp.: {"function":"deleteUnits","Args":["[\"UNIT-001\",\"UNIT-002\"]"]}
@@ -775,26 +1451,423 @@ public final class PharmaSupplyChainContract implements ContractInterface {
             throw new ChaincodeException("Keine Chargen-IDs zum Löschen angegeben.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
         }
 
+        final Map<String, Charge> charges = new TreeMap<>();
+        final Map<String, List<Integer>> countersByCharge = new TreeMap<>();
         for (final String unitId : unitIds) {
-            final byte[] unitStateBytes = stub.getState(unitId);
-            if (unitStateBytes == null || unitStateBytes.length == 0) {
+            final UnitIdUtil.ParsedUnitId parsedId = UnitIdUtil.parse(unitId);
+            Charge charge = parsedId == null ? null : charges.get(parsedId.getChargeKey());
+            if (parsedId != null && charge == null) {
+                charge = getCharge(ctx, parsedId.getMedId(), parsedId.getChargeBezeichnung());
+            }
+            if (charge == null || charge.ownerOf(parsedId.getCounter()) == null) {
                 throw new ChaincodeException(String.format("Charge %s nicht gefunden. Transaktion wird abgebrochen.", unitId), PharmaSupplyChainErrors.UNIT_NOT_FOUND.toString());
             }
-            final Unit unit = JsonUtil.fromJson(new String(unitStateBytes, StandardCharsets.UTF_8), Unit.class);
-            if (!Objects.equals(callerId, unit.getCurrentOwnerActorId())) {
+            if (!Objects.equals(callerId, charge.ownerOf(parsedId.getCounter()))) {
                 throw new ChaincodeException(String.format("Sie sind nicht der Besitzer der Charge %s. Transaktion wird abgebrochen.", unitId), PharmaSupplyChainErrors.INVALID_UNIT_OWNER.toString());
             }
+            charges.put(charge.getChargeId(), charge);
+            countersByCharge.computeIfAbsent(charge.getChargeId(), k -> new ArrayList<>()).add(parsedId.getCounter());
+        }
+
+        final UnitBatchEvent deletedEvent = new UnitBatchEvent();
+        deletedEvent.setOwnerActorId(callerId);
+        final DeltaCounter aggregates = new DeltaCounter(stub);
+        for (final Charge charge : charges.values()) {
+            final Map<String, Integer> previousOwnerCounts = effectiveOwnerCounts(ctx, charge);
+            final Map<Integer, Unit> overlays = getUnitOverlays(ctx, charge);
+            final List<Integer> counters = countersByCharge.get(charge.getChargeId());
+            Collections.sort(counters);
+            for (final Integer counter : counters) {
+                deletedEvent.addRange(charge.getMedId(), charge.getChargeBezeichnung(), counter, counter);
+                charge.removeUnits(counter, counter);
+                if (overlays.containsKey(counter)) {
+                    stub.delState(UnitIdUtil.unitId(charge.getMedId(), charge.getChargeBezeichnung(), counter));
+                }
+            }
+            putCharge(ctx, charge, previousOwnerCounts, aggregates);
         }
+        aggregates.flush();
 
-        for (final String unitId : unitIds) {
-            stub.delState(unitId);
-            Map<String, String> deletePayload = new TreeMap<>();
-            deletePayload.put("unitId", unitId);
-            deletePayload.put("docType", "unit");
-            emitEvent(ctx, "UnitDeleted", deletePayload);
+        emitEvent(ctx, "UnitsDeleted", deletedEvent);
+    }
+
+    // Bsp.: {"function":"packContainer","Args":["KARTON-0001","karton","[{\"medId\":\"MED-abc...\",\"chargeBezeichnung\":\"CH-2025-07\",\"start\":1,\"end\":50}]","[]","2025-07-12T09:00:00Z"]}
+    @Transaction()
+    public String packContainer(final Context ctx, final String containerCode, final String containerType,
+                                final String unitRangesJson, final String childContainerIdsJson, final String packTimestamp) {
+        if (!("palette".equals(containerType) || "karton".equals(containerType) || "sendung".equals(containerType))) {
+            throw new ChaincodeException("Ungültiger Containertyp: erlaubt sind 'sendung', 'palette' und 'karton'.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        if (packTimestamp == null || packTimestamp.isEmpty()) {
+            throw new ChaincodeException("Zeitstempel darf nicht leer sein.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        final String containerId = CONTAINER_PREFIX + containerCode;
+        final byte[] existingContainer = readState(ctx, containerId);
+        if (existingContainer != null && existingContainer.length > 0) {
+            throw new ChaincodeException(String.format("Container %s existiert bereits.", containerId), PharmaSupplyChainErrors.CONTAINER_ALREADY_EXISTS.toString());
+        }
+
+        final UnitBatchEvent.ChargeRange[] unitRanges = unitRangesJson == null || unitRangesJson.isEmpty()
+                ? new UnitBatchEvent.ChargeRange[0] : JsonUtil.fromJson(unitRangesJson, UnitBatchEvent.ChargeRange[].class);
+        final String[] childContainerIds = childContainerIdsJson == null || childContainerIdsJson.isEmpty()
+                ? new String[0] : JsonUtil.fromJson(childContainerIdsJson, String[].class);
+        if (unitRanges.length == 0 && childContainerIds.length == 0) {
+            throw new ChaincodeException("Ein Container muss Einheiten oder andere Container enthalten.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+
+        final String callerId = getCallingActorFromContext(ctx).getActorId();
+        final Container container = new Container(containerId, containerType, callerId);
+        container.setPackedAt(packTimestamp);
+        int unitCount = 0;
+
+        for (final String childContainerId : new TreeSet<>(Arrays.asList(childContainerIds))) {
+            final Container child = getContainer(ctx, childContainerId);
+            if (child.hasParent() || child.wasUnpacked()) {
+                throw new ChaincodeException(String.format("Container %s ist bereits eingepackt oder ausgepackt.", childContainerId),
+                        PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+            }
+            if (!Objects.equals(callerId, child.getOwnerActorId())) {
+                throw new ChaincodeException(String.format("Sie sind nicht der Besitzer des Containers %s.", childContainerId), PharmaSupplyChainErrors.UNAUTHORIZED_ACCESS.toString());
+            }
+            child.setParentContainerId(containerId);
+            pharmaContext(ctx).putCachedState(childContainerId, JsonUtil.toJsonBytes(child));
+            CompositeIndex.put(ctx.getStub(), CompositeIndex.CONTAINER_PARENT, childContainerId, containerId);
+            container.getChildContainerIds().add(childContainerId);
+            unitCount += child.getUnitCount();
+        }
+
+        final Map<String, Charge> charges = new TreeMap<>();
+        final Map<String, Map<String, Integer>> previousOwnerCounts = new TreeMap<>();
+        for (final UnitBatchEvent.ChargeRange range : unitRanges) {
+            if (range.getStart() <= 0 || range.getEnd() < range.getStart()) {
+                throw new ChaincodeException("Ungültiger Zählerbereich.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+            }
+            final Charge charge = chargeForRange(ctx, charges, previousOwnerCounts, range);
+            requireOwnedRange(ctx, charge, range, callerId);
+            // Einpacken ist kein Eigentümerwechsel, daher ohne Hop.
+            charge.reassign(range.getStart(), range.getEnd(), containerId, 0);
+            container.getUnitRanges().add(new UnitBatchEvent.ChargeRange(range.getMedId(), range.getChargeBezeichnung(), range.getStart(), range.getEnd()));
+            unitCount += range.getEnd() - range.getStart() + 1;
+        }
+        // Der neue Container muss beim Abgleich der Eigentümerzähler bereits auflösbar sein.
+        container.setUnitCount(unitCount);
+        pharmaContext(ctx).putCachedState(containerId, JsonUtil.toJsonBytes(container));
+        putCharges(ctx, charges, previousOwnerCounts);
+        for (final String chargeKey : charges.keySet()) {
+            CompositeIndex.put(ctx.getStub(), CompositeIndex.CHARGE_CONTAINER, chargeKey, containerId);
+        }
+
+        emitEvent(ctx, "ContainerPacked", container);
+        return JsonUtil.toJson(container);
+    }
+
+    // Bsp.: {"function":"transferContainer","Args":["CONTAINER-PALETTE-0001","grosshaendler-456","2025-07-12T12:00:00Z"]}
+    @Transaction()
+    public String transferContainer(final Context ctx, final String containerId, final String newOwnerActorId, final String transferTimestamp) {
+        final Container container = requirePackedContainer(ctx, containerId);
+        if (container.hasParent()) {
+            throw new ChaincodeException(String.format("Container %s ist in %s eingepackt und kann nur mit diesem übertragen werden.", containerId, container.getParentContainerId()),
+                    PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        final String previousOwnerId = getCallingActorFromContext(ctx).getActorId();
+        if (!Objects.equals(previousOwnerId, container.getOwnerActorId())) {
+            throw new ChaincodeException(String.format("Sie sind nicht der Besitzer des Containers %s.", containerId), PharmaSupplyChainErrors.UNAUTHORIZED_ACCESS.toString());
+        }
+        if (!actorExists(ctx, newOwnerActorId)) {
+            throw new ChaincodeException(String.format("Neuer Eigentümer Akteur %s nicht gefunden.", newOwnerActorId), PharmaSupplyChainErrors.ACTOR_NOT_FOUND.toString());
+        }
+
+        // Die Chargen-Datensätze bleiben unverändert, da Inhalt und Unter-Container den Eigentümer über die Kette erben.
+        // Nur Index owner~charge und Zähler count~owner der betroffenen Chargen wandern zum neuen Eigentümer.
+        final Map<String, Charge> charges = new TreeMap<>();
+        final Map<String, Map<String, Integer>> previousOwnerCounts = new TreeMap<>();
+        collectContainerCharges(ctx, container, charges, previousOwnerCounts);
+        container.setOwnerActorId(newOwnerActorId);
+        container.setTransferCount(container.getTransferCount() + 1);
+        pharmaContext(ctx).putCachedState(containerId, JsonUtil.toJsonBytes(container));
+        final DeltaCounter aggregates = new DeltaCounter(ctx.getStub());
+        for (final Charge charge : charges.values()) {
+            updateOwnerAggregates(ctx, charge, previousOwnerCounts.get(charge.getChargeId()), aggregates);
+        }
+        aggregates.flush();
+
+        final Map<String, String> transferPayload = new TreeMap<>();
+        transferPayload.put("containerId", containerId);
+        transferPayload.put("fromActorId", previousOwnerId);
+        transferPayload.put("toActorId", newOwnerActorId);
+        transferPayload.put("timestamp", transferTimestamp);
+        transferPayload.put("unitCount", String.valueOf(container.getUnitCount()));
+        transferPayload.put("docType", "container");
+        emitEvent(ctx, "ContainerTransferred", transferPayload);
+        return JsonUtil.toJson(container);
+    }
+
+    private void collectContainerCharges(final Context ctx, final Container container, final Map<String, Charge> charges,
+                                         final Map<String, Map<String, Integer>> previousOwnerCounts) {
+        for (final UnitBatchEvent.ChargeRange range : container.getUnitRanges()) {
+            chargeForRange(ctx, charges, previousOwnerCounts, range);
+        }
+        for (final String childContainerId : container.getChildContainerIds()) {
+            collectContainerCharges(ctx, getContainer(ctx, childContainerId), charges, previousOwnerCounts);
+        }
+    }
+
+    // Bsp.: {"function":"unpackContainer","Args":["CONTAINER-PALETTE-0001","2025-07-14T08:00:00Z"]}
+    @Transaction()
+    public String unpackContainer(final Context ctx, final String containerId, final String unpackTimestamp) {
+        final Container container = requirePackedContainer(ctx, containerId);
+        if (container.hasParent()) {
+            throw new ChaincodeException(String.format("Container %s muss zuerst aus %s ausgepackt werden.", containerId, container.getParentContainerId()),
+                    PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        if (unpackTimestamp == null || unpackTimestamp.isEmpty()) {
+            throw new ChaincodeException("Zeitstempel darf nicht leer sein.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        final String callerId = getCallingActorFromContext(ctx).getActorId();
+        if (!Objects.equals(callerId, container.getOwnerActorId())) {
+            throw new ChaincodeException(String.format("Sie sind nicht der Besitzer des Containers %s.", containerId), PharmaSupplyChainErrors.UNAUTHORIZED_ACCESS.toString());
+        }
+        final int containerHops = container.getTransferCount();
+
+        // Unter-Container werden selbst zu Wurzel-Containern und übernehmen die bisherigen Übertragungen.
+        for (final String childContainerId : container.getChildContainerIds()) {
+            final Container child = getContainer(ctx, childContainerId);
+            child.setParentContainerId(null);
+            child.setOwnerActorId(callerId);
+            child.setTransferCount(child.getTransferCount() + containerHops);
+            pharmaContext(ctx).putCachedState(childContainerId, JsonUtil.toJsonBytes(child));
+        }
+
+        // Erst hier wird der Eigentümer der direkt enthaltenen Einheiten wieder auf Einheitenebene festgeschrieben.
+        final UnitBatchEvent unpackedEvent = new UnitBatchEvent();
+        unpackedEvent.setFromActorId(container.getPackedByActorId());
+        unpackedEvent.setToActorId(callerId);
+        unpackedEvent.setTimestamp(unpackTimestamp);
+        final Map<String, Charge> charges = new TreeMap<>();
+        final Map<String, Map<String, Integer>> previousOwnerCounts = new TreeMap<>();
+        for (final UnitBatchEvent.ChargeRange range : container.getUnitRanges()) {
+            final Charge charge = chargeForRange(ctx, charges, previousOwnerCounts, range);
+            if (charge == null) {
+                continue;
+            }
+            if (!Objects.equals(container.getPackedByActorId(), callerId)) {
+                UnitHistory.appendTransfer(ctx.getStub(), charge, new Charge.RangeTransfer(range.getStart(), range.getEnd(), container.getPackedByActorId(), callerId, unpackTimestamp));
+            }
+            charge.reassign(range.getStart(), range.getEnd(), callerId, containerHops);
+            unpackedEvent.addRange(range.getMedId(), range.getChargeBezeichnung(), range.getStart(), range.getEnd());
+        }
+        putCharges(ctx, charges, previousOwnerCounts);
+
+        // Der Container bleibt als ausgepackt erhalten, damit sich die Kühlkette der Einheiten weiterhin ableiten lässt.
+        container.setUnpackedAt(unpackTimestamp);
+        ctx.getStub().putState(containerId, JsonUtil.toJsonBytes(container));
+        emitEvent(ctx, "UnitsTransferred", unpackedEvent);
+        return JsonUtil.toJson(unpackedEvent);
+    }
+
+    // Bsp.: {"function":"queryContainer","Args":["CONTAINER-KARTON-0001"]}
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String queryContainer(final Context ctx, final String containerId) {
+        final Container container = getContainer(ctx, containerId);
+        // Für eingepackte Container ist der gespeicherte Eigentümer veraltet; ausgegeben wird der effektive.
+        container.setOwnerActorId(resolveOwner(ctx, containerId));
+        return JsonUtil.toJson(container);
+    }
+
+    // Bsp.: {"function":"addContainerTemperatureReading","Args":["CONTAINER-SENDUNG-0001","5.5","2025-07-12T10:00:00Z"]}
+    @Transaction()
+    public String addContainerTemperatureReading(final Context ctx, final String containerId, final String temperature, final String timestamp) {
+        requirePackedContainer(ctx, containerId);
+        if (!Objects.equals(getCallingActorFromContext(ctx).getActorId(), resolveOwner(ctx, containerId))) {
+            throw new ChaincodeException("Nur der aktuelle Eigentümer des Containers darf Temperaturdaten hinzufügen.", PharmaSupplyChainErrors.UNAUTHORIZED_ACCESS.toString());
+        }
+        requireValidReading(temperature, timestamp);
+
+        // Ein Schlüssel pro Messung, unabhängig von der Zahl der transportierten Einheiten.
+        TemperatureLedger.putReading(ctx.getStub(), containerId, timestamp, temperature);
+
+        final Map<String, String> readingPayload = new TreeMap<>();
+        readingPayload.put("containerId", containerId);
+        readingPayload.put("timestamp", timestamp);
+        readingPayload.put("temperature", temperature);
+        emitEvent(ctx, "ContainerTemperatureAdded", new PharmaEvent(CONTAINER_ENTITY, containerId, PharmaEvent.APPENDED)
+                .change("timestamp", timestamp)
+                .change("temperature", temperature));
+        return JsonUtil.toJson(readingPayload);
+    }
+
+    // Bsp.: {"function":"queryContainerTemperatureReadings","Args":["CONTAINER-SENDUNG-0001","2025-07-01T00:00:00Z",""]}
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String queryContainerTemperatureReadings(final Context ctx, final String containerId, final String fromTimestamp, final String toTimestamp) {
+        getContainer(ctx, containerId);
+        return JsonUtil.toJson(TemperatureLedger.readings(ctx.getStub(), containerId, fromTimestamp, toTimestamp));
+    }
+
+    // Bsp.: {"function":"anchorTemperatureBatch","Args":["LOGGER-42-20250712","{\"merkleRoot\":\"9f86d0...\",\"readingCount\":1440,\"minTemperature\":3.1,\"maxTemperature\":8.4,\"excursionCount\":2,\"firstTimestamp\":\"2025-07-12T00:00:00Z\",\"lastTimestamp\":\"2025-07-12T23:59:00Z\"}","[\"CONTAINER-SENDUNG-0001\"]","ipfs://QmLog...","2","8"]}
+    @Transaction()
+    public String anchorTemperatureBatch(final Context ctx, final String batchId, final String summaryJson, final String subjectIdsJson,
+                                         final String ipfsLink, final String minAllowed, final String maxAllowed) {
+        if (batchId == null || batchId.isEmpty() || ipfsLink == null || ipfsLink.isEmpty()) {
+            throw new ChaincodeException("Batch-ID und IPFS-Link der Rohdaten dürfen nicht leer sein.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        final String batchKey = TEMPERATURE_BATCH_PREFIX + batchId;
+        final byte[] existing = readState(ctx, batchKey);
+        if (existing != null && existing.length > 0) {
+            throw new ChaincodeException(String.format("Temperatur-Batch %s existiert bereits.", batchId), PharmaSupplyChainErrors.TEMPERATURE_BATCH_ALREADY_EXISTS.toString());
+        }
+        final double lowerLimit = parseTemperature(minAllowed);
+        final double upperLimit = parseTemperature(maxAllowed);
+        if (lowerLimit > upperLimit) {
+            throw new ChaincodeException("Die untere Temperaturgrenze liegt über der oberen.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        // Wurzel und Kennzahlen berechnet das Backend aus den IPFS-Rohdaten; die Messwerte selbst gelangen nicht in den Block.
+        final TemperatureBatch batch = parseBatchSummary(summaryJson);
+        final String[] subjectIds = parseBatchSubjects(subjectIdsJson);
+        final Actor callingActor = getCallingActorFromContext(ctx);
+        final Set<String> subjects = new TreeSet<>();
+        for (final String subjectId : subjectIds) {
+            subjects.add(requireOwnedSubject(ctx, subjectId, callingActor));
+        }
+
+        batch.setBatchId(batchId);
+        batch.setMinAllowed(lowerLimit);
+        batch.setMaxAllowed(upperLimit);
+        batch.setIpfsLink(ipfsLink);
+        batch.setRecordedByActorId(callingActor.getActorId());
+        batch.setSubjectCount(subjects.size());
+
+        final ChaincodeStub stub = ctx.getStub();
+        stub.putState(batchKey, JsonUtil.toJsonBytes(batch));
+        for (final String subjectId : subjects) {
+            CompositeIndex.put(stub, CompositeIndex.SUBJECT_TEMPERATURE_BATCH, subjectId, batchId);
         }
+        emitEvent(ctx, "TemperatureBatchAnchored", batch);
+        return JsonUtil.toJson(batch);
+    }
+
+    // Bsp.: {"function":"verifyTemperatureReading","Args":["LOGGER-42-20250712","CONTAINER-SENDUNG-0001","2025-07-12T10:00:00Z","5.5","[\"R:ab12...\",\"L:cd34...\"]"]}
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String verifyTemperatureReading(final Context ctx, final String batchId, final String subjectId, final String timestamp,
+                                           final String temperature, final String proofJson) {
+        final TemperatureBatch batch = getTemperatureBatch(ctx, batchId);
+        final String[] proof;
+        try {
+            proof = JsonUtil.fromJson(proofJson, String[].class);
+        } catch (final RuntimeException e) {
+            throw new ChaincodeException("Ungültiger Merkle-Beweis: " + e.getMessage(), PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        final byte[] leaf = MerkleTree.leafHash(subjectId, timestamp, temperature);
+        final byte[] root = proof == null ? null : MerkleTree.rootFromProof(leaf, Arrays.asList(proof));
+        final boolean included = root != null && MerkleTree.toHex(root).equals(batch.getMerkleRoot());
+
+        final Map<String, Object> result = new TreeMap<>();
+        result.put("batchId", batchId);
+        result.put("subjectId", subjectId);
+        result.put("timestamp", timestamp);
+        result.put("temperature", temperature);
+        result.put("leafHash", MerkleTree.toHex(leaf));
+        result.put("merkleRoot", batch.getMerkleRoot());
+        result.put("ipfsLink", batch.getIpfsLink());
+        result.put("included", included);
+        return JsonUtil.toJson(result);
+    }
+
+    // Bsp.: {"function":"queryTemperatureBatch","Args":["LOGGER-42-20250712"]}
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String queryTemperatureBatch(final Context ctx, final String batchId) {
+        return JsonUtil.toJson(getTemperatureBatch(ctx, batchId));
+    }
+
+    // Bsp.: {"function":"queryTemperatureBatchesBySubject","Args":["CONTAINER-SENDUNG-0001"]}
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String queryTemperatureBatchesBySubject(final Context ctx, final String subjectId) {
+        final String indexedId = isContainerId(subjectId) ? subjectId : parseUnitId(subjectId).getUnitId();
+        final List<TemperatureBatch> batches = new ArrayList<>();
+        for (final String batchId : CompositeIndex.lookup(ctx.getStub(), CompositeIndex.SUBJECT_TEMPERATURE_BATCH, indexedId)) {
+            batches.add(getTemperatureBatch(ctx, batchId));
+        }
+        batches.sort(Comparator.comparing(TemperatureBatch::getFirstTimestamp));
+        return JsonUtil.toJson(batches);
+    }
 
-        System.out.printf("%d Chargen erfolgreich gelöscht.%n", unitIds.length);
+    private TemperatureBatch getTemperatureBatch(final Context ctx, final String batchId) {
+        final byte[] batchBytes = readState(ctx, TEMPERATURE_BATCH_PREFIX + batchId);
+        if (batchBytes == null || batchBytes.length == 0) {
+            throw new ChaincodeException(String.format("Temperatur-Batch %s nicht gefunden.", batchId), PharmaSupplyChainErrors.TEMPERATURE_BATCH_NOT_FOUND.toString());
+        }
+        return JsonUtil.fromJsonBytes(batchBytes, TemperatureBatch.class);
+    }
+
+    private static TemperatureBatch parseBatchSummary(final String summaryJson) {
+        final TemperatureBatch summary;
+        try {
+            summary = JsonUtil.fromJson(summaryJson, TemperatureBatch.class);
+        } catch (final RuntimeException e) {
+            throw new ChaincodeException("Ungültige Batch-Kennzahlen: " + e.getMessage(), PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        if (summary == null || MerkleTree.fromHex(summary.getMerkleRoot()) == null) {
+            throw new ChaincodeException("Die Merkle-Wurzel muss ein SHA-256-Hash in Hex-Darstellung sein.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        if (summary.getReadingCount() < 1 || summary.getExcursionCount() < 0 || summary.getExcursionCount() > summary.getReadingCount()) {
+            throw new ChaincodeException("Anzahl der Messwerte bzw. Grenzwertverletzungen ist ungültig.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        if (!Double.isFinite(summary.getMinTemperature()) || !Double.isFinite(summary.getMaxTemperature())
+                || summary.getMinTemperature() > summary.getMaxTemperature()) {
+            throw new ChaincodeException("Minimum und Maximum der Messwerte sind ungültig.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        final String first = summary.getFirstTimestamp();
+        final String last = summary.getLastTimestamp();
+        if (first == null || first.isEmpty() || last == null || last.isEmpty() || first.compareTo(last) > 0) {
+            throw new ChaincodeException("Der Zeitraum der Messwerte ist ungültig.", PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        return summary;
+    }
+
+    private static String[] parseBatchSubjects(final String subjectIdsJson) {
+        final String[] subjectIds;
+        try {
+            subjectIds = JsonUtil.fromJson(subjectIdsJson, String[].class);
+        } catch (final RuntimeException e) {
+            throw new ChaincodeException("Ungültige Subjektliste: " + e.getMessage(), PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        if (subjectIds == null || subjectIds.length == 0 || subjectIds.length > MAX_BATCH_SUBJECTS) {
+            throw new ChaincodeException(String.format("Ein Temperatur-Batch muss zwischen 1 und %d Einheiten bzw. Container betreffen.", MAX_BATCH_SUBJECTS),
+                    PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        return subjectIds;
+    }
+
+    private static double parseTemperature(final String temperature) {
+        try {
+            final double value = Double.parseDouble(String.valueOf(temperature));
+            if (Double.isFinite(value)) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Fehlermeldung wie bei nicht endlichen Werten.
+        }
+        throw new ChaincodeException(String.format("Ungültiger Temperaturwert '%s'.", temperature), PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+    }
+
+    // Nur der effektive Eigentümer einer Einheit bzw. eines Containers darf Messwerte dafür verankern; liefert die kanonische ID.
+    private String requireOwnedSubject(final Context ctx, final String subjectId, final Actor callingActor) {
+        final String canonicalId;
+        final String owner;
+        if (isContainerId(subjectId)) {
+            getContainer(ctx, subjectId);
+            canonicalId = subjectId;
+            owner = resolveOwner(ctx, subjectId);
+        } else {
+            final UnitIdUtil.ParsedUnitId parsedId = parseUnitId(subjectId);
+            final Charge charge = requireChargeOfUnit(ctx, parsedId, subjectId);
+            canonicalId = parsedId.getUnitId();
+            owner = resolveOwner(ctx, charge.ownerOf(parsedId.getCounter()));
+        }
+        if (!Objects.equals(callingActor.getActorId(), owner)) {
+            throw new ChaincodeException(String.format("Nur der aktuelle Eigentümer von %s darf Temperaturdaten verankern.", subjectId),
+                    PharmaSupplyChainErrors.UNAUTHORIZED_ACCESS.toString());
+        }
+        return canonicalId;
     }
 
     // Bsp.: {"function":"queryAllMedikamente","Args":[]}
@@ -804,22 +1877,38 @@ public final class PharmaSupplyChainContract implements ContractInterface {
         String queryString = "{\"selector\":{\"docType\":\"medikament\"}}";
         final QueryResultsIterator<org.hyperledger.fabric.shim.ledger.KeyValue> resultsIterator = ctx.getStub().getQueryResult(queryString);
         for (final org.hyperledger.fabric.shim.ledger.KeyValue kv : resultsIterator) {
-            final Medikament medikament = JsonUtil.fromJson(kv.getStringValue(), Medikament.class);
+            final Medikament medikament = JsonUtil.fromJsonBytes(kv.getValue(), Medikament.class);
             medikamentList.add(medikament);
         }
         return JsonUtil.toJson(medikamentList);
     }
 
+    // Bsp.: {"function":"queryAllMedikamentePaginated","Args":["100",""]}
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String queryAllMedikamentePaginated(final Context ctx, final int pageSize, final String bookmark) {
+        requireValidPageSize(pageSize);
+        final List<Medikament> medikamentList = new ArrayList<>();
+        final QueryResultsIteratorWithMetadata<org.hyperledger.fabric.shim.ledger.KeyValue> resultsIterator =
+                ctx.getStub().getQueryResultWithPagination("{\"selector\":{\"docType\":\"medikament\"}}", pageSize, bookmark);
+
+        for (final org.hyperledger.fabric.shim.ledger.KeyValue kv : resultsIterator) {
+            medikamentList.add(JsonUtil.fromJsonBytes(kv.getValue(), Medikament.class));
+        }
+
+        final String nextBookmark = medikamentList.size() < pageSize ? "" : resultsIterator.getMetadata().getBookmark();
+        return toPageJson(medikamentList, nextBookmark);
+    }
+
     // Bsp.: {"function":"deleteMedikamentIfNoUnits","Args":["MED-abc..."]}
     @Transaction()
     public void deleteMedikamentIfNoUnits(final Context ctx, final String medId) {
         final ChaincodeStub stub = ctx.getStub();
 
-        final byte[] medikamentStateBytes = stub.getState(medId);
+        final byte[] medikamentStateBytes = readState(ctx, medId);
         if (medikamentStateBytes == null || medikamentStateBytes.length == 0) {
             throw new ChaincodeException(String.format("Medikament %s nicht gefunden", medId), PharmaSupplyChainErrors.MEDIKAMENT_NOT_FOUND.toString());
         }
-        final Medikament existingMedikament = JsonUtil.fromJson(new String(medikamentStateBytes, StandardCharsets.UTF_8), Medikament.class);
+        final Medikament existingMedikament = JsonUtil.fromJsonBytes(medikamentStateBytes, Medikament.class);
         final Actor callingActor = getCallingActorFromContext(ctx);
 
         if (!(callingActor.getRole().equalsIgnoreCase("behoerde")
@@ -829,41 +1918,80 @@ public final class PharmaSupplyChainContract implements ContractInterface {
             throw new ChaincodeException("Nicht autorisiert, dieses Medikament zu löschen.", PharmaSupplyChainErrors.UNAUTHORIZED_ACCESS.toString());
         }
 
-        final String unitsJson = queryUnitsByMedId(ctx, medId);
-        final Unit[] units = JsonUtil.fromJson(unitsJson, Unit[].class);
-        if (units.length > 0) {
-            throw new ChaincodeException(String.format("Medikament %s kann nicht gelöscht werden, da bereits %d Charge(n) existieren.", medId, units.length), PharmaSupplyChainErrors.MEDIKAMENT_HAS_UNITS.toString());
+        // Abgegebene Einheiten zählen mit, damit ihre Historie nicht durch das Löschen des Medikaments verwaist.
+        final int unitCount = DeltaCounter.sum(stub, DeltaCounter.MED_CHARGE_UNITS, medId) + DeltaCounter.sum(stub, DeltaCounter.MED_CHARGE_CONSUMED, medId);
+        if (unitCount > 0) {
+            throw new ChaincodeException(String.format("Medikament %s kann nicht gelöscht werden, da bereits %d Einheit(en) existieren.", medId, unitCount), PharmaSupplyChainErrors.MEDIKAMENT_HAS_UNITS.toString());
         }
 
         stub.delState(medId);
-        stub.delState(UNIT_COUNTER_PREFIX + medId);
+        stub.delState(LEGACY_UNIT_COUNTER_PREFIX + medId);
+        CompositeIndex.delete(stub, CompositeIndex.HERSTELLER_MED, existingMedikament.getHerstellerId(), medId);
+        NameIndex.update(stub, NameIndex.MEDIKAMENT, medId, existingMedikament.getBezeichnung(), null);
 
-        Map<String, String> deletePayload = new TreeMap<>();
-        deletePayload.put("medId", medId);
-        deletePayload.put("docType", "medikament");
-        emitEvent(ctx, "MedikamentDeleted", deletePayload);
+        emitEvent(ctx, "MedikamentDeleted", new PharmaEvent(MEDIKAMENT_ENTITY, medId, PharmaEvent.DELETED, existingMedikament.nextVersion()));
     }
 
     // Bsp.: {"function":"queryChargeCountsByMedId","Args":["MED-abc..."]}
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public String queryChargeCountsByMedId(final Context ctx, final String medId) {
         final ChaincodeStub stub = ctx.getStub();
-        final Map<String, Integer> chargeCounts = new TreeMap<>();
 
-        byte[] medikamentStateBytes = stub.getState(medId);
+        byte[] medikamentStateBytes = readState(ctx, medId);
         if (medikamentStateBytes == null || medikamentStateBytes.length == 0) {
             throw new ChaincodeException(String.format("Medikament mit ID '%s' nicht gefunden.", medId), PharmaSupplyChainErrors.MEDIKAMENT_NOT_FOUND.toString());
         }
 
-        String queryString = String.format("{\"selector\":{\"docType\":\"unit\",\"medId\":\"%s\"}}", medId);
-        final QueryResultsIterator<org.hyperledger.fabric.shim.ledger.KeyValue> resultsIterator = stub.getQueryResult(queryString);
+        return JsonUtil.toJson(DeltaCounter.sumGrouped(stub, DeltaCounter.MED_CHARGE_UNITS, medId));
+    }
 
-        for (final org.hyperledger.fabric.shim.ledger.KeyValue kv : resultsIterator) {
-            final Unit unit = JsonUtil.fromJson(kv.getStringValue(), Unit.class);
-            String chargeBezeichnung = unit.getChargeBezeichnung();
-            chargeCounts.put(chargeBezeichnung, chargeCounts.getOrDefault(chargeBezeichnung, 0) + 1);
+    // Bsp.: {"function":"queryUnitCountByOwner","Args":["grosshaendler-456"]}
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String queryUnitCountByOwner(final Context ctx, final String ownerActorId) {
+        return String.valueOf(DeltaCounter.sum(ctx.getStub(), DeltaCounter.OWNER_UNITS, ownerActorId));
+    }
+
+    // Delta-Schlüssel, die compactUnitCounters zusammenfassen kann; ein Backend mit behoerde-Identität ruft beides periodisch auf.
+    // Bsp.: {"function":"queryCompactableCounterKeys","Args":["count~owner","500"]}
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String queryCompactableCounterKeys(final Context ctx, final String counterName, final int maxKeys) {
+        verifyCallingActorRole(ctx, "behoerde");
+        requireValidPageSize(maxKeys);
+        return JsonUtil.toJson(DeltaCounter.compactableKeys(ctx.getStub(), requireUnitCounter(counterName), maxKeys));
+    }
+
+    // Bsp.: {"function":"compactUnitCounters","Args":["count~owner","[\"\\u0000count~owner\\u0000grosshaendler-456\\u00003f2a...\\u0000\"]"]}
+    @Transaction()
+    public String compactUnitCounters(final Context ctx, final String counterName, final String deltaKeysJson) {
+        // Löscht Delta-Schlüssel und schreibt den Zähler neu, daher nur für die Behörde.
+        verifyCallingActorRole(ctx, "behoerde");
+        final String[] deltaKeys;
+        try {
+            deltaKeys = JsonUtil.fromJson(deltaKeysJson, String[].class);
+        } catch (final RuntimeException e) {
+            throw new ChaincodeException("Ungültige Schlüsselliste: " + e.getMessage(), PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        if (deltaKeys == null || deltaKeys.length > MAX_PAGE_SIZE) {
+            throw new ChaincodeException(String.format("Es können höchstens %d Delta-Schlüssel je Aufruf verdichtet werden.", MAX_PAGE_SIZE),
+                    PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
+        }
+        final DeltaCounter counter = new DeltaCounter(ctx.getStub());
+        final int compacted = counter.compact(requireUnitCounter(counterName), Arrays.asList(deltaKeys));
+        counter.flush();
+        return String.valueOf(compacted);
+    }
+
+    private static String requireUnitCounter(final String counterName) {
+        if (!DeltaCounter.MED_CHARGE_UNITS.equals(counterName) && !DeltaCounter.MED_CHARGE_CONSUMED.equals(counterName) && !DeltaCounter.OWNER_UNITS.equals(counterName)) {
+            throw new ChaincodeException(String.format("Unbekannter Zähler '%s'.", counterName), PharmaSupplyChainErrors.INVALID_ARGUMENT.toString());
         }
+        return counterName;
+    }
 
-        return JsonUtil.toJson(chargeCounts);
+    // Kennzahlen dieses Peers seit dem Start des Chaincode-Containers, je Funktion aufsummiert.
+    // Bsp.: {"function":"getContractStats","Args":[]}
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String getContractStats(final Context ctx) {
+        return JsonUtil.toJson(TransactionMetrics.snapshot());
     }
 }
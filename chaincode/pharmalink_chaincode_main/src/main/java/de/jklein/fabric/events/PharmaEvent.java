@@ -4,11 +4,27 @@ import com.owlike.genson.annotation.JsonProperty;
 import org.hyperledger.fabric.contract.annotation.DataType;
 import org.hyperledger.fabric.contract.annotation.Property;
 
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 
+// Kompakter Ereignis-Umschlag: enthält nur die geänderten Felder und die neue Dokumentversion, sodass Abnehmer
+// das Delta direkt anwenden können. Eine Lücke in der Versionsfolge zeigt an, dass der Zustand neu gelesen werden muss.
 @DataType()
 public final class PharmaEvent {
 
+    // Wird erhöht, sobald sich Aufbau oder Bedeutung der Felder inkompatibel ändern.
+    public static final int SCHEMA_VERSION = 1;
+
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+    // Anhängen an eine Messreihe; ohne Versionsfolge (version = 0), idempotent über den Zeitstempel.
+    public static final String APPENDED = "appended";
+
+    @Property()
+    private int schemaVersion;
+
     @Property()
     private String entityType;
 
@@ -18,19 +34,57 @@ public final class PharmaEvent {
     @Property()
     private String operation;
 
+    @Property()
+    private int version;
+
+    // Geänderte Felder mit ihrem neuen Wert; verschachtelte Felder in Punktnotation (z.B. "tags.behoerde").
+    @Property()
+    private Map<String, Object> changes;
+
     public PharmaEvent() {
+        this.schemaVersion = SCHEMA_VERSION;
+        this.changes = new TreeMap<>();
     }
 
     // Parameter im Konstruktor umbenannt, um das Verbergen von Feldern zu vermeiden
     public PharmaEvent(@JsonProperty("entityType") final String newEntityType,
                        @JsonProperty("entityId") final String newEntityId,
                        @JsonProperty("operation") final String newOperation) {
+        this.schemaVersion = SCHEMA_VERSION;
         this.entityType = newEntityType;
         this.entityId = newEntityId;
         this.operation = newOperation;
+        this.changes = new TreeMap<>();
+    }
+
+    public PharmaEvent(final String newEntityType, final String newEntityId, final String newOperation, final int newVersion) {
+        this(newEntityType, newEntityId, newOperation);
+        this.version = newVersion;
+    }
+
+    // Nimmt ein geändertes Feld auf; gibt das Ereignis zur Verkettung zurück.
+    public PharmaEvent change(final String field, final Object newValue) {
+        changes.put(field, newValue);
+        return this;
+    }
+
+    // Nimmt das Feld nur auf, wenn sich der Wert tatsächlich geändert hat.
+    public PharmaEvent changeIfDifferent(final String field, final Object oldValue, final Object newValue) {
+        if (!Objects.equals(oldValue, newValue)) {
+            changes.put(field, newValue);
+        }
+        return this;
     }
 
     // Getter und Setter
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    public void setSchemaVersion(final int newSchemaVersion) {
+        this.schemaVersion = newSchemaVersion;
+    }
+
     public String getEntityType() {
         return entityType;
     }
@@ -58,6 +112,22 @@ public final class PharmaEvent {
         this.operation = newOperation;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(final int newVersion) {
+        this.version = newVersion;
+    }
+
+    public Map<String, Object> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(final Map<String, Object> newChanges) {
+        this.changes = newChanges;
+    }
+
     @Override
     public boolean equals(final Object o) {
         // Geschweifte Klammern bei if-Anweisungen hinzugefügt
@@ -68,22 +138,28 @@ public final class PharmaEvent {
             return false;
         }
         final PharmaEvent that = (PharmaEvent) o;
-        return Objects.equals(getEntityType(), that.getEntityType())
+        return getSchemaVersion() == that.getSchemaVersion()
+                && getVersion() == that.getVersion()
+                && Objects.equals(getEntityType(), that.getEntityType())
                 && Objects.equals(getEntityId(), that.getEntityId())
-                && Objects.equals(getOperation(), that.getOperation());
+                && Objects.equals(getOperation(), that.getOperation())
+                && Objects.equals(getChanges(), that.getChanges());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getEntityType(), getEntityId(), getOperation());
+        return Objects.hash(getSchemaVersion(), getEntityType(), getEntityId(), getOperation(), getVersion(), getChanges());
     }
 
     @Override
     public String toString() {
         return "PharmaEvent{"
-                + "entityType='" + entityType + '\''
+                + "schemaVersion=" + schemaVersion
+                + ", entityType='" + entityType + '\''
                 + ", entityId='" + entityId + '\''
                 + ", operation='" + operation + '\''
+                + ", version=" + version
+                + ", changes=" + changes
                 + '}';
     }
 }
@@ -27,6 +27,10 @@ public final class Actor {
     @Property()
     private String docType;
 
+    // Fortlaufende Version des Dokuments; wird bei jeder Änderung erhöht und in den Delta-Ereignissen mitgeliefert.
+    @Property()
+    private int version;
+
     public Actor() {
     }
 
@@ -96,6 +100,20 @@ public final class Actor {
         this.docType = newDocType;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(final int newVersion) {
+        this.version = newVersion;
+    }
+
+    // Erhöht die Version für die nächste Änderung und liefert sie zurück.
+    public int nextVersion() {
+        version++;
+        return version;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
@@ -121,6 +139,7 @@ public final class Actor {
                 + ", email='" + email + '\''
                 + ", ipfsLink='" + ipfsLink + '\''
                 + ", docType='" + docType + '\''
+                + ", version=" + version
                 + '}';
     }
 }
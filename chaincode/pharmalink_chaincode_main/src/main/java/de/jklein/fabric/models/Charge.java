@@ -0,0 +1,681 @@
+package de.jklein.fabric.models;
+
+import com.owlike.genson.annotation.JsonProperty;
+import org.hyperledger.fabric.contract.annotation.DataType;
+import org.hyperledger.fabric.contract.annotation.Property;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Chargen-Datensatz: Einheiten werden nicht einzeln, sondern als Zählerbereiche mit Eigentümer-Segmenten gespeichert.
+@DataType()
+public final class Charge {
+
+    @Property()
+    private String chargeId;
+
+    @Property()
+    private String medId;
+
+    @Property()
+    private String chargeBezeichnung;
+
+    @Property()
+    private String herstellerId;
+
+    @Property()
+    private List<UnitRange> ranges;
+
+    @Property()
+    private List<OwnerSegment> ownerSegments;
+
+    // Anzahl abgegebener Einheiten; die Abgaben selbst liegen append-only unter eigenen Schlüsseln (UnitHistory),
+    // damit der Datensatz nicht mit jeder Abgabe wächst.
+    @Property()
+    private int consumedCount;
+
+    @Property()
+    private int transferCount;
+
+    @Property()
+    private String docType;
+
+    public Charge() {
+        this.ranges = new ArrayList<>();
+        this.ownerSegments = new ArrayList<>();
+        this.docType = "charge";
+    }
+
+    public Charge(@JsonProperty("chargeId") final String chargeId,
+                  @JsonProperty("medId") final String medId,
+                  @JsonProperty("chargeBezeichnung") final String chargeBezeichnung,
+                  @JsonProperty("herstellerId") final String herstellerId) {
+        this.chargeId = chargeId;
+        this.medId = medId;
+        this.chargeBezeichnung = chargeBezeichnung;
+        this.herstellerId = herstellerId;
+        this.ranges = new ArrayList<>();
+        this.ownerSegments = new ArrayList<>();
+        this.docType = "charge";
+    }
+
+    public String getChargeId() {
+        return chargeId;
+    }
+
+    public void setChargeId(final String newChargeId) {
+        this.chargeId = newChargeId;
+    }
+
+    public String getMedId() {
+        return medId;
+    }
+
+    public void setMedId(final String newMedId) {
+        this.medId = newMedId;
+    }
+
+    public String getChargeBezeichnung() {
+        return chargeBezeichnung;
+    }
+
+    public void setChargeBezeichnung(final String newChargeBezeichnung) {
+        this.chargeBezeichnung = newChargeBezeichnung;
+    }
+
+    public String getHerstellerId() {
+        return herstellerId;
+    }
+
+    public void setHerstellerId(final String newHerstellerId) {
+        this.herstellerId = newHerstellerId;
+    }
+
+    public List<UnitRange> getRanges() {
+        return Collections.unmodifiableList(ranges);
+    }
+
+    public void setRanges(final List<UnitRange> newRanges) {
+        this.ranges = new ArrayList<>(newRanges);
+    }
+
+    public List<OwnerSegment> getOwnerSegments() {
+        return Collections.unmodifiableList(ownerSegments);
+    }
+
+    public void setOwnerSegments(final List<OwnerSegment> newOwnerSegments) {
+        this.ownerSegments = new ArrayList<>(newOwnerSegments);
+    }
+
+    public int getConsumedCount() {
+        return consumedCount;
+    }
+
+    public void setConsumedCount(final int newConsumedCount) {
+        this.consumedCount = newConsumedCount;
+    }
+
+    public int getTransferCount() {
+        return transferCount;
+    }
+
+    public void setTransferCount(final int newTransferCount) {
+        this.transferCount = newTransferCount;
+    }
+
+    public String getDocType() {
+        return docType;
+    }
+
+    public void setDocType(final String newDocType) {
+        this.docType = newDocType;
+    }
+
+    public void addRange(final int start, final int end, final String ipfsLink, final String ownerActorId) {
+        ranges.add(new UnitRange(start, end, ipfsLink));
+        ownerSegments.add(new OwnerSegment(start, end, ownerActorId, 0));
+        normalizeSegments();
+    }
+
+    // Höchster jemals vergebener Zähler der Charge. Bereiche bleiben auch nach dem Löschen von Einheiten erhalten,
+    // daher ist der Wert monoton und der nächste Bereich beginnt immer hinter allen bisherigen Einheiten-IDs.
+    public int highestCounter() {
+        int highest = 0;
+        for (final UnitRange range : ranges) {
+            highest = Math.max(highest, range.getEnd());
+        }
+        return highest;
+    }
+
+    public UnitRange rangeOf(final int counter) {
+        for (final UnitRange range : ranges) {
+            if (range.getStart() <= counter && counter <= range.getEnd()) {
+                return range;
+            }
+        }
+        return null;
+    }
+
+    // Liefert den Eigentümer einer existierenden Einheit oder null, wenn der Zähler nicht (mehr) existiert.
+    public String ownerOf(final int counter) {
+        for (final OwnerSegment segment : ownerSegments) {
+            if (segment.getStart() <= counter && counter <= segment.getEnd()) {
+                return segment.getOwnerActorId();
+            }
+        }
+        return null;
+    }
+
+    // Liefert den ersten Zähler im Bereich, der nicht existiert oder nicht dem Akteur gehört, sonst -1.
+    public int firstCounterNotOwnedBy(final int start, final int end, final String ownerActorId) {
+        int cursor = start;
+        for (final OwnerSegment segment : ownerSegments) {
+            if (segment.getEnd() < cursor) {
+                continue;
+            }
+            if (segment.getStart() > cursor || !Objects.equals(segment.getOwnerActorId(), ownerActorId)) {
+                return cursor;
+            }
+            if (segment.getEnd() >= end) {
+                return -1;
+            }
+            cursor = segment.getEnd() + 1;
+        }
+        return cursor;
+    }
+
+    // Überträgt den Bereich an den neuen Eigentümer; der Hop-Zähler jedes Teilstücks erhöht sich dabei um eins.
+    public void reassign(final int start, final int end, final String newOwnerActorId) {
+        reassign(start, end, newOwnerActorId, 1);
+    }
+
+    // Wie reassign, aber mit frei wählbarem Hop-Zuwachs: 0 beim Einpacken in einen Container, beim Auspacken
+    // die Zahl der Container-Übertragungen, die die Einheiten seitdem mitgemacht haben.
+    public void reassign(final int start, final int end, final String newOwnerActorId, final int hopIncrement) {
+        final List<OwnerSegment> moved = new ArrayList<>();
+        for (final OwnerSegment segment : ownerSegments) {
+            if (segment.getEnd() >= start && segment.getStart() <= end) {
+                moved.add(new OwnerSegment(Math.max(start, segment.getStart()), Math.min(end, segment.getEnd()),
+                        newOwnerActorId, segment.getHops() + hopIncrement));
+            }
+        }
+        cutSegments(start, end);
+        ownerSegments.addAll(moved);
+        normalizeSegments();
+    }
+
+    public void removeUnits(final int start, final int end) {
+        cutSegments(start, end);
+        normalizeSegments();
+    }
+
+    // Markiert den Bereich als abgegeben: Die Einheiten verlassen den Bestand ihres Eigentümers. Geliefert wird je
+    // Eigentümer-Segment ein Abgabe-Segment mit letztem Eigentümer und Hops, das der Aufrufer separat ablegt.
+    public List<ConsumedSegment> consume(final int start, final int end, final String consumedRefId) {
+        final List<ConsumedSegment> consumed = new ArrayList<>();
+        for (final OwnerSegment segment : ownerSegments) {
+            if (segment.getEnd() >= start && segment.getStart() <= end) {
+                final ConsumedSegment piece = new ConsumedSegment(Math.max(start, segment.getStart()), Math.min(end, segment.getEnd()),
+                        segment.getOwnerActorId(), segment.getHops(), consumedRefId);
+                consumed.add(piece);
+                consumedCount += piece.getEnd() - piece.getStart() + 1;
+            }
+        }
+        cutSegments(start, end);
+        normalizeSegments();
+        return consumed;
+    }
+
+    // Vergibt die nächste Sequenznummer für die append-only Transfer-Historie der Charge.
+    public int nextTransferSeq() {
+        transferCount++;
+        return transferCount;
+    }
+
+    public int hopsOf(final int counter) {
+        for (final OwnerSegment segment : ownerSegments) {
+            if (segment.getStart() <= counter && counter <= segment.getEnd()) {
+                return segment.getHops();
+            }
+        }
+        return 0;
+    }
+
+    public Map<String, Integer> unitCountsByOwner() {
+        final Map<String, Integer> counts = new TreeMap<>();
+        for (final OwnerSegment segment : ownerSegments) {
+            counts.merge(segment.getOwnerActorId(), segment.getEnd() - segment.getStart() + 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private void cutSegments(final int start, final int end) {
+        final List<OwnerSegment> remaining = new ArrayList<>();
+        for (final OwnerSegment segment : ownerSegments) {
+            if (segment.getEnd() < start || segment.getStart() > end) {
+                remaining.add(segment);
+                continue;
+            }
+            if (segment.getStart() < start) {
+                remaining.add(new OwnerSegment(segment.getStart(), start - 1, segment.getOwnerActorId(), segment.getHops()));
+            }
+            if (segment.getEnd() > end) {
+                remaining.add(new OwnerSegment(end + 1, segment.getEnd(), segment.getOwnerActorId(), segment.getHops()));
+            }
+        }
+        this.ownerSegments = remaining;
+    }
+
+    private void normalizeSegments() {
+        ownerSegments.sort(Comparator.comparingInt(OwnerSegment::getStart));
+        final List<OwnerSegment> merged = new ArrayList<>();
+        for (final OwnerSegment segment : ownerSegments) {
+            final OwnerSegment last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && last.getEnd() + 1 == segment.getStart() && last.getHops() == segment.getHops()
+                    && Objects.equals(last.getOwnerActorId(), segment.getOwnerActorId())) {
+                merged.set(merged.size() - 1, new OwnerSegment(last.getStart(), segment.getEnd(), last.getOwnerActorId(), last.getHops()));
+            } else {
+                merged.add(segment);
+            }
+        }
+        this.ownerSegments = merged;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final Charge charge = (Charge) o;
+        return Objects.equals(getChargeId(), charge.getChargeId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getChargeId());
+    }
+
+    @Override
+    public String toString() {
+        return "Charge{"
+                + "chargeId='" + chargeId + '\''
+                + ", medId='" + medId + '\''
+                + ", chargeBezeichnung='" + chargeBezeichnung + '\''
+                + ", herstellerId='" + herstellerId + '\''
+                + ", ranges=" + ranges
+                + ", ownerSegments=" + ownerSegments
+                + ", consumedCount=" + consumedCount
+                + ", transferCount=" + transferCount
+                + '}';
+    }
+
+    @DataType()
+    public static final class UnitRange {
+        @Property()
+        private int start;
+        @Property()
+        private int end;
+        @Property()
+        private String ipfsLink;
+
+        public UnitRange() {
+        }
+
+        public UnitRange(@JsonProperty("start") final int start,
+                         @JsonProperty("end") final int end,
+                         @JsonProperty("ipfsLink") final String ipfsLink) {
+            this.start = start;
+            this.end = end;
+            this.ipfsLink = ipfsLink;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public void setStart(final int newStart) {
+            this.start = newStart;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public void setEnd(final int newEnd) {
+            this.end = newEnd;
+        }
+
+        public String getIpfsLink() {
+            return ipfsLink;
+        }
+
+        public void setIpfsLink(final String newIpfsLink) {
+            this.ipfsLink = newIpfsLink;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final UnitRange that = (UnitRange) o;
+            return getStart() == that.getStart()
+                    && getEnd() == that.getEnd()
+                    && Objects.equals(getIpfsLink(), that.getIpfsLink());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(getStart(), getEnd(), getIpfsLink());
+        }
+
+        @Override
+        public String toString() {
+            return "UnitRange{"
+                    + "start=" + start
+                    + ", end=" + end
+                    + ", ipfsLink='" + ipfsLink + '\''
+                    + '}';
+        }
+    }
+
+    @DataType()
+    public static final class OwnerSegment {
+        @Property()
+        private int start;
+        @Property()
+        private int end;
+        @Property()
+        private String ownerActorId;
+        @Property()
+        private int hops;
+
+        public OwnerSegment() {
+        }
+
+        public OwnerSegment(@JsonProperty("start") final int start,
+                            @JsonProperty("end") final int end,
+                            @JsonProperty("ownerActorId") final String ownerActorId,
+                            @JsonProperty("hops") final int hops) {
+            this.start = start;
+            this.end = end;
+            this.ownerActorId = ownerActorId;
+            this.hops = hops;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public void setStart(final int newStart) {
+            this.start = newStart;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public void setEnd(final int newEnd) {
+            this.end = newEnd;
+        }
+
+        public String getOwnerActorId() {
+            return ownerActorId;
+        }
+
+        public void setOwnerActorId(final String newOwnerActorId) {
+            this.ownerActorId = newOwnerActorId;
+        }
+
+        public int getHops() {
+            return hops;
+        }
+
+        public void setHops(final int newHops) {
+            this.hops = newHops;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final OwnerSegment that = (OwnerSegment) o;
+            return getStart() == that.getStart()
+                    && getEnd() == that.getEnd()
+                    && getHops() == that.getHops()
+                    && Objects.equals(getOwnerActorId(), that.getOwnerActorId());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(getStart(), getEnd(), getOwnerActorId(), getHops());
+        }
+
+        @Override
+        public String toString() {
+            return "OwnerSegment{"
+                    + "start=" + start
+                    + ", end=" + end
+                    + ", ownerActorId='" + ownerActorId + '\''
+                    + ", hops=" + hops
+                    + '}';
+        }
+    }
+
+    @DataType()
+    public static final class ConsumedSegment {
+        @Property()
+        private int start;
+        @Property()
+        private int end;
+        @Property()
+        private String ownerActorId;
+        @Property()
+        private int hops;
+        @Property()
+        private String consumedRefId;
+
+        public ConsumedSegment() {
+        }
+
+        public ConsumedSegment(@JsonProperty("start") final int start,
+                               @JsonProperty("end") final int end,
+                               @JsonProperty("ownerActorId") final String ownerActorId,
+                               @JsonProperty("hops") final int hops,
+                               @JsonProperty("consumedRefId") final String consumedRefId) {
+            this.start = start;
+            this.end = end;
+            this.ownerActorId = ownerActorId;
+            this.hops = hops;
+            this.consumedRefId = consumedRefId;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public void setStart(final int newStart) {
+            this.start = newStart;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public void setEnd(final int newEnd) {
+            this.end = newEnd;
+        }
+
+        public String getOwnerActorId() {
+            return ownerActorId;
+        }
+
+        public void setOwnerActorId(final String newOwnerActorId) {
+            this.ownerActorId = newOwnerActorId;
+        }
+
+        public int getHops() {
+            return hops;
+        }
+
+        public void setHops(final int newHops) {
+            this.hops = newHops;
+        }
+
+        public String getConsumedRefId() {
+            return consumedRefId;
+        }
+
+        public void setConsumedRefId(final String newConsumedRefId) {
+            this.consumedRefId = newConsumedRefId;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final ConsumedSegment that = (ConsumedSegment) o;
+            return getStart() == that.getStart()
+                    && getEnd() == that.getEnd()
+                    && getHops() == that.getHops()
+                    && Objects.equals(getOwnerActorId(), that.getOwnerActorId())
+                    && Objects.equals(getConsumedRefId(), that.getConsumedRefId());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(getStart(), getEnd(), getOwnerActorId(), getHops(), getConsumedRefId());
+        }
+
+        @Override
+        public String toString() {
+            return "ConsumedSegment{"
+                    + "start=" + start
+                    + ", end=" + end
+                    + ", ownerActorId='" + ownerActorId + '\''
+                    + ", hops=" + hops
+                    + ", consumedRefId='" + consumedRefId + '\''
+                    + '}';
+        }
+    }
+
+    @DataType()
+    public static final class RangeTransfer {
+        @Property()
+        private int start;
+        @Property()
+        private int end;
+        @Property()
+        private String fromActorId;
+        @Property()
+        private String toActorId;
+        @Property()
+        private String timestamp;
+
+        public RangeTransfer() {
+        }
+
+        public RangeTransfer(@JsonProperty("start") final int start,
+                             @JsonProperty("end") final int end,
+                             @JsonProperty("fromActorId") final String fromActorId,
+                             @JsonProperty("toActorId") final String toActorId,
+                             @JsonProperty("timestamp") final String timestamp) {
+            this.start = start;
+            this.end = end;
+            this.fromActorId = fromActorId;
+            this.toActorId = toActorId;
+            this.timestamp = timestamp;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public void setStart(final int newStart) {
+            this.start = newStart;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public void setEnd(final int newEnd) {
+            this.end = newEnd;
+        }
+
+        public String getFromActorId() {
+            return fromActorId;
+        }
+
+        public void setFromActorId(final String newFromActorId) {
+            this.fromActorId = newFromActorId;
+        }
+
+        public String getToActorId() {
+            return toActorId;
+        }
+
+        public void setToActorId(final String newToActorId) {
+            this.toActorId = newToActorId;
+        }
+
+        public String getTimestamp() {
+            return timestamp;
+        }
+
+        public void setTimestamp(final String newTimestamp) {
+            this.timestamp = newTimestamp;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final RangeTransfer that = (RangeTransfer) o;
+            return getStart() == that.getStart()
+                    && getEnd() == that.getEnd()
+                    && Objects.equals(getFromActorId(), that.getFromActorId())
+                    && Objects.equals(getToActorId(), that.getToActorId())
+                    && Objects.equals(getTimestamp(), that.getTimestamp());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(getStart(), getEnd(), getFromActorId(), getToActorId(), getTimestamp());
+        }
+
+        @Override
+        public String toString() {
+            return "RangeTransfer{"
+                    + "start=" + start
+                    + ", end=" + end
+                    + ", fromActorId='" + fromActorId + '\''
+                    + ", toActorId='" + toActorId + '\''
+                    + ", timestamp='" + timestamp + '\''
+                    + '}';
+        }
+    }
+}
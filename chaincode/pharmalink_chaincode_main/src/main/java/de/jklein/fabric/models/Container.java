@@ -0,0 +1,209 @@
+package de.jklein.fabric.models;
+
+import com.owlike.genson.annotation.JsonProperty;
+import org.hyperledger.fabric.contract.annotation.DataType;
+import org.hyperledger.fabric.contract.annotation.Property;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// Verpackungseinheit (Palette, Karton): Der Eigentümer eines Wurzel-Containers ist der effektive Eigentümer aller enthaltenen
+// Einheiten und Unter-Container. Eingepackte Einheiten sind im Chargen-Datensatz dem Container statt einem Akteur zugeordnet.
+@DataType()
+public final class Container {
+
+    @Property()
+    private String containerId;
+
+    @Property()
+    private String containerType;
+
+    @Property()
+    private String ownerActorId;
+
+    @Property()
+    private String packedByActorId;
+
+    @Property()
+    private String parentContainerId;
+
+    @Property()
+    private List<UnitBatchEvent.ChargeRange> unitRanges;
+
+    @Property()
+    private List<String> childContainerIds;
+
+    @Property()
+    private String packedAt;
+
+    // Zeitpunkt des Auspackens; ausgepackte Container bleiben für die Ableitung der Kühlkette erhalten.
+    @Property()
+    private String unpackedAt;
+
+    @Property()
+    private int unitCount;
+
+    @Property()
+    private int transferCount;
+
+    @Property()
+    private String docType;
+
+    public Container() {
+        this.unitRanges = new ArrayList<>();
+        this.childContainerIds = new ArrayList<>();
+        this.docType = "container";
+    }
+
+    public Container(@JsonProperty("containerId") final String containerId,
+                     @JsonProperty("containerType") final String containerType,
+                     @JsonProperty("ownerActorId") final String ownerActorId) {
+        this.containerId = containerId;
+        this.containerType = containerType;
+        this.ownerActorId = ownerActorId;
+        this.packedByActorId = ownerActorId;
+        this.unitRanges = new ArrayList<>();
+        this.childContainerIds = new ArrayList<>();
+        this.docType = "container";
+    }
+
+    public String getContainerId() {
+        return containerId;
+    }
+
+    public void setContainerId(final String newContainerId) {
+        this.containerId = newContainerId;
+    }
+
+    public String getContainerType() {
+        return containerType;
+    }
+
+    public void setContainerType(final String newContainerType) {
+        this.containerType = newContainerType;
+    }
+
+    public String getOwnerActorId() {
+        return ownerActorId;
+    }
+
+    public void setOwnerActorId(final String newOwnerActorId) {
+        this.ownerActorId = newOwnerActorId;
+    }
+
+    public String getPackedByActorId() {
+        return packedByActorId;
+    }
+
+    public void setPackedByActorId(final String newPackedByActorId) {
+        this.packedByActorId = newPackedByActorId;
+    }
+
+    public String getParentContainerId() {
+        return parentContainerId;
+    }
+
+    public void setParentContainerId(final String newParentContainerId) {
+        this.parentContainerId = newParentContainerId;
+    }
+
+    public List<UnitBatchEvent.ChargeRange> getUnitRanges() {
+        return unitRanges;
+    }
+
+    public void setUnitRanges(final List<UnitBatchEvent.ChargeRange> newUnitRanges) {
+        this.unitRanges = newUnitRanges;
+    }
+
+    public List<String> getChildContainerIds() {
+        return childContainerIds;
+    }
+
+    public void setChildContainerIds(final List<String> newChildContainerIds) {
+        this.childContainerIds = newChildContainerIds;
+    }
+
+    public String getPackedAt() {
+        return packedAt;
+    }
+
+    public void setPackedAt(final String newPackedAt) {
+        this.packedAt = newPackedAt;
+    }
+
+    public String getUnpackedAt() {
+        return unpackedAt;
+    }
+
+    public void setUnpackedAt(final String newUnpackedAt) {
+        this.unpackedAt = newUnpackedAt;
+    }
+
+    public int getUnitCount() {
+        return unitCount;
+    }
+
+    public void setUnitCount(final int newUnitCount) {
+        this.unitCount = newUnitCount;
+    }
+
+    public int getTransferCount() {
+        return transferCount;
+    }
+
+    public void setTransferCount(final int newTransferCount) {
+        this.transferCount = newTransferCount;
+    }
+
+    public String getDocType() {
+        return docType;
+    }
+
+    public void setDocType(final String newDocType) {
+        this.docType = newDocType;
+    }
+
+    // Bewusst ohne is-/get-Präfix, damit Genson daraus keine zusätzlichen Eigenschaften ableitet.
+    public boolean hasParent() {
+        return parentContainerId != null && !parentContainerId.isEmpty();
+    }
+
+    public boolean wasUnpacked() {
+        return unpackedAt != null && !unpackedAt.isEmpty();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final Container container = (Container) o;
+        return Objects.equals(getContainerId(), container.getContainerId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getContainerId());
+    }
+
+    @Override
+    public String toString() {
+        return "Container{"
+                + "containerId='" + containerId + '\''
+                + ", containerType='" + containerType + '\''
+                + ", ownerActorId='" + ownerActorId + '\''
+                + ", packedByActorId='" + packedByActorId + '\''
+                + ", parentContainerId='" + parentContainerId + '\''
+                + ", unitRanges=" + unitRanges
+                + ", childContainerIds=" + childContainerIds
+                + ", packedAt='" + packedAt + '\''
+                + ", unpackedAt='" + unpackedAt + '\''
+                + ", unitCount=" + unitCount
+                + ", transferCount=" + transferCount
+                + '}';
+    }
+}
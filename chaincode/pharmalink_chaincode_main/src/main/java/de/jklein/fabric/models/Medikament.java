@@ -38,6 +38,10 @@ public final class Medikament {
     @Property()
     private String approvedById;
 
+    // Fortlaufende Version des Dokuments; wird bei jeder Änderung erhöht und in den Delta-Ereignissen mitgeliefert.
+    @Property()
+    private int version;
+
     public Medikament() {
         this.status = "angelegt";
         this.tags = new TreeMap<>();
@@ -129,6 +133,20 @@ public final class Medikament {
         this.approvedById = newApprovedById;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(final int newVersion) {
+        this.version = newVersion;
+    }
+
+    // Erhöht die Version für die nächste Änderung und liefert sie zurück.
+    public int nextVersion() {
+        version++;
+        return version;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
@@ -158,6 +176,7 @@ public final class Medikament {
                 + ", tags=" + tags
                 + ", docType='" + docType + '\''
                 + ", approvedById='" + approvedById + '\''
+                + ", version=" + version
                 + '}';
     }
 }
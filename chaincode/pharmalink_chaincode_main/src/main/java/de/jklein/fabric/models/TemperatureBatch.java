@@ -0,0 +1,211 @@
+package de.jklein.fabric.models;
+
+import com.owlike.genson.annotation.JsonProperty;
+import org.hyperledger.fabric.contract.annotation.DataType;
+import org.hyperledger.fabric.contract.annotation.Property;
+
+import java.util.Objects;
+
+// Verankerter Block von Logger-Messwerten: Auf dem Ledger liegen nur Merkle-Wurzel und Kennzahlen,
+// die Rohdaten in der übermittelten Reihenfolge liegen unter ipfsLink.
+@DataType()
+public final class TemperatureBatch {
+
+    @Property()
+    private String batchId;
+
+    @Property()
+    private String merkleRoot;
+
+    @Property()
+    private String ipfsLink;
+
+    @Property()
+    private String recordedByActorId;
+
+    @Property()
+    private int readingCount;
+
+    @Property()
+    private int subjectCount;
+
+    @Property()
+    private double minTemperature;
+
+    @Property()
+    private double maxTemperature;
+
+    @Property()
+    private double minAllowed;
+
+    @Property()
+    private double maxAllowed;
+
+    // Anzahl der Messwerte außerhalb von [minAllowed, maxAllowed].
+    @Property()
+    private int excursionCount;
+
+    @Property()
+    private String firstTimestamp;
+
+    @Property()
+    private String lastTimestamp;
+
+    @Property()
+    private String docType;
+
+    public TemperatureBatch() {
+        this.docType = "temperatureBatch";
+    }
+
+    public TemperatureBatch(@JsonProperty("batchId") final String batchId) {
+        this.batchId = batchId;
+        this.docType = "temperatureBatch";
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(final String newBatchId) {
+        this.batchId = newBatchId;
+    }
+
+    public String getMerkleRoot() {
+        return merkleRoot;
+    }
+
+    public void setMerkleRoot(final String newMerkleRoot) {
+        this.merkleRoot = newMerkleRoot;
+    }
+
+    public String getIpfsLink() {
+        return ipfsLink;
+    }
+
+    public void setIpfsLink(final String newIpfsLink) {
+        this.ipfsLink = newIpfsLink;
+    }
+
+    public String getRecordedByActorId() {
+        return recordedByActorId;
+    }
+
+    public void setRecordedByActorId(final String newRecordedByActorId) {
+        this.recordedByActorId = newRecordedByActorId;
+    }
+
+    public int getReadingCount() {
+        return readingCount;
+    }
+
+    public void setReadingCount(final int newReadingCount) {
+        this.readingCount = newReadingCount;
+    }
+
+    public int getSubjectCount() {
+        return subjectCount;
+    }
+
+    public void setSubjectCount(final int newSubjectCount) {
+        this.subjectCount = newSubjectCount;
+    }
+
+    public double getMinTemperature() {
+        return minTemperature;
+    }
+
+    public void setMinTemperature(final double newMinTemperature) {
+        this.minTemperature = newMinTemperature;
+    }
+
+    public double getMaxTemperature() {
+        return maxTemperature;
+    }
+
+    public void setMaxTemperature(final double newMaxTemperature) {
+        this.maxTemperature = newMaxTemperature;
+    }
+
+    public double getMinAllowed() {
+        return minAllowed;
+    }
+
+    public void setMinAllowed(final double newMinAllowed) {
+        this.minAllowed = newMinAllowed;
+    }
+
+    public double getMaxAllowed() {
+        return maxAllowed;
+    }
+
+    public void setMaxAllowed(final double newMaxAllowed) {
+        this.maxAllowed = newMaxAllowed;
+    }
+
+    public int getExcursionCount() {
+        return excursionCount;
+    }
+
+    public void setExcursionCount(final int newExcursionCount) {
+        this.excursionCount = newExcursionCount;
+    }
+
+    public String getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public void setFirstTimestamp(final String newFirstTimestamp) {
+        this.firstTimestamp = newFirstTimestamp;
+    }
+
+    public String getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public void setLastTimestamp(final String newLastTimestamp) {
+        this.lastTimestamp = newLastTimestamp;
+    }
+
+    public String getDocType() {
+        return docType;
+    }
+
+    public void setDocType(final String newDocType) {
+        this.docType = newDocType;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final TemperatureBatch batch = (TemperatureBatch) o;
+        return Objects.equals(getBatchId(), batch.getBatchId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getBatchId());
+    }
+
+    @Override
+    public String toString() {
+        return "TemperatureBatch{"
+                + "batchId='" + batchId + '\''
+                + ", merkleRoot='" + merkleRoot + '\''
+                + ", ipfsLink='" + ipfsLink + '\''
+                + ", recordedByActorId='" + recordedByActorId + '\''
+                + ", readingCount=" + readingCount
+                + ", subjectCount=" + subjectCount
+                + ", minTemperature=" + minTemperature
+                + ", maxTemperature=" + maxTemperature
+                + ", excursionCount=" + excursionCount
+                + ", firstTimestamp='" + firstTimestamp + '\''
+                + ", lastTimestamp='" + lastTimestamp + '\''
+                + '}';
+    }
+}
@@ -0,0 +1,146 @@
+package de.jklein.fabric.models;
+
+import com.owlike.genson.annotation.JsonProperty;
+import org.hyperledger.fabric.contract.annotation.DataType;
+import org.hyperledger.fabric.contract.annotation.Property;
+
+import java.util.Objects;
+
+// Laufende Zusammenfassung der Temperaturmesswerte einer Einheit; wird inkrementell ab lastTimestamp fortgeschrieben.
+@DataType()
+public final class TemperatureSummary {
+
+    @Property()
+    private String unitId;
+
+    @Property()
+    private int count;
+
+    @Property()
+    private double minTemperature;
+
+    @Property()
+    private double maxTemperature;
+
+    @Property()
+    private String firstTimestamp;
+
+    @Property()
+    private String lastTimestamp;
+
+    @Property()
+    private String docType;
+
+    public TemperatureSummary() {
+        this.docType = "temperatureSummary";
+    }
+
+    public TemperatureSummary(@JsonProperty("unitId") final String unitId) {
+        this.unitId = unitId;
+        this.docType = "temperatureSummary";
+    }
+
+    public String getUnitId() {
+        return unitId;
+    }
+
+    public void setUnitId(final String newUnitId) {
+        this.unitId = newUnitId;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(final int newCount) {
+        this.count = newCount;
+    }
+
+    public double getMinTemperature() {
+        return minTemperature;
+    }
+
+    public void setMinTemperature(final double newMinTemperature) {
+        this.minTemperature = newMinTemperature;
+    }
+
+    public double getMaxTemperature() {
+        return maxTemperature;
+    }
+
+    public void setMaxTemperature(final double newMaxTemperature) {
+        this.maxTemperature = newMaxTemperature;
+    }
+
+    public String getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public void setFirstTimestamp(final String newFirstTimestamp) {
+        this.firstTimestamp = newFirstTimestamp;
+    }
+
+    public String getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public void setLastTimestamp(final String newLastTimestamp) {
+        this.lastTimestamp = newLastTimestamp;
+    }
+
+    public String getDocType() {
+        return docType;
+    }
+
+    public void setDocType(final String newDocType) {
+        this.docType = newDocType;
+    }
+
+    // Messwerte müssen in zeitlicher Reihenfolge übergeben werden.
+    public void include(final String timestamp, final double temperature) {
+        if (count == 0) {
+            minTemperature = temperature;
+            maxTemperature = temperature;
+            firstTimestamp = timestamp;
+        } else {
+            minTemperature = Math.min(minTemperature, temperature);
+            maxTemperature = Math.max(maxTemperature, temperature);
+        }
+        lastTimestamp = timestamp;
+        count++;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final TemperatureSummary that = (TemperatureSummary) o;
+        return getCount() == that.getCount()
+                && Double.compare(getMinTemperature(), that.getMinTemperature()) == 0
+                && Double.compare(getMaxTemperature(), that.getMaxTemperature()) == 0
+                && Objects.equals(getUnitId(), that.getUnitId())
+                && Objects.equals(getFirstTimestamp(), that.getFirstTimestamp())
+                && Objects.equals(getLastTimestamp(), that.getLastTimestamp());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getUnitId(), getCount(), getMinTemperature(), getMaxTemperature(), getFirstTimestamp(), getLastTimestamp());
+    }
+
+    @Override
+    public String toString() {
+        return "TemperatureSummary{"
+                + "unitId='" + unitId + '\''
+                + ", count=" + count
+                + ", minTemperature=" + minTemperature
+                + ", maxTemperature=" + maxTemperature
+                + ", firstTimestamp='" + firstTimestamp + '\''
+                + ", lastTimestamp='" + lastTimestamp + '\''
+                + '}';
+    }
+}
@@ -0,0 +1,79 @@
+package de.jklein.fabric.models;
+
+import org.hyperledger.fabric.contract.annotation.DataType;
+import org.hyperledger.fabric.contract.annotation.Property;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// Eine Anweisung innerhalb von transferUnits: einzelne Unit-IDs und/oder Zählerbereiche gehen an einen Empfänger.
+@DataType()
+public final class TransferInstruction {
+
+    @Property()
+    private String toActorId;
+
+    @Property()
+    private List<String> unitIds;
+
+    @Property()
+    private List<UnitBatchEvent.ChargeRange> ranges;
+
+    public TransferInstruction() {
+        this.unitIds = new ArrayList<>();
+        this.ranges = new ArrayList<>();
+    }
+
+    public String getToActorId() {
+        return toActorId;
+    }
+
+    public void setToActorId(final String newToActorId) {
+        this.toActorId = newToActorId;
+    }
+
+    public List<String> getUnitIds() {
+        return unitIds;
+    }
+
+    public void setUnitIds(final List<String> newUnitIds) {
+        this.unitIds = newUnitIds == null ? new ArrayList<>() : new ArrayList<>(newUnitIds);
+    }
+
+    public List<UnitBatchEvent.ChargeRange> getRanges() {
+        return ranges;
+    }
+
+    public void setRanges(final List<UnitBatchEvent.ChargeRange> newRanges) {
+        this.ranges = newRanges == null ? new ArrayList<>() : new ArrayList<>(newRanges);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final TransferInstruction that = (TransferInstruction) o;
+        return Objects.equals(getToActorId(), that.getToActorId())
+                && Objects.equals(getUnitIds(), that.getUnitIds())
+                && Objects.equals(getRanges(), that.getRanges());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getToActorId(), getUnitIds(), getRanges());
+    }
+
+    @Override
+    public String toString() {
+        return "TransferInstruction{"
+                + "toActorId='" + toActorId + '\''
+                + ", unitIds=" + unitIds
+                + ", ranges=" + ranges
+                + '}';
+    }
+}
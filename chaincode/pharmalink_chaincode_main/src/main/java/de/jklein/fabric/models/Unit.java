@@ -29,6 +29,9 @@ public final class Unit {
     @Property()
     private List<TransferEntry> transferHistory;
 
+    @Property()
+    private int transferCount;
+
     @Property()
     private List<TemperatureReading> temperatureReadings;
 
@@ -38,6 +41,10 @@ public final class Unit {
     @Property()
     private String consumedRefId;
 
+    // Direkt umschließender Container, solange die Einheit eingepackt ist; sonst null.
+    @Property()
+    private String containerId;
+
     @Property()
     private String docType;
 
@@ -122,6 +129,14 @@ public final class Unit {
         this.transferHistory.add(new TransferEntry(fromActorId, toActorId, timestamp));
     }
 
+    public int getTransferCount() {
+        return transferCount;
+    }
+
+    public void setTransferCount(final int newTransferCount) {
+        this.transferCount = newTransferCount;
+    }
+
     public List<TemperatureReading> getTemperatureReadings() {
         return Collections.unmodifiableList(temperatureReadings);
     }
@@ -146,6 +161,14 @@ public final class Unit {
         this.consumedRefId = newConsumedRefId;
     }
 
+    public String getContainerId() {
+        return containerId;
+    }
+
+    public void setContainerId(final String newContainerId) {
+        this.containerId = newContainerId;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
@@ -156,6 +179,7 @@ public final class Unit {
         }
         final Unit unit = (Unit) o;
         return getIsConsumed() == unit.getIsConsumed()
+                && getTransferCount() == unit.getTransferCount()
                 && Objects.equals(getUnitId(), unit.getUnitId())
                 && Objects.equals(getMedId(), unit.getMedId())
                 && Objects.equals(getChargeBezeichnung(), unit.getChargeBezeichnung())
@@ -163,13 +187,14 @@ public final class Unit {
                 && Objects.equals(getCurrentOwnerActorId(), unit.getCurrentOwnerActorId())
                 && Objects.equals(getTransferHistory(), unit.getTransferHistory())
                 && Objects.equals(getTemperatureReadings(), unit.getTemperatureReadings())
-                && Objects.equals(getConsumedRefId(), unit.getConsumedRefId());
+                && Objects.equals(getConsumedRefId(), unit.getConsumedRefId())
+                && Objects.equals(getContainerId(), unit.getContainerId());
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(getUnitId(), getMedId(), getChargeBezeichnung(), getIpfsLink(),
-                getCurrentOwnerActorId(), transferHistory, temperatureReadings, getIsConsumed(), getConsumedRefId());
+                getCurrentOwnerActorId(), transferHistory, getTransferCount(), temperatureReadings, getIsConsumed(), getConsumedRefId(), getContainerId());
     }
 
     @Override
@@ -181,9 +206,11 @@ public final class Unit {
                 + ", ipfsLink='" + ipfsLink + '\''
                 + ", currentOwnerActorId='" + currentOwnerActorId + '\''
                 + ", transferHistory=" + transferHistory
+                + ", transferCount=" + transferCount
                 + ", temperatureReadings=" + temperatureReadings
                 + ", isConsumed=" + isConsumed
                 + ", consumedRefId='" + consumedRefId + '\''
+                + ", containerId='" + containerId + '\''
                 + '}';
     }
 
@@ -0,0 +1,258 @@
+package de.jklein.fabric.models;
+
+import com.owlike.genson.annotation.JsonProperty;
+import org.hyperledger.fabric.contract.annotation.DataType;
+import org.hyperledger.fabric.contract.annotation.Property;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// Kompaktes Sammelereignis: Fabric behält nur ein Ereignis pro Transaktion, daher werden alle betroffenen Einheiten als Bereiche übertragen.
+@DataType()
+public final class UnitBatchEvent {
+
+    @Property()
+    private List<ChargeRange> ranges;
+
+    @Property()
+    private int unitCount;
+
+    @Property()
+    private String ownerActorId;
+
+    @Property()
+    private String fromActorId;
+
+    @Property()
+    private String toActorId;
+
+    @Property()
+    private String ipfsLink;
+
+    @Property()
+    private String timestamp;
+
+    // Nur bei UnitsConsumed gesetzt: Referenz der Abgabe (z.B. Rezept- oder Kassenbeleg).
+    @Property()
+    private String consumedRefId;
+
+    @Property()
+    private String docType;
+
+    public UnitBatchEvent() {
+        this.ranges = new ArrayList<>();
+        this.docType = "unitBatch";
+    }
+
+    public List<ChargeRange> getRanges() {
+        return Collections.unmodifiableList(ranges);
+    }
+
+    public void setRanges(final List<ChargeRange> newRanges) {
+        this.ranges = new ArrayList<>(newRanges);
+    }
+
+    public int getUnitCount() {
+        return unitCount;
+    }
+
+    public void setUnitCount(final int newUnitCount) {
+        this.unitCount = newUnitCount;
+    }
+
+    public String getOwnerActorId() {
+        return ownerActorId;
+    }
+
+    public void setOwnerActorId(final String newOwnerActorId) {
+        this.ownerActorId = newOwnerActorId;
+    }
+
+    public String getFromActorId() {
+        return fromActorId;
+    }
+
+    public void setFromActorId(final String newFromActorId) {
+        this.fromActorId = newFromActorId;
+    }
+
+    public String getToActorId() {
+        return toActorId;
+    }
+
+    public void setToActorId(final String newToActorId) {
+        this.toActorId = newToActorId;
+    }
+
+    public String getIpfsLink() {
+        return ipfsLink;
+    }
+
+    public void setIpfsLink(final String newIpfsLink) {
+        this.ipfsLink = newIpfsLink;
+    }
+
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(final String newTimestamp) {
+        this.timestamp = newTimestamp;
+    }
+
+    public String getConsumedRefId() {
+        return consumedRefId;
+    }
+
+    public void setConsumedRefId(final String newConsumedRefId) {
+        this.consumedRefId = newConsumedRefId;
+    }
+
+    public String getDocType() {
+        return docType;
+    }
+
+    public void setDocType(final String newDocType) {
+        this.docType = newDocType;
+    }
+
+    // Hängt einen Zählerbereich an und verschmilzt ihn mit dem vorherigen, wenn er direkt anschließt.
+    public void addRange(final String medId, final String chargeBezeichnung, final int start, final int end) {
+        final ChargeRange last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+        if (last != null && last.getEnd() + 1 == start
+                && Objects.equals(last.getMedId(), medId)
+                && Objects.equals(last.getChargeBezeichnung(), chargeBezeichnung)) {
+            last.setEnd(end);
+        } else {
+            ranges.add(new ChargeRange(medId, chargeBezeichnung, start, end));
+        }
+        unitCount += end - start + 1;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final UnitBatchEvent that = (UnitBatchEvent) o;
+        return getUnitCount() == that.getUnitCount()
+                && Objects.equals(getRanges(), that.getRanges())
+                && Objects.equals(getOwnerActorId(), that.getOwnerActorId())
+                && Objects.equals(getFromActorId(), that.getFromActorId())
+                && Objects.equals(getToActorId(), that.getToActorId())
+                && Objects.equals(getIpfsLink(), that.getIpfsLink())
+                && Objects.equals(getTimestamp(), that.getTimestamp())
+                && Objects.equals(getConsumedRefId(), that.getConsumedRefId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getRanges(), getUnitCount(), getOwnerActorId(), getFromActorId(), getToActorId(), getIpfsLink(), getTimestamp(), getConsumedRefId());
+    }
+
+    @Override
+    public String toString() {
+        return "UnitBatchEvent{"
+                + "ranges=" + ranges
+                + ", unitCount=" + unitCount
+                + ", ownerActorId='" + ownerActorId + '\''
+                + ", fromActorId='" + fromActorId + '\''
+                + ", toActorId='" + toActorId + '\''
+                + ", ipfsLink='" + ipfsLink + '\''
+                + ", timestamp='" + timestamp + '\''
+                + ", consumedRefId='" + consumedRefId + '\''
+                + '}';
+    }
+
+    @DataType()
+    public static final class ChargeRange {
+        @Property()
+        private String medId;
+        @Property()
+        private String chargeBezeichnung;
+        @Property()
+        private int start;
+        @Property()
+        private int end;
+
+        public ChargeRange() {
+        }
+
+        public ChargeRange(@JsonProperty("medId") final String medId,
+                           @JsonProperty("chargeBezeichnung") final String chargeBezeichnung,
+                           @JsonProperty("start") final int start,
+                           @JsonProperty("end") final int end) {
+            this.medId = medId;
+            this.chargeBezeichnung = chargeBezeichnung;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getMedId() {
+            return medId;
+        }
+
+        public void setMedId(final String newMedId) {
+            this.medId = newMedId;
+        }
+
+        public String getChargeBezeichnung() {
+            return chargeBezeichnung;
+        }
+
+        public void setChargeBezeichnung(final String newChargeBezeichnung) {
+            this.chargeBezeichnung = newChargeBezeichnung;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public void setStart(final int newStart) {
+            this.start = newStart;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public void setEnd(final int newEnd) {
+            this.end = newEnd;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final ChargeRange that = (ChargeRange) o;
+            return getStart() == that.getStart()
+                    && getEnd() == that.getEnd()
+                    && Objects.equals(getMedId(), that.getMedId())
+                    && Objects.equals(getChargeBezeichnung(), that.getChargeBezeichnung());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(getMedId(), getChargeBezeichnung(), getStart(), getEnd());
+        }
+
+        @Override
+        public String toString() {
+            return "ChargeRange{"
+                    + "medId='" + medId + '\''
+                    + ", chargeBezeichnung='" + chargeBezeichnung + '\''
+                    + ", start=" + start
+                    + ", end=" + end
+                    + '}';
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package de.jklein.fabric.models;
+
+import org.hyperledger.fabric.contract.annotation.DataType;
+import org.hyperledger.fabric.contract.annotation.Property;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// Sammelereignis für transferUnits: je Empfänger ein UnitBatchEvent, da Fabric nur ein Ereignis pro Transaktion behält.
+@DataType()
+public final class UnitDispatchEvent {
+
+    @Property()
+    private String fromActorId;
+
+    @Property()
+    private String timestamp;
+
+    @Property()
+    private int unitCount;
+
+    @Property()
+    private List<UnitBatchEvent> transfers;
+
+    @Property()
+    private String docType;
+
+    public UnitDispatchEvent() {
+        this.transfers = new ArrayList<>();
+        this.docType = "unitDispatch";
+    }
+
+    public String getFromActorId() {
+        return fromActorId;
+    }
+
+    public void setFromActorId(final String newFromActorId) {
+        this.fromActorId = newFromActorId;
+    }
+
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(final String newTimestamp) {
+        this.timestamp = newTimestamp;
+    }
+
+    public int getUnitCount() {
+        return unitCount;
+    }
+
+    public void setUnitCount(final int newUnitCount) {
+        this.unitCount = newUnitCount;
+    }
+
+    public List<UnitBatchEvent> getTransfers() {
+        return Collections.unmodifiableList(transfers);
+    }
+
+    public void setTransfers(final List<UnitBatchEvent> newTransfers) {
+        this.transfers = new ArrayList<>(newTransfers);
+    }
+
+    public String getDocType() {
+        return docType;
+    }
+
+    public void setDocType(final String newDocType) {
+        this.docType = newDocType;
+    }
+
+    public void addTransfer(final UnitBatchEvent transfer) {
+        transfers.add(transfer);
+        unitCount += transfer.getUnitCount();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final UnitDispatchEvent that = (UnitDispatchEvent) o;
+        return getUnitCount() == that.getUnitCount()
+                && Objects.equals(getFromActorId(), that.getFromActorId())
+                && Objects.equals(getTimestamp(), that.getTimestamp())
+                && Objects.equals(getTransfers(), that.getTransfers());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getFromActorId(), getTimestamp(), getUnitCount(), getTransfers());
+    }
+
+    @Override
+    public String toString() {
+        return "UnitDispatchEvent{"
+                + "fromActorId='" + fromActorId + '\''
+                + ", timestamp='" + timestamp + '\''
+                + ", unitCount=" + unitCount
+                + ", transfers=" + transfers
+                + '}';
+    }
+}
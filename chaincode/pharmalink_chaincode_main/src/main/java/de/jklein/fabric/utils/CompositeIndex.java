@@ -0,0 +1,48 @@
+package de.jklein.fabric.utils;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Sekundärindizes als Composite Keys, damit Suchen ohne CouchDB-Selektoren (und damit auch auf LevelDB) funktionieren.
+public final class CompositeIndex {
+
+    public static final String OWNER_CHARGE = "owner~charge";
+    public static final String MED_CHARGE = "med~charge";
+    public static final String HERSTELLER_MED = "hersteller~med";
+    // Alle Container, die jemals Einheiten der Charge enthielten, sowie alle Container, in die ein Container eingepackt wurde.
+    public static final String CHARGE_CONTAINER = "charge~container";
+    public static final String CONTAINER_PARENT = "container~parent";
+    // Alle verankerten Temperatur-Batches, die Messwerte einer Einheit bzw. eines Containers enthalten.
+    public static final String SUBJECT_TEMPERATURE_BATCH = "subject~tempbatch";
+
+    // Ein leerer Wert würde von Fabric als Löschung interpretiert, daher ein einzelnes Null-Byte.
+    private static final byte[] MARKER = {0x00};
+
+    private CompositeIndex() {
+    }
+
+    public static void put(final ChaincodeStub stub, final String indexName, final String... attributes) {
+        stub.putState(stub.createCompositeKey(indexName, attributes).toString(), MARKER);
+    }
+
+    public static void delete(final ChaincodeStub stub, final String indexName, final String... attributes) {
+        stub.delState(stub.createCompositeKey(indexName, attributes).toString());
+    }
+
+    // Liefert das jeweils letzte Attribut aller Indexeinträge, die mit den angegebenen Attributen beginnen.
+    public static List<String> lookup(final ChaincodeStub stub, final String indexName, final String... partialAttributes) {
+        final List<String> referencedKeys = new ArrayList<>();
+        final QueryResultsIterator<KeyValue> resultsIterator = stub.getStateByPartialCompositeKey(indexName, partialAttributes);
+        for (final KeyValue kv : resultsIterator) {
+            final CompositeKey compositeKey = stub.splitCompositeKey(kv.getKey());
+            final List<String> attributes = compositeKey.getAttributes();
+            referencedKeys.add(attributes.get(attributes.size() - 1));
+        }
+        return referencedKeys;
+    }
+}
@@ -0,0 +1,129 @@
+package de.jklein.fabric.utils;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Aggregatzähler aus Delta-Schlüsseln: Jede Transaktion schreibt ihre Änderung blind unter [Attribute..., Tx-ID],
+// ohne den Zähler vorher zu lesen. Schreiber desselben Zählers haben damit nie einen gemeinsamen Schlüssel im
+// Read-Set und können sich nicht per MVCC verdrängen. Der Wert ist die Summe aller Deltas; compact fasst die Deltas
+// eines Zählers regelmäßig zu einem einzigen zusammen, damit die Lesezugriffe nicht mit jeder Transaktion wachsen.
+public final class DeltaCounter {
+
+    public static final String MED_CHARGE_UNITS = "count~med~charge";
+    // Abgegebene Einheiten je Medikament und Charge; sie zählen nicht mehr zu MED_CHARGE_UNITS.
+    public static final String MED_CHARGE_CONSUMED = "count~med~consumed";
+    public static final String OWNER_UNITS = "count~owner";
+
+    private final ChaincodeStub stub;
+    // Fabric liefert innerhalb einer Transaktion keine eigenen Schreibvorgänge zurück, daher werden Deltas gesammelt und einmalig geschrieben.
+    private final Map<String, Integer> pendingDeltas = new TreeMap<>();
+
+    public DeltaCounter(final ChaincodeStub stub) {
+        this.stub = stub;
+    }
+
+    public void add(final int delta, final String counterName, final String... attributes) {
+        if (delta == 0) {
+            return;
+        }
+        final String[] deltaAttributes = Arrays.copyOf(attributes, attributes.length + 1);
+        deltaAttributes[attributes.length] = stub.getTxId();
+        pendingDeltas.merge(stub.createCompositeKey(counterName, deltaAttributes).toString(), delta, Integer::sum);
+    }
+
+    public void flush() {
+        for (final Map.Entry<String, Integer> entry : pendingDeltas.entrySet()) {
+            if (entry.getValue() != 0) {
+                stub.putState(entry.getKey(), String.valueOf(entry.getValue()).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        pendingDeltas.clear();
+    }
+
+    // Fasst die übergebenen Delta-Schlüssel je Zähler zu einem Delta unter der eigenen Tx-ID zusammen; flush schreibt es.
+    // Die Schlüssel werden einzeln gelesen statt per Bereichsabfrage, damit neue Deltas gleichzeitiger Schreiber
+    // die Verdichtung nicht per Phantom-Prüfung ungültig machen. Bereits verdichtete und fremde Schlüssel werden übersprungen.
+    public int compact(final String counterName, final Collection<String> deltaKeys) {
+        int compacted = 0;
+        for (final String deltaKey : deltaKeys) {
+            final CompositeKey compositeKey = stub.splitCompositeKey(deltaKey);
+            final List<String> attributes = compositeKey.getAttributes();
+            final byte[] value = counterName.equals(compositeKey.getObjectType()) && attributes.size() > 1 ? stub.getState(deltaKey) : null;
+            if (value == null || value.length == 0) {
+                continue;
+            }
+            stub.delState(deltaKey);
+            add(parse(value), counterName, attributes.subList(0, attributes.size() - 1).toArray(new String[0]));
+            compacted++;
+        }
+        return compacted;
+    }
+
+    // Liefert höchstens maxKeys Delta-Schlüssel von Zählern, die aus mehr als einem Delta bestehen.
+    public static List<String> compactableKeys(final ChaincodeStub stub, final String counterName, final int maxKeys) {
+        final List<String> keys = new ArrayList<>();
+        final List<String> group = new ArrayList<>();
+        List<String> groupAttributes = null;
+        final QueryResultsIterator<KeyValue> resultsIterator = stub.getStateByPartialCompositeKey(counterName);
+        for (final KeyValue kv : resultsIterator) {
+            final List<String> attributes = stub.splitCompositeKey(kv.getKey()).getAttributes();
+            final List<String> counterAttributes = attributes.subList(0, attributes.size() - 1);
+            if (!counterAttributes.equals(groupAttributes)) {
+                addGroup(keys, group, maxKeys);
+                group.clear();
+                groupAttributes = counterAttributes;
+            }
+            group.add(kv.getKey());
+            if (keys.size() + group.size() >= maxKeys) {
+                break;
+            }
+        }
+        addGroup(keys, group, maxKeys);
+        return keys;
+    }
+
+    private static void addGroup(final List<String> keys, final List<String> group, final int maxKeys) {
+        if (group.size() > 1) {
+            keys.addAll(group.subList(0, Math.min(group.size(), maxKeys - keys.size())));
+        }
+    }
+
+    // Summiert alle Deltas eines Zählers; die Anzahl der gelesenen Schlüssel entspricht den Transaktionen seit der letzten Verdichtung.
+    public static int sum(final ChaincodeStub stub, final String counterName, final String... attributes) {
+        int total = 0;
+        final QueryResultsIterator<KeyValue> resultsIterator = stub.getStateByPartialCompositeKey(counterName, attributes);
+        for (final KeyValue kv : resultsIterator) {
+            total += parse(kv.getValue());
+        }
+        return total;
+    }
+
+    // Summiert die Deltas gruppiert nach dem Attribut, das auf die angegebenen Teilattribute folgt (z.B. Charge je Medikament).
+    public static Map<String, Integer> sumGrouped(final ChaincodeStub stub, final String counterName, final String... partialAttributes) {
+        final Map<String, Integer> totals = new TreeMap<>();
+        final QueryResultsIterator<KeyValue> resultsIterator = stub.getStateByPartialCompositeKey(counterName, partialAttributes);
+        for (final KeyValue kv : resultsIterator) {
+            final List<String> attributes = stub.splitCompositeKey(kv.getKey()).getAttributes();
+            totals.merge(attributes.get(partialAttributes.length), parse(kv.getValue()), Integer::sum);
+        }
+        totals.values().removeIf(total -> total == 0);
+        return totals;
+    }
+
+    private static int parse(final byte[] value) {
+        if (value == null || value.length == 0) {
+            return 0;
+        }
+        return Integer.parseInt(new String(value, StandardCharsets.UTF_8));
+    }
+}
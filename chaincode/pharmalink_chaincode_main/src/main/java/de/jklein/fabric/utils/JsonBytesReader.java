@@ -0,0 +1,260 @@
+package de.jklein.fabric.utils;
+
+import java.nio.charset.StandardCharsets;
+
+// Liest JSON direkt aus UTF-8-Bytes. Feldnamen werden gegen vorab kodierte Namen verglichen und als
+// kanonische String-Instanz zurückgegeben, sodass ein switch über den Namen ohne Allokation auskommt.
+public final class JsonBytesReader {
+
+    private static final int HEX_RADIX = 16;
+    private static final int UNICODE_ESCAPE_LENGTH = 4;
+
+    private final byte[] buffer;
+    private int position;
+
+    public JsonBytesReader(final byte[] json) {
+        this.buffer = json;
+    }
+
+    public void beginObject() {
+        expect('{');
+    }
+
+    public void endObject() {
+        expect('}');
+    }
+
+    public void beginArray() {
+        expect('[');
+    }
+
+    public void endArray() {
+        expect(']');
+    }
+
+    // Liefert true, solange im aktuellen Objekt oder Array ein weiteres Element folgt; Kommas werden übersprungen.
+    public boolean hasNext() {
+        skipWhitespace();
+        if (buffer[position] == ',') {
+            position++;
+            skipWhitespace();
+        }
+        final byte next = buffer[position];
+        return next != '}' && next != ']';
+    }
+
+    // Gibt den Feldnamen zurück; unbekannte Namen werden als leerer String gemeldet und sollten per skipValue() übersprungen werden.
+    public String nextName(final FieldNames knownNames) {
+        skipWhitespace();
+        expect('"');
+        final int start = position;
+        while (buffer[position] != '"') {
+            if (buffer[position] == '\\') {
+                position++;
+            }
+            position++;
+        }
+        final String name = knownNames.match(buffer, start, position - start);
+        position++;
+        expect(':');
+        return name;
+    }
+
+    // Liest einen beliebigen Objektschlüssel, z.B. für Map-Felder.
+    public String nextKey() {
+        final String key = nextString();
+        expect(':');
+        return key;
+    }
+
+    public boolean peekNull() {
+        skipWhitespace();
+        return buffer[position] == 'n';
+    }
+
+    public String nextString() {
+        skipWhitespace();
+        if (buffer[position] == 'n') {
+            skipLiteral();
+            return null;
+        }
+        expect('"');
+        final int start = position;
+        while (buffer[position] != '"' && buffer[position] != '\\') {
+            position++;
+        }
+        if (buffer[position] == '"') {
+            position++;
+            return new String(buffer, start, position - start - 1, StandardCharsets.UTF_8);
+        }
+        return readEscapedString(start);
+    }
+
+    public int nextInt() {
+        skipWhitespace();
+        if (buffer[position] == 'n') {
+            skipLiteral();
+            return 0;
+        }
+        boolean negative = false;
+        if (buffer[position] == '-') {
+            negative = true;
+            position++;
+        }
+        int value = 0;
+        while (position < buffer.length && buffer[position] >= '0' && buffer[position] <= '9') {
+            value = value * 10 + (buffer[position++] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    public double nextDouble() {
+        skipWhitespace();
+        if (buffer[position] == 'n') {
+            skipLiteral();
+            return 0;
+        }
+        final int start = position;
+        while (position < buffer.length && isNumberChar(buffer[position])) {
+            position++;
+        }
+        return Double.parseDouble(new String(buffer, start, position - start, StandardCharsets.US_ASCII));
+    }
+
+    public boolean nextBoolean() {
+        skipWhitespace();
+        final boolean value = buffer[position] == 't';
+        skipLiteral();
+        return value;
+    }
+
+    public void skipValue() {
+        skipWhitespace();
+        final byte next = buffer[position];
+        if (next == '"') {
+            nextString();
+        } else if (next == '{' || next == '[') {
+            int depth = 0;
+            do {
+                final byte c = buffer[position];
+                if (c == '"') {
+                    nextString();
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+                position++;
+            } while (depth > 0);
+        } else {
+            while (position < buffer.length && buffer[position] != ',' && buffer[position] != '}' && buffer[position] != ']') {
+                position++;
+            }
+        }
+    }
+
+    private String readEscapedString(final int start) {
+        final StringBuilder builder = new StringBuilder(new String(buffer, start, position - start, StandardCharsets.UTF_8));
+        int chunkStart = position;
+        while (buffer[position] != '"') {
+            if (buffer[position] != '\\') {
+                position++;
+                continue;
+            }
+            builder.append(new String(buffer, chunkStart, position - chunkStart, StandardCharsets.UTF_8));
+            position++;
+            final byte escaped = buffer[position++];
+            switch (escaped) {
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'u':
+                    builder.append((char) Integer.parseInt(new String(buffer, position, UNICODE_ESCAPE_LENGTH, StandardCharsets.US_ASCII), HEX_RADIX));
+                    position += UNICODE_ESCAPE_LENGTH;
+                    break;
+                default:
+                    builder.append((char) escaped);
+                    break;
+            }
+            chunkStart = position;
+        }
+        builder.append(new String(buffer, chunkStart, position - chunkStart, StandardCharsets.UTF_8));
+        position++;
+        return builder.toString();
+    }
+
+    private void skipLiteral() {
+        while (position < buffer.length && buffer[position] >= 'a' && buffer[position] <= 'z') {
+            position++;
+        }
+    }
+
+    private void expect(final char expected) {
+        skipWhitespace();
+        if (buffer[position] != expected) {
+            throw new IllegalArgumentException(String.format("Ungültiges JSON: '%c' an Position %d erwartet", expected, position));
+        }
+        position++;
+    }
+
+    private void skipWhitespace() {
+        while (position < buffer.length && (buffer[position] == ' ' || buffer[position] == '\n' || buffer[position] == '\r' || buffer[position] == '\t')) {
+            position++;
+        }
+    }
+
+    private static boolean isNumberChar(final byte c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+    }
+
+    // Vorab kodierte Feldnamen eines Typs; der Vergleich erfolgt byteweise ohne Zwischen-String.
+    public static final class FieldNames {
+        private final String[] names;
+        private final byte[][] encodedNames;
+
+        private FieldNames(final String... names) {
+            this.names = names.clone();
+            this.encodedNames = new byte[names.length][];
+            for (int i = 0; i < names.length; i++) {
+                encodedNames[i] = names[i].getBytes(StandardCharsets.UTF_8);
+            }
+        }
+
+        public static FieldNames of(final String... names) {
+            return new FieldNames(names);
+        }
+
+        private String match(final byte[] source, final int offset, final int length) {
+            for (int i = 0; i < encodedNames.length; i++) {
+                final byte[] candidate = encodedNames[i];
+                if (candidate.length == length && regionEquals(candidate, source, offset)) {
+                    return names[i];
+                }
+            }
+            return "";
+        }
+
+        private static boolean regionEquals(final byte[] candidate, final byte[] source, final int offset) {
+            for (int i = 0; i < candidate.length; i++) {
+                if (candidate[i] != source[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package de.jklein.fabric.utils;
+
+import java.util.Arrays;
+
+// Schreibt JSON direkt als UTF-8 in einen wachsenden Puffer. Escaping und Zahlenformat entsprechen Genson,
+// sodass die Codecs byte-identische Ausgaben zu den bisher gespeicherten Dokumenten erzeugen.
+public final class JsonBytesWriter {
+
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final byte[] NULL_LITERAL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE_LITERAL = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE_LITERAL = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+    private static final int MAX_INT_DIGITS = 11;
+    // Wie Genson werden die JavaScript-Zeilentrenner escaped.
+    private static final char LINE_SEPARATOR = '\u2028';
+    private static final char PARAGRAPH_SEPARATOR = '\u2029';
+
+    private byte[] buffer;
+    private int size;
+    private boolean needsComma;
+
+    public JsonBytesWriter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public JsonBytesWriter(final int initialCapacity) {
+        this.buffer = new byte[Math.max(initialCapacity, MAX_INT_DIGITS)];
+    }
+
+    public JsonBytesWriter beginObject() {
+        separate();
+        writeByte('{');
+        needsComma = false;
+        return this;
+    }
+
+    public JsonBytesWriter endObject() {
+        writeByte('}');
+        needsComma = true;
+        return this;
+    }
+
+    public JsonBytesWriter beginArray() {
+        separate();
+        writeByte('[');
+        needsComma = false;
+        return this;
+    }
+
+    public JsonBytesWriter endArray() {
+        writeByte(']');
+        needsComma = true;
+        return this;
+    }
+
+    public JsonBytesWriter name(final String name) {
+        separate();
+        writeQuoted(name);
+        writeByte(':');
+        needsComma = false;
+        return this;
+    }
+
+    public JsonBytesWriter value(final String value) {
+        separate();
+        if (value == null) {
+            writeBytes(NULL_LITERAL);
+        } else {
+            writeQuoted(value);
+        }
+        needsComma = true;
+        return this;
+    }
+
+    public JsonBytesWriter value(final int value) {
+        separate();
+        writeInt(value);
+        needsComma = true;
+        return this;
+    }
+
+    public JsonBytesWriter value(final boolean value) {
+        separate();
+        writeBytes(value ? TRUE_LITERAL : FALSE_LITERAL);
+        needsComma = true;
+        return this;
+    }
+
+    public JsonBytesWriter value(final double value) {
+        separate();
+        final String formatted = Double.toString(value);
+        ensureCapacity(formatted.length());
+        for (int i = 0; i < formatted.length(); i++) {
+            buffer[size++] = (byte) formatted.charAt(i);
+        }
+        needsComma = true;
+        return this;
+    }
+
+    public JsonBytesWriter nullValue() {
+        separate();
+        writeBytes(NULL_LITERAL);
+        needsComma = true;
+        return this;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void separate() {
+        if (needsComma) {
+            writeByte(',');
+        }
+    }
+
+    private void writeQuoted(final String value) {
+        final int length = value.length();
+        // Ungünstigster Fall: jedes Zeichen als sechsstelliges Escape, dazu die beiden Anführungszeichen.
+        ensureCapacity(length * 6 + 2);
+        buffer[size++] = '"';
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                buffer[size++] = (byte) c;
+            } else if (c < 0x80) {
+                writeEscaped(c);
+            } else if (c == LINE_SEPARATOR || c == PARAGRAPH_SEPARATOR) {
+                writeUnicodeEscape(c);
+            } else if (c < 0x800) {
+                buffer[size++] = (byte) (0xC0 | (c >> 6));
+                buffer[size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[size++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[size++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                buffer[size++] = (byte) (0xE0 | (c >> 12));
+                buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        buffer[size++] = '"';
+    }
+
+    private void writeEscaped(final char c) {
+        buffer[size++] = '\\';
+        switch (c) {
+            case '"':
+            case '\\':
+                buffer[size++] = (byte) c;
+                break;
+            case '\n':
+                buffer[size++] = 'n';
+                break;
+            case '\r':
+                buffer[size++] = 'r';
+                break;
+            case '\t':
+                buffer[size++] = 't';
+                break;
+            case '\b':
+                buffer[size++] = 'b';
+                break;
+            case '\f':
+                buffer[size++] = 'f';
+                break;
+            default:
+                size--;
+                writeUnicodeEscape(c);
+                break;
+        }
+    }
+
+    private void writeUnicodeEscape(final char c) {
+        buffer[size++] = '\\';
+        buffer[size++] = 'u';
+        buffer[size++] = HEX_DIGITS[(c >> 12) & 0xF];
+        buffer[size++] = HEX_DIGITS[(c >> 8) & 0xF];
+        buffer[size++] = HEX_DIGITS[(c >> 4) & 0xF];
+        buffer[size++] = HEX_DIGITS[c & 0xF];
+    }
+
+    private void writeInt(final int value) {
+        ensureCapacity(MAX_INT_DIGITS);
+        long remaining = value;
+        if (remaining < 0) {
+            buffer[size++] = '-';
+            remaining = -remaining;
+        }
+        final int start = size;
+        do {
+            buffer[size++] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+        for (int left = start, right = size - 1; left < right; left++, right--) {
+            final byte tmp = buffer[left];
+            buffer[left] = buffer[right];
+            buffer[right] = tmp;
+        }
+    }
+
+    private void writeByte(final char c) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) c;
+    }
+
+    private void writeBytes(final byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void ensureCapacity(final int additional) {
+        if (size + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+        }
+    }
+}
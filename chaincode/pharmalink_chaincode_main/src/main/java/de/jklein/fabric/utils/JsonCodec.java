@@ -0,0 +1,9 @@
+package de.jklein.fabric.utils;
+
+// Handgeschriebener Codec für einen Ledger-Typ: schreibt die Felder in fester (alphabetischer) Reihenfolge.
+public interface JsonCodec<T> {
+
+    void write(JsonBytesWriter writer, T value);
+
+    T read(JsonBytesReader reader);
+}
@@ -2,6 +2,8 @@ package de.jklein.fabric.utils;
 
 import com.owlike.genson.Genson;
 
+import java.nio.charset.StandardCharsets;
+
 public final class JsonUtil {
 
     private static final Genson GENSON = new Genson();
@@ -10,10 +12,36 @@ public final class JsonUtil {
     }
 
     public static <T> T fromJson(final String jsonString, final Class<T> clazz) {
+        if (LedgerCodecs.forType(clazz) != null) {
+            return fromJsonBytes(jsonString.getBytes(StandardCharsets.UTF_8), clazz);
+        }
         return GENSON.deserialize(jsonString, clazz);
     }
 
     public static String toJson(final Object object) {
+        if (object != null && LedgerCodecs.forType(object.getClass()) != null) {
+            return new String(toJsonBytes(object), StandardCharsets.UTF_8);
+        }
         return GENSON.serialize(object);
     }
+
+    // Ledger-Typen mit eigenem Codec werden ohne Zwischen-String direkt aus den Zustandsbytes gelesen.
+    public static <T> T fromJsonBytes(final byte[] json, final Class<T> clazz) {
+        final JsonCodec<T> codec = LedgerCodecs.forType(clazz);
+        if (codec == null) {
+            return GENSON.deserialize(new String(json, StandardCharsets.UTF_8), clazz);
+        }
+        return codec.read(new JsonBytesReader(json));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static byte[] toJsonBytes(final Object object) {
+        final JsonCodec<Object> codec = object == null ? null : (JsonCodec<Object>) LedgerCodecs.forType(object.getClass());
+        if (codec == null) {
+            return GENSON.serialize(object).getBytes(StandardCharsets.UTF_8);
+        }
+        final JsonBytesWriter writer = new JsonBytesWriter();
+        codec.write(writer, object);
+        return writer.toByteArray();
+    }
 }
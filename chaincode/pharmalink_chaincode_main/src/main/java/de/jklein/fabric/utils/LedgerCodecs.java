@@ -0,0 +1,1055 @@
+package de.jklein.fabric.utils;
+
+import de.jklein.fabric.models.Actor;
+import de.jklein.fabric.models.Charge;
+import de.jklein.fabric.models.Container;
+import de.jklein.fabric.models.Medikament;
+import de.jklein.fabric.models.TemperatureBatch;
+import de.jklein.fabric.models.TemperatureSummary;
+import de.jklein.fabric.models.TransferInstruction;
+import de.jklein.fabric.models.Unit;
+import de.jklein.fabric.models.UnitBatchEvent;
+import de.jklein.fabric.models.UnitDispatchEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Codecs für alle Ledger-Dokumente und das Sammelereignis. Die Felder werden wie bei Genson alphabetisch
+// und inklusive null-Werten geschrieben, damit CouchDB-Selektoren und das Backend unverändert funktionieren.
+public final class LedgerCodecs {
+
+    private static final JsonBytesReader.FieldNames ACTOR_FIELDS = JsonBytesReader.FieldNames.of(
+            "actorId", "bezeichnung", "docType", "email", "ipfsLink", "role", "version");
+    private static final JsonBytesReader.FieldNames MEDIKAMENT_FIELDS = JsonBytesReader.FieldNames.of(
+            "approvedById", "bezeichnung", "docType", "herstellerId", "infoblattHash", "ipfsLink", "medId", "status", "tags", "version");
+    private static final JsonBytesReader.FieldNames CHARGE_FIELDS = JsonBytesReader.FieldNames.of(
+            "chargeBezeichnung", "chargeId", "consumedCount", "docType", "herstellerId", "medId", "ownerSegments", "ranges",
+            "transferCount");
+    private static final JsonBytesReader.FieldNames OWNER_SEGMENT_FIELDS = JsonBytesReader.FieldNames.of(
+            "end", "hops", "ownerActorId", "start");
+    private static final JsonBytesReader.FieldNames CONSUMED_SEGMENT_FIELDS = JsonBytesReader.FieldNames.of(
+            "consumedRefId", "end", "hops", "ownerActorId", "start");
+    private static final JsonBytesReader.FieldNames UNIT_RANGE_FIELDS = JsonBytesReader.FieldNames.of(
+            "end", "ipfsLink", "start");
+    private static final JsonBytesReader.FieldNames RANGE_TRANSFER_FIELDS = JsonBytesReader.FieldNames.of(
+            "end", "fromActorId", "start", "timestamp", "toActorId");
+    private static final JsonBytesReader.FieldNames UNIT_FIELDS = JsonBytesReader.FieldNames.of(
+            "chargeBezeichnung", "consumedRefId", "containerId", "currentOwnerActorId", "docType", "ipfsLink", "isConsumed", "medId",
+            "temperatureReadings", "transferCount", "transferHistory", "unitId");
+    private static final JsonBytesReader.FieldNames TEMPERATURE_READING_FIELDS = JsonBytesReader.FieldNames.of(
+            "temperature", "timestamp");
+    private static final JsonBytesReader.FieldNames TRANSFER_ENTRY_FIELDS = JsonBytesReader.FieldNames.of(
+            "fromActorId", "timestamp", "toActorId");
+    private static final JsonBytesReader.FieldNames TEMPERATURE_SUMMARY_FIELDS = JsonBytesReader.FieldNames.of(
+            "count", "docType", "firstTimestamp", "lastTimestamp", "maxTemperature", "minTemperature", "unitId");
+    private static final JsonBytesReader.FieldNames UNIT_BATCH_EVENT_FIELDS = JsonBytesReader.FieldNames.of(
+            "consumedRefId", "docType", "fromActorId", "ipfsLink", "ownerActorId", "ranges", "timestamp", "toActorId", "unitCount");
+    private static final JsonBytesReader.FieldNames CHARGE_RANGE_FIELDS = JsonBytesReader.FieldNames.of(
+            "chargeBezeichnung", "end", "medId", "start");
+    private static final JsonBytesReader.FieldNames CONTAINER_FIELDS = JsonBytesReader.FieldNames.of(
+            "childContainerIds", "containerId", "containerType", "docType", "ownerActorId", "packedAt", "packedByActorId",
+            "parentContainerId", "transferCount", "unitCount", "unitRanges", "unpackedAt");
+    private static final JsonBytesReader.FieldNames TEMPERATURE_BATCH_FIELDS = JsonBytesReader.FieldNames.of(
+            "batchId", "docType", "excursionCount", "firstTimestamp", "ipfsLink", "lastTimestamp", "maxAllowed", "maxTemperature",
+            "merkleRoot", "minAllowed", "minTemperature", "readingCount", "recordedByActorId", "subjectCount");
+    private static final JsonBytesReader.FieldNames TRANSFER_INSTRUCTION_FIELDS = JsonBytesReader.FieldNames.of(
+            "ranges", "toActorId", "unitIds");
+    private static final JsonBytesReader.FieldNames UNIT_DISPATCH_EVENT_FIELDS = JsonBytesReader.FieldNames.of(
+            "docType", "fromActorId", "timestamp", "transfers", "unitCount");
+
+    public static final JsonCodec<Actor> ACTOR = new JsonCodec<>() {
+        @Override
+        public void write(final JsonBytesWriter writer, final Actor actor) {
+            writer.beginObject()
+                    .name("actorId").value(actor.getActorId())
+                    .name("bezeichnung").value(actor.getBezeichnung())
+                    .name("docType").value(actor.getDocType())
+                    .name("email").value(actor.getEmail())
+                    .name("ipfsLink").value(actor.getIpfsLink())
+                    .name("role").value(actor.getRole())
+                    .name("version").value(actor.getVersion())
+                    .endObject();
+        }
+
+        @Override
+        public Actor read(final JsonBytesReader reader) {
+            final Actor actor = new Actor();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(ACTOR_FIELDS)) {
+                    case "actorId":
+                        actor.setActorId(reader.nextString());
+                        break;
+                    case "bezeichnung":
+                        actor.setBezeichnung(reader.nextString());
+                        break;
+                    case "docType":
+                        actor.setDocType(reader.nextString());
+                        break;
+                    case "email":
+                        actor.setEmail(reader.nextString());
+                        break;
+                    case "ipfsLink":
+                        actor.setIpfsLink(reader.nextString());
+                        break;
+                    case "role":
+                        actor.setRole(reader.nextString());
+                        break;
+                    case "version":
+                        actor.setVersion(reader.nextInt());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            return actor;
+        }
+    };
+
+    public static final JsonCodec<Medikament> MEDIKAMENT = new JsonCodec<>() {
+        @Override
+        public void write(final JsonBytesWriter writer, final Medikament medikament) {
+            writer.beginObject()
+                    .name("approvedById").value(medikament.getApprovedById())
+                    .name("bezeichnung").value(medikament.getBezeichnung())
+                    .name("docType").value(medikament.getDocType())
+                    .name("herstellerId").value(medikament.getHerstellerId())
+                    .name("infoblattHash").value(medikament.getInfoblattHash())
+                    .name("ipfsLink").value(medikament.getIpfsLink())
+                    .name("medId").value(medikament.getMedId())
+                    .name("status").value(medikament.getStatus())
+                    .name("tags");
+            if (medikament.getTags() == null) {
+                writer.nullValue();
+            } else {
+                writer.beginObject();
+                for (final Map.Entry<String, String> tag : medikament.getTags().entrySet()) {
+                    writer.name(tag.getKey()).value(tag.getValue());
+                }
+                writer.endObject();
+            }
+            writer.name("version").value(medikament.getVersion())
+                    .endObject();
+        }
+
+        @Override
+        public Medikament read(final JsonBytesReader reader) {
+            final Medikament medikament = new Medikament();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(MEDIKAMENT_FIELDS)) {
+                    case "approvedById":
+                        medikament.setApprovedById(reader.nextString());
+                        break;
+                    case "bezeichnung":
+                        medikament.setBezeichnung(reader.nextString());
+                        break;
+                    case "docType":
+                        medikament.setDocType(reader.nextString());
+                        break;
+                    case "herstellerId":
+                        medikament.setHerstellerId(reader.nextString());
+                        break;
+                    case "infoblattHash":
+                        medikament.setInfoblattHash(reader.nextString());
+                        break;
+                    case "ipfsLink":
+                        medikament.setIpfsLink(reader.nextString());
+                        break;
+                    case "medId":
+                        medikament.setMedId(reader.nextString());
+                        break;
+                    case "status":
+                        medikament.setStatus(reader.nextString());
+                        break;
+                    case "tags":
+                        medikament.setTags(readStringMap(reader));
+                        break;
+                    case "version":
+                        medikament.setVersion(reader.nextInt());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            return medikament;
+        }
+    };
+
+    public static final JsonCodec<Charge> CHARGE = new JsonCodec<>() {
+        @Override
+        public void write(final JsonBytesWriter writer, final Charge charge) {
+            writer.beginObject()
+                    .name("chargeBezeichnung").value(charge.getChargeBezeichnung())
+                    .name("chargeId").value(charge.getChargeId())
+                    .name("consumedCount").value(charge.getConsumedCount())
+                    .name("docType").value(charge.getDocType())
+                    .name("herstellerId").value(charge.getHerstellerId())
+                    .name("medId").value(charge.getMedId())
+                    .name("ownerSegments").beginArray();
+            for (final Charge.OwnerSegment segment : charge.getOwnerSegments()) {
+                writer.beginObject()
+                        .name("end").value(segment.getEnd())
+                        .name("hops").value(segment.getHops())
+                        .name("ownerActorId").value(segment.getOwnerActorId())
+                        .name("start").value(segment.getStart())
+                        .endObject();
+            }
+            writer.endArray().name("ranges").beginArray();
+            for (final Charge.UnitRange range : charge.getRanges()) {
+                writer.beginObject()
+                        .name("end").value(range.getEnd())
+                        .name("ipfsLink").value(range.getIpfsLink())
+                        .name("start").value(range.getStart())
+                        .endObject();
+            }
+            writer.endArray()
+                    .name("transferCount").value(charge.getTransferCount())
+                    .endObject();
+        }
+
+        @Override
+        public Charge read(final JsonBytesReader reader) {
+            final Charge charge = new Charge();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(CHARGE_FIELDS)) {
+                    case "chargeBezeichnung":
+                        charge.setChargeBezeichnung(reader.nextString());
+                        break;
+                    case "chargeId":
+                        charge.setChargeId(reader.nextString());
+                        break;
+                    case "consumedCount":
+                        charge.setConsumedCount(reader.nextInt());
+                        break;
+                    case "docType":
+                        charge.setDocType(reader.nextString());
+                        break;
+                    case "herstellerId":
+                        charge.setHerstellerId(reader.nextString());
+                        break;
+                    case "medId":
+                        charge.setMedId(reader.nextString());
+                        break;
+                    case "ownerSegments":
+                        charge.setOwnerSegments(readOwnerSegments(reader));
+                        break;
+                    case "ranges":
+                        charge.setRanges(readUnitRanges(reader));
+                        break;
+                    case "transferCount":
+                        charge.setTransferCount(reader.nextInt());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            return charge;
+        }
+    };
+
+    public static final JsonCodec<Charge.ConsumedSegment> CONSUMED_SEGMENT = new JsonCodec<>() {
+        @Override
+        public void write(final JsonBytesWriter writer, final Charge.ConsumedSegment segment) {
+            writer.beginObject()
+                    .name("consumedRefId").value(segment.getConsumedRefId())
+                    .name("end").value(segment.getEnd())
+                    .name("hops").value(segment.getHops())
+                    .name("ownerActorId").value(segment.getOwnerActorId())
+                    .name("start").value(segment.getStart())
+                    .endObject();
+        }
+
+        @Override
+        public Charge.ConsumedSegment read(final JsonBytesReader reader) {
+            final Charge.ConsumedSegment segment = new Charge.ConsumedSegment();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(CONSUMED_SEGMENT_FIELDS)) {
+                    case "consumedRefId":
+                        segment.setConsumedRefId(reader.nextString());
+                        break;
+                    case "end":
+                        segment.setEnd(reader.nextInt());
+                        break;
+                    case "hops":
+                        segment.setHops(reader.nextInt());
+                        break;
+                    case "ownerActorId":
+                        segment.setOwnerActorId(reader.nextString());
+                        break;
+                    case "start":
+                        segment.setStart(reader.nextInt());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            return segment;
+        }
+    };
+
+    public static final JsonCodec<Charge.RangeTransfer> RANGE_TRANSFER = new JsonCodec<>() {
+        @Override
+        public void write(final JsonBytesWriter writer, final Charge.RangeTransfer transfer) {
+            writer.beginObject()
+                    .name("end").value(transfer.getEnd())
+                    .name("fromActorId").value(transfer.getFromActorId())
+                    .name("start").value(transfer.getStart())
+                    .name("timestamp").value(transfer.getTimestamp())
+                    .name("toActorId").value(transfer.getToActorId())
+                    .endObject();
+        }
+
+        @Override
+        public Charge.RangeTransfer read(final JsonBytesReader reader) {
+            final Charge.RangeTransfer transfer = new Charge.RangeTransfer();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(RANGE_TRANSFER_FIELDS)) {
+                    case "end":
+                        transfer.setEnd(reader.nextInt());
+                        break;
+                    case "fromActorId":
+                        transfer.setFromActorId(reader.nextString());
+                        break;
+                    case "start":
+                        transfer.setStart(reader.nextInt());
+                        break;
+                    case "timestamp":
+                        transfer.setTimestamp(reader.nextString());
+                        break;
+                    case "toActorId":
+                        transfer.setToActorId(reader.nextString());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            return transfer;
+        }
+    };
+
+    public static final JsonCodec<Unit> UNIT = new JsonCodec<>() {
+        @Override
+        public void write(final JsonBytesWriter writer, final Unit unit) {
+            writer.beginObject()
+                    .name("chargeBezeichnung").value(unit.getChargeBezeichnung())
+                    .name("consumedRefId").value(unit.getConsumedRefId())
+                    .name("containerId").value(unit.getContainerId())
+                    .name("currentOwnerActorId").value(unit.getCurrentOwnerActorId())
+                    .name("docType").value(unit.getDocType())
+                    .name("ipfsLink").value(unit.getIpfsLink())
+                    .name("isConsumed").value(unit.getIsConsumed())
+                    .name("medId").value(unit.getMedId())
+                    .name("temperatureReadings").beginArray();
+            for (final Unit.TemperatureReading reading : unit.getTemperatureReadings()) {
+                writer.beginObject()
+                        .name("temperature").value(reading.getTemperature())
+                        .name("timestamp").value(reading.getTimestamp())
+                        .endObject();
+            }
+            writer.endArray()
+                    .name("transferCount").value(unit.getTransferCount())
+                    .name("transferHistory").beginArray();
+            for (final Unit.TransferEntry entry : unit.getTransferHistory()) {
+                writer.beginObject()
+                        .name("fromActorId").value(entry.getFromActorId())
+                        .name("timestamp").value(entry.getTimestamp())
+                        .name("toActorId").value(entry.getToActorId())
+                        .endObject();
+            }
+            writer.endArray()
+                    .name("unitId").value(unit.getUnitId())
+                    .endObject();
+        }
+
+        @Override
+        public Unit read(final JsonBytesReader reader) {
+            final Unit unit = new Unit();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(UNIT_FIELDS)) {
+                    case "chargeBezeichnung":
+                        unit.setChargeBezeichnung(reader.nextString());
+                        break;
+                    case "consumedRefId":
+                        unit.setConsumedRefId(reader.nextString());
+                        break;
+                    case "containerId":
+                        unit.setContainerId(reader.nextString());
+                        break;
+                    case "currentOwnerActorId":
+                        unit.setCurrentOwnerActorId(reader.nextString());
+                        break;
+                    case "docType":
+                        unit.setDocType(reader.nextString());
+                        break;
+                    case "ipfsLink":
+                        unit.setIpfsLink(reader.nextString());
+                        break;
+                    case "isConsumed":
+                        unit.setIsConsumed(reader.nextBoolean());
+                        break;
+                    case "medId":
+                        unit.setMedId(reader.nextString());
+                        break;
+                    case "temperatureReadings":
+                        readTemperatureReadings(reader, unit);
+                        break;
+                    case "transferCount":
+                        unit.setTransferCount(reader.nextInt());
+                        break;
+                    case "transferHistory":
+                        readTransferHistory(reader, unit);
+                        break;
+                    case "unitId":
+                        unit.setUnitId(reader.nextString());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            return unit;
+        }
+    };
+
+    public static final JsonCodec<TemperatureSummary> TEMPERATURE_SUMMARY = new JsonCodec<>() {
+        @Override
+        public void write(final JsonBytesWriter writer, final TemperatureSummary summary) {
+            writer.beginObject()
+                    .name("count").value(summary.getCount())
+                    .name("docType").value(summary.getDocType())
+                    .name("firstTimestamp").value(summary.getFirstTimestamp())
+                    .name("lastTimestamp").value(summary.getLastTimestamp())
+                    .name("maxTemperature").value(summary.getMaxTemperature())
+                    .name("minTemperature").value(summary.getMinTemperature())
+                    .name("unitId").value(summary.getUnitId())
+                    .endObject();
+        }
+
+        @Override
+        public TemperatureSummary read(final JsonBytesReader reader) {
+            final TemperatureSummary summary = new TemperatureSummary();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(TEMPERATURE_SUMMARY_FIELDS)) {
+                    case "count":
+                        summary.setCount(reader.nextInt());
+                        break;
+                    case "docType":
+                        summary.setDocType(reader.nextString());
+                        break;
+                    case "firstTimestamp":
+                        summary.setFirstTimestamp(reader.nextString());
+                        break;
+                    case "lastTimestamp":
+                        summary.setLastTimestamp(reader.nextString());
+                        break;
+                    case "maxTemperature":
+                        summary.setMaxTemperature(reader.nextDouble());
+                        break;
+                    case "minTemperature":
+                        summary.setMinTemperature(reader.nextDouble());
+                        break;
+                    case "unitId":
+                        summary.setUnitId(reader.nextString());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            return summary;
+        }
+    };
+
+    public static final JsonCodec<UnitBatchEvent> UNIT_BATCH_EVENT = new JsonCodec<>() {
+        @Override
+        public void write(final JsonBytesWriter writer, final UnitBatchEvent event) {
+            writer.beginObject()
+                    .name("consumedRefId").value(event.getConsumedRefId())
+                    .name("docType").value(event.getDocType())
+                    .name("fromActorId").value(event.getFromActorId())
+                    .name("ipfsLink").value(event.getIpfsLink())
+                    .name("ownerActorId").value(event.getOwnerActorId())
+                    .name("ranges").beginArray();
+            for (final UnitBatchEvent.ChargeRange range : event.getRanges()) {
+                writer.beginObject()
+                        .name("chargeBezeichnung").value(range.getChargeBezeichnung())
+                        .name("end").value(range.getEnd())
+                        .name("medId").value(range.getMedId())
+                        .name("start").value(range.getStart())
+                        .endObject();
+            }
+            writer.endArray()
+                    .name("timestamp").value(event.getTimestamp())
+                    .name("toActorId").value(event.getToActorId())
+                    .name("unitCount").value(event.getUnitCount())
+                    .endObject();
+        }
+
+        @Override
+        public UnitBatchEvent read(final JsonBytesReader reader) {
+            final UnitBatchEvent event = new UnitBatchEvent();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(UNIT_BATCH_EVENT_FIELDS)) {
+                    case "consumedRefId":
+                        event.setConsumedRefId(reader.nextString());
+                        break;
+                    case "docType":
+                        event.setDocType(reader.nextString());
+                        break;
+                    case "fromActorId":
+                        event.setFromActorId(reader.nextString());
+                        break;
+                    case "ipfsLink":
+                        event.setIpfsLink(reader.nextString());
+                        break;
+                    case "ownerActorId":
+                        event.setOwnerActorId(reader.nextString());
+                        break;
+                    case "ranges":
+                        event.setRanges(readChargeRanges(reader));
+                        break;
+                    case "timestamp":
+                        event.setTimestamp(reader.nextString());
+                        break;
+                    case "toActorId":
+                        event.setToActorId(reader.nextString());
+                        break;
+                    case "unitCount":
+                        event.setUnitCount(reader.nextInt());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            return event;
+        }
+    };
+
+    public static final JsonCodec<Container> CONTAINER = new JsonCodec<>() {
+        @Override
+        public void write(final JsonBytesWriter writer, final Container container) {
+            writer.beginObject()
+                    .name("childContainerIds").beginArray();
+            for (final String childContainerId : container.getChildContainerIds()) {
+                writer.value(childContainerId);
+            }
+            writer.endArray()
+                    .name("containerId").value(container.getContainerId())
+                    .name("containerType").value(container.getContainerType())
+                    .name("docType").value(container.getDocType())
+                    .name("ownerActorId").value(container.getOwnerActorId())
+                    .name("packedAt").value(container.getPackedAt())
+                    .name("packedByActorId").value(container.getPackedByActorId())
+                    .name("parentContainerId").value(container.getParentContainerId())
+                    .name("transferCount").value(container.getTransferCount())
+                    .name("unitCount").value(container.getUnitCount())
+                    .name("unitRanges").beginArray();
+            for (final UnitBatchEvent.ChargeRange range : container.getUnitRanges()) {
+                writer.beginObject()
+                        .name("chargeBezeichnung").value(range.getChargeBezeichnung())
+                        .name("end").value(range.getEnd())
+                        .name("medId").value(range.getMedId())
+                        .name("start").value(range.getStart())
+                        .endObject();
+            }
+            writer.endArray()
+                    .name("unpackedAt").value(container.getUnpackedAt())
+                    .endObject();
+        }
+
+        @Override
+        public Container read(final JsonBytesReader reader) {
+            final Container container = new Container();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(CONTAINER_FIELDS)) {
+                    case "childContainerIds":
+                        container.setChildContainerIds(readStringList(reader));
+                        break;
+                    case "containerId":
+                        container.setContainerId(reader.nextString());
+                        break;
+                    case "containerType":
+                        container.setContainerType(reader.nextString());
+                        break;
+                    case "docType":
+                        container.setDocType(reader.nextString());
+                        break;
+                    case "ownerActorId":
+                        container.setOwnerActorId(reader.nextString());
+                        break;
+                    case "packedAt":
+                        container.setPackedAt(reader.nextString());
+                        break;
+                    case "packedByActorId":
+                        container.setPackedByActorId(reader.nextString());
+                        break;
+                    case "parentContainerId":
+                        container.setParentContainerId(reader.nextString());
+                        break;
+                    case "transferCount":
+                        container.setTransferCount(reader.nextInt());
+                        break;
+                    case "unitCount":
+                        container.setUnitCount(reader.nextInt());
+                        break;
+                    case "unitRanges":
+                        container.setUnitRanges(readChargeRanges(reader));
+                        break;
+                    case "unpackedAt":
+                        container.setUnpackedAt(reader.nextString());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            return container;
+        }
+    };
+
+    public static final JsonCodec<TemperatureBatch> TEMPERATURE_BATCH = new JsonCodec<>() {
+        @Override
+        public void write(final JsonBytesWriter writer, final TemperatureBatch batch) {
+            writer.beginObject()
+                    .name("batchId").value(batch.getBatchId())
+                    .name("docType").value(batch.getDocType())
+                    .name("excursionCount").value(batch.getExcursionCount())
+                    .name("firstTimestamp").value(batch.getFirstTimestamp())
+                    .name("ipfsLink").value(batch.getIpfsLink())
+                    .name("lastTimestamp").value(batch.getLastTimestamp())
+                    .name("maxAllowed").value(batch.getMaxAllowed())
+                    .name("maxTemperature").value(batch.getMaxTemperature())
+                    .name("merkleRoot").value(batch.getMerkleRoot())
+                    .name("minAllowed").value(batch.getMinAllowed())
+                    .name("minTemperature").value(batch.getMinTemperature())
+                    .name("readingCount").value(batch.getReadingCount())
+                    .name("recordedByActorId").value(batch.getRecordedByActorId())
+                    .name("subjectCount").value(batch.getSubjectCount())
+                    .endObject();
+        }
+
+        @Override
+        public TemperatureBatch read(final JsonBytesReader reader) {
+            final TemperatureBatch batch = new TemperatureBatch();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(TEMPERATURE_BATCH_FIELDS)) {
+                    case "batchId":
+                        batch.setBatchId(reader.nextString());
+                        break;
+                    case "docType":
+                        batch.setDocType(reader.nextString());
+                        break;
+                    case "excursionCount":
+                        batch.setExcursionCount(reader.nextInt());
+                        break;
+                    case "firstTimestamp":
+                        batch.setFirstTimestamp(reader.nextString());
+                        break;
+                    case "ipfsLink":
+                        batch.setIpfsLink(reader.nextString());
+                        break;
+                    case "lastTimestamp":
+                        batch.setLastTimestamp(reader.nextString());
+                        break;
+                    case "maxAllowed":
+                        batch.setMaxAllowed(reader.nextDouble());
+                        break;
+                    case "maxTemperature":
+                        batch.setMaxTemperature(reader.nextDouble());
+                        break;
+                    case "merkleRoot":
+                        batch.setMerkleRoot(reader.nextString());
+                        break;
+                    case "minAllowed":
+                        batch.setMinAllowed(reader.nextDouble());
+                        break;
+                    case "minTemperature":
+                        batch.setMinTemperature(reader.nextDouble());
+                        break;
+                    case "readingCount":
+                        batch.setReadingCount(reader.nextInt());
+                        break;
+                    case "recordedByActorId":
+                        batch.setRecordedByActorId(reader.nextString());
+                        break;
+                    case "subjectCount":
+                        batch.setSubjectCount(reader.nextInt());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            return batch;
+        }
+    };
+
+    public static final JsonCodec<TransferInstruction[]> TRANSFER_INSTRUCTIONS = new JsonCodec<>() {
+        @Override
+        public void write(final JsonBytesWriter writer, final TransferInstruction[] instructions) {
+            writer.beginArray();
+            for (final TransferInstruction instruction : instructions) {
+                writer.beginObject()
+                        .name("ranges").beginArray();
+                for (final UnitBatchEvent.ChargeRange range : instruction.getRanges()) {
+                    writer.beginObject()
+                            .name("chargeBezeichnung").value(range.getChargeBezeichnung())
+                            .name("end").value(range.getEnd())
+                            .name("medId").value(range.getMedId())
+                            .name("start").value(range.getStart())
+                            .endObject();
+                }
+                writer.endArray()
+                        .name("toActorId").value(instruction.getToActorId())
+                        .name("unitIds").beginArray();
+                for (final String unitId : instruction.getUnitIds()) {
+                    writer.value(unitId);
+                }
+                writer.endArray()
+                        .endObject();
+            }
+            writer.endArray();
+        }
+
+        @Override
+        public TransferInstruction[] read(final JsonBytesReader reader) {
+            final List<TransferInstruction> instructions = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                final TransferInstruction instruction = new TransferInstruction();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName(TRANSFER_INSTRUCTION_FIELDS)) {
+                        case "ranges":
+                            instruction.setRanges(readChargeRanges(reader));
+                            break;
+                        case "toActorId":
+                            instruction.setToActorId(reader.nextString());
+                            break;
+                        case "unitIds":
+                            instruction.setUnitIds(readStringList(reader));
+                            break;
+                        default:
+                            reader.skipValue();
+                            break;
+                    }
+                }
+                reader.endObject();
+                instructions.add(instruction);
+            }
+            reader.endArray();
+            return instructions.toArray(new TransferInstruction[0]);
+        }
+    };
+
+    public static final JsonCodec<UnitDispatchEvent> UNIT_DISPATCH_EVENT = new JsonCodec<>() {
+        @Override
+        public void write(final JsonBytesWriter writer, final UnitDispatchEvent event) {
+            writer.beginObject()
+                    .name("docType").value(event.getDocType())
+                    .name("fromActorId").value(event.getFromActorId())
+                    .name("timestamp").value(event.getTimestamp())
+                    .name("transfers").beginArray();
+            for (final UnitBatchEvent transfer : event.getTransfers()) {
+                UNIT_BATCH_EVENT.write(writer, transfer);
+            }
+            writer.endArray()
+                    .name("unitCount").value(event.getUnitCount())
+                    .endObject();
+        }
+
+        @Override
+        public UnitDispatchEvent read(final JsonBytesReader reader) {
+            final UnitDispatchEvent event = new UnitDispatchEvent();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(UNIT_DISPATCH_EVENT_FIELDS)) {
+                    case "docType":
+                        event.setDocType(reader.nextString());
+                        break;
+                    case "fromActorId":
+                        event.setFromActorId(reader.nextString());
+                        break;
+                    case "timestamp":
+                        event.setTimestamp(reader.nextString());
+                        break;
+                    case "transfers":
+                        event.setTransfers(readUnitBatchEvents(reader));
+                        break;
+                    case "unitCount":
+                        event.setUnitCount(reader.nextInt());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            return event;
+        }
+    };
+
+    private static final Map<Class<?>, JsonCodec<?>> CODECS = new HashMap<>();
+
+    static {
+        CODECS.put(Actor.class, ACTOR);
+        CODECS.put(Medikament.class, MEDIKAMENT);
+        CODECS.put(Charge.class, CHARGE);
+        CODECS.put(Charge.ConsumedSegment.class, CONSUMED_SEGMENT);
+        CODECS.put(Charge.RangeTransfer.class, RANGE_TRANSFER);
+        CODECS.put(Unit.class, UNIT);
+        CODECS.put(TemperatureSummary.class, TEMPERATURE_SUMMARY);
+        CODECS.put(UnitBatchEvent.class, UNIT_BATCH_EVENT);
+        CODECS.put(Container.class, CONTAINER);
+        CODECS.put(TemperatureBatch.class, TEMPERATURE_BATCH);
+        CODECS.put(TransferInstruction[].class, TRANSFER_INSTRUCTIONS);
+        CODECS.put(UnitDispatchEvent.class, UNIT_DISPATCH_EVENT);
+    }
+
+    private LedgerCodecs() {
+    }
+
+    // Liefert den Codec für den Typ oder null, wenn der Typ weiterhin über Genson läuft.
+    @SuppressWarnings("unchecked")
+    public static <T> JsonCodec<T> forType(final Class<T> type) {
+        return (JsonCodec<T>) CODECS.get(type);
+    }
+
+    private static Map<String, String> readStringMap(final JsonBytesReader reader) {
+        if (reader.peekNull()) {
+            reader.nextString();
+            return null;
+        }
+        final Map<String, String> map = new TreeMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String key = reader.nextKey();
+            map.put(key, reader.nextString());
+        }
+        reader.endObject();
+        return map;
+    }
+
+    private static List<String> readStringList(final JsonBytesReader reader) {
+        final List<String> values = new ArrayList<>();
+        if (reader.peekNull()) {
+            reader.nextString();
+            return values;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            values.add(reader.nextString());
+        }
+        reader.endArray();
+        return values;
+    }
+
+    private static List<Charge.OwnerSegment> readOwnerSegments(final JsonBytesReader reader) {
+        final List<Charge.OwnerSegment> segments = new ArrayList<>();
+        if (reader.peekNull()) {
+            reader.nextString();
+            return segments;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            final Charge.OwnerSegment segment = new Charge.OwnerSegment();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(OWNER_SEGMENT_FIELDS)) {
+                    case "end":
+                        segment.setEnd(reader.nextInt());
+                        break;
+                    case "hops":
+                        segment.setHops(reader.nextInt());
+                        break;
+                    case "ownerActorId":
+                        segment.setOwnerActorId(reader.nextString());
+                        break;
+                    case "start":
+                        segment.setStart(reader.nextInt());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            segments.add(segment);
+        }
+        reader.endArray();
+        return segments;
+    }
+
+    private static List<Charge.UnitRange> readUnitRanges(final JsonBytesReader reader) {
+        final List<Charge.UnitRange> ranges = new ArrayList<>();
+        if (reader.peekNull()) {
+            reader.nextString();
+            return ranges;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            final Charge.UnitRange range = new Charge.UnitRange();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(UNIT_RANGE_FIELDS)) {
+                    case "end":
+                        range.setEnd(reader.nextInt());
+                        break;
+                    case "ipfsLink":
+                        range.setIpfsLink(reader.nextString());
+                        break;
+                    case "start":
+                        range.setStart(reader.nextInt());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            ranges.add(range);
+        }
+        reader.endArray();
+        return ranges;
+    }
+
+    private static void readTemperatureReadings(final JsonBytesReader reader, final Unit unit) {
+        if (reader.peekNull()) {
+            reader.nextString();
+            return;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String timestamp = null;
+            String temperature = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(TEMPERATURE_READING_FIELDS)) {
+                    case "temperature":
+                        temperature = reader.nextString();
+                        break;
+                    case "timestamp":
+                        timestamp = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            unit.addTemperatureReading(timestamp, temperature);
+        }
+        reader.endArray();
+    }
+
+    private static void readTransferHistory(final JsonBytesReader reader, final Unit unit) {
+        if (reader.peekNull()) {
+            reader.nextString();
+            return;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String fromActorId = null;
+            String toActorId = null;
+            String timestamp = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(TRANSFER_ENTRY_FIELDS)) {
+                    case "fromActorId":
+                        fromActorId = reader.nextString();
+                        break;
+                    case "timestamp":
+                        timestamp = reader.nextString();
+                        break;
+                    case "toActorId":
+                        toActorId = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            unit.addTransferEntry(fromActorId, toActorId, timestamp);
+        }
+        reader.endArray();
+    }
+
+    private static List<UnitBatchEvent> readUnitBatchEvents(final JsonBytesReader reader) {
+        final List<UnitBatchEvent> events = new ArrayList<>();
+        if (reader.peekNull()) {
+            reader.nextString();
+            return events;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            events.add(UNIT_BATCH_EVENT.read(reader));
+        }
+        reader.endArray();
+        return events;
+    }
+
+    private static List<UnitBatchEvent.ChargeRange> readChargeRanges(final JsonBytesReader reader) {
+        final List<UnitBatchEvent.ChargeRange> ranges = new ArrayList<>();
+        if (reader.peekNull()) {
+            reader.nextString();
+            return ranges;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            final UnitBatchEvent.ChargeRange range = new UnitBatchEvent.ChargeRange();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(CHARGE_RANGE_FIELDS)) {
+                    case "chargeBezeichnung":
+                        range.setChargeBezeichnung(reader.nextString());
+                        break;
+                    case "end":
+                        range.setEnd(reader.nextInt());
+                        break;
+                    case "medId":
+                        range.setMedId(reader.nextString());
+                        break;
+                    case "start":
+                        range.setStart(reader.nextInt());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            ranges.add(range);
+        }
+        reader.endArray();
+        return ranges;
+    }
+}
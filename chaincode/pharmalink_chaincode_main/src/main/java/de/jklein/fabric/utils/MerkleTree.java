@@ -0,0 +1,131 @@
+package de.jklein.fabric.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+// SHA-256-Merkle-Baum über Temperaturmesswerte. Blätter und innere Knoten sind durch ein Präfix-Byte getrennt
+// (0x00 bzw. 0x01), damit kein innerer Knoten als Blatt ausgegeben werden kann. Ein Knoten ohne Partner wird
+// unverändert in die nächste Ebene übernommen. Das Backend berechnet Wurzel und Beweise identisch.
+public final class MerkleTree {
+
+    // Beweisschritte: "L:<hex>" = Geschwisterknoten steht links, "R:<hex>" = Geschwisterknoten steht rechts.
+    public static final String LEFT = "L:";
+    public static final String RIGHT = "R:";
+
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private MerkleTree() {
+    }
+
+    // Kanonische Blattkodierung: Subjekt, Zeitstempel und Temperatur exakt wie übermittelt, durch Zeilenumbrüche getrennt.
+    public static byte[] leafHash(final String subjectId, final String timestamp, final String temperature) {
+        final MessageDigest digest = sha256();
+        digest.update(LEAF_PREFIX);
+        digest.update((subjectId + '\n' + timestamp + '\n' + temperature).getBytes(StandardCharsets.UTF_8));
+        return digest.digest();
+    }
+
+    public static byte[] nodeHash(final byte[] left, final byte[] right) {
+        final MessageDigest digest = sha256();
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        digest.update(right);
+        return digest.digest();
+    }
+
+    public static byte[] root(final List<byte[]> leaves) {
+        if (leaves.isEmpty()) {
+            throw new IllegalArgumentException("Ein Merkle-Baum benötigt mindestens ein Blatt.");
+        }
+        List<byte[]> level = leaves;
+        while (level.size() > 1) {
+            level = nextLevel(level);
+        }
+        return level.get(0);
+    }
+
+    // Beweis für das Blatt an Position index, von unten nach oben.
+    public static List<String> proof(final List<byte[]> leaves, final int index) {
+        if (index < 0 || index >= leaves.size()) {
+            throw new IllegalArgumentException("Blattindex " + index + " liegt außerhalb des Baums.");
+        }
+        final List<String> proof = new ArrayList<>();
+        List<byte[]> level = leaves;
+        int position = index;
+        while (level.size() > 1) {
+            final int sibling = position ^ 1;
+            if (sibling < level.size()) {
+                proof.add((sibling < position ? LEFT : RIGHT) + toHex(level.get(sibling)));
+            }
+            level = nextLevel(level);
+            position /= 2;
+        }
+        return proof;
+    }
+
+    // Berechnet aus Blatt und Beweis die Wurzel; null bei einem syntaktisch ungültigen Beweisschritt.
+    public static byte[] rootFromProof(final byte[] leaf, final List<String> proof) {
+        byte[] current = leaf;
+        for (final String step : proof) {
+            final byte[] sibling = step == null || step.length() < LEFT.length() ? null : fromHex(step.substring(LEFT.length()));
+            if (sibling == null) {
+                return null;
+            }
+            if (step.startsWith(LEFT)) {
+                current = nodeHash(sibling, current);
+            } else if (step.startsWith(RIGHT)) {
+                current = nodeHash(current, sibling);
+            } else {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    public static String toHex(final byte[] bytes) {
+        final char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    // null, falls die Zeichenkette kein gültiger SHA-256-Hash in Hex-Darstellung ist.
+    public static byte[] fromHex(final String hex) {
+        if (hex == null || hex.length() != 64) {
+            return null;
+        }
+        final byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            final int high = Character.digit(hex.charAt(2 * i), 16);
+            final int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+
+    private static List<byte[]> nextLevel(final List<byte[]> level) {
+        final List<byte[]> next = new ArrayList<>((level.size() + 1) / 2);
+        for (int i = 0; i < level.size(); i += 2) {
+            next.add(i + 1 < level.size() ? nodeHash(level.get(i), level.get(i + 1)) : level.get(i));
+        }
+        return next;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 ist nicht verfügbar.", e);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package de.jklein.fabric.utils;
+
+import org.hyperledger.fabric.protos.peer.ChaincodeEvent;
+import org.hyperledger.fabric.protos.peer.QueryResponseMetadata;
+import org.hyperledger.fabric.protos.peer.SignedProposal;
+import org.hyperledger.fabric.shim.Chaincode;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// Reicht alle Aufrufe an den Stub des Peers durch und zählt dabei Lese- und Schreibzugriffe samt Bytes.
+// Ergebnisse von Bereichs- und Selektorabfragen zählen pro tatsächlich gelesenem Eintrag.
+public final class MeteredStub implements ChaincodeStub {
+
+    private final ChaincodeStub delegate;
+    private long stateReads;
+    private long readBytes;
+    private long stateWrites;
+    private long writtenBytes;
+
+    public MeteredStub(final ChaincodeStub delegate) {
+        this.delegate = delegate;
+    }
+
+    public long stateReads() {
+        return stateReads;
+    }
+
+    public long readBytes() {
+        return readBytes;
+    }
+
+    public long stateWrites() {
+        return stateWrites;
+    }
+
+    public long writtenBytes() {
+        return writtenBytes;
+    }
+
+    private byte[] countRead(final byte[] value) {
+        stateReads++;
+        if (value != null) {
+            readBytes += value.length;
+        }
+        return value;
+    }
+
+    private void countWrite(final byte[] value) {
+        stateWrites++;
+        if (value != null) {
+            writtenBytes += value.length;
+        }
+    }
+
+    @Override
+    public List<byte[]> getArgs() {
+        return delegate.getArgs();
+    }
+
+    @Override
+    public List<String> getStringArgs() {
+        return delegate.getStringArgs();
+    }
+
+    @Override
+    public String getFunction() {
+        return delegate.getFunction();
+    }
+
+    @Override
+    public List<String> getParameters() {
+        return delegate.getParameters();
+    }
+
+    @Override
+    public String getTxId() {
+        return delegate.getTxId();
+    }
+
+    @Override
+    public String getChannelId() {
+        return delegate.getChannelId();
+    }
+
+    @Override
+    public Chaincode.Response invokeChaincode(final String chaincodeName, final List<byte[]> args, final String channel) {
+        return delegate.invokeChaincode(chaincodeName, args, channel);
+    }
+
+    @Override
+    public byte[] getState(final String key) {
+        return countRead(delegate.getState(key));
+    }
+
+    @Override
+    public byte[] getStateValidationParameter(final String key) {
+        return countRead(delegate.getStateValidationParameter(key));
+    }
+
+    @Override
+    public void putState(final String key, final byte[] value) {
+        countWrite(value);
+        delegate.putState(key, value);
+    }
+
+    @Override
+    public void setStateValidationParameter(final String key, final byte[] value) {
+        countWrite(value);
+        delegate.setStateValidationParameter(key, value);
+    }
+
+    @Override
+    public void delState(final String key) {
+        countWrite(null);
+        delegate.delState(key);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByRange(final String startKey, final String endKey) {
+        return new CountingResults(delegate.getStateByRange(startKey, endKey));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByRangeWithPagination(final String startKey, final String endKey,
+                                                                                      final int pageSize, final String bookmark) {
+        return new CountingResults(delegate.getStateByRangeWithPagination(startKey, endKey, pageSize, bookmark));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String compositeKey) {
+        return new CountingResults(delegate.getStateByPartialCompositeKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String objectType, final String... attributes) {
+        return new CountingResults(delegate.getStateByPartialCompositeKey(objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final CompositeKey compositeKey) {
+        return new CountingResults(delegate.getStateByPartialCompositeKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByPartialCompositeKeyWithPagination(final CompositeKey compositeKey,
+                                                                                                    final int pageSize, final String bookmark) {
+        return new CountingResults(delegate.getStateByPartialCompositeKeyWithPagination(compositeKey, pageSize, bookmark));
+    }
+
+    @Override
+    public CompositeKey createCompositeKey(final String objectType, final String... attributes) {
+        return delegate.createCompositeKey(objectType, attributes);
+    }
+
+    @Override
+    public CompositeKey splitCompositeKey(final String compositeKey) {
+        return delegate.splitCompositeKey(compositeKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getQueryResult(final String query) {
+        return new CountingResults(delegate.getQueryResult(query));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getQueryResultWithPagination(final String query, final int pageSize, final String bookmark) {
+        return new CountingResults(delegate.getQueryResultWithPagination(query, pageSize, bookmark));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyModification> getHistoryForKey(final String key) {
+        return delegate.getHistoryForKey(key);
+    }
+
+    @Override
+    public byte[] getPrivateData(final String collection, final String key) {
+        return countRead(delegate.getPrivateData(collection, key));
+    }
+
+    @Override
+    public byte[] getPrivateDataHash(final String collection, final String key) {
+        return countRead(delegate.getPrivateDataHash(collection, key));
+    }
+
+    @Override
+    public byte[] getPrivateDataValidationParameter(final String collection, final String key) {
+        return countRead(delegate.getPrivateDataValidationParameter(collection, key));
+    }
+
+    @Override
+    public void putPrivateData(final String collection, final String key, final byte[] value) {
+        countWrite(value);
+        delegate.putPrivateData(collection, key, value);
+    }
+
+    @Override
+    public void setPrivateDataValidationParameter(final String collection, final String key, final byte[] value) {
+        countWrite(value);
+        delegate.setPrivateDataValidationParameter(collection, key, value);
+    }
+
+    @Override
+    public void delPrivateData(final String collection, final String key) {
+        countWrite(null);
+        delegate.delPrivateData(collection, key);
+    }
+
+    @Override
+    public void purgePrivateData(final String collection, final String key) {
+        countWrite(null);
+        delegate.purgePrivateData(collection, key);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByRange(final String collection, final String startKey, final String endKey) {
+        return new CountingResults(delegate.getPrivateDataByRange(collection, startKey, endKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection, final String compositeKey) {
+        return new CountingResults(delegate.getPrivateDataByPartialCompositeKey(collection, compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection, final CompositeKey compositeKey) {
+        return new CountingResults(delegate.getPrivateDataByPartialCompositeKey(collection, compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection, final String objectType,
+                                                                              final String... attributes) {
+        return new CountingResults(delegate.getPrivateDataByPartialCompositeKey(collection, objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataQueryResult(final String collection, final String query) {
+        return new CountingResults(delegate.getPrivateDataQueryResult(collection, query));
+    }
+
+    @Override
+    public void setEvent(final String name, final byte[] payload) {
+        delegate.setEvent(name, payload);
+    }
+
+    @Override
+    public ChaincodeEvent getEvent() {
+        return delegate.getEvent();
+    }
+
+    @Override
+    public SignedProposal getSignedProposal() {
+        return delegate.getSignedProposal();
+    }
+
+    @Override
+    public Instant getTxTimestamp() {
+        return delegate.getTxTimestamp();
+    }
+
+    @Override
+    public byte[] getCreator() {
+        return delegate.getCreator();
+    }
+
+    @Override
+    public Map<String, byte[]> getTransient() {
+        return delegate.getTransient();
+    }
+
+    @Override
+    public byte[] getBinding() {
+        return delegate.getBinding();
+    }
+
+    @Override
+    public String getMspId() {
+        return delegate.getMspId();
+    }
+
+    // Zählt jeden Eintrag erst beim Abruf, damit vorzeitig abgebrochene Iterationen nicht überbewertet werden.
+    private final class CountingResults implements QueryResultsIterator<KeyValue>, QueryResultsIteratorWithMetadata<KeyValue> {
+        private final Iterable<KeyValue> results;
+        private final AutoCloseable closeable;
+
+        CountingResults(final QueryResultsIterator<KeyValue> results) {
+            this.results = results;
+            this.closeable = results;
+        }
+
+        CountingResults(final QueryResultsIteratorWithMetadata<KeyValue> results) {
+            this.results = results;
+            this.closeable = results;
+        }
+
+        @Override
+        public QueryResponseMetadata getMetadata() {
+            return results instanceof QueryResultsIteratorWithMetadata ? ((QueryResultsIteratorWithMetadata<KeyValue>) results).getMetadata() : null;
+        }
+
+        @Override
+        public Iterator<KeyValue> iterator() {
+            final Iterator<KeyValue> iterator = results.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public KeyValue next() {
+                    final KeyValue keyValue = iterator.next();
+                    countRead(keyValue.getValue());
+                    return keyValue;
+                }
+            };
+        }
+
+        @Override
+        public void close() throws Exception {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package de.jklein.fabric.utils;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+// Namenssuche über Composite Keys name~<typ> [präfix, id]: Zu jedem normalisierten Token einer Bezeichnung werden
+// alle Präfixe ab MIN_PREFIX_LENGTH abgelegt, sodass eine Suche ein einziger Partial-Key-Scan über die Treffer ist.
+public final class NameIndex {
+
+    public static final String MEDIKAMENT = "name~med";
+    public static final String ACTOR = "name~actor";
+
+    public static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_LENGTH = 16;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private NameIndex() {
+    }
+
+    // Kleinschreibung, Umlaute/Akzente entfernt, an allen Nicht-Alphanumerischen Zeichen getrennt.
+    public static List<String> tokens(final String text) {
+        final List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        final String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (final String token : SEPARATORS.split(normalized)) {
+            if (token.length() >= MIN_PREFIX_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Schreibt nur die Differenz zwischen den Indexeinträgen des alten und des neuen Namens.
+    public static void update(final ChaincodeStub stub, final String indexName, final String id, final String oldName, final String newName) {
+        final Set<String> oldPrefixes = prefixes(oldName);
+        final Set<String> newPrefixes = prefixes(newName);
+        for (final String prefix : oldPrefixes) {
+            if (!newPrefixes.contains(prefix)) {
+                CompositeIndex.delete(stub, indexName, prefix, id);
+            }
+        }
+        for (final String prefix : newPrefixes) {
+            if (!oldPrefixes.contains(prefix)) {
+                CompositeIndex.put(stub, indexName, prefix, id);
+            }
+        }
+    }
+
+    // Indiziert höchstens maxKeys Dokumente aus [startKey, endKey) und liefert den Schlüssel, bei dem ein weiterer Aufruf
+    // fortsetzt, oder "" am Ende des Bereichs. nameOf liefert null für Schlüssel, die kein passendes Dokument sind.
+    // Die Einträge werden blind geschrieben, ein wiederholter Lauf ist daher unschädlich.
+    public static String rebuild(final ChaincodeStub stub, final String indexName, final String startKey, final String endKey,
+                                 final int maxKeys, final Function<KeyValue, String> nameOf) {
+        int scanned = 0;
+        final QueryResultsIterator<KeyValue> resultsIterator = stub.getStateByRange(startKey, endKey);
+        for (final KeyValue kv : resultsIterator) {
+            if (scanned == maxKeys) {
+                return kv.getKey();
+            }
+            scanned++;
+            final String name = nameOf.apply(kv);
+            if (name != null) {
+                update(stub, indexName, kv.getKey(), null, name);
+            }
+        }
+        return "";
+    }
+
+    // Kandidaten über das längste (selektivste) Such-Token; die übrigen Tokens prüft der Aufrufer mit matches().
+    public static List<String> search(final ChaincodeStub stub, final String indexName, final String query) {
+        String longestToken = "";
+        for (final String token : tokens(query)) {
+            if (token.length() > longestToken.length()) {
+                longestToken = token;
+            }
+        }
+        if (longestToken.isEmpty()) {
+            // Suchbegriffe ohne Wort ab MIN_PREFIX_LENGTH Zeichen sind nicht indiziert und liefern keine Treffer.
+            return new ArrayList<>();
+        }
+        final String prefix = longestToken.substring(0, Math.min(longestToken.length(), MAX_PREFIX_LENGTH));
+        return new ArrayList<>(new LinkedHashSet<>(CompositeIndex.lookup(stub, indexName, prefix)));
+    }
+
+    // Jedes Such-Token muss Präfix eines Tokens des Namens sein.
+    public static boolean matches(final String name, final String query) {
+        final List<String> nameTokens = tokens(name);
+        for (final String queryToken : tokens(query)) {
+            boolean found = false;
+            for (final String nameToken : nameTokens) {
+                if (nameToken.startsWith(queryToken)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> prefixes(final String name) {
+        final Set<String> prefixes = new TreeSet<>();
+        for (final String token : tokens(name)) {
+            final int maxLength = Math.min(token.length(), MAX_PREFIX_LENGTH);
+            for (int length = MIN_PREFIX_LENGTH; length <= maxLength; length++) {
+                prefixes.add(token.substring(0, length));
+            }
+        }
+        return prefixes;
+    }
+}
@@ -0,0 +1,68 @@
+package de.jklein.fabric.utils;
+
+import de.jklein.fabric.models.TemperatureSummary;
+import de.jklein.fabric.models.Unit;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Temperaturmesswerte liegen append-only unter temp~subjectId~timestamp; der Wert ist nur die Temperatur.
+// subjectId ist eine Unit-ID oder, für Messungen während des Transports, eine Container-ID.
+// Composite Keys sind lexikographisch sortiert, daher kommen ISO-8601-Zeitstempel gleichen Formats in zeitlicher Reihenfolge zurück.
+public final class TemperatureLedger {
+
+    public static final String TEMPERATURE_INDEX = "temp";
+    private static final String SUMMARY_PREFIX = "tempSummary_";
+
+    private TemperatureLedger() {
+    }
+
+    // Blindes Schreiben ohne Lesen des Einheiten-Dokuments, daher keine MVCC-Konflikte zwischen parallelen Messwerten.
+    public static void putReading(final ChaincodeStub stub, final String subjectId, final String timestamp, final String temperature) {
+        stub.putState(stub.createCompositeKey(TEMPERATURE_INDEX, subjectId, timestamp).toString(), temperature.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Liefert die Messwerte im Zeitfenster [from, to]; leere Grenzen bedeuten "offen".
+    public static List<Unit.TemperatureReading> readings(final ChaincodeStub stub, final String subjectId, final String from, final String to) {
+        final List<Unit.TemperatureReading> readings = new ArrayList<>();
+        final QueryResultsIterator<KeyValue> resultsIterator = stub.getStateByPartialCompositeKey(TEMPERATURE_INDEX, subjectId);
+        for (final KeyValue kv : resultsIterator) {
+            final List<String> attributes = stub.splitCompositeKey(kv.getKey()).getAttributes();
+            final String timestamp = attributes.get(attributes.size() - 1);
+            if (from != null && !from.isEmpty() && timestamp.compareTo(from) < 0) {
+                continue;
+            }
+            if (to != null && !to.isEmpty() && timestamp.compareTo(to) > 0) {
+                break;
+            }
+            readings.add(new Unit.TemperatureReading(timestamp, kv.getStringValue()));
+        }
+        return readings;
+    }
+
+    public static TemperatureSummary getSummary(final ChaincodeStub stub, final String unitId) {
+        final byte[] summaryBytes = stub.getState(SUMMARY_PREFIX + unitId);
+        if (summaryBytes == null || summaryBytes.length == 0) {
+            return new TemperatureSummary(unitId);
+        }
+        return JsonUtil.fromJsonBytes(summaryBytes, TemperatureSummary.class);
+    }
+
+    // Schreibt die Zusammenfassung mit allen Messwerten nach lastTimestamp fort. Nachträglich eingereichte ältere Messwerte
+    // werden dabei nicht mehr berücksichtigt.
+    public static TemperatureSummary rollSummary(final ChaincodeStub stub, final String unitId) {
+        final TemperatureSummary summary = getSummary(stub, unitId);
+        for (final Unit.TemperatureReading reading : readings(stub, unitId, summary.getLastTimestamp(), null)) {
+            if (summary.getLastTimestamp() != null && reading.getTimestamp().compareTo(summary.getLastTimestamp()) <= 0) {
+                continue;
+            }
+            summary.include(reading.getTimestamp(), Double.parseDouble(reading.getTemperature()));
+        }
+        stub.putState(SUMMARY_PREFIX + unitId, JsonUtil.toJsonBytes(summary));
+        return summary;
+    }
+}
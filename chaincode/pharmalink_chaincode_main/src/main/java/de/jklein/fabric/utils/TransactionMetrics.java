@@ -0,0 +1,206 @@
+package de.jklein.fabric.utils;
+
+import org.hyperledger.fabric.contract.annotation.DataType;
+import org.hyperledger.fabric.contract.annotation.Property;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Kennzahlen je Transaktionsfunktion: Dauer, Zustandszugriffe, gelesene/geschriebene Bytes und Ergebnisgröße.
+// Die Werte gelten je Peer-Prozess seit dem letzten Start des Chaincode-Containers.
+public final class TransactionMetrics {
+
+    // Vollständige Nutzdaten nur zur Fehlersuche ausgeben: PHARMALINK_PAYLOAD_LOGGING=true
+    private static final boolean PAYLOAD_LOGGING = Boolean.parseBoolean(System.getenv("PHARMALINK_PAYLOAD_LOGGING"));
+    private static final Map<String, Stats> STATS = new ConcurrentHashMap<>();
+
+    private TransactionMetrics() {
+    }
+
+    public static void logPayload(final String message, final String payload) {
+        if (PAYLOAD_LOGGING) {
+            System.out.println(message + payload);
+        }
+    }
+
+    // Erfasst eine abgeschlossene Transaktion und schreibt eine kompakte, maschinenlesbare Logzeile.
+    public static void record(final String function, final String txId, final long durationNanos,
+                              final MeteredStub stub, final Object result) {
+        final String name = functionName(function);
+        final long resultBytes = utf8Length(result);
+        STATS.computeIfAbsent(name, k -> new Stats()).add(durationNanos, stub, resultBytes);
+        System.out.printf("tx fn=%s tx=%s us=%d reads=%d readBytes=%d writes=%d writtenBytes=%d resultBytes=%d%n",
+                name, txId, durationNanos / 1000, stub.stateReads(), stub.readBytes(),
+                stub.stateWrites(), stub.writtenBytes(), resultBytes);
+    }
+
+    public static Map<String, Snapshot> snapshot() {
+        final Map<String, Snapshot> result = new TreeMap<>();
+        STATS.forEach((name, stats) -> result.put(name, stats.snapshot()));
+        return result;
+    }
+
+    // Fabric übergibt die Funktion als "Vertrag:Funktion", sofern der Vertragsname mitgesendet wurde.
+    private static String functionName(final String function) {
+        if (function == null || function.isEmpty()) {
+            return "unknown";
+        }
+        final int separator = function.indexOf(':');
+        return separator >= 0 ? function.substring(separator + 1) : function;
+    }
+
+    // UTF-8-Länge ohne Kopie des Ergebnisses; Rückgaben sind hier fast immer JSON-Strings.
+    static long utf8Length(final Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof byte[]) {
+            return ((byte[]) result).length;
+        }
+        final String text = result.toString();
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static final class Stats {
+        private long calls;
+        private long totalNanos;
+        private long maxNanos;
+        private long stateReads;
+        private long readBytes;
+        private long stateWrites;
+        private long writtenBytes;
+        private long resultBytes;
+
+        synchronized void add(final long durationNanos, final MeteredStub stub, final long newResultBytes) {
+            calls++;
+            totalNanos += durationNanos;
+            maxNanos = Math.max(maxNanos, durationNanos);
+            stateReads += stub.stateReads();
+            readBytes += stub.readBytes();
+            stateWrites += stub.stateWrites();
+            writtenBytes += stub.writtenBytes();
+            resultBytes += newResultBytes;
+        }
+
+        synchronized Snapshot snapshot() {
+            final Snapshot snapshot = new Snapshot();
+            snapshot.setCalls(calls);
+            snapshot.setTotalMicros(totalNanos / 1000);
+            snapshot.setMaxMicros(maxNanos / 1000);
+            snapshot.setStateReads(stateReads);
+            snapshot.setReadBytes(readBytes);
+            snapshot.setStateWrites(stateWrites);
+            snapshot.setWrittenBytes(writtenBytes);
+            snapshot.setResultBytes(resultBytes);
+            return snapshot;
+        }
+    }
+
+    // Summen je Funktion; Durchschnittswerte ergeben sich aus Division durch calls.
+    @DataType()
+    public static final class Snapshot {
+
+        @Property()
+        private long calls;
+
+        @Property()
+        private long totalMicros;
+
+        @Property()
+        private long maxMicros;
+
+        @Property()
+        private long stateReads;
+
+        @Property()
+        private long readBytes;
+
+        @Property()
+        private long stateWrites;
+
+        @Property()
+        private long writtenBytes;
+
+        @Property()
+        private long resultBytes;
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public void setCalls(final long newCalls) {
+            this.calls = newCalls;
+        }
+
+        public long getTotalMicros() {
+            return totalMicros;
+        }
+
+        public void setTotalMicros(final long newTotalMicros) {
+            this.totalMicros = newTotalMicros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        public void setMaxMicros(final long newMaxMicros) {
+            this.maxMicros = newMaxMicros;
+        }
+
+        public long getStateReads() {
+            return stateReads;
+        }
+
+        public void setStateReads(final long newStateReads) {
+            this.stateReads = newStateReads;
+        }
+
+        public long getReadBytes() {
+            return readBytes;
+        }
+
+        public void setReadBytes(final long newReadBytes) {
+            this.readBytes = newReadBytes;
+        }
+
+        public long getStateWrites() {
+            return stateWrites;
+        }
+
+        public void setStateWrites(final long newStateWrites) {
+            this.stateWrites = newStateWrites;
+        }
+
+        public long getWrittenBytes() {
+            return writtenBytes;
+        }
+
+        public void setWrittenBytes(final long newWrittenBytes) {
+            this.writtenBytes = newWrittenBytes;
+        }
+
+        public long getResultBytes() {
+            return resultBytes;
+        }
+
+        public void setResultBytes(final long newResultBytes) {
+            this.resultBytes = newResultBytes;
+        }
+    }
+}
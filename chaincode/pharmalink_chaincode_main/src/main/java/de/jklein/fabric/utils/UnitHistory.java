@@ -0,0 +1,97 @@
+package de.jklein.fabric.utils;
+
+import de.jklein.fabric.models.Charge;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Append-only Historie der Einheiten einer Charge unter einfachen Schlüsseln <art>~<chargeId>~<Zähler>~<...>.
+// Anders als Composite Keys lassen sich einfache Schlüssel per getStateByRange lesen; dank fester Zählerbreite
+// entspricht die lexikographische Reihenfolge der numerischen, sodass eine Abfrage nur die passenden Einträge liest.
+public final class UnitHistory {
+
+    public static final String TRANSFER = "transfer";
+    public static final String CONSUMED = "consumed";
+    private static final char SEPARATOR = '~';
+    private static final char RANGE_END_AFTER_DIGITS = ':';
+
+    private UnitHistory() {
+    }
+
+    // Transfers liegen unter transfer~chargeId~start~seq; die Sequenz stammt aus dem ohnehin geschriebenen Chargen-Datensatz.
+    public static void appendTransfer(final ChaincodeStub stub, final Charge charge, final Charge.RangeTransfer transfer) {
+        final String key = prefix(TRANSFER, charge.getChargeId()) + UnitIdUtil.formatCounter(transfer.getStart())
+                + SEPARATOR + UnitIdUtil.formatCounter(charge.nextTransferSeq());
+        stub.putState(key, JsonUtil.toJsonBytes(transfer));
+    }
+
+    // Liest nur Transfers, deren Bereich vor oder bei der Einheit beginnt, und liefert die enthaltenden in Sequenzreihenfolge.
+    public static List<Charge.RangeTransfer> transfersOf(final ChaincodeStub stub, final String chargeId, final int counter) {
+        final String prefix = prefix(TRANSFER, chargeId);
+        final Map<String, Charge.RangeTransfer> bySeq = new TreeMap<>();
+        final QueryResultsIterator<KeyValue> resultsIterator = stub.getStateByRange(prefix, counterRangeEnd(prefix, counter));
+        for (final KeyValue kv : resultsIterator) {
+            final String suffix = kv.getKey().substring(prefix.length());
+            if (!isCounterPair(suffix)) {
+                // Schlüssel einer anderen Charge, deren Bezeichnung mit dieser beginnt.
+                continue;
+            }
+            final Charge.RangeTransfer transfer = JsonUtil.fromJsonBytes(kv.getValue(), Charge.RangeTransfer.class);
+            if (transfer.getStart() <= counter && counter <= transfer.getEnd()) {
+                bySeq.put(suffix.substring(UnitIdUtil.COUNTER_WIDTH + 1), transfer);
+            }
+        }
+        return new ArrayList<>(bySeq.values());
+    }
+
+    // Abgaben liegen unter consumed~chargeId~end~start. Abgegebene Bereiche überschneiden sich nie, daher enthält
+    // höchstens der erste Eintrag ab dem Zähler die Einheit und die Abfrage liest unabhängig von der Zahl der Abgaben.
+    public static void putConsumed(final ChaincodeStub stub, final String chargeId, final Charge.ConsumedSegment segment) {
+        final String key = prefix(CONSUMED, chargeId) + UnitIdUtil.formatCounter(segment.getEnd())
+                + SEPARATOR + UnitIdUtil.formatCounter(segment.getStart());
+        stub.putState(key, JsonUtil.toJsonBytes(segment));
+    }
+
+    // Liefert das Abgabe-Segment einer abgegebenen Einheit oder null.
+    public static Charge.ConsumedSegment consumedSegmentOf(final ChaincodeStub stub, final String chargeId, final int counter) {
+        final String prefix = prefix(CONSUMED, chargeId);
+        final QueryResultsIterator<KeyValue> resultsIterator = stub.getStateByRange(prefix + UnitIdUtil.formatCounter(counter),
+                prefix + RANGE_END_AFTER_DIGITS);
+        for (final KeyValue kv : resultsIterator) {
+            if (isCounterPair(kv.getKey().substring(prefix.length()))) {
+                final Charge.ConsumedSegment segment = JsonUtil.fromJsonBytes(kv.getValue(), Charge.ConsumedSegment.class);
+                return segment.getStart() <= counter ? segment : null;
+            }
+        }
+        return null;
+    }
+
+    private static String prefix(final String kind, final String chargeId) {
+        return kind + SEPARATOR + chargeId + SEPARATOR;
+    }
+
+    // Exklusives Ende für alle Schlüssel, deren erster Zähler höchstens counter ist.
+    private static String counterRangeEnd(final String prefix, final int counter) {
+        if (counter == Integer.MAX_VALUE) {
+            return prefix + RANGE_END_AFTER_DIGITS;
+        }
+        return prefix + UnitIdUtil.formatCounter(counter + 1);
+    }
+
+    private static boolean isCounterPair(final String suffix) {
+        if (suffix.length() != 2 * UnitIdUtil.COUNTER_WIDTH + 1 || suffix.charAt(UnitIdUtil.COUNTER_WIDTH) != SEPARATOR) {
+            return false;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (i != UnitIdUtil.COUNTER_WIDTH && (suffix.charAt(i) < '0' || suffix.charAt(i) > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,95 @@
+package de.jklein.fabric.utils;
+
+public final class UnitIdUtil {
+
+    private static final String CHARGE_PREFIX = "CHARGE-";
+    private static final String MED_PREFIX = "MED-";
+    private static final int MED_ID_LENGTH = MED_PREFIX.length() + 64;
+    // Zähler werden auf die Stellenzahl von Integer.MAX_VALUE aufgefüllt, damit die lexikographische Reihenfolge
+    // der Schlüssel der numerischen entspricht und Bereiche per getStateByRange gelesen werden können.
+    public static final int COUNTER_WIDTH = 10;
+    private static final char RANGE_END_AFTER_DIGITS = ':';
+
+    private UnitIdUtil() {
+    }
+
+    public static String chargeKey(final String medId, final String chargeBezeichnung) {
+        return CHARGE_PREFIX + medId + "-" + chargeBezeichnung;
+    }
+
+    public static String unitIdPrefix(final String medId, final String chargeBezeichnung) {
+        return medId + "-" + chargeBezeichnung + "-";
+    }
+
+    public static String unitId(final String medId, final String chargeBezeichnung, final int counter) {
+        return unitIdPrefix(medId, chargeBezeichnung) + formatCounter(counter);
+    }
+
+    public static String formatCounter(final int counter) {
+        final String digits = Integer.toString(counter);
+        final StringBuilder padded = new StringBuilder(COUNTER_WIDTH);
+        for (int i = digits.length(); i < COUNTER_WIDTH; i++) {
+            padded.append('0');
+        }
+        return padded.append(digits).toString();
+    }
+
+    // Exklusives Ende für getStateByRange über die Einheiten startCounter..endCounter einer Charge.
+    public static String unitIdRangeEnd(final String medId, final String chargeBezeichnung, final int endCounter) {
+        if (endCounter == Integer.MAX_VALUE) {
+            return unitIdPrefix(medId, chargeBezeichnung) + RANGE_END_AFTER_DIGITS;
+        }
+        return unitId(medId, chargeBezeichnung, endCounter + 1);
+    }
+
+    // Zerlegt "MED-<sha256>-<Charge>-<Zähler>"; die Charge darf selbst Bindestriche enthalten. Zähler beliebiger
+    // Breite werden akzeptiert, Schlüssel sollten aber über getUnitId() in der kanonischen Form gebildet werden.
+    public static ParsedUnitId parse(final String unitId) {
+        if (unitId == null || !unitId.startsWith(MED_PREFIX) || unitId.length() <= MED_ID_LENGTH + 2
+                || unitId.charAt(MED_ID_LENGTH) != '-') {
+            return null;
+        }
+        final int lastDash = unitId.lastIndexOf('-');
+        if (lastDash <= MED_ID_LENGTH + 1 || lastDash == unitId.length() - 1) {
+            return null;
+        }
+        try {
+            final int counter = Integer.parseInt(unitId.substring(lastDash + 1));
+            return new ParsedUnitId(unitId.substring(0, MED_ID_LENGTH), unitId.substring(MED_ID_LENGTH + 1, lastDash), counter);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static final class ParsedUnitId {
+        private final String medId;
+        private final String chargeBezeichnung;
+        private final int counter;
+
+        public ParsedUnitId(final String medId, final String chargeBezeichnung, final int counter) {
+            this.medId = medId;
+            this.chargeBezeichnung = chargeBezeichnung;
+            this.counter = counter;
+        }
+
+        public String getMedId() {
+            return medId;
+        }
+
+        public String getChargeBezeichnung() {
+            return chargeBezeichnung;
+        }
+
+        public int getCounter() {
+            return counter;
+        }
+
+        public String getUnitId() {
+            return unitId(medId, chargeBezeichnung, counter);
+        }
+
+        public String getChargeKey() {
+            return chargeKey(medId, chargeBezeichnung);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package de.jklein.fabric.models;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public final class ChargeTest {
+
+    private static final String HERSTELLER = "hersteller-1";
+    private static final String GROSSHAENDLER = "grosshaendler-1";
+    private static final String APOTHEKE = "apotheke-1";
+
+    private static Charge chargeWithUnits(final int count) {
+        final Charge charge = new Charge("MED-1-C1", "MED-1", "C1", HERSTELLER);
+        charge.addRange(1, count, "ipfs://c1", HERSTELLER);
+        return charge;
+    }
+
+    private static Charge.OwnerSegment segment(final int start, final int end, final String owner, final int hops) {
+        return new Charge.OwnerSegment(start, end, owner, hops);
+    }
+
+    @Nested
+    class Ranges {
+
+        @Test
+        public void addsRangeAsSingleSegment() {
+            final Charge charge = chargeWithUnits(100);
+
+            assertThat(charge.getOwnerSegments()).containsExactly(segment(1, 100, HERSTELLER, 0));
+            assertThat(charge.highestCounter()).isEqualTo(100);
+        }
+
+        @Test
+        public void mergesAdjacentRangesOfSameOwner() {
+            final Charge charge = chargeWithUnits(100);
+            charge.addRange(101, 150, "ipfs://c1-2", HERSTELLER);
+
+            assertThat(charge.getRanges()).hasSize(2);
+            assertThat(charge.getOwnerSegments()).containsExactly(segment(1, 150, HERSTELLER, 0));
+            assertThat(charge.rangeOf(101).getIpfsLink()).isEqualTo("ipfs://c1-2");
+            assertThat(charge.rangeOf(151)).isNull();
+        }
+
+        @Test
+        public void keepsHighestCounterAfterRemoval() {
+            final Charge charge = chargeWithUnits(100);
+            charge.removeUnits(51, 100);
+
+            assertThat(charge.highestCounter()).isEqualTo(100);
+            assertThat(charge.ownerOf(51)).isNull();
+            assertThat(charge.ownerOf(50)).isEqualTo(HERSTELLER);
+        }
+    }
+
+    @Nested
+    class Ownership {
+
+        @Test
+        public void acceptsFullyOwnedRange() {
+            final Charge charge = chargeWithUnits(100);
+
+            assertThat(charge.firstCounterNotOwnedBy(1, 100, HERSTELLER)).isEqualTo(-1);
+            assertThat(charge.firstCounterNotOwnedBy(100, 100, HERSTELLER)).isEqualTo(-1);
+        }
+
+        @Test
+        public void reportsFirstCounterOfOtherOwner() {
+            final Charge charge = chargeWithUnits(100);
+            charge.reassign(40, 60, GROSSHAENDLER);
+
+            assertThat(charge.firstCounterNotOwnedBy(1, 100, HERSTELLER)).isEqualTo(40);
+            assertThat(charge.firstCounterNotOwnedBy(40, 60, GROSSHAENDLER)).isEqualTo(-1);
+            assertThat(charge.firstCounterNotOwnedBy(40, 61, GROSSHAENDLER)).isEqualTo(61);
+        }
+
+        @Test
+        public void reportsGapsAndCountersBeyondTheCharge() {
+            final Charge charge = chargeWithUnits(100);
+            charge.removeUnits(10, 10);
+
+            assertThat(charge.firstCounterNotOwnedBy(5, 20, HERSTELLER)).isEqualTo(10);
+            assertThat(charge.firstCounterNotOwnedBy(90, 110, HERSTELLER)).isEqualTo(101);
+        }
+    }
+
+    @Nested
+    class Reassign {
+
+        @Test
+        public void splitsSegmentInTheMiddle() {
+            final Charge charge = chargeWithUnits(100);
+            charge.reassign(40, 60, GROSSHAENDLER);
+
+            assertThat(charge.getOwnerSegments()).containsExactly(
+                    segment(1, 39, HERSTELLER, 0),
+                    segment(40, 60, GROSSHAENDLER, 1),
+                    segment(61, 100, HERSTELLER, 0));
+        }
+
+        @Test
+        public void movesSingleUnitAtBothBoundaries() {
+            final Charge charge = chargeWithUnits(100);
+            charge.reassign(1, 1, GROSSHAENDLER);
+            charge.reassign(100, 100, GROSSHAENDLER);
+
+            assertThat(charge.getOwnerSegments()).containsExactly(
+                    segment(1, 1, GROSSHAENDLER, 1),
+                    segment(2, 99, HERSTELLER, 0),
+                    segment(100, 100, GROSSHAENDLER, 1));
+            assertThat(charge.ownerOf(1)).isEqualTo(GROSSHAENDLER);
+            assertThat(charge.ownerOf(2)).isEqualTo(HERSTELLER);
+        }
+
+        @Test
+        public void movesFullCharge() {
+            final Charge charge = chargeWithUnits(100);
+            charge.reassign(1, 100, GROSSHAENDLER);
+
+            assertThat(charge.getOwnerSegments()).containsExactly(segment(1, 100, GROSSHAENDLER, 1));
+            assertThat(charge.unitCountsByOwner()).containsExactly(Map.entry(GROSSHAENDLER, 100));
+        }
+
+        @Test
+        public void mergesAdjacentSegmentsOfSameOwnerAndHops() {
+            final Charge charge = chargeWithUnits(100);
+            charge.reassign(1, 50, GROSSHAENDLER);
+            charge.reassign(51, 100, GROSSHAENDLER);
+
+            assertThat(charge.getOwnerSegments()).containsExactly(segment(1, 100, GROSSHAENDLER, 1));
+        }
+
+        @Test
+        public void keepsAdjacentSegmentsWithDifferentHopsApart() {
+            final Charge charge = chargeWithUnits(100);
+            charge.reassign(1, 50, GROSSHAENDLER);
+            charge.reassign(1, 50, HERSTELLER);
+
+            assertThat(charge.getOwnerSegments()).containsExactly(
+                    segment(1, 50, HERSTELLER, 2),
+                    segment(51, 100, HERSTELLER, 0));
+            assertThat(charge.hopsOf(50)).isEqualTo(2);
+            assertThat(charge.hopsOf(51)).isZero();
+        }
+
+        @Test
+        public void keepsHopsPerPieceAcrossOwnerBoundaries() {
+            final Charge charge = chargeWithUnits(100);
+            charge.reassign(1, 50, GROSSHAENDLER);
+            charge.reassign(41, 60, APOTHEKE);
+
+            assertThat(charge.getOwnerSegments()).containsExactly(
+                    segment(1, 40, GROSSHAENDLER, 1),
+                    segment(41, 50, APOTHEKE, 2),
+                    segment(51, 60, APOTHEKE, 1),
+                    segment(61, 100, HERSTELLER, 0));
+        }
+
+        @Test
+        public void appliesCustomHopIncrement() {
+            final Charge charge = chargeWithUnits(100);
+            charge.reassign(1, 100, GROSSHAENDLER, 0);
+
+            assertThat(charge.getOwnerSegments()).containsExactly(segment(1, 100, GROSSHAENDLER, 0));
+
+            charge.reassign(1, 100, APOTHEKE, 3);
+
+            assertThat(charge.hopsOf(1)).isEqualTo(3);
+        }
+    }
+
+    @Nested
+    class Consume {
+
+        @Test
+        public void returnsOnePiecePerOwnerSegment() {
+            final Charge charge = chargeWithUnits(100);
+            charge.reassign(41, 60, APOTHEKE);
+
+            final List<Charge.ConsumedSegment> consumed = charge.consume(31, 50, "REZEPT-1");
+
+            assertThat(consumed).containsExactly(
+                    new Charge.ConsumedSegment(31, 40, HERSTELLER, 0, "REZEPT-1"),
+                    new Charge.ConsumedSegment(41, 50, APOTHEKE, 1, "REZEPT-1"));
+            assertThat(charge.getConsumedCount()).isEqualTo(20);
+            assertThat(charge.getOwnerSegments()).containsExactly(
+                    segment(1, 30, HERSTELLER, 0),
+                    segment(51, 60, APOTHEKE, 1),
+                    segment(61, 100, HERSTELLER, 0));
+        }
+
+        @Test
+        public void consumesSingleUnit() {
+            final Charge charge = chargeWithUnits(100);
+
+            assertThat(charge.consume(100, 100, "REZEPT-1"))
+                    .containsExactly(new Charge.ConsumedSegment(100, 100, HERSTELLER, 0, "REZEPT-1"));
+            assertThat(charge.getConsumedCount()).isEqualTo(1);
+            assertThat(charge.ownerOf(100)).isNull();
+            assertThat(charge.firstCounterNotOwnedBy(1, 100, HERSTELLER)).isEqualTo(100);
+        }
+
+        @Test
+        public void consumesFullCharge() {
+            final Charge charge = chargeWithUnits(100);
+            charge.consume(1, 100, "REZEPT-1");
+
+            assertThat(charge.getOwnerSegments()).isEmpty();
+            assertThat(charge.unitCountsByOwner()).isEmpty();
+            assertThat(charge.getConsumedCount()).isEqualTo(100);
+        }
+
+        @Test
+        public void ignoresCountersThatNoLongerExist() {
+            final Charge charge = chargeWithUnits(100);
+            charge.consume(1, 10, "REZEPT-1");
+
+            assertThat(charge.consume(1, 10, "REZEPT-2")).isEmpty();
+            assertThat(charge.getConsumedCount()).isEqualTo(10);
+        }
+    }
+
+    @Nested
+    class Transfers {
+
+        @Test
+        public void assignsIncreasingTransferSequence() {
+            final Charge charge = chargeWithUnits(100);
+
+            assertThat(charge.nextTransferSeq()).isEqualTo(1);
+            assertThat(charge.nextTransferSeq()).isEqualTo(2);
+            assertThat(charge.getTransferCount()).isEqualTo(2);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package de.jklein.fabric.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.owlike.genson.Genson;
+import de.jklein.fabric.models.Actor;
+import de.jklein.fabric.models.Charge;
+import de.jklein.fabric.models.Medikament;
+import de.jklein.fabric.models.Unit;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+// Die Codecs ersetzen Genson für Ledger-Dokumente und müssen daher byte-genau dasselbe JSON erzeugen.
+public final class LedgerCodecsTest {
+
+    private static final Genson GENSON = new Genson();
+    private static final String UNKNOWN_FIELDS = "\"zusatz\":{\"liste\":[1,2.5,true,null,{\"a\":\"b\"}],\"text\":\"x\\\"y\"},";
+
+    private static Actor actor() {
+        final Actor actor = new Actor("hersteller-1", "Pharma \"Müller\" GmbH", "hersteller", "info@mueller.de", "ipfs://actor");
+        actor.setVersion(3);
+        return actor;
+    }
+
+    private static Medikament medikament() {
+        final Medikament medikament = new Medikament("MED-1", "hersteller-1", "Ibuprofen 400\tmg", "ipfs://med");
+        final Map<String, String> tags = new TreeMap<>();
+        tags.put("wirkstoff", "Ibuprofen");
+        tags.put("darreichung", "Tablette");
+        medikament.setTags(tags);
+        medikament.setInfoblattHash("abc123");
+        medikament.setStatus("freigegeben");
+        medikament.setApprovedById("behoerde-1");
+        medikament.setVersion(2);
+        return medikament;
+    }
+
+    private static Unit unit() {
+        final Unit unit = new Unit("MED-1-C1-0000000001", "MED-1", "C1", "ipfs://unit", "apotheke-1");
+        unit.addTransferEntry("hersteller-1", "grosshaendler-1", "2024-01-01T10:00:00Z");
+        unit.addTransferEntry("grosshaendler-1", "apotheke-1", "2024-01-02T10:00:00Z");
+        unit.addTemperatureReading("2024-01-01T12:00:00Z", "4.5");
+        unit.setTransferCount(2);
+        unit.setIsConsumed(true);
+        unit.setConsumedRefId("REZEPT-1");
+        return unit;
+    }
+
+    private static Charge charge() {
+        final Charge charge = new Charge("MED-1-C1", "MED-1", "C1", "hersteller-1");
+        charge.addRange(1, 100, "ipfs://c1", "hersteller-1");
+        charge.addRange(101, 150, null, "hersteller-1");
+        charge.reassign(40, 60, "grosshaendler-1");
+        charge.consume(1, 5, "REZEPT-1");
+        charge.nextTransferSeq();
+        return charge;
+    }
+
+    private static String codecJson(final Object value) {
+        return new String(JsonUtil.toJsonBytes(value), StandardCharsets.UTF_8);
+    }
+
+    // Fügt unbekannte Felder vor dem ersten bekannten ein, wie sie ältere oder neuere Chaincode-Versionen schreiben.
+    private static byte[] withUnknownFields(final String json) {
+        return ("{" + UNKNOWN_FIELDS + json.substring(1)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Gelesen wird das von Genson geschriebene JSON; unbekannte Felder werden wie bei Genson übersprungen. Verglichen wird
+    // das erneut mit Genson geschriebene JSON, da Gensons eigene Deserialisierung Listen ohne Setter und die Tag-Reihenfolge verliert.
+    private static <T> void assertReadsGensonJson(final T value, final Class<T> type) {
+        final String json = GENSON.serialize(value);
+
+        assertThat(GENSON.serialize(JsonUtil.fromJsonBytes(json.getBytes(StandardCharsets.UTF_8), type))).isEqualTo(json);
+        assertThat(GENSON.serialize(JsonUtil.fromJsonBytes(withUnknownFields(json), type))).isEqualTo(json);
+    }
+
+    @Nested
+    class Write {
+
+        @Test
+        public void writesActorLikeGenson() {
+            assertThat(codecJson(actor())).isEqualTo(GENSON.serialize(actor()));
+        }
+
+        @Test
+        public void writesMedikamentLikeGenson() {
+            assertThat(codecJson(medikament())).isEqualTo(GENSON.serialize(medikament()));
+        }
+
+        @Test
+        public void writesMedikamentWithoutTagsLikeGenson() {
+            final Medikament medikament = medikament();
+            medikament.setTags(null);
+
+            assertThat(codecJson(medikament)).isEqualTo(GENSON.serialize(medikament));
+        }
+
+        @Test
+        public void writesUnitLikeGenson() {
+            assertThat(codecJson(unit())).isEqualTo(GENSON.serialize(unit()));
+        }
+
+        @Test
+        public void writesChargeLikeGenson() {
+            assertThat(codecJson(charge())).isEqualTo(GENSON.serialize(charge()));
+        }
+
+        @Test
+        public void writesNullFieldsLikeGenson() {
+            final Actor actor = new Actor("pruefer-1", "behoerde");
+
+            assertThat(codecJson(actor)).isEqualTo(GENSON.serialize(actor));
+        }
+    }
+
+    @Nested
+    class Read {
+
+        @Test
+        public void readsActorWrittenByGenson() {
+            assertReadsGensonJson(actor(), Actor.class);
+        }
+
+        @Test
+        public void readsMedikamentWrittenByGenson() {
+            assertReadsGensonJson(medikament(), Medikament.class);
+        }
+
+        @Test
+        public void readsUnitWrittenByGenson() {
+            assertReadsGensonJson(unit(), Unit.class);
+        }
+
+        @Test
+        public void readsChargeWrittenByGenson() {
+            assertReadsGensonJson(charge(), Charge.class);
+        }
+    }
+}
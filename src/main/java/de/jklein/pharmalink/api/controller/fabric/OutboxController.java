@@ -0,0 +1,85 @@
+package de.jklein.pharmalink.api.controller.fabric;
+
+import de.jklein.pharmalink.api.dto.AddTemperatureReadingRequestDto;
+import de.jklein.pharmalink.api.dto.CreateUnitsRequestDto;
+import de.jklein.pharmalink.api.dto.TransferUnitsRequestDto;
+import de.jklein.pharmalink.domain.outbox.OutboxIntent;
+import de.jklein.pharmalink.service.outbox.OutboxService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Schreibzugriffe über die Outbox: die Absicht wird gespeichert und mit 202 bestätigt, die Einreichung erfolgt im Hintergrund.
+@RestController
+@RequestMapping("/api/v1/outbox")
+public class OutboxController {
+
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int MAX_WAIT_SECONDS = 25;
+
+    private final OutboxService outboxService;
+
+    @Autowired
+    public OutboxController(OutboxService outboxService) {
+        this.outboxService = outboxService;
+    }
+
+    @PostMapping("/units/{medId}")
+    public ResponseEntity<?> createUnits(
+            @PathVariable final String medId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) final String idempotencyKey,
+            @Valid @RequestBody final CreateUnitsRequestDto request) {
+        try {
+            return ResponseEntity.accepted().body(outboxService.enqueueCreateUnits(idempotencyKey, medId, request));
+        } catch (Exception e) {
+            return ResponseEntity
+                    .internalServerError()
+                    .body(Map.of("error", "Fehler beim Einstellen der Unit-Erstellung: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/units/transfer")
+    public ResponseEntity<?> transferUnits(
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) final String idempotencyKey,
+            @Valid @RequestBody final TransferUnitsRequestDto request) {
+        try {
+            return ResponseEntity.accepted().body(outboxService.enqueueTransfer(idempotencyKey, request));
+        } catch (Exception e) {
+            return ResponseEntity
+                    .internalServerError()
+                    .body(Map.of("error", "Fehler beim Einstellen der Übertragung: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/units/{unitId}/temperature-readings")
+    public ResponseEntity<?> addTemperatureReading(
+            @PathVariable final String unitId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) final String idempotencyKey,
+            @Valid @RequestBody final AddTemperatureReadingRequestDto request) {
+        try {
+            return ResponseEntity.accepted().body(outboxService.enqueueTemperatureReading(
+                    idempotencyKey, unitId, request.getTemperature(), request.getTimestamp()));
+        } catch (Exception e) {
+            return ResponseEntity
+                    .internalServerError()
+                    .body(Map.of("error", "Fehler beim Einstellen des Temperaturmesswerts: " + e.getMessage()));
+        }
+    }
+
+    // Mit waitSeconds > 0 antwortet der Aufruf erst bei Abschluss der Absicht oder nach Ablauf der Wartezeit (Long-Polling).
+    @GetMapping("/{intentId}")
+    public CompletableFuture<ResponseEntity<OutboxIntent>> getIntent(
+            @PathVariable final String intentId,
+            @RequestParam(defaultValue = "0") final int waitSeconds) {
+        Duration timeout = Duration.ofSeconds(Math.max(0, Math.min(waitSeconds, MAX_WAIT_SECONDS)));
+        return outboxService.awaitCompletion(intentId, timeout)
+                .thenApply(intent -> intent
+                        .map(ResponseEntity::ok)
+                        .orElseGet(() -> ResponseEntity.notFound().build()));
+    }
+}
@@ -0,0 +1,29 @@
+package de.jklein.pharmalink.api.controller.fabric;
+
+import de.jklein.pharmalink.client.fabric.TransactionState;
+import de.jklein.pharmalink.client.fabric.TransactionTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/transactions")
+public class TransactionController {
+
+    private final TransactionTracker transactionTracker;
+
+    @Autowired
+    public TransactionController(TransactionTracker transactionTracker) {
+        this.transactionTracker = transactionTracker;
+    }
+
+    // Liefert den Stand von Transaktionen, die dieses Backend asynchron eingereicht hat: PENDING, COMMITTED, FAILED
+    // (mit Validierungscode abgelehnt) oder UNKNOWN (Statusabfrage gescheitert). Bei UNKNOWN kann die Transaktion
+    // festgeschrieben sein; vor einer Wiederholung muss der Ledger-Zustand geprüft werden.
+    @GetMapping("/{txId}")
+    public ResponseEntity<TransactionState> getTransactionState(@PathVariable final String txId) {
+        return transactionTracker.find(txId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -2,6 +2,10 @@ package de.jklein.pharmalink.api.controller.fabric;
 
 import de.jklein.pharmalink.api.dto.*;
 import de.jklein.pharmalink.api.mapper.UnitMapper;
+import de.jklein.pharmalink.client.fabric.AsyncSubmission;
+import de.jklein.pharmalink.client.fabric.TemperatureBatch;
+import de.jklein.pharmalink.client.fabric.UnitBatchEvent;
+import de.jklein.pharmalink.client.fabric.UnitDispatchEvent;
 import de.jklein.pharmalink.domain.Unit;
 import de.jklein.pharmalink.service.fabric.UnitFabricService;
 import de.jklein.pharmalink.service.state.SystemStateService;
@@ -44,11 +48,8 @@ public class UnitFabricController {
             @Valid @RequestBody final CreateUnitsRequestDto request) {
 
         try {
-            List<Unit> createdUnits = unitFabricService.createUnitsForMedication(medId, request);
-            List<UnitResponseDto> createdUnitDtos = createdUnits.stream()
-                    .map(unitMapper::toDto)
-                    .collect(Collectors.toList());
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdUnitDtos);
+            UnitRangeResponseDto createdRange = unitFabricService.createUnitsForMedication(medId, request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(createdRange);
         } catch (Exception e) {
             return ResponseEntity
                     .internalServerError()
@@ -112,6 +113,33 @@ public class UnitFabricController {
         }
     }
 
+    @GetMapping("/{unitId}/provenance")
+    public ResponseEntity<?> getUnitProvenance(@PathVariable final String unitId) {
+        try {
+            List<Unit.TransferEntry> provenance = unitFabricService.getUnitProvenance(unitId);
+            return ResponseEntity.ok(unitMapper.mapTransferHistoryToDto(provenance));
+        } catch (Exception e) {
+            return ResponseEntity
+                    .internalServerError()
+                    .body(Map.of("error", "Fehler beim Abrufen der Transfer-Historie: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{unitId}/temperature-readings")
+    public ResponseEntity<?> getTemperatureReadings(
+            @PathVariable final String unitId,
+            @RequestParam(required = false) final String from,
+            @RequestParam(required = false) final String to) {
+        try {
+            List<Unit.TemperatureReading> readings = unitFabricService.getTemperatureReadings(unitId, from, to);
+            return ResponseEntity.ok(readings);
+        } catch (Exception e) {
+            return ResponseEntity
+                    .internalServerError()
+                    .body(Map.of("error", "Fehler beim Abrufen der Temperaturdaten: " + e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/{unitId}")
     public ResponseEntity<?> deleteUnit(@PathVariable String unitId) {
         try {
@@ -137,16 +165,26 @@ public class UnitFabricController {
     }
 
     @PostMapping("/transfer-range")
-    public ResponseEntity<?> transferUnitRange(@RequestBody TransferUnitRangeRequestDto requestDto) {
+    public ResponseEntity<?> transferUnitRange(@RequestBody TransferUnitRangeRequestDto requestDto,
+                                               @RequestParam(defaultValue = "false") final boolean async) {
         try {
-            String resultMessage = unitFabricService.transferUnitRange(
+            if (async) {
+                return accepted(unitFabricService.transferUnitRangeAsync(
+                        requestDto.getMedId(),
+                        requestDto.getChargeBezeichnung(),
+                        requestDto.getStartCounter(),
+                        requestDto.getEndCounter(),
+                        requestDto.getNewOwnerId()
+                ));
+            }
+            UnitBatchEvent summary = unitFabricService.transferUnitRange(
                     requestDto.getMedId(),
                     requestDto.getChargeBezeichnung(),
                     requestDto.getStartCounter(),
                     requestDto.getEndCounter(),
                     requestDto.getNewOwnerId()
             );
-            return ResponseEntity.ok(Map.of("message", resultMessage));
+            return ResponseEntity.ok(summary);
         } catch (Exception e) {
             return ResponseEntity
                     .internalServerError()
@@ -154,6 +192,76 @@ public class UnitFabricController {
         }
     }
 
+    @PostMapping("/consume")
+    public ResponseEntity<?> consumeUnits(@Valid @RequestBody final ConsumeUnitsRequestDto requestDto,
+                                          @RequestParam(defaultValue = "false") final boolean async) {
+        try {
+            if (async) {
+                return accepted(unitFabricService.consumeUnitsAsync(requestDto));
+            }
+            UnitBatchEvent summary = unitFabricService.consumeUnits(requestDto);
+            return ResponseEntity.ok(summary);
+        } catch (Exception e) {
+            return ResponseEntity
+                    .internalServerError()
+                    .body(Map.of("error", "Fehler bei der Abgabe der Einheiten: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/transfer-batch")
+    public ResponseEntity<?> transferUnits(@Valid @RequestBody final TransferUnitsRequestDto requestDto,
+                                           @RequestParam(defaultValue = "false") final boolean async) {
+        try {
+            if (async) {
+                return accepted(unitFabricService.transferUnitsAsync(requestDto));
+            }
+            UnitDispatchEvent dispatch = unitFabricService.transferUnits(requestDto);
+            return ResponseEntity.ok(dispatch);
+        } catch (Exception e) {
+            return ResponseEntity
+                    .internalServerError()
+                    .body(Map.of("error", "Fehler bei der Sammelübertragung: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/temperature-batches")
+    public ResponseEntity<?> anchorTemperatureBatch(@Valid @RequestBody final AnchorTemperatureBatchRequestDto requestDto) {
+        try {
+            TemperatureBatch batch = unitFabricService.anchorTemperatureBatch(requestDto);
+            return ResponseEntity.status(HttpStatus.CREATED).body(batch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity
+                    .internalServerError()
+                    .body(Map.of("error", "Fehler beim Verankern des Temperatur-Batches: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/temperature-batches/{batchId}/readings/{index}/proof")
+    public ResponseEntity<?> proveTemperatureReading(@PathVariable final String batchId, @PathVariable final int index) {
+        try {
+            return ResponseEntity.ok(unitFabricService.proveTemperatureReading(batchId, index));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity
+                    .internalServerError()
+                    .body(Map.of("error", "Fehler beim Prüfen des Temperaturmesswerts: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{subjectId}/temperature-batches")
+    public ResponseEntity<?> getTemperatureBatches(@PathVariable final String subjectId) {
+        try {
+            return ResponseEntity.ok(unitFabricService.getTemperatureBatchesBySubject(subjectId));
+        } catch (Exception e) {
+            return ResponseEntity
+                    .internalServerError()
+                    .body(Map.of("error", "Fehler beim Abrufen der Temperatur-Batches: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/medications/{medId}/charge-counts")
     public ResponseEntity<?> getChargeCountsByMedId(@PathVariable final String medId) {
         try {
@@ -176,4 +284,11 @@ public class UnitFabricController {
         return ResponseEntity.ok(dtos);
     }
 
-}
\ No newline at end of file
+    // Antwort für ?async=true: nur die Transaktions-ID, der Stand ist unter /api/v1/transactions/{txId} abrufbar.
+    private ResponseEntity<?> accepted(final AsyncSubmission submission) {
+        return ResponseEntity.accepted().body(Map.of(
+                "txId", submission.getTxId(),
+                "status", "/api/v1/transactions/" + submission.getTxId()
+        ));
+    }
+}
@@ -0,0 +1,39 @@
+package de.jklein.pharmalink.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AnchorTemperatureBatchRequestDto {
+
+    @NotBlank(message = "Die Batch-ID darf nicht leer sein.")
+    private String batchId;
+
+    @NotBlank(message = "Die untere Temperaturgrenze darf nicht leer sein.")
+    private String minAllowed;
+
+    @NotBlank(message = "Die obere Temperaturgrenze darf nicht leer sein.")
+    private String maxAllowed;
+
+    @NotEmpty(message = "Ein Temperatur-Batch benötigt mindestens einen Messwert.")
+    @Size(max = 100000, message = "Ein Temperatur-Batch darf höchstens 100000 Messwerte enthalten.")
+    private List<@Valid Reading> readings;
+
+    @Data
+    public static class Reading {
+
+        @NotBlank(message = "Die Einheiten- bzw. Container-ID darf nicht leer sein.")
+        private String subjectId;
+
+        @NotBlank(message = "Der Zeitstempel darf nicht leer sein.")
+        private String timestamp;
+
+        @NotBlank(message = "Der Temperaturwert darf nicht leer sein.")
+        private String temperature;
+    }
+}
@@ -0,0 +1,17 @@
+package de.jklein.pharmalink.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ConsumeUnitsRequestDto {
+
+    @NotEmpty(message = "Es muss mindestens eine Einheit zur Abgabe angegeben werden.")
+    private List<String> unitIds;
+
+    @NotBlank(message = "Die Abgabe-Referenz darf nicht leer sein.")
+    private String consumedRefId;
+}
@@ -0,0 +1,17 @@
+package de.jklein.pharmalink.api.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TemperatureReadingProofDto {
+    private String batchId;
+    private int index;
+    private String subjectId;
+    private String timestamp;
+    private String temperature;
+    private List<String> proof;
+    private String merkleRoot;
+    private boolean included;
+}
@@ -0,0 +1,44 @@
+package de.jklein.pharmalink.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class TransferUnitsRequestDto {
+
+    @NotEmpty(message = "Es muss mindestens eine Transferanweisung angegeben werden.")
+    private List<@Valid Instruction> instructions;
+
+    @Data
+    public static class Instruction {
+
+        @NotBlank(message = "Der Empfänger darf nicht leer sein.")
+        private String toActorId;
+
+        private List<String> unitIds = new ArrayList<>();
+
+        private List<@Valid Range> ranges = new ArrayList<>();
+    }
+
+    @Data
+    public static class Range {
+
+        @NotBlank(message = "Die Medikamenten-ID darf nicht leer sein.")
+        private String medId;
+
+        @NotBlank(message = "Die Chargenbezeichnung darf nicht leer sein.")
+        private String chargeBezeichnung;
+
+        @Positive(message = "Der Startzähler muss positiv sein.")
+        private int start;
+
+        @Positive(message = "Der Endzähler muss positiv sein.")
+        private int end;
+    }
+}
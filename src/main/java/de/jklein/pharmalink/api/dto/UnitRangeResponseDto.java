@@ -0,0 +1,19 @@
+package de.jklein.pharmalink.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UnitRangeResponseDto {
+    private String chargeId;
+    private String medId;
+    private String chargeBezeichnung;
+    private int startCounter;
+    private int endCounter;
+    private int anzahl;
+    private String ownerActorId;
+    private String ipfsLink;
+}
@@ -18,6 +18,7 @@ public class UnitResponseDto {
     private String currentOwnerActorId;
     private List<Map<String, String>> temperatureReadings;
     private List<Map<String, String>> transferHistory;
+    private int transferCount;
 
     private boolean isConsumed;
     private String consumedRefId;
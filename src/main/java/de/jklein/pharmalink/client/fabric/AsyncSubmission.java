@@ -0,0 +1,16 @@
+package de.jklein.pharmalink.client.fabric;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.concurrent.CompletableFuture;
+
+// Ergebnis von FabricClient.submitAsync: Transaktions-ID und Endorsement-Ergebnis stehen sofort nach der
+// Übergabe an den Orderer fest, die Festschreibung wird über commit nachgereicht.
+@Getter
+@AllArgsConstructor
+public class AsyncSubmission {
+    private final String txId;
+    private final String result;
+    private final CompletableFuture<TransactionState> commit;
+}
@@ -0,0 +1,31 @@
+package de.jklein.pharmalink.client.fabric;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Container, wie ihn packContainer und queryContainer liefern; Grundlage der Projektion eingepackter Einheiten.
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ContainerEvent {
+    private String containerId;
+    private String ownerActorId;
+    private String parentContainerId;
+    private List<UnitBatchEvent.ChargeRange> unitRanges = new ArrayList<>();
+    private List<String> childContainerIds = new ArrayList<>();
+    private int unitCount;
+
+    public List<String> unitIds() {
+        List<String> unitIds = new ArrayList<>(unitCount);
+        for (UnitBatchEvent.ChargeRange range : unitRanges) {
+            for (int counter = range.getStart(); counter <= range.getEnd(); counter++) {
+                unitIds.add(range.unitId(counter));
+            }
+        }
+        return unitIds;
+    }
+}
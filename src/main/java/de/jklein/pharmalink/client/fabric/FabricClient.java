@@ -4,13 +4,18 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.gson.Gson;
 import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import com.google.protobuf.InvalidProtocolBufferException;
 import de.jklein.pharmalink.config.FabricConfig;
 import de.jklein.pharmalink.domain.audit.GrpcTransaction;
 import de.jklein.pharmalink.repository.audit.GrpcTransactionRepository;
 import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.Timer;
 import org.hyperledger.fabric.client.*;
 import org.hyperledger.fabric.client.identity.Identity;
 import org.hyperledger.fabric.client.identity.Signer;
+import org.hyperledger.fabric.protos.peer.ProcessedTransaction;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,10 +23,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.cert.CertificateException;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -32,13 +41,15 @@ import java.util.function.Supplier;
 public class FabricClient {
 
     private static final Logger logger = LoggerFactory.getLogger(FabricClient.class);
+    private static final String QSCC = "qscc";
 
-    private final Gateway gateway;
-    private final Network network;
-    private final Contract contract;
+    private final PeerPool peerPool;
     private final Gson gson;
     private final ObjectMapper objectMapper;
     private final GrpcTransactionRepository grpcTransactionRepository;
+    private final TransactionTracker transactionTracker;
+    private final FabricMetrics fabricMetrics;
+    private final int queryPageSize;
     private final ExecutorService eventExecutor = Executors.newSingleThreadExecutor(r -> {
         Thread t = Executors.defaultThreadFactory().newThread(r);
         t.setDaemon(true);
@@ -47,22 +58,26 @@ public class FabricClient {
 
     @Autowired
     public FabricClient(
-            Gateway gateway,
+            PeerPool peerPool,
             Identity identity,
             Signer signer,
             FabricConfig fabricConfig,
             Gson gson,
             ObjectMapper objectMapper,
             GrpcTransactionRepository grpcTransactionRepository,
+            TransactionTracker transactionTracker,
+            FabricMetrics fabricMetrics,
             @Value("${fabric.channel-name}") String channelName,
-            @Value("${fabric.chaincode-name}") String chaincodeName
+            @Value("${fabric.chaincode-name}") String chaincodeName,
+            @Value("${fabric.query.page-size:500}") int queryPageSize
     ) throws IOException, InvalidKeyException, CertificateException {
-        this.gateway = gateway;
-        this.network = gateway.getNetwork(channelName);
-        this.contract = network.getContract(chaincodeName);
+        this.peerPool = peerPool;
         this.gson = gson;
         this.objectMapper = objectMapper;
         this.grpcTransactionRepository = grpcTransactionRepository;
+        this.transactionTracker = transactionTracker;
+        this.fabricMetrics = fabricMetrics;
+        this.queryPageSize = queryPageSize;
 
         logger.info("Fabric-Client initialisiert für MSP: {}, Benutzer: {}. Verbunden mit Kanal: {}, Chaincode: {}",
                 fabricConfig.getMspId(),
@@ -71,38 +86,131 @@ public class FabricClient {
                 chaincodeName);
     }
 
-    public String submitGenericTransaction(String transactionName, String... args) throws GatewayException, CommitException {
+    /**
+     * Reicht eine Transaktion ein und wartet auf ihre Festschreibung. Endorsement, Übergabe an den Orderer und das
+     * Warten auf den Commit werden einzeln in {@link FabricMetrics} erfasst.
+     */
+    public String submitGenericTransaction(String transactionName, String... args) throws GatewayException, TransactionRejectedException {
         LocalDateTime startTime = LocalDateTime.now();
+        long startNanos = System.nanoTime();
         String transactionArgsJson = convertArgsToJson(args);
         boolean success = false;
         String errorMessage = null;
         String responsePayload = null;
 
         try {
-            byte[] result = contract.submitTransaction(transactionName, args);
-            responsePayload = new String(result);
+            SubmittedTransaction submitted = submit(transactionName, endorse(transactionName, args));
+            responsePayload = new String(submitted.getResult(), StandardCharsets.UTF_8);
+            awaitCommit(transactionName, submitted);
             success = true;
             logger.info("Transaktion '{}' erfolgreich übermittelt. Ergebnis: {}", transactionName, responsePayload);
             return responsePayload;
-        } catch (GatewayException e) {
+        } catch (GatewayException | TransactionRejectedException e) {
             errorMessage = e.getMessage();
             logger.error("Fehler beim Übermitteln der Transaktion '{}': {}", transactionName, errorMessage, e);
             throw e;
         } finally {
-            logGrpcTransaction(transactionName, transactionArgsJson, startTime, success, errorMessage, responsePayload);
+            logGrpcTransaction(transactionName, transactionArgsJson, startTime, elapsedMillis(startNanos), success, errorMessage, responsePayload);
+        }
+    }
+
+    /**
+     * Reicht eine Transaktion ein, ohne auf die Festschreibung zu warten: Rückkehr direkt nach Endorsement und
+     * Übergabe an den Orderer. Der Commit-Status wird im Hintergrund verfolgt und über {@link AsyncSubmission#getCommit()}
+     * bzw. {@link TransactionTracker#find(String)} bereitgestellt.
+     */
+    public AsyncSubmission submitAsync(String transactionName, String... args) throws GatewayException {
+        LocalDateTime startTime = LocalDateTime.now();
+        long startNanos = System.nanoTime();
+        try {
+            return trackSubmission(transactionName, submit(transactionName, endorse(transactionName, args)), convertArgsToJson(args), startTime, startNanos);
+        } catch (GatewayException e) {
+            logger.error("Fehler beim asynchronen Übermitteln der Transaktion '{}': {}", transactionName, e.getMessage(), e);
+            logGrpcTransaction(transactionName, convertArgsToJson(args), startTime, elapsedMillis(startNanos), false, e.getMessage(), null);
+            throw e;
+        }
+    }
+
+    /**
+     * Holt nur das Endorsement ein und liefert den signierten Transaktionsumschlag. Wer ihn vor der Übergabe an den
+     * Orderer speichert, kann nach einem unklaren Ausgang genau diese Transaktion erneut einreichen
+     * ({@link #submitEndorsedAsync}); eine bereits festgeschriebene Tx-ID wird von Fabric kein zweites Mal angewendet.
+     */
+    public byte[] endorseTransaction(String transactionName, String... args) throws GatewayException {
+        LocalDateTime startTime = LocalDateTime.now();
+        long startNanos = System.nanoTime();
+        try {
+            return endorse(transactionName, args).getBytes();
+        } catch (GatewayException e) {
+            logger.error("Endorsement der Transaktion '{}' fehlgeschlagen: {}", transactionName, e.getMessage(), e);
+            logGrpcTransaction(transactionName, convertArgsToJson(args), startTime, elapsedMillis(startNanos), false, e.getMessage(), null);
+            throw e;
+        }
+    }
+
+    // Reicht einen gespeicherten Umschlag aus endorseTransaction (erneut) ein; args dienen nur dem Protokoll.
+    public AsyncSubmission submitEndorsedAsync(String transactionName, byte[] transactionBytes, String... args) throws GatewayException {
+        LocalDateTime startTime = LocalDateTime.now();
+        long startNanos = System.nanoTime();
+        try {
+            return trackSubmission(transactionName, submit(transactionName, transactionBytes), convertArgsToJson(args), startTime, startNanos);
+        } catch (GatewayException e) {
+            logger.error("Fehler beim erneuten Einreichen der Transaktion '{}': {}", transactionName, e.getMessage(), e);
+            logGrpcTransaction(transactionName, convertArgsToJson(args), startTime, elapsedMillis(startNanos), false, e.getMessage(), null);
+            throw e;
+        }
+    }
+
+    /**
+     * Ermittelt den Ausgang eines gespeicherten Umschlags aus dem Ledger (Systemchaincode qscc). Wurde eine
+     * Wiederholung als DUPLICATE_TXID abgelehnt, liefert dies den Validierungscode der ursprünglich festgeschriebenen
+     * Transaktion. Scheitert die Abfrage, etwa weil die Tx-ID nicht im Ledger steht, ist der Stand UNKNOWN.
+     */
+    public TransactionState lookupTransaction(String transactionName, byte[] transactionBytes) {
+        Transaction transaction = peerPool.primary().getGateway().newTransaction(transactionBytes);
+        TransactionState state = TransactionState.pending(transaction.getTransactionId(), transactionName,
+                new String(transaction.getResult(), StandardCharsets.UTF_8));
+        try {
+            byte[] processed = peerPool.execute(peer -> peer.getNetwork().getContract(QSCC)
+                    .evaluateTransaction("GetTransactionByID", peer.getNetwork().getName(), state.getTxId()));
+            int validationCode = ProcessedTransaction.parseFrom(processed).getValidationCode();
+            TxValidationCode code = TxValidationCode.forNumber(validationCode);
+            String codeName = code != null ? code.name() : String.valueOf(validationCode);
+            if (code == TxValidationCode.VALID) {
+                return state.complete(TransactionState.Status.COMMITTED, null, codeName, null);
+            }
+            return state.complete(TransactionState.Status.FAILED, null, codeName, "Validierung fehlgeschlagen: " + codeName);
+        } catch (GatewayException | InvalidProtocolBufferException e) {
+            logger.warn("Ausgang der Transaktion {} konnte nicht ermittelt werden: {}", state.getTxId(), e.getMessage());
+            return state.complete(TransactionState.Status.UNKNOWN, null, null, e.getMessage());
         }
     }
 
+    private AsyncSubmission trackSubmission(String transactionName, SubmittedTransaction submitted, String transactionArgsJson,
+                                            LocalDateTime startTime, long startNanos) {
+        String responsePayload = new String(submitted.getResult(), StandardCharsets.UTF_8);
+        logger.info("Transaktion '{}' an den Orderer übergeben (txId {}).", transactionName, submitted.getTransactionId());
+
+        Timer.Sample commitSample = fabricMetrics.startPhase();
+        CompletableFuture<TransactionState> commit = transactionTracker.track(transactionName, submitted, responsePayload);
+        commit.thenAccept(state -> {
+            fabricMetrics.recordPhase(commitSample, transactionName, FabricMetrics.PHASE_COMMIT, commitOutcome(state));
+            logGrpcTransaction(transactionName, transactionArgsJson, startTime, elapsedMillis(startNanos),
+                    state.isCommitted(), state.getErrorMessage(), responsePayload);
+        });
+        return new AsyncSubmission(submitted.getTransactionId(), responsePayload, commit);
+    }
+
     public String evaluateGenericTransaction(String transactionName, String... args) throws GatewayException {
         LocalDateTime startTime = LocalDateTime.now();
+        long startNanos = System.nanoTime();
         String transactionArgsJson = convertArgsToJson(args);
         boolean success = false;
         String errorMessage = null;
         String responsePayload = null;
 
         try {
-            byte[] result = contract.evaluateTransaction(transactionName, args);
-            responsePayload = new String(result);
+            responsePayload = new String(evaluate(transactionName, args), StandardCharsets.UTF_8);
             success = true;
             logger.info("Transaktion '{}' erfolgreich ausgewertet. Ergebnis: {}", transactionName, responsePayload);
             return responsePayload;
@@ -111,12 +219,13 @@ public class FabricClient {
             logger.error("Fehler beim Auswerten der Transaktion '{}': {}", transactionName, errorMessage, e);
             throw e;
         } finally {
-            logGrpcTransaction(transactionName, transactionArgsJson, startTime, success, errorMessage, responsePayload);
+            logGrpcTransaction(transactionName, transactionArgsJson, startTime, elapsedMillis(startNanos), success, errorMessage, responsePayload);
         }
     }
 
     public <T> T evaluateTransaction(String transactionName, Class<T> valueType, String... args) throws GatewayException {
         LocalDateTime startTime = LocalDateTime.now();
+        long startNanos = System.nanoTime();
         String transactionArgsJson = convertArgsToJson(args);
         boolean success = false;
         String errorMessage = null;
@@ -124,8 +233,7 @@ public class FabricClient {
         T deserializedResult = null;
 
         try {
-            byte[] result = contract.evaluateTransaction(transactionName, args);
-            responsePayload = new String(result);
+            responsePayload = new String(evaluate(transactionName, args), StandardCharsets.UTF_8);
             deserializedResult = gson.fromJson(responsePayload, valueType);
             success = true;
             logger.info("Transaktion '{}' erfolgreich ausgewertet. Ergebnis: {}", transactionName, responsePayload);
@@ -135,12 +243,121 @@ public class FabricClient {
             logger.error("Fehler beim Auswerten der Transaktion '{}': {}", transactionName, errorMessage, e);
             throw e;
         } finally {
-            logGrpcTransaction(transactionName, transactionArgsJson, startTime, success, errorMessage, responsePayload);
+            logGrpcTransaction(transactionName, transactionArgsJson, startTime, elapsedMillis(startNanos), success, errorMessage, responsePayload);
+        }
+    }
+
+    // Holt eine paginierte Abfrage Seite für Seite (Seitengröße und Lesezeichen als letzte Argumente) und gibt die Gesamtanzahl zurück.
+    public <T> int evaluatePagedTransaction(String transactionName, Type recordType, Consumer<List<T>> pageConsumer, String... args) throws GatewayException {
+        Type pageType = TypeToken.getParameterized(FabricPage.class, recordType).getType();
+        String[] pageArgs = Arrays.copyOf(args, args.length + 2);
+        pageArgs[args.length] = String.valueOf(queryPageSize);
+        String bookmark = "";
+        int totalCount = 0;
+
+        do {
+            pageArgs[args.length + 1] = bookmark;
+            FabricPage<T> page = gson.fromJson(evaluateGenericTransaction(transactionName, pageArgs), pageType);
+            if (page == null || page.getRecords() == null || page.getRecords().isEmpty()) {
+                break;
+            }
+            pageConsumer.accept(page.getRecords());
+            totalCount += page.getRecords().size();
+            bookmark = page.getBookmark();
+        } while (bookmark != null && !bookmark.isEmpty());
+
+        logger.debug("Paginierte Abfrage '{}' abgeschlossen: {} Datensätze.", transactionName, totalCount);
+        return totalCount;
+    }
+
+    private Transaction endorse(String transactionName, String... args) throws GatewayException {
+        fabricMetrics.recordArguments(transactionName, args);
+        Timer.Sample endorseSample = fabricMetrics.startPhase();
+        Transaction transaction;
+        try {
+            // Über den Pool: Auswahl nach offenen Anfragen, bei Verbindungsfehlern Ausschluss und neuer Vorschlag beim nächsten Peer.
+            transaction = peerPool.execute(peer -> peer.getContract().newProposal(transactionName)
+                    .addArguments(args)
+                    .build()
+                    .endorse());
+            fabricMetrics.recordPhase(endorseSample, transactionName, FabricMetrics.PHASE_ENDORSE, FabricMetrics.OUTCOME_SUCCESS);
+        } catch (GatewayException e) {
+            fabricMetrics.recordPhase(endorseSample, transactionName, FabricMetrics.PHASE_ENDORSE, FabricMetrics.OUTCOME_FAILURE);
+            throw e;
+        }
+        fabricMetrics.recordPayload(transactionName, FabricMetrics.DIRECTION_RESPONSE, transaction.getResult().length);
+        return transaction;
+    }
+
+    private SubmittedTransaction submit(String transactionName, Transaction transaction) throws GatewayException {
+        Timer.Sample submitSample = fabricMetrics.startPhase();
+        try {
+            SubmittedTransaction submitted = transaction.submitAsync();
+            fabricMetrics.recordPhase(submitSample, transactionName, FabricMetrics.PHASE_SUBMIT, FabricMetrics.OUTCOME_SUCCESS);
+            return submitted;
+        } catch (GatewayException e) {
+            fabricMetrics.recordPhase(submitSample, transactionName, FabricMetrics.PHASE_SUBMIT, FabricMetrics.OUTCOME_FAILURE);
+            throw e;
+        }
+    }
+
+    // Ein gespeicherter Umschlag ist an keinen Peer gebunden und wird bei Verbindungsfehlern über den nächsten Peer eingereicht.
+    private SubmittedTransaction submit(String transactionName, byte[] transactionBytes) throws GatewayException {
+        Timer.Sample submitSample = fabricMetrics.startPhase();
+        try {
+            SubmittedTransaction submitted = peerPool.execute(peer -> peer.getGateway().newTransaction(transactionBytes).submitAsync());
+            fabricMetrics.recordPhase(submitSample, transactionName, FabricMetrics.PHASE_SUBMIT, FabricMetrics.OUTCOME_SUCCESS);
+            return submitted;
+        } catch (GatewayException e) {
+            fabricMetrics.recordPhase(submitSample, transactionName, FabricMetrics.PHASE_SUBMIT, FabricMetrics.OUTCOME_FAILURE);
+            throw e;
         }
     }
 
-    private void logGrpcTransaction(String transactionName, String argsJson, LocalDateTime timestamp, boolean successful, String errorMessage, String responsePayload) {
+    private void awaitCommit(String transactionName, SubmittedTransaction submitted) throws GatewayException, TransactionRejectedException {
+        Timer.Sample commitSample = fabricMetrics.startPhase();
+        Status status;
+        try {
+            status = submitted.getStatus();
+        } catch (GatewayException e) {
+            fabricMetrics.recordPhase(commitSample, transactionName, FabricMetrics.PHASE_COMMIT, FabricMetrics.OUTCOME_FAILURE);
+            throw e;
+        }
+        if (!status.isSuccessful()) {
+            fabricMetrics.recordPhase(commitSample, transactionName, FabricMetrics.PHASE_COMMIT, FabricMetrics.OUTCOME_REJECTED);
+            throw new TransactionRejectedException(status.getTransactionId(), status.getCode().name());
+        }
+        fabricMetrics.recordPhase(commitSample, transactionName, FabricMetrics.PHASE_COMMIT, FabricMetrics.OUTCOME_SUCCESS);
+    }
+
+    private byte[] evaluate(String transactionName, String... args) throws GatewayException {
+        fabricMetrics.recordArguments(transactionName, args);
+        Timer.Sample sample = fabricMetrics.startPhase();
+        try {
+            byte[] result = peerPool.execute(peer -> peer.getContract().evaluateTransaction(transactionName, args));
+            fabricMetrics.recordPhase(sample, transactionName, FabricMetrics.PHASE_EVALUATE, FabricMetrics.OUTCOME_SUCCESS);
+            fabricMetrics.recordPayload(transactionName, FabricMetrics.DIRECTION_RESPONSE, result.length);
+            return result;
+        } catch (GatewayException e) {
+            fabricMetrics.recordPhase(sample, transactionName, FabricMetrics.PHASE_EVALUATE, FabricMetrics.OUTCOME_FAILURE);
+            throw e;
+        }
+    }
+
+    private String commitOutcome(TransactionState state) {
+        if (state.isCommitted()) {
+            return FabricMetrics.OUTCOME_SUCCESS;
+        }
+        return state.isUnknown() ? FabricMetrics.OUTCOME_FAILURE : FabricMetrics.OUTCOME_REJECTED;
+    }
+
+    private long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private void logGrpcTransaction(String transactionName, String argsJson, LocalDateTime timestamp, long durationMillis, boolean successful, String errorMessage, String responsePayload) {
         GrpcTransaction transaction = new GrpcTransaction(transactionName, argsJson, timestamp, successful, errorMessage, responsePayload);
+        transaction.setDurationMillis(durationMillis);
         try {
             grpcTransactionRepository.save(transaction);
             logger.debug("gRPC-Transaktion protokolliert: {}", transactionName);
@@ -191,7 +408,7 @@ public class FabricClient {
     }
 
     private CloseableIterator<ChaincodeEvent> listenFromBlock(String chaincodeName, long startBlock) {
-        ChaincodeEventsRequest request = network.newChaincodeEventsRequest(chaincodeName)
+        ChaincodeEventsRequest request = peerPool.select().getNetwork().newChaincodeEventsRequest(chaincodeName)
                 .startBlock(startBlock)
                 .build();
         return request.getEvents();
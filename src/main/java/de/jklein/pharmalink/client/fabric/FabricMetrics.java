@@ -0,0 +1,69 @@
+package de.jklein.pharmalink.client.fabric;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Micrometer-Messwerte für Chaincode-Aufrufe, getrennt nach Phase: Endorsement beim Peer, Übergabe an den Orderer,
+ * Warten auf die Festschreibung im Block sowie Abfragen. Zusammen mit den Nutzdatengrößen lässt sich so erkennen,
+ * in welcher Phase eine langsame Transaktion ihre Zeit verbringt. Export über /actuator/prometheus.
+ */
+@Component
+public class FabricMetrics {
+
+    public static final String PHASE_ENDORSE = "endorse";
+    public static final String PHASE_SUBMIT = "submit";
+    public static final String PHASE_COMMIT = "commit";
+    public static final String PHASE_EVALUATE = "evaluate";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_FAILURE = "failure";
+    // Festgeschrieben, aber bei der Validierung abgelehnt (z.B. MVCC_READ_CONFLICT).
+    public static final String OUTCOME_REJECTED = "rejected";
+
+    public static final String DIRECTION_REQUEST = "request";
+    public static final String DIRECTION_RESPONSE = "response";
+
+    private final MeterRegistry meterRegistry;
+
+    public FabricMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Timer.Sample startPhase() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void recordPhase(Timer.Sample sample, String transactionName, String phase, String outcome) {
+        sample.stop(Timer.builder("fabric.transaction.phase")
+                .description("Dauer einer Phase eines Chaincode-Aufrufs")
+                .tag("transaction", transactionName)
+                .tag("phase", phase)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    public void recordPayload(String transactionName, String direction, long bytes) {
+        DistributionSummary.builder("fabric.transaction.payload")
+                .description("Größe der Argumente bzw. des Ergebnisses eines Chaincode-Aufrufs")
+                .baseUnit("bytes")
+                .tag("transaction", transactionName)
+                .tag("direction", direction)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    public void recordArguments(String transactionName, String... args) {
+        long bytes = 0;
+        for (String arg : args) {
+            bytes += arg == null ? 0 : arg.getBytes(StandardCharsets.UTF_8).length;
+        }
+        recordPayload(transactionName, DIRECTION_REQUEST, bytes);
+    }
+}
@@ -0,0 +1,16 @@
+package de.jklein.pharmalink.client.fabric;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FabricPage<T> {
+    private List<T> records;
+    private String bookmark;
+    private int fetchedCount;
+}
@@ -0,0 +1,25 @@
+package de.jklein.pharmalink.client.fabric;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// /actuator/fabricpeers: Zustand, offene Anfragen und geglättete Latenz je Gateway-Peer.
+@Component
+@Endpoint(id = "fabricpeers")
+public class FabricPeersEndpoint {
+
+    private final PeerPool peerPool;
+
+    public FabricPeersEndpoint(PeerPool peerPool) {
+        this.peerPool = peerPool;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> peers() {
+        return peerPool.snapshot();
+    }
+}
@@ -0,0 +1,22 @@
+package de.jklein.pharmalink.client.fabric;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// Actuator-Health "fabricPeers": UP, solange mindestens ein Gateway-Peer erreichbar ist; Details enthalten die Peer-Tabelle.
+@Component("fabricPeers")
+public class FabricPeersHealthIndicator implements HealthIndicator {
+
+    private final PeerPool peerPool;
+
+    public FabricPeersHealthIndicator(PeerPool peerPool) {
+        this.peerPool = peerPool;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = peerPool.hasHealthyPeer() ? Health.up() : Health.down();
+        return builder.withDetail("peers", peerPool.snapshot()).build();
+    }
+}
@@ -0,0 +1,247 @@
+package de.jklein.pharmalink.client.fabric;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import org.hyperledger.fabric.client.Contract;
+import org.hyperledger.fabric.client.Gateway;
+import org.hyperledger.fabric.client.GatewayException;
+import org.hyperledger.fabric.client.Network;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verbindungen zu mehreren Gateway-Peers der eigenen Organisation. Abfragen gehen an den Peer mit den wenigsten
+ * offenen Anfragen (bei Gleichstand an den mit der geringsten geglätteten Latenz) und wechseln bei
+ * Verbindungsfehlern auf den nächsten Peer. Fehlerhafte Peers werden für eine Sperrzeit ausgeschlossen und erst
+ * nach deren Ablauf im Hintergrund mit einer echten Abfrage erneut geprüft; ein verbundener Kanal allein genügt
+ * nicht, da er bei Zeitüberschreitung oder Überlast meist weiter READY meldet. Ausgeschlossene Peers erhalten keine
+ * Aufrufe; ist kein Peer gesund, scheitern Aufrufe sofort mit UNAVAILABLE.
+ */
+public class PeerPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PeerPool.class);
+
+    private static final Set<Status.Code> UNHEALTHY_CODES = Set.of(
+            Status.Code.UNAVAILABLE, Status.Code.DEADLINE_EXCEEDED, Status.Code.RESOURCE_EXHAUSTED);
+    // Gewicht des neuesten Messwerts im gleitenden Latenzmittel.
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final List<Peer> peers;
+    private final long ejectMillis;
+    private final String probeTransaction;
+    private final ScheduledExecutorService probeExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = Executors.defaultThreadFactory().newThread(r);
+        t.setDaemon(true);
+        return t;
+    });
+
+    public PeerPool(List<Peer> peers, long ejectMillis, long probeIntervalMillis, String probeTransaction) {
+        if (peers.isEmpty()) {
+            throw new IllegalArgumentException("Es muss mindestens ein Peer konfiguriert sein.");
+        }
+        this.peers = List.copyOf(peers);
+        this.ejectMillis = ejectMillis;
+        this.probeTransaction = probeTransaction;
+        probeExecutor.scheduleWithFixedDelay(this::probeEjectedPeers, probeIntervalMillis, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @FunctionalInterface
+    public interface PeerCall<T> {
+        T apply(Peer peer) throws GatewayException;
+    }
+
+    // Der erste konfigurierte Peer; Bezugspunkt für Komponenten, die eine feste Verbindung benötigen.
+    public Peer primary() {
+        return peers.get(0);
+    }
+
+    // Führt den Aufruf auf dem besten verfügbaren Peer aus und versucht bei Verbindungsfehlern jeden weiteren Peer einmal.
+    public <T> T execute(PeerCall<T> call) throws GatewayException {
+        List<Peer> tried = new ArrayList<>(peers.size());
+        GatewayException lastFailure = null;
+        while (tried.size() < peers.size()) {
+            Peer peer = select(tried);
+            if (peer == null) {
+                break;
+            }
+            tried.add(peer);
+            peer.outstanding.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                T result = call.apply(peer);
+                peer.recordSuccess(System.nanoTime() - start);
+                return result;
+            } catch (GatewayException e) {
+                if (!UNHEALTHY_CODES.contains(e.getStatus().getCode())) {
+                    // Fachlicher Fehler des Chaincodes: der Peer hat geantwortet und bleibt im Pool.
+                    peer.recordSuccess(System.nanoTime() - start);
+                    throw e;
+                }
+                eject(peer, e.getStatus().getCode() + ": " + e.getMessage());
+                lastFailure = e;
+            } finally {
+                peer.outstanding.decrementAndGet();
+            }
+        }
+        throw lastFailure != null ? lastFailure : new GatewayException(noHealthyPeer());
+    }
+
+    // Liefert den besten gesunden Peer; sind alle ausgeschlossen, scheitert der Aufruf sofort.
+    public Peer select() {
+        Peer peer = select(List.of());
+        if (peer == null) {
+            throw noHealthyPeer();
+        }
+        return peer;
+    }
+
+    private Peer select(List<Peer> excluded) {
+        Peer best = null;
+        for (Peer peer : peers) {
+            if (!excluded.contains(peer) && peer.isAvailable() && (best == null || peer.isPreferredOver(best))) {
+                best = peer;
+            }
+        }
+        return best;
+    }
+
+    private StatusRuntimeException noHealthyPeer() {
+        return Status.UNAVAILABLE.withDescription("Kein gesunder Peer verfügbar.").asRuntimeException();
+    }
+
+    private void eject(Peer peer, String reason) {
+        peer.failures.incrementAndGet();
+        peer.lastError = reason;
+        boolean wasHealthy = peer.healthy;
+        peer.healthy = false;
+        peer.ejectedUntil = System.currentTimeMillis() + ejectMillis;
+        if (wasHealthy) {
+            logger.warn("Peer {} wird für {} ms ausgeschlossen: {}", peer.endpoint, ejectMillis, reason);
+        }
+    }
+
+    // Ein ausgeschlossener Peer wird erst nach Ablauf seiner Sperrzeit geprüft und nur nach einer erfolgreichen
+    // Abfrage wieder aufgenommen; scheitert sie, beginnt die Sperrzeit von vorn.
+    private void probeEjectedPeers() {
+        long now = System.currentTimeMillis();
+        for (Peer peer : peers) {
+            if (peer.healthy || now < peer.ejectedUntil) {
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                peer.contract.evaluateTransaction(probeTransaction);
+                peer.recordSuccess(System.nanoTime() - start);
+                peer.healthy = true;
+                logger.info("Peer {} antwortet wieder und wird erneut verwendet.", peer.endpoint);
+            } catch (GatewayException e) {
+                eject(peer, e.getStatus().getCode() + ": " + e.getMessage());
+                logger.debug("Prüfung von Peer {} fehlgeschlagen: {}", peer.endpoint, e.getMessage());
+            } catch (RuntimeException e) {
+                eject(peer, e.getMessage());
+                logger.debug("Prüfung von Peer {} fehlgeschlagen: {}", peer.endpoint, e.getMessage());
+            }
+        }
+    }
+
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> table = new ArrayList<>(peers.size());
+        for (Peer peer : peers) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", peer.endpoint);
+            row.put("healthy", peer.isAvailable());
+            row.put("channelState", peer.channel.getState(false).name());
+            row.put("outstandingRequests", peer.outstanding.get());
+            row.put("latencyMillis", Math.round(peer.latencyMillis * 100) / 100.0);
+            row.put("successes", peer.successes.get());
+            row.put("failures", peer.failures.get());
+            row.put("lastError", peer.lastError);
+            table.add(row);
+        }
+        return table;
+    }
+
+    public boolean hasHealthyPeer() {
+        return peers.stream().anyMatch(Peer::isAvailable);
+    }
+
+    @Override
+    public void close() {
+        probeExecutor.shutdownNow();
+        for (Peer peer : peers) {
+            peer.gateway.close();
+            try {
+                peer.channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public static final class Peer {
+        private final String endpoint;
+        private final ManagedChannel channel;
+        private final Gateway gateway;
+        private final Network network;
+        private final Contract contract;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicLong successes = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private volatile boolean healthy = true;
+        private volatile long ejectedUntil;
+        private volatile double latencyMillis;
+        private volatile String lastError;
+
+        public Peer(String endpoint, ManagedChannel channel, Gateway gateway, String channelName, String chaincodeName) {
+            this.endpoint = endpoint;
+            this.channel = channel;
+            this.gateway = gateway;
+            this.network = gateway.getNetwork(channelName);
+            this.contract = network.getContract(chaincodeName);
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public Gateway getGateway() {
+            return gateway;
+        }
+
+        public Network getNetwork() {
+            return network;
+        }
+
+        public Contract getContract() {
+            return contract;
+        }
+
+        // Nach Ablauf der Sperrzeit bleibt ein Peer ausgeschlossen, bis die Hintergrundprüfung erfolgreich war.
+        private boolean isAvailable() {
+            return healthy;
+        }
+
+        private boolean isPreferredOver(Peer other) {
+            int byOutstanding = Integer.compare(outstanding.get(), other.outstanding.get());
+            return byOutstanding != 0 ? byOutstanding < 0 : latencyMillis < other.latencyMillis;
+        }
+
+        private void recordSuccess(long elapsedNanos) {
+            successes.incrementAndGet();
+            double elapsedMillis = elapsedNanos / 1_000_000.0;
+            latencyMillis = latencyMillis == 0 ? elapsedMillis : latencyMillis + LATENCY_SMOOTHING * (elapsedMillis - latencyMillis);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package de.jklein.pharmalink.client.fabric;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Gegenstück zum Ereignis-Umschlag des Chaincodes: nur geänderte Felder plus neue Dokumentversion.
+@Data
+@NoArgsConstructor
+public class PharmaEvent {
+    public static final String SCHEMA_VERSION_FIELD = "schemaVersion";
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+    public static final String APPENDED = "appended";
+
+    private int schemaVersion;
+    private String entityType;
+    private String entityId;
+    private String operation;
+    private int version;
+    private Map<String, Object> changes = new LinkedHashMap<>();
+}
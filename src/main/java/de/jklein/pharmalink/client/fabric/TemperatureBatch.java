@@ -0,0 +1,50 @@
+package de.jklein.pharmalink.client.fabric;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Verankerter Temperatur-Batch, wie ihn der Chaincode zurückgibt: Merkle-Wurzel und Kennzahlen,
+ * die Rohdaten liegen als {@link RawSeries} unter ipfsLink.
+ */
+@Data
+@NoArgsConstructor
+public class TemperatureBatch {
+    private String batchId;
+    private String merkleRoot;
+    private String ipfsLink;
+    private String recordedByActorId;
+    private int readingCount;
+    private int subjectCount;
+    private double minTemperature;
+    private double maxTemperature;
+    private double minAllowed;
+    private double maxAllowed;
+    private int excursionCount;
+    private String firstTimestamp;
+    private String lastTimestamp;
+    private String docType;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Reading {
+        private String subjectId;
+        private String timestamp;
+        private String temperature;
+    }
+
+    /** In IPFS abgelegte Rohdaten; die Reihenfolge der Messwerte bestimmt die Blätter des Merkle-Baums. */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RawSeries {
+        private String batchId;
+        private String minAllowed;
+        private String maxAllowed;
+        private List<Reading> readings;
+    }
+}
@@ -0,0 +1,16 @@
+package de.jklein.pharmalink.client.fabric;
+
+import lombok.Getter;
+
+// Die Transaktion wurde in einen Block aufgenommen, aber bei der Validierung abgelehnt (z.B. MVCC_READ_CONFLICT).
+@Getter
+public class TransactionRejectedException extends Exception {
+    private final String transactionId;
+    private final String validationCode;
+
+    public TransactionRejectedException(String transactionId, String validationCode) {
+        super("Transaktion " + transactionId + " wurde mit Code " + validationCode + " abgelehnt.");
+        this.transactionId = transactionId;
+        this.validationCode = validationCode;
+    }
+}
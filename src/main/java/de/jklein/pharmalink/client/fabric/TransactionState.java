@@ -0,0 +1,56 @@
+package de.jklein.pharmalink.client.fabric;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Stand einer asynchron eingereichten Transaktion; wird bei Abschluss durch eine neue Instanz ersetzt, nie verändert.
+@Data
+@NoArgsConstructor
+public class TransactionState {
+    // UNKNOWN: Die Statusabfrage ist gescheitert; die Transaktion kann dennoch festgeschrieben worden sein.
+    public enum Status { PENDING, COMMITTED, FAILED, UNKNOWN }
+
+    private String txId;
+    private String transactionName;
+    private Status status;
+    private Long blockNumber;
+    private String validationCode;
+    private String result;
+    private String errorMessage;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+
+    public static TransactionState pending(String txId, String transactionName, String result) {
+        TransactionState state = new TransactionState();
+        state.setTxId(txId);
+        state.setTransactionName(transactionName);
+        state.setStatus(Status.PENDING);
+        state.setResult(result);
+        state.setSubmittedAt(LocalDateTime.now());
+        return state;
+    }
+
+    public TransactionState complete(Status newStatus, Long newBlockNumber, String newValidationCode, String newErrorMessage) {
+        TransactionState state = new TransactionState();
+        state.setTxId(txId);
+        state.setTransactionName(transactionName);
+        state.setStatus(newStatus);
+        state.setBlockNumber(newBlockNumber);
+        state.setValidationCode(newValidationCode);
+        state.setResult(result);
+        state.setErrorMessage(newErrorMessage);
+        state.setSubmittedAt(submittedAt);
+        state.setCompletedAt(LocalDateTime.now());
+        return state;
+    }
+
+    public boolean isCommitted() {
+        return status == Status.COMMITTED;
+    }
+
+    public boolean isUnknown() {
+        return status == Status.UNKNOWN;
+    }
+}
@@ -0,0 +1,88 @@
+package de.jklein.pharmalink.client.fabric;
+
+import jakarta.annotation.PreDestroy;
+import org.hyperledger.fabric.client.Commit;
+import org.hyperledger.fabric.client.CommitStatusException;
+import org.hyperledger.fabric.client.Status;
+import org.hyperledger.fabric.client.SubmittedTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verfolgt die Festschreibung asynchron eingereichter Transaktionen im Hintergrund.
+ * Die Statusabfrage des Gateways blockiert bis zur Festschreibung oder bis zum Ablauf ihrer Frist. Jede offene
+ * Transaktion wartet daher auf einem eigenen virtuellen Thread, sodass hängende Abfragen die übrigen nicht aufhalten.
+ */
+@Component
+public class TransactionTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionTracker.class);
+
+    private final ExecutorService commitStatusExecutor;
+    private final Map<String, TransactionState> states;
+
+    public TransactionTracker(@Value("${fabric.submit.max-tracked:10000}") int maxTracked) {
+        this.commitStatusExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("commit-status-", 0).factory());
+        // Älteste Einträge fallen heraus, sobald mehr als maxTracked Transaktionen bekannt sind.
+        this.states = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TransactionState> eldest) {
+                return size() > maxTracked;
+            }
+        });
+    }
+
+    public CompletableFuture<TransactionState> track(String transactionName, SubmittedTransaction submitted, String result) {
+        TransactionState pending = TransactionState.pending(submitted.getTransactionId(), transactionName, result);
+        states.put(pending.getTxId(), pending);
+        return CompletableFuture.supplyAsync(() -> awaitCommit(pending, submitted), commitStatusExecutor);
+    }
+
+    public Optional<TransactionState> find(String txId) {
+        return Optional.ofNullable(states.get(txId));
+    }
+
+    private TransactionState awaitCommit(TransactionState pending, Commit commit) {
+        TransactionState completed;
+        try {
+            Status status = commit.getStatus();
+            if (status.isSuccessful()) {
+                completed = pending.complete(TransactionState.Status.COMMITTED, status.getBlockNumber(), status.getCode().name(), null);
+                logger.info("Transaktion '{}' ({}) in Block {} festgeschrieben.", pending.getTransactionName(), pending.getTxId(), status.getBlockNumber());
+            } else {
+                completed = pending.complete(TransactionState.Status.FAILED, status.getBlockNumber(), status.getCode().name(),
+                        "Validierung fehlgeschlagen: " + status.getCode().name());
+                logger.warn("Transaktion '{}' ({}) wurde mit Code {} abgelehnt.", pending.getTransactionName(), pending.getTxId(), status.getCode());
+            }
+        } catch (CommitStatusException | RuntimeException e) {
+            // Ohne Validierungscode ist der Ausgang unbekannt; die Transaktion kann dennoch festgeschrieben worden sein.
+            completed = pending.complete(TransactionState.Status.UNKNOWN, null, null, e.getMessage());
+            logger.error("Status der Transaktion '{}' ({}) konnte nicht abgefragt werden: {}", pending.getTransactionName(), pending.getTxId(), e.getMessage());
+        }
+        states.replace(completed.getTxId(), completed);
+        return completed;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        commitStatusExecutor.shutdownNow();
+        try {
+            if (!commitStatusExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Commit-Status-Executor wurde nicht innerhalb von 5 Sekunden beendet.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package de.jklein.pharmalink.client.fabric;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class UnitBatchEvent {
+    private List<ChargeRange> ranges;
+    private int unitCount;
+    private String ownerActorId;
+    private String fromActorId;
+    private String toActorId;
+    private String ipfsLink;
+    private String timestamp;
+    private String consumedRefId;
+    private String docType;
+
+    public List<String> unitIds() {
+        List<String> unitIds = new ArrayList<>(unitCount);
+        if (ranges == null) {
+            return unitIds;
+        }
+        for (ChargeRange range : ranges) {
+            for (int counter = range.getStart(); counter <= range.getEnd(); counter++) {
+                unitIds.add(range.unitId(counter));
+            }
+        }
+        return unitIds;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class ChargeRange {
+        private String medId;
+        private String chargeBezeichnung;
+        private int start;
+        private int end;
+
+        public String unitId(int counter) {
+            return medId + "-" + chargeBezeichnung + "-" + String.format("%010d", counter);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package de.jklein.pharmalink.client.fabric;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Ergebnis von transferUnits: je Empfänger ein UnitBatchEvent mit den übertragenen Bereichen.
+@Data
+@NoArgsConstructor
+public class UnitDispatchEvent {
+    private String fromActorId;
+    private String timestamp;
+    private int unitCount;
+    private List<UnitBatchEvent> transfers = new ArrayList<>();
+    private String docType;
+}
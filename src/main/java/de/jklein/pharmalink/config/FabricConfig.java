@@ -3,6 +3,7 @@ package de.jklein.pharmalink.config;
 import java.time.LocalDateTime;
 import com.google.gson.Gson; // Import hinzugefügt
 import com.google.gson.GsonBuilder; // Import hinzugefügt
+import de.jklein.pharmalink.client.fabric.PeerPool;
 import de.jklein.pharmalink.util.LocalDateTimeAdapter; // Import Ihres Adapters
 
 import io.grpc.ChannelCredentials;
@@ -12,7 +13,6 @@ import io.grpc.TlsChannelCredentials;
 import jakarta.annotation.PreDestroy;
 import lombok.Getter;
 import lombok.Setter;
-import org.hyperledger.fabric.client.Contract;
 import org.hyperledger.fabric.client.Gateway;
 import org.hyperledger.fabric.client.Hash;
 import org.hyperledger.fabric.client.identity.*;
@@ -29,6 +29,8 @@ import java.security.InvalidKeyException;
 import java.security.PrivateKey;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
@@ -37,8 +39,6 @@ import java.util.concurrent.TimeUnit;
 @ConfigurationProperties(prefix = "fabric")
 public class FabricConfig {
 
-    private ManagedChannel grpcChannel;
-
     @Value("${fabric.msp-id}")
     private String mspId;
 
@@ -60,11 +60,55 @@ public class FabricConfig {
     @Value("${fabric.peer.override-auth}")
     private String overrideAuth;
 
+    // Gateway-Peers der eigenen Organisation; ohne Eintrag wird nur fabric.peer verwendet.
+    private List<PeerEndpoint> peers = new ArrayList<>();
+
+    @Value("${fabric.pool.eject-seconds:30}")
+    private long ejectSeconds;
+
+    @Value("${fabric.pool.probe-interval-seconds:5}")
+    private long probeIntervalSeconds;
+
+    // Lesende Chaincode-Funktion ohne Argumente, mit der ausgeschlossene Peers nach der Sperrzeit geprüft werden.
+    @Value("${fabric.pool.probe-transaction:getContractStats}")
+    private String probeTransaction;
+
+    private PeerPool peerPool;
+
+    @Getter
+    @Setter
+    public static class PeerEndpoint {
+        private String endpoint;
+        private String overrideAuth;
+        // Relativ zu fabric.crypto-path; ohne Angabe gilt fabric.tls-cert-path.
+        private Path tlsCertPath;
+    }
+
     @Bean
-    public ManagedChannel grpcChannel() throws IOException {
-        System.out.println("--> Initialisiere gRPC-Verbindung...");
+    public PeerPool peerPool(Identity identity, Signer signer,
+                             @Value("${fabric.channel-name}") String channelName,
+                             @Value("${fabric.chaincode-name}") String chaincodeName) throws IOException {
+        List<PeerEndpoint> endpoints = new ArrayList<>(peers);
+        if (endpoints.isEmpty()) {
+            PeerEndpoint defaultPeer = new PeerEndpoint();
+            defaultPeer.setEndpoint(peerEndpoint);
+            defaultPeer.setOverrideAuth(overrideAuth);
+            endpoints.add(defaultPeer);
+        }
+        List<PeerPool.Peer> pooledPeers = new ArrayList<>(endpoints.size());
+        for (PeerEndpoint endpoint : endpoints) {
+            ManagedChannel channel = newGrpcChannel(endpoint);
+            pooledPeers.add(new PeerPool.Peer(endpoint.getEndpoint(), channel, newGateway(channel, identity, signer), channelName, chaincodeName));
+        }
+        this.peerPool = new PeerPool(pooledPeers, TimeUnit.SECONDS.toMillis(ejectSeconds), TimeUnit.SECONDS.toMillis(probeIntervalSeconds), probeTransaction);
+        System.out.println("--> Verbindungen zu " + pooledPeers.size() + " Peer(s) aufgebaut.");
+        return this.peerPool;
+    }
+
+    private ManagedChannel newGrpcChannel(PeerEndpoint endpoint) throws IOException {
+        System.out.println("--> Initialisiere gRPC-Verbindung zu " + endpoint.getEndpoint() + "...");
 
-        Path resolvedTlsCertPath = cryptoPath.resolve(tlsCertPath);
+        Path resolvedTlsCertPath = cryptoPath.resolve(endpoint.getTlsCertPath() != null ? endpoint.getTlsCertPath() : tlsCertPath);
 
         if (!Files.exists(resolvedTlsCertPath)) {
             throw new IOException("TLS Zertifikats-Datei nicht gefunden unter: " + resolvedTlsCertPath);
@@ -72,11 +116,11 @@ public class FabricConfig {
         ChannelCredentials credentials = TlsChannelCredentials.newBuilder()
                 .trustManager(resolvedTlsCertPath.toFile())
                 .build();
-        this.grpcChannel = Grpc.newChannelBuilder(peerEndpoint, credentials)
-                .overrideAuthority(overrideAuth)
+        ManagedChannel channel = Grpc.newChannelBuilder(endpoint.getEndpoint(), credentials)
+                .overrideAuthority(endpoint.getOverrideAuth())
                 .build();
         System.out.println("--> gRPC-Verbindung initialisiert.");
-        return this.grpcChannel;
+        return channel;
     }
 
     @Bean
@@ -105,14 +149,13 @@ public class FabricConfig {
                 .create();
     }
 
-    @Bean
-    public Gateway gateway(ManagedChannel grpcChannel, Identity identity, Signer signer) {
+    private Gateway newGateway(ManagedChannel channel, Identity identity, Signer signer) {
         System.out.println("--> Initialisiere Hyperledger Fabric Gateway...");
         Gateway gateway = Gateway.newInstance()
                 .identity(identity)
                 .signer(signer)
                 .hash(Hash.SHA256)
-                .connection(grpcChannel)
+                .connection(channel)
                 .evaluateOptions(options -> options.withDeadlineAfter(5, TimeUnit.SECONDS))
                 .endorseOptions(options -> options.withDeadlineAfter(15, TimeUnit.SECONDS))
                 .submitOptions(options -> options.withDeadlineAfter(5, TimeUnit.SECONDS))
@@ -123,17 +166,12 @@ public class FabricConfig {
         return gateway;
     }
 
-    @Bean
-    public Contract contract(Gateway gateway, @Value("${fabric.channel-name}") String channelName, @Value("${fabric.chaincode-name}") String chaincodeName) {
-        return gateway.getNetwork(channelName).getContract(chaincodeName);
-    }
-
     @PreDestroy
-    public void closeConnection() throws InterruptedException {
-        if (this.grpcChannel != null) {
-            System.out.println("--> Schließe gRPC-Verbindung...");
-            this.grpcChannel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
-            System.out.println("--> gRPC-Verbindung geschlossen.");
+    public void closeConnection() {
+        if (this.peerPool != null) {
+            System.out.println("--> Schließe gRPC-Verbindungen...");
+            this.peerPool.close();
+            System.out.println("--> gRPC-Verbindungen geschlossen.");
         }
     }
 
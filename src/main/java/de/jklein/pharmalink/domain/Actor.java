@@ -21,5 +21,6 @@ public class Actor {
     private String email;
     private String ipfsLink;
     private String docType;
+    private int version;
     private Map<String, Object> ipfsData;
 }
\ No newline at end of file
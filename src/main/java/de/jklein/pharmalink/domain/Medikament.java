@@ -27,5 +27,6 @@ public class Medikament {
 
     private Map<String, String> tags;
     private String docType;
+    private int version;
     private Map<String, Object> ipfsData;
 }
\ No newline at end of file
@@ -12,6 +12,9 @@ import java.util.Map;
 @Data
 @NoArgsConstructor
 public class Unit {
+    // Archiv für abgegebene Einheiten; sie werden aus der Arbeitsmenge pharmalink.units verschoben.
+    public static final String CONSUMED_COLLECTION = "pharmalink.units.consumed";
+
     @Id
     private String unitId;
 
@@ -21,8 +24,11 @@ public class Unit {
     private String ipfsLink;
 
     private String currentOwnerActorId;
+    // Direkter Container eingepackter Einheiten; der Eigentümer wird beim Container-Transfer mitgeführt.
+    private String containerId;
 
     private List<TransferEntry> transferHistory;
+    private int transferCount;
     private List<TemperatureReading> temperatureReadings;
     private boolean isConsumed;
     private String consumedRefId;
@@ -27,6 +27,10 @@ public class GrpcTransaction {
     @Field("timestamp")
     private LocalDateTime timestamp;
 
+    // Gesamtdauer des Aufrufs; bei asynchronen Einreichungen bis zum Vorliegen des Commit-Status.
+    @Field("duration_ms")
+    private long durationMillis;
+
     @Field("successful")
     private boolean successful;
 
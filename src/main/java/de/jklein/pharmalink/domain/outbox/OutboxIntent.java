@@ -0,0 +1,75 @@
+package de.jklein.pharmalink.domain.outbox;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Dauerhaft gespeicherte Schreibabsicht; die ID ist der Idempotenzschlüssel des Aufrufers.
+@Document(collection = "pharmalink.outbox")
+@CompoundIndex(name = "status_next_attempt", def = "{'status': 1, 'nextAttemptAt': 1}")
+@Data
+@NoArgsConstructor
+public class OutboxIntent {
+
+    public enum Type { CREATE_UNITS, TRANSFER_UNITS, ADD_TEMPERATURE }
+
+    public enum Status { PENDING, IN_FLIGHT, COMMITTED, FAILED }
+
+    @Id
+    private String id;
+
+    private Type type;
+
+    private String functionName;
+
+    // Fertige Chaincode-Argumente inkl. Zeitstempel, damit jeder Versuch dieselbe Transaktion einreicht.
+    private List<String> args;
+
+    private Status status;
+
+    // Darf mit anderen Absichten gleichen Typs zu einer Transaktion zusammengefasst werden.
+    private boolean batchable;
+
+    private int attempts;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime claimedAt;
+
+    private String txId;
+
+    // Signierter Transaktionsumschlag, vor der Übergabe an den Orderer gespeichert. Solange er gesetzt ist, wird nur
+    // genau diese Transaktion erneut eingereicht, nie ein neuer Vorschlag mit neuer Tx-ID.
+    @JsonIgnore
+    private byte[] transactionBytes;
+
+    private String result;
+
+    private String errorMessage;
+
+    private LocalDateTime completedAt;
+
+    public OutboxIntent(String id, Type type, String functionName, List<String> args, boolean batchable) {
+        this.id = id;
+        this.type = type;
+        this.functionName = functionName;
+        this.args = args;
+        this.batchable = batchable;
+        this.status = Status.PENDING;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    @JsonIgnore
+    public boolean isDone() {
+        return status == Status.COMMITTED || status == Status.FAILED;
+    }
+}
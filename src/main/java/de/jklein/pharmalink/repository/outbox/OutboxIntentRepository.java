@@ -0,0 +1,9 @@
+package de.jklein.pharmalink.repository.outbox;
+
+import de.jklein.pharmalink.domain.outbox.OutboxIntent;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxIntentRepository extends MongoRepository<OutboxIntent, String> {
+}
@@ -5,6 +5,7 @@ import de.jklein.pharmalink.api.mapper.ActorMapper;
 import de.jklein.pharmalink.client.fabric.FabricClient;
 import de.jklein.pharmalink.client.ipfs.IpfsClient;
 import de.jklein.pharmalink.domain.Actor;
+import org.hyperledger.fabric.client.GatewayException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,12 +14,14 @@ import org.springframework.util.StringUtils;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -51,16 +54,20 @@ public class ActorFabricService {
 
     public List<Actor> getAllActors() {
         try {
-            String resultJson = fabricClient.evaluateGenericTransaction("queryAllActors");
-            Type listType = new TypeToken<List<Actor>>() {}.getType();
-            List<Actor> actors = fabricClient.getGson().fromJson(resultJson, listType);
-            return enrichActorList(actors);
+            List<Actor> actors = new ArrayList<>();
+            forEachActorPage(actors::addAll);
+            return actors;
         } catch (Exception e) {
             logger.error("Fehler beim Abrufen aller Akteure: {}", e.getMessage(), e);
             return Collections.emptyList();
         }
     }
 
+    public int forEachActorPage(Consumer<List<Actor>> pageConsumer) throws GatewayException {
+        Consumer<List<Actor>> enrichingConsumer = page -> pageConsumer.accept(enrichActorList(page));
+        return fabricClient.evaluatePagedTransaction("queryAllActorsPaginated", Actor.class, enrichingConsumer);
+    }
+
     private List<Actor> enrichActorList(List<Actor> actors) {
         if (actors == null || actors.isEmpty()) {
             return Collections.emptyList();
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -94,16 +95,20 @@ public class MedicationFabricService {
 
     public List<Medikament> getAllMedikamente() {
         try {
-            String resultJson = fabricClient.evaluateGenericTransaction("queryAllMedikamente");
-            Type listType = new TypeToken<List<Medikament>>() {}.getType();
-            List<Medikament> medikamente = fabricClient.getGson().fromJson(resultJson, listType);
-            return enrichMedikamentList(medikamente);
+            List<Medikament> medikamente = new ArrayList<>();
+            forEachMedikamentPage(medikamente::addAll);
+            return medikamente;
         } catch (Exception e) {
             logger.error("Fehler beim Abrufen aller Medikamente vom Chaincode: {}", e.getMessage(), e);
             return Collections.emptyList();
         }
     }
 
+    public int forEachMedikamentPage(Consumer<List<Medikament>> pageConsumer) throws GatewayException {
+        Consumer<List<Medikament>> enrichingConsumer = page -> pageConsumer.accept(enrichMedikamentList(page));
+        return fabricClient.evaluatePagedTransaction("queryAllMedikamentePaginated", Medikament.class, enrichingConsumer);
+    }
+
     private List<Medikament> enrichMedikamentList(List<Medikament> medikamente) {
         if (medikamente == null || medikamente.isEmpty()) {
             return Collections.emptyList();
@@ -0,0 +1,95 @@
+package de.jklein.pharmalink.service.fabric;
+
+import com.google.gson.reflect.TypeToken;
+import de.jklein.pharmalink.client.fabric.FabricClient;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verdichtet die Delta-Schlüssel der Einheitenzähler im Chaincode periodisch. Jede Transaktion schreibt ihre
+ * Zähleränderung blind unter einen eigenen Schlüssel; ohne Verdichtung wächst die Zahl der Schlüssel, die
+ * {@code queryUnitCountByOwner} und die Löschprüfung für Medikamente lesen, mit jeder Transaktion.
+ * Der Chaincode erlaubt die Verdichtung nur der Rolle {@code behoerde}; sie ist daher standardmäßig aus und wird
+ * genau in einer Instanz mit dieser Identität eingeschaltet, damit sich mehrere Instanzen nicht per MVCC verdrängen.
+ */
+@Component
+public class UnitCounterCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnitCounterCompactor.class);
+    private static final List<String> COUNTER_NAMES = List.of("count~med~charge", "count~med~consumed", "count~owner");
+
+    private final FabricClient fabricClient;
+    private final boolean enabled;
+    private final long intervalSeconds;
+    private final int maxKeys;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = Executors.defaultThreadFactory().newThread(r);
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Autowired
+    public UnitCounterCompactor(
+            FabricClient fabricClient,
+            @Value("${fabric.counter-compaction.enabled:false}") boolean enabled,
+            @Value("${fabric.counter-compaction.interval-seconds:300}") long intervalSeconds,
+            @Value("${fabric.counter-compaction.max-keys:500}") int maxKeys
+    ) {
+        this.fabricClient = fabricClient;
+        this.enabled = enabled;
+        this.intervalSeconds = intervalSeconds;
+        this.maxKeys = maxKeys;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled && intervalSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::compactAll, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        try {
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Zählerverdichtung wurde nicht innerhalb von 5 Sekunden beendet.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void compactAll() {
+        for (String counterName : COUNTER_NAMES) {
+            try {
+                compact(counterName);
+            } catch (Exception e) {
+                // Eine verdrängte Verdichtung ist unkritisch; die Schlüssel werden im nächsten Lauf erneut erfasst.
+                logger.warn("Verdichtung des Zählers {} fehlgeschlagen: {}", counterName, e.getMessage());
+            }
+        }
+    }
+
+    private void compact(String counterName) throws Exception {
+        String keysJson = fabricClient.evaluateGenericTransaction("queryCompactableCounterKeys", counterName, String.valueOf(maxKeys));
+        Type listType = new TypeToken<List<String>>() {}.getType();
+        List<String> deltaKeys = fabricClient.getGson().fromJson(keysJson, listType);
+        if (deltaKeys == null || deltaKeys.isEmpty()) {
+            return;
+        }
+        String compacted = fabricClient.submitGenericTransaction("compactUnitCounters", counterName, fabricClient.getGson().toJson(deltaKeys));
+        logger.info("{} Delta-Schlüssel des Zählers {} verdichtet.", compacted, counterName);
+    }
+}
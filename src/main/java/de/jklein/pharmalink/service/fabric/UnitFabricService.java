@@ -1,10 +1,21 @@
 package de.jklein.pharmalink.service.fabric;
 
 import com.google.gson.reflect.TypeToken;
+import de.jklein.pharmalink.api.dto.AnchorTemperatureBatchRequestDto;
+import de.jklein.pharmalink.api.dto.ConsumeUnitsRequestDto;
 import de.jklein.pharmalink.api.dto.CreateUnitsRequestDto;
+import de.jklein.pharmalink.api.dto.TemperatureReadingProofDto;
+import de.jklein.pharmalink.api.dto.TransferUnitsRequestDto;
+import de.jklein.pharmalink.api.dto.UnitRangeResponseDto;
+import de.jklein.pharmalink.client.fabric.AsyncSubmission;
 import de.jklein.pharmalink.client.fabric.FabricClient;
+import de.jklein.pharmalink.client.fabric.TemperatureBatch;
+import de.jklein.pharmalink.client.fabric.UnitBatchEvent;
+import de.jklein.pharmalink.client.fabric.UnitDispatchEvent;
 import de.jklein.pharmalink.client.ipfs.IpfsClient;
 import de.jklein.pharmalink.domain.Unit;
+import de.jklein.pharmalink.util.MerkleTree;
+import org.hyperledger.fabric.client.GatewayException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,31 +25,44 @@ import org.springframework.util.StringUtils;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class UnitFabricService {
 
     private static final Logger logger = LoggerFactory.getLogger(UnitFabricService.class);
+    // Obergrenze des Chaincodes für die Subjektliste eines Temperatur-Batches.
+    private static final int MAX_BATCH_SUBJECTS = 1000;
 
     private final FabricClient fabricClient;
     private final IpfsClient ipfsClient;
+    private final UnitTransferBatcher unitTransferBatcher;
 
     @Autowired
-    public UnitFabricService(FabricClient fabricClient, IpfsClient ipfsClient) {
+    public UnitFabricService(FabricClient fabricClient, IpfsClient ipfsClient, UnitTransferBatcher unitTransferBatcher) {
         this.fabricClient = fabricClient;
         this.ipfsClient = ipfsClient;
+        this.unitTransferBatcher = unitTransferBatcher;
     }
 
     public Optional<Unit> getEnrichedUnitById(String unitId) {
         try {
             Unit unit = fabricClient.evaluateTransaction("queryUnitById", Unit.class, unitId);
+            if (unit != null) {
+                unit.setTransferHistory(getUnitProvenance(unitId));
+            }
             return Optional.ofNullable(enrichSingleUnitWithIpfs(unit));
         } catch (Exception e) {
             logger.error("Fehler beim Abrufen der Einheit mit ID '{}': {}", unitId, e.getMessage(), e);
@@ -46,56 +70,201 @@ public class UnitFabricService {
         }
     }
 
-    public List<Unit> createUnitsForMedication(String medId, CreateUnitsRequestDto requestDto) throws Exception {
-        String ipfsHash = "";
-        if (requestDto.getIpfsData() != null && !requestDto.getIpfsData().isEmpty()) {
-            String ipfsJson = fabricClient.getGson().toJson(requestDto.getIpfsData());
-            ipfsHash = ipfsClient.addObject(ipfsJson);
-        }
+    public List<Unit.TransferEntry> getUnitProvenance(String unitId) throws GatewayException {
+        String resultJson = fabricClient.evaluateGenericTransaction("queryUnitProvenance", unitId);
+        Type listType = new TypeToken<List<Unit.TransferEntry>>() {}.getType();
+        return fabricClient.getGson().fromJson(resultJson, listType);
+    }
+
+    public UnitRangeResponseDto createUnitsForMedication(String medId, CreateUnitsRequestDto requestDto) throws Exception {
+        String ipfsHash = uploadUnitIpfsData(requestDto);
         String resultJson = fabricClient.submitGenericTransaction(
                 "createUnits", medId, requestDto.getChargeBezeichnung(),
                 String.valueOf(requestDto.getAnzahl()), ipfsHash
         );
-        Type listType = new TypeToken<List<Unit>>() {}.getType();
-        return fabricClient.getGson().fromJson(resultJson, listType);
+        return fabricClient.getGson().fromJson(resultJson, UnitRangeResponseDto.class);
+    }
+
+    // Legt die optionalen Stammdaten der Charge in IPFS ab; leerer Hash, wenn keine angegeben sind.
+    public String uploadUnitIpfsData(CreateUnitsRequestDto requestDto) throws Exception {
+        if (requestDto.getIpfsData() == null || requestDto.getIpfsData().isEmpty()) {
+            return "";
+        }
+        return ipfsClient.addObject(fabricClient.getGson().toJson(requestDto.getIpfsData()));
     }
 
     public List<Unit> getUnitsByOwner(String ownerActorId) {
         try {
-            String resultJson = fabricClient.evaluateGenericTransaction("queryUnitsByOwner", ownerActorId);
-            Type listType = new TypeToken<List<Unit>>() {}.getType();
-            List<Unit> units = fabricClient.getGson().fromJson(resultJson, listType);
-            return enrichUnitList(units);
+            List<Unit> units = new ArrayList<>();
+            forEachUnitPageByOwner(ownerActorId, units::addAll);
+            return units;
         } catch (Exception e) {
             logger.error("Fehler beim Abrufen der Einheiten für Eigentümer '{}': {}", ownerActorId, e.getMessage(), e);
             return Collections.emptyList();
         }
     }
 
+    public int forEachUnitPageByOwner(String ownerActorId, Consumer<List<Unit>> pageConsumer) throws GatewayException {
+        Consumer<List<Unit>> enrichingConsumer = page -> pageConsumer.accept(enrichUnitList(page));
+        return fabricClient.evaluatePagedTransaction("queryUnitsByOwnerPaginated", Unit.class, enrichingConsumer, ownerActorId);
+    }
+
+    public int forEachUnitPageByMedId(String medId, Consumer<List<Unit>> pageConsumer) throws GatewayException {
+        Consumer<List<Unit>> enrichingConsumer = page -> pageConsumer.accept(enrichUnitList(page));
+        return fabricClient.evaluatePagedTransaction("queryUnitsByMedIdPaginated", Unit.class, enrichingConsumer, medId);
+    }
+
     public Map<String, List<Unit>> getUnitsByMedIdGroupedByCharge(String medId) {
         try {
-            String resultJson = fabricClient.evaluateGenericTransaction("queryUnitsByMedId", medId);
-            Type listType = new TypeToken<List<Unit>>() {}.getType();
-            List<Unit> units = fabricClient.getGson().fromJson(resultJson, listType);
-            List<Unit> enrichedUnits = enrichUnitList(units);
-            return enrichedUnits.stream().collect(Collectors.groupingBy(Unit::getChargeBezeichnung));
+            Map<String, List<Unit>> groupedUnits = new HashMap<>();
+            forEachUnitPageByMedId(medId, page -> page.forEach(unit ->
+                    groupedUnits.computeIfAbsent(unit.getChargeBezeichnung(), charge -> new ArrayList<>()).add(unit)));
+            return groupedUnits;
         } catch (Exception e) {
             logger.error("Fehler beim Abrufen der gruppierten Einheiten für Medikamenten-ID '{}': {}", medId, e.getMessage(), e);
             return Collections.emptyMap();
         }
     }
 
+    /**
+     * Einzelübertragungen werden über den {@link UnitTransferBatcher} mit gleichzeitig eintreffenden Anfragen
+     * zusammengefasst; der aktuelle Stand der Einheit wird nach der Festschreibung gelesen.
+     */
     public Unit transferUnit(String unitId, String newOwnerActorId) throws Exception {
-        String timestamp = Instant.now().toString();
-        String resultJson = fabricClient.submitGenericTransaction("transferUnit", unitId, newOwnerActorId, timestamp);
-        return fabricClient.getGson().fromJson(resultJson, Unit.class);
+        if (!unitTransferBatcher.isEnabled()) {
+            String timestamp = Instant.now().toString();
+            String resultJson = fabricClient.submitGenericTransaction("transferUnit", unitId, newOwnerActorId, timestamp);
+            return fabricClient.getGson().fromJson(resultJson, Unit.class);
+        }
+        try {
+            unitTransferBatcher.transfer(unitId, newOwnerActorId).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+        return fabricClient.evaluateTransaction("queryUnitById", Unit.class, unitId);
     }
 
     public Unit addTemperatureReading(String unitId, String temperature, String timestamp) throws Exception {
         logger.debug("Sende 'addTemperatureReading'-Transaktion für Einheit-ID: {}", unitId);
-        String resultJson = fabricClient.submitGenericTransaction("addTemperatureReading", unitId, temperature, timestamp);
+        fabricClient.submitGenericTransaction("addTemperatureReading", unitId, temperature, timestamp);
         logger.info("Temperaturmesswert erfolgreich für Einheit {} hinzugefügt.", unitId);
-        return fabricClient.getGson().fromJson(resultJson, Unit.class);
+        return fabricClient.evaluateTransaction("queryUnitById", Unit.class, unitId);
+    }
+
+    public List<Unit.TemperatureReading> getTemperatureReadings(String unitId, String fromTimestamp, String toTimestamp) throws GatewayException {
+        String resultJson = fabricClient.evaluateGenericTransaction("queryTemperatureReadings", unitId,
+                Objects.toString(fromTimestamp, ""), Objects.toString(toTimestamp, ""));
+        Type listType = new TypeToken<List<Unit.TemperatureReading>>() {}.getType();
+        return fabricClient.getGson().fromJson(resultJson, listType);
+    }
+
+    /**
+     * Legt die Rohdaten in IPFS ab und verankert nur Merkle-Wurzel, Kennzahlen und Subjektliste auf dem Ledger,
+     * damit die Blockgröße nicht mit der Zahl der Messwerte wächst. Der Chaincode prüft die Eigentümerschaft der Subjekte.
+     */
+    public TemperatureBatch anchorTemperatureBatch(AnchorTemperatureBatchRequestDto requestDto) throws Exception {
+        List<TemperatureBatch.Reading> readings = requestDto.getReadings().stream()
+                .map(reading -> new TemperatureBatch.Reading(reading.getSubjectId(), reading.getTimestamp(), reading.getTemperature()))
+                .collect(Collectors.toList());
+        TemperatureBatch summary = summarizeReadings(readings, parseTemperature(requestDto.getMinAllowed()), parseTemperature(requestDto.getMaxAllowed()));
+        Set<String> subjectIds = readings.stream().map(TemperatureBatch.Reading::getSubjectId).collect(Collectors.toCollection(TreeSet::new));
+        if (subjectIds.size() > MAX_BATCH_SUBJECTS) {
+            throw new IllegalArgumentException("Ein Temperatur-Batch darf höchstens " + MAX_BATCH_SUBJECTS + " Einheiten bzw. Container betreffen.");
+        }
+        String ipfsHash = ipfsClient.addObject(new TemperatureBatch.RawSeries(
+                requestDto.getBatchId(), requestDto.getMinAllowed(), requestDto.getMaxAllowed(), readings));
+        logger.debug("Verankere Temperatur-Batch '{}' mit {} Messwerten (Rohdaten: {}).", requestDto.getBatchId(), readings.size(), ipfsHash);
+        String resultJson = fabricClient.submitGenericTransaction(
+                "anchorTemperatureBatch", requestDto.getBatchId(), fabricClient.getGson().toJson(summary),
+                fabricClient.getGson().toJson(subjectIds), ipfsHash, requestDto.getMinAllowed(), requestDto.getMaxAllowed()
+        );
+        return fabricClient.getGson().fromJson(resultJson, TemperatureBatch.class);
+    }
+
+    // Merkle-Wurzel über die Messwerte in Upload-Reihenfolge sowie Minimum, Maximum, Grenzwertverletzungen und Zeitraum.
+    private static TemperatureBatch summarizeReadings(List<TemperatureBatch.Reading> readings, double minAllowed, double maxAllowed) {
+        if (minAllowed > maxAllowed) {
+            throw new IllegalArgumentException("Die untere Temperaturgrenze liegt über der oberen.");
+        }
+        TemperatureBatch summary = new TemperatureBatch();
+        summary.setMinTemperature(Double.POSITIVE_INFINITY);
+        summary.setMaxTemperature(Double.NEGATIVE_INFINITY);
+        List<byte[]> leaves = new ArrayList<>(readings.size());
+        for (TemperatureBatch.Reading reading : readings) {
+            double temperature = parseTemperature(reading.getTemperature());
+            summary.setMinTemperature(Math.min(summary.getMinTemperature(), temperature));
+            summary.setMaxTemperature(Math.max(summary.getMaxTemperature(), temperature));
+            if (temperature < minAllowed || temperature > maxAllowed) {
+                summary.setExcursionCount(summary.getExcursionCount() + 1);
+            }
+            String timestamp = reading.getTimestamp();
+            if (summary.getFirstTimestamp() == null || timestamp.compareTo(summary.getFirstTimestamp()) < 0) {
+                summary.setFirstTimestamp(timestamp);
+            }
+            if (summary.getLastTimestamp() == null || timestamp.compareTo(summary.getLastTimestamp()) > 0) {
+                summary.setLastTimestamp(timestamp);
+            }
+            leaves.add(MerkleTree.leafHash(reading.getSubjectId(), timestamp, reading.getTemperature()));
+        }
+        summary.setMerkleRoot(MerkleTree.toHex(MerkleTree.root(leaves)));
+        summary.setReadingCount(readings.size());
+        return summary;
+    }
+
+    private static double parseTemperature(String temperature) {
+        try {
+            double value = Double.parseDouble(temperature);
+            if (Double.isFinite(value)) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Fehlermeldung wie bei nicht endlichen Werten.
+        }
+        throw new IllegalArgumentException("Ungültiger Temperaturwert '" + temperature + "'.");
+    }
+
+    public List<TemperatureBatch> getTemperatureBatchesBySubject(String subjectId) throws GatewayException {
+        String resultJson = fabricClient.evaluateGenericTransaction("queryTemperatureBatchesBySubject", subjectId);
+        Type listType = new TypeToken<List<TemperatureBatch>>() {}.getType();
+        return fabricClient.getGson().fromJson(resultJson, listType);
+    }
+
+    /**
+     * Erzeugt aus den IPFS-Rohdaten den Merkle-Beweis für den Messwert an Position index und lässt ihn
+     * vom Chaincode gegen die verankerte Wurzel prüfen.
+     */
+    public TemperatureReadingProofDto proveTemperatureReading(String batchId, int index) throws Exception {
+        String batchJson = fabricClient.evaluateGenericTransaction("queryTemperatureBatch", batchId);
+        TemperatureBatch batch = fabricClient.getGson().fromJson(batchJson, TemperatureBatch.class);
+        TemperatureBatch.RawSeries series = ipfsClient.getObject(batch.getIpfsLink(), TemperatureBatch.RawSeries.class);
+        if (series == null || series.getReadings() == null) {
+            throw new IOException("Rohdaten des Temperatur-Batches " + batchId + " sind in IPFS nicht verfügbar.");
+        }
+        List<TemperatureBatch.Reading> readings = series.getReadings();
+        if (index < 0 || index >= readings.size()) {
+            throw new IllegalArgumentException("Der Batch " + batchId + " enthält keinen Messwert an Position " + index + ".");
+        }
+
+        List<byte[]> leaves = new ArrayList<>(readings.size());
+        for (TemperatureBatch.Reading reading : readings) {
+            leaves.add(MerkleTree.leafHash(reading.getSubjectId(), reading.getTimestamp(), reading.getTemperature()));
+        }
+        TemperatureBatch.Reading reading = readings.get(index);
+        List<String> proof = MerkleTree.proof(leaves, index);
+        String verificationJson = fabricClient.evaluateGenericTransaction("verifyTemperatureReading", batchId,
+                reading.getSubjectId(), reading.getTimestamp(), reading.getTemperature(), fabricClient.getGson().toJson(proof));
+        Map<?, ?> verification = fabricClient.getGson().fromJson(verificationJson, Map.class);
+
+        TemperatureReadingProofDto proofDto = new TemperatureReadingProofDto();
+        proofDto.setBatchId(batchId);
+        proofDto.setIndex(index);
+        proofDto.setSubjectId(reading.getSubjectId());
+        proofDto.setTimestamp(reading.getTimestamp());
+        proofDto.setTemperature(reading.getTemperature());
+        proofDto.setProof(proof);
+        proofDto.setMerkleRoot(batch.getMerkleRoot());
+        proofDto.setIncluded(Boolean.TRUE.equals(verification.get("included")));
+        return proofDto;
     }
 
     public void deleteUnit(String unitId) throws Exception {
@@ -112,7 +281,25 @@ public class UnitFabricService {
         logger.info("{} Einheiten erfolgreich zur Löschung eingereicht.", unitIds.size());
     }
 
-    public String transferUnitRange(String medId, String chargeBezeichnung, int start, int end, String newOwnerId) throws Exception {
+    public UnitBatchEvent consumeUnits(ConsumeUnitsRequestDto requestDto) throws Exception {
+        logger.debug("Sende 'consumeUnits'-Transaktion für {} Einheiten.", requestDto.getUnitIds().size());
+        String timestamp = Instant.now().toString();
+        String result = fabricClient.submitGenericTransaction(
+                "consumeUnits", fabricClient.getGson().toJson(requestDto.getUnitIds()), requestDto.getConsumedRefId(), timestamp
+        );
+        logger.info("{} Einheiten unter Referenz '{}' als abgegeben markiert.", requestDto.getUnitIds().size(), requestDto.getConsumedRefId());
+        return fabricClient.getGson().fromJson(result, UnitBatchEvent.class);
+    }
+
+    // Asynchrone Variante: kehrt nach der Übergabe an den Orderer zurück, das Ergebnis folgt über den Commit-Status.
+    public AsyncSubmission consumeUnitsAsync(ConsumeUnitsRequestDto requestDto) throws Exception {
+        logger.debug("Sende 'consumeUnits'-Transaktion asynchron für {} Einheiten.", requestDto.getUnitIds().size());
+        return fabricClient.submitAsync(
+                "consumeUnits", fabricClient.getGson().toJson(requestDto.getUnitIds()), requestDto.getConsumedRefId(), Instant.now().toString()
+        );
+    }
+
+    public UnitBatchEvent transferUnitRange(String medId, String chargeBezeichnung, int start, int end, String newOwnerId) throws Exception {
         logger.debug("Sende 'transferUnitRange'-Transaktion für Bereich {}-{}", start, end);
         String timestamp = Instant.now().toString();
         String result = fabricClient.submitGenericTransaction(
@@ -120,7 +307,37 @@ public class UnitFabricService {
                 String.valueOf(start), String.valueOf(end), newOwnerId, timestamp
         );
         logger.info("Chargenbereich erfolgreich zur Übertragung eingereicht.");
-        return result;
+        return fabricClient.getGson().fromJson(result, UnitBatchEvent.class);
+    }
+
+    /**
+     * Verteilt Einheiten in einer einzigen Transaktion auf mehrere Empfänger; der Chaincode prüft Besitz und
+     * Empfänger einmalig und schreibt jede betroffene Charge nur einmal.
+     */
+    public UnitDispatchEvent transferUnits(TransferUnitsRequestDto requestDto) throws Exception {
+        String timestamp = Instant.now().toString();
+        logger.debug("Sende 'transferUnits'-Transaktion mit {} Anweisungen.", requestDto.getInstructions().size());
+        String result = fabricClient.submitGenericTransaction(
+                "transferUnits", fabricClient.getGson().toJson(requestDto.getInstructions()), timestamp
+        );
+        UnitDispatchEvent dispatch = fabricClient.getGson().fromJson(result, UnitDispatchEvent.class);
+        logger.info("{} Einheiten an {} Empfänger übertragen.", dispatch.getUnitCount(), dispatch.getTransfers().size());
+        return dispatch;
+    }
+
+    public AsyncSubmission transferUnitRangeAsync(String medId, String chargeBezeichnung, int start, int end, String newOwnerId) throws Exception {
+        logger.debug("Sende 'transferUnitRange'-Transaktion asynchron für Bereich {}-{}", start, end);
+        return fabricClient.submitAsync(
+                "transferUnitRange", medId, chargeBezeichnung,
+                String.valueOf(start), String.valueOf(end), newOwnerId, Instant.now().toString()
+        );
+    }
+
+    public AsyncSubmission transferUnitsAsync(TransferUnitsRequestDto requestDto) throws Exception {
+        logger.debug("Sende 'transferUnits'-Transaktion asynchron mit {} Anweisungen.", requestDto.getInstructions().size());
+        return fabricClient.submitAsync(
+                "transferUnits", fabricClient.getGson().toJson(requestDto.getInstructions()), Instant.now().toString()
+        );
     }
 
     public Map<String, Integer> getChargeCountsByMedId(String medId) {
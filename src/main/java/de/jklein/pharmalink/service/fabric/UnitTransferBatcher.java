@@ -0,0 +1,265 @@
+package de.jklein.pharmalink.service.fabric;
+
+import de.jklein.pharmalink.client.fabric.AsyncSubmission;
+import de.jklein.pharmalink.client.fabric.FabricClient;
+import de.jklein.pharmalink.client.fabric.TransactionRejectedException;
+import de.jklein.pharmalink.client.fabric.TransactionState;
+import io.grpc.Status;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hyperledger.fabric.client.EndorseException;
+import org.hyperledger.fabric.client.GatewayException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sammelt Einzelübertragungen ({@code transferUnit}) für ein kurzes Zeitfenster und reicht sie gemeinsam ein.
+ * Alle Übertragungen laufen unter der Identität dieses Backends, der Absender ist also für alle gleich; gruppiert
+ * wird nach Empfänger, Medikament und Charge. Ein einzelner zusammenhängender Bereich wird als
+ * {@code transferUnitRange} eingereicht, alles andere als eine {@code transferUnits}-Transaktion, sodass jede
+ * Charge nur einmal geschrieben wird und sich die Übertragungen eines Fensters nicht gegenseitig per MVCC blockieren.
+ * Eingereicht wird asynchron auf virtuellen Threads, sodass mehrere Fenster gleichzeitig auf ihren Commit warten.
+ * Lehnt der Chaincode das Endorsement eines Sammelauftrags ab, wird er halbiert, bis die ungültigen Übertragungen
+ * einzeln übrig bleiben; ein unklarer Commit-Status führt nie zu einer erneuten Einreichung.
+ */
+@Component
+public class UnitTransferBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnitTransferBatcher.class);
+    private static final String MED_PREFIX = "MED-";
+    private static final int MED_ID_LENGTH = MED_PREFIX.length() + 64;
+    private static final Set<Status.Code> TRANSIENT_CODES = Set.of(
+            Status.Code.UNAVAILABLE, Status.Code.DEADLINE_EXCEEDED, Status.Code.RESOURCE_EXHAUSTED);
+
+    private final FabricClient fabricClient;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = Executors.defaultThreadFactory().newThread(r);
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService submitExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("transfer-submit-", 0).factory());
+    private List<PendingTransfer> pending = new ArrayList<>();
+
+    @Autowired
+    public UnitTransferBatcher(
+            FabricClient fabricClient,
+            @Value("${fabric.transfer-batching.window-ms:25}") long windowMillis,
+            @Value("${fabric.transfer-batching.max-batch-size:500}") int maxBatchSize
+    ) {
+        this.fabricClient = fabricClient;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public boolean isEnabled() {
+        return windowMillis > 0;
+    }
+
+    // Wird abgeschlossen, sobald die Transaktion mit dieser Übertragung festgeschrieben ist.
+    public CompletableFuture<Void> transfer(String unitId, String newOwnerActorId) {
+        PendingTransfer transfer = new PendingTransfer(unitId, newOwnerActorId);
+        boolean firstInWindow;
+        boolean full;
+        synchronized (this) {
+            firstInWindow = pending.isEmpty();
+            pending.add(transfer);
+            full = pending.size() >= maxBatchSize;
+        }
+        if (full) {
+            flushExecutor.execute(this::flush);
+        } else if (firstInWindow) {
+            flushExecutor.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+        return transfer.result;
+    }
+
+    private void flush() {
+        List<PendingTransfer> window;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            window = pending;
+            pending = new ArrayList<>();
+        }
+        String timestamp = Instant.now().toString();
+        List<PendingTransfer> batchable = new ArrayList<>();
+        for (PendingTransfer transfer : window) {
+            if (transfer.counter > 0) {
+                batchable.add(transfer);
+            } else {
+                submitExecutor.execute(() -> submit(List.of(transfer), timestamp));
+            }
+        }
+        if (!batchable.isEmpty()) {
+            submitExecutor.execute(() -> submit(batchable, timestamp));
+        }
+    }
+
+    private void submit(List<PendingTransfer> transfers, String timestamp) {
+        try {
+            AsyncSubmission submission = submitAsync(transfers, timestamp);
+            submission.getCommit().thenAccept(state -> complete(transfers, state));
+        } catch (EndorseException e) {
+            if (transfers.size() > 1 && !TRANSIENT_CODES.contains(e.getStatus().getCode())) {
+                // Eine ungültige Übertragung lässt die gesamte Transaktion scheitern; die Hälften werden parallel erneut eingereicht.
+                logger.warn("Gemeinsame Übertragung von {} Einheiten abgelehnt, teile den Auftrag: {}", transfers.size(), e.getMessage());
+                int middle = transfers.size() / 2;
+                List<PendingTransfer> firstHalf = transfers.subList(0, middle);
+                List<PendingTransfer> secondHalf = transfers.subList(middle, transfers.size());
+                submitExecutor.execute(() -> submit(firstHalf, timestamp));
+                submitExecutor.execute(() -> submit(secondHalf, timestamp));
+            } else {
+                transfers.forEach(transfer -> transfer.result.completeExceptionally(e));
+            }
+        } catch (Exception e) {
+            transfers.forEach(transfer -> transfer.result.completeExceptionally(e));
+        }
+    }
+
+    private AsyncSubmission submitAsync(List<PendingTransfer> transfers, String timestamp) throws GatewayException {
+        if (transfers.size() == 1) {
+            PendingTransfer transfer = transfers.get(0);
+            return fabricClient.submitAsync("transferUnit", transfer.unitId, transfer.newOwnerActorId, timestamp);
+        }
+        Map<String, List<Range>> rangesByRecipient = contiguousRanges(transfers);
+        logger.debug("Reiche {} Einzelübertragungen an {} Empfänger gemeinsam ein.", transfers.size(), rangesByRecipient.size());
+        if (rangesByRecipient.size() == 1 && rangesByRecipient.values().iterator().next().size() == 1) {
+            String recipient = rangesByRecipient.keySet().iterator().next();
+            Range range = rangesByRecipient.get(recipient).get(0);
+            return fabricClient.submitAsync("transferUnitRange", range.getMedId(), range.getChargeBezeichnung(),
+                    String.valueOf(range.getStart()), String.valueOf(range.getEnd()), recipient, timestamp);
+        }
+        List<Instruction> instructions = new ArrayList<>();
+        rangesByRecipient.forEach((recipient, ranges) -> instructions.add(new Instruction(recipient, ranges)));
+        return fabricClient.submitAsync("transferUnits", fabricClient.getGson().toJson(instructions), timestamp);
+    }
+
+    // Nur FAILED belegt eine Ablehnung; bei UNKNOWN ist offen, ob die Übertragung festgeschrieben wurde.
+    private void complete(List<PendingTransfer> transfers, TransactionState state) {
+        if (state.isCommitted()) {
+            transfers.forEach(transfer -> transfer.result.complete(null));
+            return;
+        }
+        Exception failure = !state.isUnknown()
+                ? new TransactionRejectedException(state.getTxId(), state.getValidationCode())
+                : new IllegalStateException("Commit-Status der Transaktion " + state.getTxId() + " unbekannt: " + state.getErrorMessage());
+        transfers.forEach(transfer -> transfer.result.completeExceptionally(failure));
+    }
+
+    // Empfänger -> zusammenhängende Zählerbereiche je Medikament und Charge; doppelte Anfragen derselben Einheit werden zusammengelegt.
+    private Map<String, List<Range>> contiguousRanges(List<PendingTransfer> batch) {
+        List<PendingTransfer> sorted = new ArrayList<>(batch);
+        sorted.sort(Comparator.comparing((PendingTransfer t) -> t.newOwnerActorId)
+                .thenComparing(t -> t.medId)
+                .thenComparing(t -> t.chargeBezeichnung)
+                .thenComparingInt(t -> t.counter));
+        Map<String, List<Range>> rangesByRecipient = new TreeMap<>();
+        Range current = null;
+        String currentRecipient = null;
+        for (PendingTransfer transfer : sorted) {
+            boolean extendsCurrent = current != null
+                    && transfer.newOwnerActorId.equals(currentRecipient)
+                    && transfer.medId.equals(current.getMedId())
+                    && transfer.chargeBezeichnung.equals(current.getChargeBezeichnung())
+                    && transfer.counter <= current.getEnd() + 1;
+            if (extendsCurrent) {
+                current.setEnd(Math.max(current.getEnd(), transfer.counter));
+                continue;
+            }
+            current = new Range(transfer.medId, transfer.chargeBezeichnung, transfer.counter, transfer.counter);
+            currentRecipient = transfer.newOwnerActorId;
+            rangesByRecipient.computeIfAbsent(currentRecipient, r -> new ArrayList<>()).add(current);
+        }
+        return rangesByRecipient;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        submitExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(5, TimeUnit.SECONDS) || !submitExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Übertragungs-Batcher wurde nicht innerhalb von 5 Sekunden beendet.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class PendingTransfer {
+        private final String unitId;
+        private final String newOwnerActorId;
+        private final String medId;
+        private final String chargeBezeichnung;
+        // 0, wenn die ID nicht dem Format "MED-<sha256>-<Charge>-<Zähler>" entspricht; solche Anfragen laufen einzeln.
+        private final int counter;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        PendingTransfer(String unitId, String newOwnerActorId) {
+            this.unitId = unitId;
+            this.newOwnerActorId = newOwnerActorId;
+            int lastDash = unitId == null ? -1 : unitId.lastIndexOf('-');
+            int parsedCounter = 0;
+            if (unitId != null && unitId.startsWith(MED_PREFIX) && lastDash > MED_ID_LENGTH + 1 && unitId.charAt(MED_ID_LENGTH) == '-') {
+                try {
+                    parsedCounter = Integer.parseInt(unitId.substring(lastDash + 1));
+                } catch (NumberFormatException e) {
+                    parsedCounter = 0;
+                }
+            }
+            this.counter = parsedCounter;
+            this.medId = parsedCounter > 0 ? unitId.substring(0, MED_ID_LENGTH) : null;
+            this.chargeBezeichnung = parsedCounter > 0 ? unitId.substring(MED_ID_LENGTH + 1, lastDash) : null;
+        }
+    }
+
+    // Entspricht dem JSON-Format der Transferanweisungen des Chaincodes.
+    @Data
+    @NoArgsConstructor
+    private static class Instruction {
+        private String toActorId;
+        private List<String> unitIds = new ArrayList<>();
+        private List<Range> ranges;
+
+        Instruction(String toActorId, List<Range> ranges) {
+            this.toActorId = toActorId;
+            this.ranges = ranges;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    private static class Range {
+        private String medId;
+        private String chargeBezeichnung;
+        private int start;
+        private int end;
+
+        Range(String medId, String chargeBezeichnung, int start, int end) {
+            this.medId = medId;
+            this.chargeBezeichnung = chargeBezeichnung;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package de.jklein.pharmalink.service.outbox;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import de.jklein.pharmalink.client.fabric.AsyncSubmission;
+import de.jklein.pharmalink.client.fabric.FabricClient;
+import de.jklein.pharmalink.client.fabric.TransactionState;
+import de.jklein.pharmalink.domain.outbox.OutboxIntent;
+import de.jklein.pharmalink.repository.outbox.OutboxIntentRepository;
+import io.grpc.Status;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.hyperledger.fabric.client.GatewayException;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arbeitet die Outbox ab: beansprucht fällige Absichten atomar, fasst kompatible Übertragungen zu einer
+ * {@code transferUnits}-Transaktion zusammen und reicht sie asynchron ein. MVCC-Konflikte und vorübergehende
+ * Verbindungsfehler werden mit exponentiellem Backoff und Jitter wiederholt; scheitert ein Sammelauftrag am
+ * Chaincode, werden seine Absichten einzeln erneut eingereicht, damit nur die fehlerhafte scheitert.
+ * Der signierte Umschlag wird vor der Übergabe an den Orderer gespeichert. Ist der Ausgang danach unklar, wird
+ * derselbe Umschlag bis zur Höchstzahl an Versuchen erneut eingereicht; ein neuer Vorschlag entsteht nur, wenn ein
+ * Validierungscode belegt, dass die Transaktion nicht angewendet wurde. Meldet Fabric DUPLICATE_TXID oder lehnt
+ * die Einreichung dauerhaft ab, entscheidet der im Ledger festgehaltene Ausgang der ursprünglichen Transaktion.
+ */
+@Component
+public class OutboxProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxProcessor.class);
+
+    private static final Set<String> CONFLICT_CODES = Set.of(
+            TxValidationCode.MVCC_READ_CONFLICT.name(),
+            TxValidationCode.PHANTOM_READ_CONFLICT.name());
+    private static final String DUPLICATE_TXID = TxValidationCode.DUPLICATE_TXID.name();
+    private static final Set<Status.Code> TRANSIENT_CODES = Set.of(
+            Status.Code.UNAVAILABLE, Status.Code.DEADLINE_EXCEEDED, Status.Code.RESOURCE_EXHAUSTED);
+    private static final long BASE_BACKOFF_MILLIS = 200;
+    private static final long MAX_BACKOFF_MILLIS = 30000;
+
+    private final MongoTemplate mongoTemplate;
+    private final OutboxIntentRepository outboxIntentRepository;
+    private final OutboxService outboxService;
+    private final FabricClient fabricClient;
+    private final int workers;
+    private final long pollIntervalMillis;
+    private final int maxBatchSize;
+    private final int maxAttempts;
+    private final long leaseSeconds;
+    private final ScheduledExecutorService scheduler;
+
+    public OutboxProcessor(
+            MongoTemplate mongoTemplate,
+            OutboxIntentRepository outboxIntentRepository,
+            OutboxService outboxService,
+            FabricClient fabricClient,
+            @Value("${fabric.outbox.workers:4}") int workers,
+            @Value("${fabric.outbox.poll-interval-ms:200}") long pollIntervalMillis,
+            @Value("${fabric.outbox.max-batch-size:50}") int maxBatchSize,
+            @Value("${fabric.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${fabric.outbox.lease-seconds:120}") long leaseSeconds
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.outboxIntentRepository = outboxIntentRepository;
+        this.outboxService = outboxService;
+        this.fabricClient = fabricClient;
+        this.workers = workers;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.maxAttempts = maxAttempts;
+        this.leaseSeconds = leaseSeconds;
+        this.scheduler = Executors.newScheduledThreadPool(workers, r -> {
+            Thread t = Executors.defaultThreadFactory().newThread(r);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < workers; i++) {
+            scheduler.scheduleWithFixedDelay(this::drain, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        logger.info("Outbox-Verarbeitung mit {} Workern gestartet.", workers);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        try {
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Outbox-Worker wurden nicht innerhalb von 5 Sekunden beendet.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        try {
+            recoverStaleIntent();
+            while (!Thread.currentThread().isInterrupted() && processNextBatch()) {
+                // weiter, solange fällige Absichten vorhanden sind
+            }
+        } catch (Exception e) {
+            logger.error("Fehler bei der Outbox-Verarbeitung: {}", e.getMessage(), e);
+        }
+    }
+
+    private boolean processNextBatch() {
+        OutboxIntent first = claim(Criteria.where("status").is(OutboxIntent.Status.PENDING)
+                .and("nextAttemptAt").lte(LocalDateTime.now()));
+        if (first == null) {
+            return false;
+        }
+        if (first.getTransactionBytes() != null) {
+            submitEnvelope(List.of(first), first.getArgs(), first.getTransactionBytes());
+            return true;
+        }
+        List<OutboxIntent> batch = new ArrayList<>();
+        batch.add(first);
+        if (first.isBatchable()) {
+            while (batch.size() < maxBatchSize) {
+                OutboxIntent next = claim(Criteria.where("status").is(OutboxIntent.Status.PENDING)
+                        .and("nextAttemptAt").lte(LocalDateTime.now())
+                        .and("type").is(first.getType())
+                        .and("batchable").is(true)
+                        .and("transactionBytes").is(null));
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+            }
+        }
+        submit(batch);
+        return true;
+    }
+
+    private OutboxIntent claim(Criteria criteria) {
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "createdAt"));
+        Update update = new Update()
+                .set("status", OutboxIntent.Status.IN_FLIGHT)
+                .set("claimedAt", LocalDateTime.now())
+                .inc("attempts", 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), OutboxIntent.class);
+    }
+
+    private void submit(List<OutboxIntent> batch) {
+        OutboxIntent first = batch.get(0);
+        List<String> args = batch.size() == 1 ? first.getArgs() : List.of(mergeInstructions(batch), first.getArgs().get(1));
+        byte[] transactionBytes;
+        try {
+            transactionBytes = fabricClient.endorseTransaction(first.getFunctionName(), args.toArray(new String[0]));
+        } catch (GatewayException e) {
+            // Ohne Endorsement hat der Orderer nichts erhalten; ein neuer Vorschlag ist sicher.
+            if (TRANSIENT_CODES.contains(e.getStatus().getCode())) {
+                batch.forEach(intent -> retry(intent, e.getMessage()));
+            } else if (batch.size() > 1) {
+                logger.warn("Sammeltransaktion mit {} Absichten abgelehnt, reiche einzeln ein: {}", batch.size(), e.getMessage());
+                batch.forEach(this::submitIndividually);
+            } else {
+                fail(first, e.getMessage());
+            }
+            return;
+        }
+        for (OutboxIntent intent : batch) {
+            intent.setTransactionBytes(transactionBytes);
+            outboxIntentRepository.save(intent);
+        }
+        submitEnvelope(batch, args, transactionBytes);
+    }
+
+    // Reicht den gespeicherten Umschlag ein; bei einer bereits festgeschriebenen Tx-ID gilt der Ausgang der ursprünglichen Transaktion.
+    private void submitEnvelope(List<OutboxIntent> batch, List<String> args, byte[] transactionBytes) {
+        try {
+            AsyncSubmission submission = fabricClient.submitEndorsedAsync(batch.get(0).getFunctionName(), transactionBytes, args.toArray(new String[0]));
+            for (OutboxIntent intent : batch) {
+                intent.setTxId(submission.getTxId());
+                outboxIntentRepository.save(intent);
+            }
+            logger.debug("{} Absicht(en) als Transaktion {} eingereicht.", batch.size(), submission.getTxId());
+            submission.getCommit().thenAccept(state -> {
+                TransactionState outcome = DUPLICATE_TXID.equals(state.getValidationCode())
+                        ? fabricClient.lookupTransaction(batch.get(0).getFunctionName(), transactionBytes)
+                        : state;
+                batch.forEach(intent -> handleCommitState(intent, outcome, submission.getResult()));
+            });
+        } catch (GatewayException e) {
+            if (TRANSIENT_CODES.contains(e.getStatus().getCode())) {
+                // Ob der Orderer die Transaktion erhalten hat, ist offen; es darf nur derselbe Umschlag erneut eingereicht werden.
+                batch.forEach(intent -> resubmit(intent, e.getMessage()));
+            } else {
+                // Dauerhaft abgelehnt: Eine Wiederholung hilft nicht, es zählt nur, ob ein früherer Versuch festgeschrieben wurde.
+                settleFromLedger(batch, e.getMessage());
+            }
+        }
+    }
+
+    private void handleCommitState(OutboxIntent intent, TransactionState state, String result) {
+        if (state.isCommitted()) {
+            complete(intent, result);
+        } else if (state.isUnknown()) {
+            // Ausgang unbekannt: Ein Fehler der Statusabfrage belegt nicht, dass die Transaktion fehlt.
+            logger.warn("Commit-Status für Absicht {} unbekannt: {}", intent.getId(), state.getErrorMessage());
+            resubmit(intent, state.getErrorMessage());
+        } else if (CONFLICT_CODES.contains(state.getValidationCode())) {
+            retry(intent, state.getErrorMessage());
+        } else {
+            fail(intent, state.getErrorMessage());
+        }
+    }
+
+    // Abschließende Entscheidung für einen Umschlag, der nicht mehr eingereicht wird: festgeschrieben laut Ledger oder gescheitert.
+    private void settleFromLedger(List<OutboxIntent> batch, String reason) {
+        OutboxIntent first = batch.get(0);
+        TransactionState state = fabricClient.lookupTransaction(first.getFunctionName(), first.getTransactionBytes());
+        for (OutboxIntent intent : batch) {
+            if (state.isCommitted()) {
+                logger.info("Absicht {} ist laut Ledger bereits als Transaktion {} festgeschrieben.", intent.getId(), state.getTxId());
+                complete(intent, state.getResult());
+            } else if (!state.isUnknown() && CONFLICT_CODES.contains(state.getValidationCode())) {
+                retry(intent, reason);
+            } else {
+                fail(intent, reason);
+            }
+        }
+    }
+
+    // Übernimmt IN_FLIGHT-Absichten, deren Worker abgebrochen ist, und reicht ihren gespeicherten Umschlag erneut ein.
+    private void recoverStaleIntent() {
+        Query query = new Query(Criteria.where("status").is(OutboxIntent.Status.IN_FLIGHT)
+                .and("claimedAt").lt(LocalDateTime.now().minusSeconds(leaseSeconds)));
+        OutboxIntent stale = mongoTemplate.findAndModify(query, new Update().set("claimedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true), OutboxIntent.class);
+        if (stale == null) {
+            return;
+        }
+        if (stale.getTransactionBytes() == null) {
+            retry(stale, "Worker vor der Einreichung abgebrochen.");
+            return;
+        }
+        logger.info("Reiche die unterbrochene Absicht {} (txId {}) mit ihrem gespeicherten Umschlag erneut ein.", stale.getId(), stale.getTxId());
+        submitEnvelope(List.of(stale), stale.getArgs(), stale.getTransactionBytes());
+    }
+
+    private void submitIndividually(OutboxIntent intent) {
+        intent.setBatchable(false);
+        intent.setAttempts(intent.getAttempts() - 1);
+        reschedule(intent, LocalDateTime.now(), null);
+    }
+
+    private void retry(OutboxIntent intent, String reason) {
+        if (intent.getAttempts() >= maxAttempts) {
+            fail(intent, "Maximale Anzahl von Versuchen erreicht: " + reason);
+            return;
+        }
+        reschedule(intent, LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoffMillis(intent.getAttempts()))), reason);
+    }
+
+    // Auch für denselben Umschlag gilt die Höchstzahl an Versuchen; danach entscheidet der Ledger über den Ausgang.
+    private void resubmit(OutboxIntent intent, String reason) {
+        if (intent.getAttempts() >= maxAttempts) {
+            settleFromLedger(List.of(intent), "Maximale Anzahl von Versuchen erreicht: " + reason);
+            return;
+        }
+        intent.setStatus(OutboxIntent.Status.PENDING);
+        intent.setNextAttemptAt(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoffMillis(intent.getAttempts()))));
+        intent.setErrorMessage(reason);
+        outboxIntentRepository.save(intent);
+    }
+
+    private void reschedule(OutboxIntent intent, LocalDateTime nextAttemptAt, String reason) {
+        intent.setStatus(OutboxIntent.Status.PENDING);
+        intent.setNextAttemptAt(nextAttemptAt);
+        intent.setErrorMessage(reason);
+        intent.setTxId(null);
+        intent.setTransactionBytes(null);
+        outboxIntentRepository.save(intent);
+    }
+
+    private void complete(OutboxIntent intent, String result) {
+        intent.setStatus(OutboxIntent.Status.COMMITTED);
+        intent.setResult(result);
+        intent.setErrorMessage(null);
+        intent.setCompletedAt(LocalDateTime.now());
+        outboxIntentRepository.save(intent);
+        outboxService.notifyCompleted(intent);
+    }
+
+    private void fail(OutboxIntent intent, String reason) {
+        logger.error("Absicht {} ({}) endgültig fehlgeschlagen: {}", intent.getId(), intent.getType(), reason);
+        intent.setStatus(OutboxIntent.Status.FAILED);
+        intent.setErrorMessage(reason);
+        intent.setCompletedAt(LocalDateTime.now());
+        outboxIntentRepository.save(intent);
+        outboxService.notifyCompleted(intent);
+    }
+
+    // Exponentieller Backoff mit Jitter, damit kollidierende Absichten nicht erneut gleichzeitig eingereicht werden.
+    private long backoffMillis(int attempts) {
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempts - 1, 16));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    // Die Anweisungslisten aller Absichten werden aneinandergehängt; der Chaincode prüft jeden Empfänger nur einmal.
+    private String mergeInstructions(List<OutboxIntent> batch) {
+        JsonArray merged = new JsonArray();
+        for (OutboxIntent intent : batch) {
+            merged.addAll(JsonParser.parseString(intent.getArgs().get(0)).getAsJsonArray());
+        }
+        return merged.toString();
+    }
+}
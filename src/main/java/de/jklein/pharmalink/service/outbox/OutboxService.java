@@ -0,0 +1,118 @@
+package de.jklein.pharmalink.service.outbox;
+
+import de.jklein.pharmalink.api.dto.CreateUnitsRequestDto;
+import de.jklein.pharmalink.api.dto.TransferUnitsRequestDto;
+import de.jklein.pharmalink.client.fabric.FabricClient;
+import de.jklein.pharmalink.domain.outbox.OutboxIntent;
+import de.jklein.pharmalink.repository.outbox.OutboxIntentRepository;
+import de.jklein.pharmalink.service.fabric.UnitFabricService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nimmt Schreibabsichten entgegen und speichert sie dauerhaft, bevor sie der {@link OutboxProcessor} an den
+ * Chaincode übergibt. Ein wiederholter Aufruf mit demselben Idempotenzschlüssel liefert die bestehende Absicht.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    private final OutboxIntentRepository outboxIntentRepository;
+    private final UnitFabricService unitFabricService;
+    private final FabricClient fabricClient;
+    private final Map<String, CompletableFuture<OutboxIntent>> completionWaiters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OutboxService(OutboxIntentRepository outboxIntentRepository, UnitFabricService unitFabricService, FabricClient fabricClient) {
+        this.outboxIntentRepository = outboxIntentRepository;
+        this.unitFabricService = unitFabricService;
+        this.fabricClient = fabricClient;
+    }
+
+    public OutboxIntent enqueueCreateUnits(String idempotencyKey, String medId, CreateUnitsRequestDto requestDto) throws Exception {
+        String id = intentId(idempotencyKey);
+        Optional<OutboxIntent> existing = outboxIntentRepository.findById(id);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        // Der IPFS-Upload erfolgt einmalig hier, damit Wiederholungen dieselben Argumente einreichen.
+        String ipfsHash = unitFabricService.uploadUnitIpfsData(requestDto);
+        return enqueue(new OutboxIntent(id, OutboxIntent.Type.CREATE_UNITS, "createUnits",
+                List.of(medId, requestDto.getChargeBezeichnung(), String.valueOf(requestDto.getAnzahl()), ipfsHash), false));
+    }
+
+    public OutboxIntent enqueueTransfer(String idempotencyKey, TransferUnitsRequestDto requestDto) {
+        String instructionsJson = fabricClient.getGson().toJson(requestDto.getInstructions());
+        return enqueue(new OutboxIntent(intentId(idempotencyKey), OutboxIntent.Type.TRANSFER_UNITS, "transferUnits",
+                List.of(instructionsJson, Instant.now().toString()), true));
+    }
+
+    public OutboxIntent enqueueTemperatureReading(String idempotencyKey, String unitId, String temperature, String timestamp) {
+        return enqueue(new OutboxIntent(intentId(idempotencyKey), OutboxIntent.Type.ADD_TEMPERATURE, "addTemperatureReading",
+                List.of(unitId, temperature, timestamp), false));
+    }
+
+    public Optional<OutboxIntent> findIntent(String intentId) {
+        return outboxIntentRepository.findById(intentId);
+    }
+
+    /**
+     * Liefert die Absicht, sobald sie abgeschlossen ist, spätestens aber nach {@code timeout} mit ihrem aktuellen Stand.
+     * Benachrichtigt werden nur Abschlüsse dieser Instanz; andernfalls greift der Zeitablauf.
+     */
+    public CompletableFuture<Optional<OutboxIntent>> awaitCompletion(String intentId, Duration timeout) {
+        Optional<OutboxIntent> current = outboxIntentRepository.findById(intentId);
+        if (current.isEmpty() || current.get().isDone() || timeout.isZero()) {
+            return CompletableFuture.completedFuture(current);
+        }
+        CompletableFuture<OutboxIntent> completion = completionWaiters.computeIfAbsent(intentId, id -> new CompletableFuture<>());
+        // Zwischen erster Abfrage und Registrierung könnte die Absicht abgeschlossen worden sein.
+        outboxIntentRepository.findById(intentId).filter(OutboxIntent::isDone).ifPresent(completion::complete);
+        return completion.copy()
+                .completeOnTimeout(null, timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(intent -> {
+                    if (intent != null) {
+                        return Optional.of(intent);
+                    }
+                    completionWaiters.remove(intentId, completion);
+                    return outboxIntentRepository.findById(intentId);
+                });
+    }
+
+    void notifyCompleted(OutboxIntent intent) {
+        CompletableFuture<OutboxIntent> completion = completionWaiters.remove(intent.getId());
+        if (completion != null) {
+            completion.complete(intent);
+        }
+    }
+
+    private OutboxIntent enqueue(OutboxIntent intent) {
+        try {
+            OutboxIntent saved = outboxIntentRepository.insert(intent);
+            logger.debug("Absicht {} ({}) in die Outbox eingestellt.", saved.getId(), saved.getType());
+            return saved;
+        } catch (DuplicateKeyException e) {
+            logger.debug("Absicht {} existiert bereits, Wiederholung wird ignoriert.", intent.getId());
+            return outboxIntentRepository.findById(intent.getId()).orElseThrow(() -> e);
+        }
+    }
+
+    private String intentId(String idempotencyKey) {
+        return StringUtils.hasText(idempotencyKey) ? idempotencyKey : UUID.randomUUID().toString();
+    }
+}
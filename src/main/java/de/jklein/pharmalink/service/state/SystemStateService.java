@@ -2,7 +2,11 @@ package de.jklein.pharmalink.service.state;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import de.jklein.pharmalink.client.fabric.ContainerEvent;
 import de.jklein.pharmalink.client.fabric.FabricClient;
+import de.jklein.pharmalink.client.fabric.PharmaEvent;
+import de.jklein.pharmalink.client.fabric.UnitBatchEvent;
+import de.jklein.pharmalink.client.fabric.UnitDispatchEvent;
 import de.jklein.pharmalink.domain.Actor;
 import de.jklein.pharmalink.domain.Medikament;
 import de.jklein.pharmalink.domain.Unit;
@@ -23,6 +27,10 @@ import org.hyperledger.fabric.client.ChaincodeEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -33,6 +41,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -57,6 +66,17 @@ public class SystemStateService {
     private static final String UNIT_TEMPERATURE_ADDED_EVENT = "UnitTemperatureAdded";
     private static final String UNIT_TRANSFERRED_EVENT = "UnitTransferred";
     private static final String UNIT_DELETED_EVENT = "UnitDeleted";
+    private static final String UNITS_CREATED_EVENT = "UnitsCreated";
+    private static final String UNITS_TRANSFERRED_EVENT = "UnitsTransferred";
+    private static final String UNITS_DELETED_EVENT = "UnitsDeleted";
+    private static final String UNITS_DISPATCHED_EVENT = "UnitsDispatched";
+    private static final String UNITS_CONSUMED_EVENT = "UnitsConsumed";
+    private static final String CONTAINER_PACKED_EVENT = "ContainerPacked";
+    private static final String CONTAINER_TRANSFERRED_EVENT = "ContainerTransferred";
+
+    private static final String ACTOR_ENTITY = "actor";
+    private static final String MEDIKAMENT_ENTITY = "medikament";
+    private static final String UNIT_ENTITY = "unit";
 
     private final SystemStateRepository systemStateRepository;
     private final ActorRepository actorRepository;
@@ -68,6 +88,7 @@ public class SystemStateService {
     private final MedicationFabricService medicationFabricService;
     private final UnitFabricService unitFabricService;
     private final ObjectMapper objectMapper;
+    private final MongoTemplate mongoTemplate;
 
     @Value("${fabric.chaincode-name}")
     private String chaincodeName;
@@ -79,7 +100,8 @@ public class SystemStateService {
                               ActorFabricService actorFabricService, MedicationFabricService medicationFabricService,
                               UnitFabricService unitFabricService, ObjectMapper objectMapper,
                               ChaincodeEventLogRepository eventLogRepository, ActorRepository actorRepository,
-                              MedikamentRepository medikamentRepository, UnitRepository unitRepository) {
+                              MedikamentRepository medikamentRepository, UnitRepository unitRepository,
+                              MongoTemplate mongoTemplate) {
         this.systemStateRepository = systemStateRepository;
         this.fabricClient = fabricClient;
         this.actorFabricService = actorFabricService;
@@ -90,6 +112,7 @@ public class SystemStateService {
         this.actorRepository = actorRepository;
         this.medikamentRepository = medikamentRepository;
         this.unitRepository = unitRepository;
+        this.mongoTemplate = mongoTemplate;
     }
 
     @PostConstruct
@@ -113,15 +136,13 @@ public class SystemStateService {
     public void synchronizeWithChaincode() {
         logger.info("Synchronisiere globalen Zustand (Akteure, Medikamente) mit dem Chaincode...");
         try {
-            List<Actor> actorsFromChaincode = actorFabricService.getAllActors();
             actorRepository.deleteAll();
-            actorRepository.saveAll(actorsFromChaincode);
-            logger.info("{} Akteure erfolgreich mit der Datenbank synchronisiert.", actorsFromChaincode.size());
+            int actorCount = actorFabricService.forEachActorPage(actorRepository::saveAll);
+            logger.info("{} Akteure erfolgreich mit der Datenbank synchronisiert.", actorCount);
 
-            List<Medikament> medikamenteFromChaincode = medicationFabricService.getAllMedikamente();
             medikamentRepository.deleteAll();
-            medikamentRepository.saveAll(medikamenteFromChaincode);
-            logger.info("{} Medikamente erfolgreich mit der Datenbank synchronisiert.", medikamenteFromChaincode.size());
+            int medikamentCount = medicationFabricService.forEachMedikamentPage(medikamentRepository::saveAll);
+            logger.info("{} Medikamente erfolgreich mit der Datenbank synchronisiert.", medikamentCount);
 
             if (StringUtils.hasText(currentActorId.get())) {
                 synchronizeUnitsForActor(currentActorId.get());
@@ -159,6 +180,13 @@ public class SystemStateService {
 
             JsonNode payload = objectMapper.readTree(event.getPayload());
 
+            // Versionierte Delta-Ereignisse; ältere Blöcke liefern noch vollständige Dokumente und laufen über den Schalter.
+            if (payload.has(PharmaEvent.SCHEMA_VERSION_FIELD)) {
+                handleDeltaEvent(event.getEventName(), objectMapper.treeToValue(payload, PharmaEvent.class));
+                updateAndPersistCheckpoint(event.getBlockNumber());
+                return;
+            }
+
             switch (event.getEventName()) {
                 case ACTOR_INITIALIZED_EVENT, ACTOR_CREATED_EVENT, ACTOR_UPDATED_EVENT, ACTOR_IPFS_LINK_UPDATED_EVENT ->
                         handleActorUpdate(getIdFromPayload(payload, "actorId"));
@@ -176,6 +204,20 @@ public class SystemStateService {
                         handleUnitTransfer(payload);
                 case UNIT_DELETED_EVENT ->
                         handleUnitDelete(getIdFromPayload(payload, "unitId"));
+                case UNITS_CREATED_EVENT ->
+                        handleUnitsCreated(objectMapper.treeToValue(payload, UnitBatchEvent.class));
+                case UNITS_TRANSFERRED_EVENT ->
+                        handleUnitsTransferred(objectMapper.treeToValue(payload, UnitBatchEvent.class));
+                case UNITS_DELETED_EVENT ->
+                        handleUnitsDeleted(objectMapper.treeToValue(payload, UnitBatchEvent.class));
+                case UNITS_CONSUMED_EVENT ->
+                        handleUnitsConsumed(objectMapper.treeToValue(payload, UnitBatchEvent.class));
+                case UNITS_DISPATCHED_EVENT ->
+                        objectMapper.treeToValue(payload, UnitDispatchEvent.class).getTransfers().forEach(this::handleUnitsTransferred);
+                case CONTAINER_PACKED_EVENT ->
+                        handleContainerPacked(objectMapper.treeToValue(payload, ContainerEvent.class));
+                case CONTAINER_TRANSFERRED_EVENT ->
+                        handleContainerTransferred(getIdFromPayload(payload, "containerId"), getIdFromPayload(payload, "toActorId"));
                 default -> logger.warn("Unbehandeltes Ereignis empfangen: {}. Inhalt: {}", event.getEventName(), payload.toString());
             }
 
@@ -205,6 +247,54 @@ public class SystemStateService {
         }
     }
 
+    private void handleDeltaEvent(String eventName, PharmaEvent event) {
+        switch (event.getEntityType()) {
+            case ACTOR_ENTITY -> applyDocumentDelta(event, Actor.class, this::handleActorUpdate, this::handleActorDelete);
+            case MEDIKAMENT_ENTITY -> applyDocumentDelta(event, Medikament.class, this::handleMedikamentUpdate, this::handleMedikamentDelete);
+            case UNIT_ENTITY -> appendUnitTemperature(event);
+            default -> logger.warn("Unbehandeltes Delta-Ereignis empfangen: {} für {} {}.", eventName, event.getEntityType(), event.getEntityId());
+        }
+    }
+
+    // Wendet die geänderten Felder nur an, wenn das gespeicherte Dokument genau die Vorgängerversion hat.
+    // Bei einer Lücke, einem fehlenden Dokument oder einem neuen IPFS-Link wird das Dokument vollständig neu gelesen.
+    private void applyDocumentDelta(PharmaEvent event, Class<?> documentType,
+                                    Consumer<Optional<String>> reload, Consumer<Optional<String>> delete) {
+        Optional<String> entityIdOpt = Optional.ofNullable(event.getEntityId());
+        if (PharmaEvent.DELETED.equals(event.getOperation())) {
+            delete.accept(entityIdOpt);
+            return;
+        }
+        if (event.getChanges().containsKey("ipfsLink")) {
+            reload.accept(entityIdOpt);
+            return;
+        }
+
+        Query query = new Query(Criteria.where("_id").is(event.getEntityId()).and("version").is(event.getVersion() - 1));
+        Update update = new Update().set("version", event.getVersion());
+        event.getChanges().forEach(update::set);
+        if (mongoTemplate.updateFirst(query, update, documentType).getMatchedCount() == 0) {
+            logger.info("Version {} von {} {} passt nicht zum gespeicherten Stand. Lade Dokument neu.",
+                    event.getVersion(), event.getEntityType(), event.getEntityId());
+            reload.accept(entityIdOpt);
+            return;
+        }
+        logger.info("Delta für {} {} auf Version {} angewendet.", event.getEntityType(), event.getEntityId(), event.getVersion());
+    }
+
+    // Messwerte sind über ihren Zeitstempel eindeutig; addToSet macht eine erneute Zustellung wirkungslos.
+    private void appendUnitTemperature(PharmaEvent event) {
+        Unit.TemperatureReading reading = new Unit.TemperatureReading();
+        reading.setTimestamp(Objects.toString(event.getChanges().get("timestamp"), null));
+        reading.setTemperature(Objects.toString(event.getChanges().get("temperature"), null));
+
+        Query query = new Query(Criteria.where("_id").is(event.getEntityId()));
+        Update update = new Update().addToSet("temperatureReadings", reading);
+        if (mongoTemplate.updateFirst(query, update, Unit.class).getMatchedCount() == 0) {
+            handleUnitUpdate(Optional.ofNullable(event.getEntityId()));
+        }
+    }
+
     private void handleActorUpdate(Optional<String> actorIdOpt) {
         actorIdOpt.ifPresent(actorId -> actorFabricService.getEnrichedActorById(actorId).ifPresent(actorFromChaincode -> {
             Optional<Actor> existingActorOpt = actorRepository.findByActorId(actorId);
@@ -215,6 +305,7 @@ public class SystemStateService {
                 actorToSave.setEmail(actorFromChaincode.getEmail());
                 actorToSave.setIpfsLink(actorFromChaincode.getIpfsLink());
                 actorToSave.setIpfsData(actorFromChaincode.getIpfsData());
+                actorToSave.setVersion(actorFromChaincode.getVersion());
             }
             actorRepository.save(actorToSave);
             logger.info("Akteur {} in der Datenbank erstellt/aktualisiert.", actorId);
@@ -240,6 +331,7 @@ public class SystemStateService {
                 medikamentToSave.setApprovedById(medikamentFromChaincode.getApprovedById());
                 medikamentToSave.setTags(medikamentFromChaincode.getTags());
                 medikamentToSave.setIpfsData(medikamentFromChaincode.getIpfsData());
+                medikamentToSave.setVersion(medikamentFromChaincode.getVersion());
             }
             medikamentRepository.save(medikamentToSave);
             logger.info("Medikament {} in der Datenbank erstellt/aktualisiert.", medId);
@@ -270,14 +362,16 @@ public class SystemStateService {
 
         try {
             String idPrefix = exampleUnitId.substring(0, lastDash + 1);
-            int count = Integer.parseInt(exampleUnitId.substring(lastDash + 1));
+            String counterSuffix = exampleUnitId.substring(lastDash + 1);
+            int count = Integer.parseInt(counterSuffix);
+            String counterFormat = "%0" + counterSuffix.length() + "d";
 
             logger.info("Starte Chargen-Erstellung für {} Einheiten mit Präfix '{}'.", count, idPrefix);
 
             List<Unit> batch = new ArrayList<>(count);
             for (int i = 1; i <= count; i++) {
                 Unit newUnit = objectMapper.treeToValue(payload, Unit.class);
-                newUnit.setUnitId(idPrefix + String.format("%04d", i));
+                newUnit.setUnitId(idPrefix + String.format(counterFormat, i));
                 batch.add(newUnit);
             }
 
@@ -321,6 +415,7 @@ public class SystemStateService {
                 unitToSave.setIpfsLink(unitFromChaincode.getIpfsLink());
                 unitToSave.setCurrentOwnerActorId(unitFromChaincode.getCurrentOwnerActorId());
                 unitToSave.setTransferHistory(unitFromChaincode.getTransferHistory());
+                unitToSave.setTransferCount(unitFromChaincode.getTransferCount());
                 unitToSave.setTemperatureReadings(unitFromChaincode.getTemperatureReadings());
                 unitToSave.setConsumed(unitFromChaincode.isConsumed());
                 unitToSave.setConsumedRefId(unitFromChaincode.getConsumedRefId());
@@ -338,6 +433,97 @@ public class SystemStateService {
         });
     }
 
+    private void handleUnitsCreated(UnitBatchEvent event) {
+        List<Unit> batch = new ArrayList<>(event.getUnitCount());
+        for (UnitBatchEvent.ChargeRange range : event.getRanges()) {
+            for (int counter = range.getStart(); counter <= range.getEnd(); counter++) {
+                Unit newUnit = new Unit();
+                newUnit.setUnitId(range.unitId(counter));
+                newUnit.setMedId(range.getMedId());
+                newUnit.setChargeBezeichnung(range.getChargeBezeichnung());
+                newUnit.setIpfsLink(event.getIpfsLink());
+                newUnit.setCurrentOwnerActorId(event.getOwnerActorId());
+                newUnit.setTransferHistory(new ArrayList<>());
+                newUnit.setTemperatureReadings(new ArrayList<>());
+                newUnit.setDocType("unit");
+                batch.add(newUnit);
+            }
+        }
+        unitRepository.saveAll(batch);
+        logger.info("{} Einheiten aus Sammelereignis in der Datenbank erstellt.", batch.size());
+    }
+
+    private void handleUnitsTransferred(UnitBatchEvent event) {
+        Unit.TransferEntry transferEntry = new Unit.TransferEntry();
+        transferEntry.setFromActorId(event.getFromActorId());
+        transferEntry.setToActorId(event.getToActorId());
+        transferEntry.setTimestamp(event.getTimestamp());
+
+        Query query = new Query(Criteria.where("_id").in(event.unitIds()));
+        Update update = new Update()
+                .set("currentOwnerActorId", event.getToActorId())
+                .push("transferHistory", transferEntry)
+                .inc("transferCount", 1)
+                .unset("containerId");
+        long modified = mongoTemplate.updateMulti(query, update, Unit.class).getModifiedCount();
+        logger.info("{} von {} Einheiten aus Sammelereignis an {} übertragen.", modified, event.getUnitCount(), event.getToActorId());
+    }
+
+    // Eingepackte Einheiten behalten ihren Eigentümer; sie werden nur ihrem direkten Container zugeordnet.
+    private void handleContainerPacked(ContainerEvent container) {
+        Query query = new Query(Criteria.where("_id").in(container.unitIds()));
+        long modified = mongoTemplate.updateMulti(query, new Update().set("containerId", container.getContainerId()), Unit.class).getModifiedCount();
+        logger.info("{} Einheiten in Container {} eingepackt.", modified, container.getContainerId());
+    }
+
+    // Der Chaincode schreibt beim Container-Transfer nur den Wurzel-Container; der Eigentümer aller Einheiten
+    // im Container-Baum wird hier nachgezogen. Die Unter-Container werden dafür vom Ledger gelesen.
+    private void handleContainerTransferred(Optional<String> containerIdOpt, Optional<String> toActorIdOpt) {
+        if (containerIdOpt.isEmpty() || toActorIdOpt.isEmpty()) {
+            logger.warn("Ereignis {} ohne Container oder Empfänger erhalten.", CONTAINER_TRANSFERRED_EVENT);
+            return;
+        }
+        try {
+            List<String> containerIds = new ArrayList<>();
+            collectContainerTree(containerIdOpt.get(), containerIds);
+            Query query = new Query(Criteria.where("containerId").in(containerIds));
+            long modified = mongoTemplate.updateMulti(query, new Update().set("currentOwnerActorId", toActorIdOpt.get()), Unit.class).getModifiedCount();
+            logger.info("{} Einheiten aus Container {} an {} übertragen.", modified, containerIdOpt.get(), toActorIdOpt.get());
+        } catch (Exception e) {
+            logger.error("Fehler beim Übertragen der Einheiten aus Container {}: {}", containerIdOpt.get(), e.getMessage(), e);
+        }
+    }
+
+    private void collectContainerTree(String containerId, List<String> containerIds) throws Exception {
+        containerIds.add(containerId);
+        String containerJson = fabricClient.evaluateGenericTransaction("queryContainer", containerId);
+        ContainerEvent container = objectMapper.readValue(containerJson, ContainerEvent.class);
+        for (String childContainerId : container.getChildContainerIds()) {
+            collectContainerTree(childContainerId, containerIds);
+        }
+    }
+
+    private void handleUnitsDeleted(UnitBatchEvent event) {
+        unitRepository.deleteAllById(event.unitIds());
+        logger.info("{} Einheiten aus Sammelereignis aus der Datenbank entfernt.", event.getUnitCount());
+    }
+
+    // Abgegebene Einheiten verlassen die Arbeitsmenge und werden im Archiv abgelegt. Bei erneuter Zustellung
+    // sind sie bereits entfernt, sodass nichts doppelt archiviert wird.
+    private void handleUnitsConsumed(UnitBatchEvent event) {
+        Query query = new Query(Criteria.where("_id").in(event.unitIds()));
+        List<Unit> consumedUnits = mongoTemplate.findAllAndRemove(query, Unit.class);
+        for (Unit unit : consumedUnits) {
+            unit.setConsumed(true);
+            unit.setConsumedRefId(event.getConsumedRefId());
+        }
+        if (!consumedUnits.isEmpty()) {
+            mongoTemplate.insert(consumedUnits, Unit.CONSUMED_COLLECTION);
+        }
+        logger.info("{} von {} abgegebenen Einheiten ins Archiv verschoben (Referenz {}).",
+                consumedUnits.size(), event.getUnitCount(), event.getConsumedRefId());
+    }
+
     @Transactional
     public void reconcileAndCacheActorId(String actorId) {
         if (!Objects.equals(currentActorId.get(), actorId)) {
@@ -358,15 +544,11 @@ public class SystemStateService {
         try {
             logger.info("Starte schnelle Synchronisierung der Einheiten für Akteur {}.", actorId);
 
-            List<Unit> unitsFromChaincode = unitFabricService.getUnitsByOwner(actorId);
-
             unitRepository.deleteByCurrentOwnerActorId(actorId);
 
-            if (!unitsFromChaincode.isEmpty()) {
-                unitRepository.saveAll(unitsFromChaincode);
-            }
+            int unitCount = unitFabricService.forEachUnitPageByOwner(actorId, unitRepository::saveAll);
 
-            logger.info("{} Einheiten für Akteur {} erfolgreich synchronisiert.", unitsFromChaincode.size(), actorId);
+            logger.info("{} Einheiten für Akteur {} erfolgreich synchronisiert.", unitCount, actorId);
 
         } catch (Exception e) {
             logger.error("Fehler bei der Synchronisierung der Einheiten für Akteur {}: {}", actorId, e.getMessage(), e);
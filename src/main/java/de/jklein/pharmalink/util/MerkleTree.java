@@ -0,0 +1,88 @@
+package de.jklein.pharmalink.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Gegenstück zum MerkleTree des Chaincodes: identische Blatt- und Knotenkodierung, damit das Backend
+ * aus den IPFS-Rohdaten Beweise erzeugen kann, die der Chaincode gegen die verankerte Wurzel prüft.
+ */
+public final class MerkleTree {
+
+    public static final String LEFT = "L:";
+    public static final String RIGHT = "R:";
+
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+
+    private MerkleTree() {
+    }
+
+    public static byte[] leafHash(String subjectId, String timestamp, String temperature) {
+        MessageDigest digest = sha256();
+        digest.update(LEAF_PREFIX);
+        digest.update((subjectId + '\n' + timestamp + '\n' + temperature).getBytes(StandardCharsets.UTF_8));
+        return digest.digest();
+    }
+
+    public static byte[] root(List<byte[]> leaves) {
+        if (leaves.isEmpty()) {
+            throw new IllegalArgumentException("Ein Merkle-Baum benötigt mindestens ein Blatt.");
+        }
+        List<byte[]> level = leaves;
+        while (level.size() > 1) {
+            level = nextLevel(level);
+        }
+        return level.get(0);
+    }
+
+    public static List<String> proof(List<byte[]> leaves, int index) {
+        if (index < 0 || index >= leaves.size()) {
+            throw new IllegalArgumentException("Blattindex " + index + " liegt außerhalb des Baums.");
+        }
+        List<String> proof = new ArrayList<>();
+        List<byte[]> level = leaves;
+        int position = index;
+        while (level.size() > 1) {
+            int sibling = position ^ 1;
+            if (sibling < level.size()) {
+                proof.add((sibling < position ? LEFT : RIGHT) + toHex(level.get(sibling)));
+            }
+            level = nextLevel(level);
+            position /= 2;
+        }
+        return proof;
+    }
+
+    public static String toHex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    private static byte[] nodeHash(byte[] left, byte[] right) {
+        MessageDigest digest = sha256();
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        digest.update(right);
+        return digest.digest();
+    }
+
+    private static List<byte[]> nextLevel(List<byte[]> level) {
+        List<byte[]> next = new ArrayList<>((level.size() + 1) / 2);
+        for (int i = 0; i < level.size(); i += 2) {
+            next.add(i + 1 < level.size() ? nodeHash(level.get(i), level.get(i + 1)) : level.get(i));
+        }
+        return next;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 ist nicht verfügbar.", e);
+        }
+    }
+}